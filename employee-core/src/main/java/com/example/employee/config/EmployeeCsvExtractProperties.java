@@ -5,6 +5,8 @@ import lombok.EqualsAndHashCode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * Configuration properties for extracting employee CSV files.
  */
@@ -16,4 +18,24 @@ public class EmployeeCsvExtractProperties extends AbstractEmployeeCsvProperties
     // Inherits all properties from EmployeeCsvProperties
     private String readyToExtractStatus; // Status to filter employees for extraction
     private String extractedStatus;
+    /** Number of claimed employees read and written to the extract file per page. */
+    private int pageSize = 1000;
+    /** How claimed employees are written to the extract file. */
+    private ExtractMode mode = ExtractMode.ENTITY;
+    /** Number of files the extract is split into by id, each written by its own worker; more than one adds a manifest. */
+    private int shards = 1;
+    /** How long an extract run's claim holds before another run may take over the rows, or in CDC mode the batches. */
+    private Duration claimTimeout = Duration.ofHours(1);
+
+    public enum ExtractMode {
+        /** Read employees as entities in pages and write them with OpenCSV. */
+        ENTITY,
+        /** Let PostgreSQL write the CSV with COPY ... TO STDOUT, streamed straight to the file. */
+        COPY,
+        /**
+         * Export only the changes detected by ingests completed since the previous CDC extract, one
+         * row per delta with an operation column. Status, claims and shards are not used.
+         */
+        CDC
+    }
 }
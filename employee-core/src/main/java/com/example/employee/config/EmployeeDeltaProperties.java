@@ -37,6 +37,19 @@ public class EmployeeDeltaProperties {
      */
     private boolean autoCleanupEnabled = true;
     
+    /**
+     * Maximum number of rows removed per delete statement during cleanup.
+     * Each chunk commits on its own so cleanup never holds long locks.
+     */
+    private int cleanupChunkSize = 5000;
+    
+    /**
+     * How long partition maintenance waits for a lock before giving up: cleanup detaching or
+     * dropping a batch partition retries the batch on the next run, and a new batch whose
+     * partitions cannot be attached in time fails to start instead of blocking ingest and reporting.
+     */
+    private Duration partitionLockTimeout = Duration.ofSeconds(5);
+    
     /**
      * Fields to ignore during delta comparison.
      * Changes to these fields will not trigger delta records.
@@ -63,12 +76,63 @@ public class EmployeeDeltaProperties {
      * When true, stores before/after values for changed fields.
      */
     private boolean detailedChangeLogging = true;
+
+    /**
+     * Whether to classify rows as NEW, UPDATED or unchanged while they stream through ingest.
+     * When true, the previous batch is loaded once as an id to fingerprint index instead of
+     * reading both batches' snapshots back after ingest.
+     */
+    private boolean inlineDetection = false;
+
+    /**
+     * How per-batch employee state is stored.
+     * VERSIONED writes a version only when an employee's content changes and always
+     * detects deltas inline against the current versions.
+     */
+    private StorageMode storageMode = StorageMode.SNAPSHOT;
+
+    /**
+     * Number of completed batches between roster checkpoints used by time travel.
+     * Replaying state as of a batch reads at most this many batches of deltas. 0 disables checkpoints.
+     */
+    private int checkpointInterval = 30;
+    
+    /**
+     * Number of employees copied into a roster checkpoint per statement. Each chunk commits
+     * on its own, after the batch's completion has committed.
+     */
+    private int checkpointChunkSize = 10000;
+
+    /**
+     * Cache for on-demand batch-to-batch diffs.
+     */
+    private DiffCache diffCache = new DiffCache();
     
     /**
      * Reporting configuration for delta summaries.
      */
     private Reporting reporting = new Reporting();
     
+    public enum StorageMode {
+        /** A full snapshot of every employee per batch. */
+        SNAPSHOT,
+        /** Versioned (SCD type 2) history with valid-from/valid-to batch bounds. */
+        VERSIONED
+    }
+    
+    @Data
+    public static class DiffCache {
+        /**
+         * Number of recent diff results kept in memory. 0 disables caching.
+         */
+        private int maxEntries = 16;
+        
+        /**
+         * Diffs with more entries than this are streamed but not cached.
+         */
+        private int maxRows = 100000;
+    }
+    
     @Data
     public static class Reporting {
         /**
@@ -97,11 +161,31 @@ public class EmployeeDeltaProperties {
         private boolean generateSummaryReports = true;
         
         /**
-         * Maximum number of delta records to include in a single detailed report.
-         * Large batches will be split into multiple files.
+         * Maximum number of delta records per detailed report file. Larger reports roll over
+         * into numbered part files listed in the report manifest; 0 writes each report as one file.
          */
         private int maxRecordsPerReport = 10000;
         
+        /**
+         * Number of threads writing detailed report part files in parallel.
+         */
+        private int writerThreads = 4;
+        
+        /**
+         * File format of detailed reports.
+         */
+        private ReportFormat format = ReportFormat.CSV;
+        
+        /**
+         * Number of unreported batches whose reports are generated concurrently.
+         */
+        private int parallelBatches = 2;
+        
+        /**
+         * Age after which a batch claimed by a report run that never completed it is claimed again.
+         */
+        private Duration claimTimeout = Duration.ofHours(1);
+        
         /**
          * Whether to include unchanged fields in detailed reports.
          */
@@ -179,5 +263,51 @@ public class EmployeeDeltaProperties {
          * Whether to include detailed delta information in notifications.
          */
         private boolean includeDetails = true;
+        
+        /**
+         * Batches completing within this window of the first one are evaluated together
+         * and produce at most one notification.
+         */
+        private Duration debounceWindow = Duration.ofSeconds(60);
+        
+        /**
+         * Where notifications are delivered.
+         */
+        private SinkType sink = SinkType.LOG;
+        
+        /**
+         * Directory the FILE sink writes notifications to.
+         */
+        private String fileDirectory = "./.data/notifications";
+        
+        /**
+         * URL the WEBHOOK sink posts notifications to.
+         */
+        private String webhookUrl;
+        
+        /**
+         * Connect and request timeout for the WEBHOOK sink.
+         */
+        private Duration webhookTimeout = Duration.ofSeconds(10);
+    }
+    
+    public enum SinkType {
+        /** Write notifications to the application log. */
+        LOG,
+        /** Write each notification as a JSON file, a local stand-in for mail delivery. */
+        FILE,
+        /** POST each notification as JSON to a webhook. */
+        WEBHOOK
+    }
+    
+    public enum ReportFormat {
+        /** Plain CSV with a header row. */
+        CSV,
+        /** Gzip-compressed CSV. */
+        CSV_GZIP,
+        /** One JSON object per line, keyed by column name. */
+        NDJSON,
+        /** Gzip-compressed NDJSON. */
+        NDJSON_GZIP
     }
-}
\ No newline at end of file
+}
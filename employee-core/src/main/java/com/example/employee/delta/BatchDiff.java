@@ -0,0 +1,184 @@
+package com.example.employee.delta;
+
+import com.example.employee.entity.EmployeeDelta;
+import com.example.employee.entity.EmployeeSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Net difference between the rosters of two batches.
+ * Only employees touched by a delta between the two batches can differ, so the deltas are
+ * folded first into each touched employee's final state; the start roster is then streamed
+ * through {@link #before(EmployeeSnapshot)}, which keeps just the touched employees. Memory
+ * grows with the number of changed employees, never with the roster size.
+ * Once {@link #complete(EmployeeFieldComparator)} is called the diff is immutable.
+ */
+public final class BatchDiff {
+
+    private final String fromBatchId;
+    private final String toBatchId;
+    private final LocalDateTime computedDate;
+
+    private NavigableMap<Long, Change> touched = new TreeMap<>();
+    private List<EmployeeDelta> deltas;
+    private int newCount;
+    private int updatedCount;
+    private int deletedCount;
+
+    public BatchDiff(String fromBatchId, String toBatchId, LocalDateTime computedDate) {
+        this.fromBatchId = fromBatchId;
+        this.toBatchId = toBatchId;
+        this.computedDate = computedDate;
+    }
+
+    /**
+     * Applies a delta row between the two batches, in batch order:
+     * (employeeId, deltaType, currentName, currentAge, currentStatus, currentDob).
+     */
+    public void apply(Object[] row) {
+        Change change = touched.computeIfAbsent(((Number) row[0]).longValue(), id -> new Change());
+        change.after = row[1] == EmployeeDelta.DeltaType.DELETED ? null
+                : new Object[]{row[2], row[3], row[4], row[5]};
+    }
+
+    public boolean hasChanges() {
+        return !touched.isEmpty();
+    }
+
+    /**
+     * Records an employee's state at the start batch; employees untouched since are skipped.
+     */
+    public void before(EmployeeSnapshot snapshot) {
+        Change change = touched.get(snapshot.getEmployeeId());
+        if (change != null) {
+            change.before = snapshot;
+        }
+    }
+
+    /**
+     * Resolves the touched employees into NEW, UPDATED and DELETED entries in employee order.
+     * Employees whose compared fields ended where they started are dropped, fingerprint first.
+     */
+    public BatchDiff complete(EmployeeFieldComparator comparator) {
+        List<EmployeeDelta> resolved = new ArrayList<>();
+        for (Map.Entry<Long, Change> entry : touched.entrySet()) {
+            EmployeeDelta delta = resolve(entry.getKey(), entry.getValue(), comparator);
+            if (delta != null) {
+                resolved.add(delta);
+            }
+        }
+        deltas = Collections.unmodifiableList(resolved);
+        touched = null;
+        return this;
+    }
+
+    private EmployeeDelta resolve(long employeeId, Change change, EmployeeFieldComparator comparator) {
+        EmployeeSnapshot before = change.before;
+        EmployeeSnapshot after = change.after == null ? null : change.afterSnapshot(employeeId);
+        if (before == null && after == null) {
+            return null;
+        }
+        EmployeeDelta delta = new EmployeeDelta();
+        delta.setEmployeeId(employeeId);
+        delta.setBatchId(toBatchId);
+        delta.setPreviousBatchId(fromBatchId);
+        delta.setDetectedDate(computedDate);
+        if (before == null) {
+            delta.setDeltaType(EmployeeDelta.DeltaType.NEW);
+            newCount++;
+        } else if (after == null) {
+            delta.setDeltaType(EmployeeDelta.DeltaType.DELETED);
+            deletedCount++;
+        } else {
+            if (EmployeeFingerprint.of(before) == EmployeeFingerprint.of(after)) {
+                return null;
+            }
+            int changed = comparator.changedFields(after, before);
+            if (changed == 0) {
+                return null;
+            }
+            delta.setDeltaType(EmployeeDelta.DeltaType.UPDATED);
+            delta.setChangedFieldsMask(changed);
+            updatedCount++;
+        }
+        if (before != null) {
+            delta.setPreviousName(before.getName());
+            delta.setPreviousAge(before.getAge());
+            delta.setPreviousStatus(before.getStatus());
+            delta.setPreviousDob(before.getDob());
+        }
+        if (after != null) {
+            delta.setCurrentName(after.getName());
+            delta.setCurrentAge(after.getAge());
+            delta.setCurrentStatus(after.getStatus());
+            delta.setCurrentDob(after.getDob());
+        }
+        return delta;
+    }
+
+    /**
+     * Emits every entry in employee order.
+     */
+    public void forEach(Consumer<EmployeeDelta> sink) {
+        requireComplete().forEach(sink);
+    }
+
+    public int size() {
+        return requireComplete().size();
+    }
+
+    public String getFromBatchId() {
+        return fromBatchId;
+    }
+
+    public String getToBatchId() {
+        return toBatchId;
+    }
+
+    public LocalDateTime getComputedDate() {
+        return computedDate;
+    }
+
+    public int getNewCount() {
+        return newCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    private List<EmployeeDelta> requireComplete() {
+        if (deltas == null) {
+            throw new IllegalStateException("Batch diff has not been completed");
+        }
+        return deltas;
+    }
+
+    private static final class Change {
+        private EmployeeSnapshot before;
+        /** (name, age, status, dob) at the end batch, null if the employee is absent there. */
+        private Object[] after;
+
+        private EmployeeSnapshot afterSnapshot(long employeeId) {
+            EmployeeSnapshot snapshot = new EmployeeSnapshot();
+            snapshot.setEmployeeId(employeeId);
+            snapshot.setName((String) after[0]);
+            snapshot.setAge((Integer) after[1]);
+            snapshot.setStatus((String) after[2]);
+            snapshot.setDob((Date) after[3]);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.employee.delta;
+
+/**
+ * Published by retention once a batch and its snapshots and deltas have been removed, so
+ * in-memory caches keyed by the batch can drop it.
+ */
+public record DeltaBatchPurgedEvent(String batchId) {}
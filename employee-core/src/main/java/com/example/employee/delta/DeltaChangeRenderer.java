@@ -0,0 +1,81 @@
+package com.example.employee.delta;
+
+import com.example.employee.entity.EmployeeDelta;
+
+/**
+ * Renders the human-readable parts of a delta (changed field list and change summary)
+ * from its stored values. Deltas persist only a changed-fields bitmask, so this text is
+ * produced on read by the API and reports instead of once per delta during detection.
+ */
+public final class DeltaChangeRenderer {
+
+    private DeltaChangeRenderer() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Renders a changed-fields mask as a JSON array of field names, e.g. {@code ["name","age"]}.
+     *
+     * @return the JSON array, or null if the mask is null
+     */
+    public static String changedFieldsJson(Integer mask) {
+        if (mask == null) {
+            return null;
+        }
+        StringBuilder json = new StringBuilder(32).append('[');
+        for (TrackedField field : TrackedField.values()) {
+            if (field.isSet(mask)) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append('"').append(field.getFieldName()).append('"');
+            }
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Renders the change summary for a delta from its previous and current values.
+     */
+    public static String summary(EmployeeDelta delta) {
+        if (delta.getDeltaType() == null) {
+            return null;
+        }
+        StringBuilder summary = new StringBuilder(96);
+        switch (delta.getDeltaType()) {
+            case NEW -> summary.append("New employee added: ").append(delta.getCurrentName())
+                    .append(" (ID: ").append(delta.getEmployeeId()).append(')');
+            case DELETED -> summary.append("Employee deleted: ").append(delta.getPreviousName())
+                    .append(" (ID: ").append(delta.getEmployeeId()).append(')');
+            case UPDATED -> {
+                summary.append("Employee updated: ").append(delta.getCurrentName())
+                        .append(" (ID: ").append(delta.getEmployeeId()).append(") - ");
+                int mask = delta.getChangedFieldsMask() != null ? delta.getChangedFieldsMask() : 0;
+                boolean first = true;
+                for (TrackedField field : TrackedField.values()) {
+                    if (field.isSet(mask)) {
+                        if (!first) {
+                            summary.append(", ");
+                        }
+                        appendChange(summary, field, delta);
+                        first = false;
+                    }
+                }
+            }
+        }
+        return summary.toString();
+    }
+
+    private static void appendChange(StringBuilder summary, TrackedField field, EmployeeDelta delta) {
+        switch (field) {
+            case NAME -> summary.append("name: '").append(delta.getPreviousName())
+                    .append("' -> '").append(delta.getCurrentName()).append('\'');
+            case AGE -> summary.append("age: ").append(delta.getPreviousAge())
+                    .append(" -> ").append(delta.getCurrentAge());
+            case STATUS -> summary.append("status: '").append(delta.getPreviousStatus())
+                    .append("' -> '").append(delta.getCurrentStatus()).append('\'');
+            case DOB -> summary.append("dob: ").append(delta.getPreviousDob())
+                    .append(" -> ").append(delta.getCurrentDob());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.employee.delta;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.entity.EmployeeIngestBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Manages the per-batch partitions of {@code employee_snapshot} and {@code employee_delta}.
+ * Both tables are LIST-partitioned by batch_id; each batch owns one partition per table,
+ * named after the batch's numeric id (e.g. {@code employee_snapshot_b42}).
+ */
+@Component
+public class DeltaPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(DeltaPartitionManager.class);
+
+    public static final String SNAPSHOT_TABLE = "employee_snapshot";
+    public static final String DELTA_TABLE = "employee_delta";
+
+    private static final List<String> PARTITIONED_TABLES = List.of(SNAPSHOT_TABLE, DELTA_TABLE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmployeeDeltaProperties deltaProperties;
+
+    public DeltaPartitionManager(JdbcTemplate jdbcTemplate, EmployeeDeltaProperties deltaProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.deltaProperties = deltaProperties;
+    }
+
+    /**
+     * Creates the batch's partitions. Each partition is created as a standalone table and then
+     * attached with {@code ATTACH PARTITION}, which only takes a SHARE UPDATE EXCLUSIVE lock on
+     * the parent, so batches being written or read concurrently are not blocked (CREATE TABLE
+     * ... PARTITION OF would take an ACCESS EXCLUSIVE lock). The attach gives up after the
+     * configured lock timeout. Runs in the caller's transaction, so the partitions only exist
+     * if the batch row is committed too.
+     *
+     * @param batch a saved batch (its id must be assigned)
+     */
+    public void createPartitions(EmployeeIngestBatch batch) {
+        String lockTimeout = deltaProperties.getPartitionLockTimeout().toMillis() + "ms";
+        for (String table : PARTITIONED_TABLES) {
+            String partition = partitionName(table, batch);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition
+                    + " (LIKE " + table + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            if (isAttached(partition)) {
+                continue;
+            }
+            // SET LOCAL is scoped to the caller's transaction; restore the default for its remaining statements
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeout + "'");
+            jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + partition
+                    + " FOR VALUES IN (" + literal(batch.getBatchId()) + ")");
+            jdbcTemplate.execute("SET LOCAL lock_timeout TO DEFAULT");
+        }
+        log.debug("Created partitions for batch: {}", batch.getBatchId());
+    }
+
+    /**
+     * Drops the batch's partition of a table. The partition is first detached with
+     * {@code DETACH PARTITION ... CONCURRENTLY}, which only takes a SHARE UPDATE EXCLUSIVE lock
+     * on the parent, so writers and readers of other batches are not blocked; the detached
+     * table is then dropped. Both statements give up after the configured lock timeout.
+     * CONCURRENTLY cannot run inside a transaction, so neither can this method. A detach left
+     * pending by an interrupted run is finalized.
+     *
+     * @return the planner's row estimate for the dropped partition, or -1 if the batch has
+     *         no partition of its own (its rows live in a shared partition and must be deleted)
+     */
+    public long dropPartition(String table, EmployeeIngestBatch batch) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Partitions are detached concurrently, which cannot run inside a transaction");
+        }
+        String partition = partitionName(table, batch);
+        List<Long> estimate = jdbcTemplate.queryForList(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, partition);
+        if (estimate.isEmpty()) {
+            return -1;
+        }
+        String detach = detachStatement(table, partition);
+        String lockTimeout = deltaProperties.getPartitionLockTimeout().toMillis() + "ms";
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET lock_timeout = '" + lockTimeout + "'");
+                try {
+                    if (detach != null) {
+                        statement.execute(detach);
+                    }
+                    statement.execute("DROP TABLE IF EXISTS " + partition);
+                } finally {
+                    // The connection goes back to the pool
+                    statement.execute("RESET lock_timeout");
+                }
+            }
+            return null;
+        });
+        log.debug("Dropped partition: {}", partition);
+        // reltuples is -1 for tables that were never analyzed
+        return Math.max(0, estimate.get(0));
+    }
+
+    /**
+     * Returns the statement detaching a partition, or null if it is no longer attached.
+     */
+    private String detachStatement(String table, String partition) {
+        List<Boolean> detachPending = detachPending(partition);
+        if (detachPending.isEmpty()) {
+            return null;
+        }
+        String detach = "ALTER TABLE " + table + " DETACH PARTITION " + partition;
+        return detach + (Boolean.TRUE.equals(detachPending.get(0)) ? " FINALIZE" : " CONCURRENTLY");
+    }
+
+    private boolean isAttached(String partition) {
+        return !detachPending(partition).isEmpty();
+    }
+
+    /**
+     * Returns the partition's detach-pending flag, or an empty list if it is not attached.
+     */
+    private List<Boolean> detachPending(String partition) {
+        return jdbcTemplate.queryForList(
+                "SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass(?)", Boolean.class, partition);
+    }
+
+    /**
+     * Returns the partition name of a batch within a partitioned table.
+     */
+    public static String partitionName(String table, EmployeeIngestBatch batch) {
+        if (batch.getId() == null) {
+            throw new IllegalArgumentException("Batch must be saved before its partitions are managed: " + batch.getBatchId());
+        }
+        return table + "_b" + batch.getId();
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
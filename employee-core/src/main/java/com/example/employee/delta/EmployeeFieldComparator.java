@@ -0,0 +1,91 @@
+package com.example.employee.delta;
+
+import com.example.employee.entity.EmployeeSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Compares two snapshots of the same employee over the fields enabled by configuration.
+ * The enabled set is compiled once into a bitmask; each comparison is a handful of
+ * branch-and-equals checks and allocates nothing.
+ */
+public final class EmployeeFieldComparator {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeFieldComparator.class);
+
+    private final int enabledMask;
+
+    private EmployeeFieldComparator(int enabledMask) {
+        this.enabledMask = enabledMask;
+    }
+
+    /**
+     * Compiles a comparator that skips the given fields.
+     * Names that are not tracked fields (e.g. transactionId, createdDate) are never compared and are ignored here.
+     *
+     * @param ignoredFields field names excluded from comparison, may be null
+     * @return the compiled comparator
+     */
+    public static EmployeeFieldComparator compile(Collection<String> ignoredFields) {
+        int mask = TrackedField.ALL;
+        if (ignoredFields != null) {
+            for (String name : ignoredFields) {
+                TrackedField field = TrackedField.fromFieldName(name);
+                if (field != null) {
+                    mask &= ~field.getBit();
+                } else {
+                    log.debug("Ignored field '{}' is not a compared field", name);
+                }
+            }
+        }
+        return new EmployeeFieldComparator(mask);
+    }
+
+    /**
+     * @return mask of the fields this comparator checks
+     */
+    public int getEnabledMask() {
+        return enabledMask;
+    }
+
+    /**
+     * Returns true if at least one field is compared.
+     */
+    public boolean comparesAnyField() {
+        return enabledMask != 0;
+    }
+
+    /**
+     * Compares the enabled fields of two snapshots.
+     *
+     * @return mask of {@link TrackedField} bits that differ, 0 if none
+     */
+    public int changedFields(EmployeeSnapshot current, EmployeeSnapshot previous) {
+        int mask = enabledMask;
+        int changed = 0;
+        if ((mask & TrackedField.NAME.getBit()) != 0 && !Objects.equals(current.getName(), previous.getName())) {
+            changed |= TrackedField.NAME.getBit();
+        }
+        if ((mask & TrackedField.AGE.getBit()) != 0 && !Objects.equals(current.getAge(), previous.getAge())) {
+            changed |= TrackedField.AGE.getBit();
+        }
+        if ((mask & TrackedField.STATUS.getBit()) != 0 && !Objects.equals(current.getStatus(), previous.getStatus())) {
+            changed |= TrackedField.STATUS.getBit();
+        }
+        if ((mask & TrackedField.DOB.getBit()) != 0 && !sameInstant(current.getDob(), previous.getDob())) {
+            changed |= TrackedField.DOB.getBit();
+        }
+        return changed;
+    }
+
+    private static boolean sameInstant(Date a, Date b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getTime() == b.getTime();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.employee.delta;
+
+import com.example.employee.entity.Employee;
+import com.example.employee.entity.EmployeeSnapshot;
+
+import java.util.Date;
+
+/**
+ * Computes a stable 64-bit fingerprint over the tracked employee fields (name, age, status, dob).
+ * Two records with equal fingerprints are treated as unchanged; differing fingerprints mark a
+ * candidate update that is confirmed by a field-by-field comparison.
+ */
+public final class EmployeeFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private EmployeeFingerprint() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static long of(Employee employee) {
+        return of(employee.getName(), employee.getAge(), employee.getStatus(), employee.getDob());
+    }
+
+    public static long of(EmployeeSnapshot snapshot) {
+        return of(snapshot.getName(), snapshot.getAge(), snapshot.getStatus(), snapshot.getDob());
+    }
+
+    public static long of(String name, Integer age, String status, Date dob) {
+        long h = FNV_OFFSET_BASIS;
+        h = mix(h, name);
+        h = age == null ? mix(h, 0L) : mix(mix(h, 1L), age);
+        h = mix(h, status);
+        h = dob == null ? mix(h, 0L) : mix(mix(h, 1L), dob.getTime());
+        return finish(h);
+    }
+
+    private static long mix(long h, String value) {
+        if (value == null) {
+            return mix(h, 0L);
+        }
+        h = mix(mix(h, 1L), value.length());
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        h ^= value;
+        h *= FNV_PRIME;
+        return h;
+    }
+
+    /** MurmurHash3 fmix64 finalizer, spreads the FNV state over all 64 bits. */
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.employee.delta;
+
+import java.util.BitSet;
+import java.util.function.LongConsumer;
+
+/**
+ * Compact employee id to fingerprint index for the previous batch.
+ * Uses open addressing over primitive arrays so a roster of millions of ids costs
+ * roughly 16 bytes per entry, and tracks which ids were seen in the current batch
+ * in a bitmap so DELETED ids can be enumerated once ingest finishes.
+ *
+ * <p>Not thread-safe; one index belongs to a single ingest run.
+ */
+public final class EmployeeFingerprintIndex {
+
+    /**
+     * Outcome of matching a current-batch row against the previous batch.
+     */
+    public enum Match {
+        /** Id not present in the previous batch. */
+        ABSENT,
+        /** Id present with a different fingerprint. */
+        CHANGED,
+        /** Id present with an identical fingerprint. */
+        UNCHANGED
+    }
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private long[] fingerprints;
+    private BitSet occupied;
+    private BitSet seen;
+    private int mask;
+    private int size;
+    private int seenCount;
+
+    public EmployeeFingerprintIndex() {
+        this(1024);
+    }
+
+    public EmployeeFingerprintIndex(int expectedSize) {
+        allocate(tableSizeFor(Math.max(expectedSize, 16)));
+    }
+
+    /**
+     * Adds or replaces the fingerprint for an employee id.
+     */
+    public void put(long employeeId, long fingerprint) {
+        if (size + 1 > (int) (keys.length * LOAD_FACTOR)) {
+            rehash(keys.length << 1);
+        }
+        int slot = slotOf(employeeId);
+        if (!occupied.get(slot)) {
+            occupied.set(slot);
+            keys[slot] = employeeId;
+            size++;
+        }
+        fingerprints[slot] = fingerprint;
+    }
+
+    /**
+     * Matches a current-batch row and records the id as seen.
+     *
+     * @param employeeId  the employee id from the current batch
+     * @param fingerprint the fingerprint of the current row
+     * @return how the row relates to the previous batch
+     */
+    public Match markSeen(long employeeId, long fingerprint) {
+        int slot = slotOf(employeeId);
+        if (!occupied.get(slot)) {
+            return Match.ABSENT;
+        }
+        if (!seen.get(slot)) {
+            seen.set(slot);
+            seenCount++;
+        }
+        return fingerprints[slot] == fingerprint ? Match.UNCHANGED : Match.CHANGED;
+    }
+
+    /**
+     * Visits every previous-batch id that was never passed to {@link #markSeen}.
+     */
+    public void forEachUnseen(LongConsumer action) {
+        for (int slot = occupied.nextSetBit(0); slot >= 0; slot = occupied.nextSetBit(slot + 1)) {
+            if (!seen.get(slot)) {
+                action.accept(keys[slot]);
+            }
+        }
+    }
+
+    public boolean contains(long employeeId) {
+        return occupied.get(slotOf(employeeId));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int unseenCount() {
+        return size - seenCount;
+    }
+
+    /**
+     * Returns the slot holding the key, or the empty slot where it would be inserted.
+     */
+    private int slotOf(long employeeId) {
+        int slot = hash(employeeId) & mask;
+        while (occupied.get(slot) && keys[slot] != employeeId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldFingerprints = fingerprints;
+        BitSet oldOccupied = occupied;
+        BitSet oldSeen = seen;
+        allocate(newCapacity);
+        for (int old = oldOccupied.nextSetBit(0); old >= 0; old = oldOccupied.nextSetBit(old + 1)) {
+            int slot = slotOf(oldKeys[old]);
+            occupied.set(slot);
+            keys[slot] = oldKeys[old];
+            fingerprints[slot] = oldFingerprints[old];
+            if (oldSeen.get(old)) {
+                seen.set(slot);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        fingerprints = new long[capacity];
+        occupied = new BitSet(capacity);
+        seen = new BitSet(capacity);
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(expectedSize / (double) LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
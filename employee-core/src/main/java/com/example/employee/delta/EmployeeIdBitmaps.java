@@ -0,0 +1,77 @@
+package com.example.employee.delta;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Converts the compressed employee id sets kept per ingest batch to and from their stored form.
+ * Dense id ranges compress to a few bits per employee, and set differences between two
+ * batches run container by container instead of over boxed hash sets.
+ */
+public final class EmployeeIdBitmaps {
+
+    private EmployeeIdBitmaps() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static Roaring64NavigableMap empty() {
+        return new Roaring64NavigableMap();
+    }
+
+    /**
+     * @return the ids in {@code left} but not in {@code right}; neither argument is modified
+     */
+    public static Roaring64NavigableMap andNot(Roaring64NavigableMap left, Roaring64NavigableMap right) {
+        Roaring64NavigableMap result = copy(left);
+        result.andNot(right);
+        return result;
+    }
+
+    /**
+     * @return the ids in both sets; neither argument is modified
+     */
+    public static Roaring64NavigableMap and(Roaring64NavigableMap left, Roaring64NavigableMap right) {
+        Roaring64NavigableMap result = copy(left);
+        result.and(right);
+        return result;
+    }
+
+    public static byte[] serialize(Roaring64NavigableMap ids) {
+        ids.runOptimize();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE, ids.serializedSizeInBytes()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            ids.serialize(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize employee id bitmap", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the id set, or null if nothing was stored
+     */
+    public static Roaring64NavigableMap deserialize(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        Roaring64NavigableMap ids = new Roaring64NavigableMap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(stored))) {
+            ids.deserialize(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to deserialize employee id bitmap", e);
+        }
+        return ids;
+    }
+
+    private static Roaring64NavigableMap copy(Roaring64NavigableMap source) {
+        Roaring64NavigableMap copy = new Roaring64NavigableMap();
+        copy.or(source);
+        return copy;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.employee.delta;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * State carried through a single ingest run when deltas are detected inline.
+ * Holds the previous batch's fingerprint index and running counts per delta type.
+ * In versioned storage the index holds the current employee versions instead, and
+ * the session also carries the batch's ordinal used as the version bound.
+ */
+public class InlineDeltaSession {
+
+    private final String batchId;
+    private final String previousBatchId;
+    private final EmployeeFingerprintIndex previousState;
+    private final Long versionBatch;
+    private final Roaring64NavigableMap seenIds = EmployeeIdBitmaps.empty();
+    private int newCount;
+    private int updatedCount;
+    private int deletedCount;
+
+    /**
+     * @param batchId         the batch being ingested
+     * @param previousBatchId the batch compared against, or null if this is the first batch
+     * @param previousState   fingerprints of the previous batch, or null if this is the first batch
+     */
+    public InlineDeltaSession(String batchId, String previousBatchId, EmployeeFingerprintIndex previousState) {
+        this(batchId, previousBatchId, previousState, null);
+    }
+
+    /**
+     * @param batchId         the batch being ingested
+     * @param previousBatchId the most recent completed batch, or null if this is the first batch
+     * @param previousState   fingerprints of the previous state
+     * @param versionBatch    ingest batch id that versions written by this run start at,
+     *                        or null when snapshots are stored instead of versions
+     */
+    public InlineDeltaSession(String batchId, String previousBatchId, EmployeeFingerprintIndex previousState,
+                              Long versionBatch) {
+        this.batchId = batchId;
+        this.previousBatchId = previousBatchId;
+        this.previousState = previousState;
+        this.versionBatch = versionBatch;
+    }
+
+    public boolean hasPreviousBatch() {
+        return previousState != null;
+    }
+
+    public boolean isVersioned() {
+        return versionBatch != null;
+    }
+
+    /**
+     * Records an employee as present in the batch being ingested.
+     *
+     * @return false if the employee was already seen earlier in the batch
+     */
+    public boolean addSeen(long employeeId) {
+        if (seenIds.contains(employeeId)) {
+            return false;
+        }
+        seenIds.addLong(employeeId);
+        return true;
+    }
+
+    public void addNew(int count) { newCount += count; }
+    public void addUpdated(int count) { updatedCount += count; }
+    public void addDeleted(int count) { deletedCount += count; }
+
+    // Getters
+    public String getBatchId() { return batchId; }
+    public String getPreviousBatchId() { return previousBatchId; }
+    public EmployeeFingerprintIndex getPreviousState() { return previousState; }
+    public Long getVersionBatch() { return versionBatch; }
+    public Roaring64NavigableMap getSeenIds() { return seenIds; }
+    public int getNewCount() { return newCount; }
+    public int getUpdatedCount() { return updatedCount; }
+    public int getDeletedCount() { return deletedCount; }
+    public int getTotalCount() { return newCount + updatedCount + deletedCount; }
+}
@@ -0,0 +1,119 @@
+package com.example.employee.delta;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.entity.EmployeeCheckpoint;
+import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.repo.EmployeeCheckpointEntryRepository;
+import com.example.employee.repo.EmployeeCheckpointRepository;
+import com.example.employee.repo.EmployeeIngestBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Writes the roster checkpoints used by time travel. A checkpoint is written after its batch's
+ * completion has committed, copying the batch's snapshots (or the versions valid at the batch)
+ * in chunks of {@code checkpointChunkSize} employees that each commit on their own, so neither
+ * the completing transaction nor any single statement copies the whole roster. The checkpoint's
+ * employee count is only set once every chunk is copied; until then replay and retention ignore it.
+ */
+@Component
+public class RosterCheckpointWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(RosterCheckpointWriter.class);
+
+    private final EmployeeIngestBatchRepository batchRepository;
+    private final EmployeeCheckpointRepository checkpointRepository;
+    private final EmployeeCheckpointEntryRepository checkpointEntryRepository;
+    private final EmployeeDeltaProperties deltaProperties;
+
+    public RosterCheckpointWriter(EmployeeIngestBatchRepository batchRepository,
+                                  EmployeeCheckpointRepository checkpointRepository,
+                                  EmployeeCheckpointEntryRepository checkpointEntryRepository,
+                                  EmployeeDeltaProperties deltaProperties) {
+        this.batchRepository = batchRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.checkpointEntryRepository = checkpointEntryRepository;
+        this.deltaProperties = deltaProperties;
+    }
+
+    /**
+     * Takes a roster checkpoint at a completed batch when none exists yet or checkpointInterval
+     * completed batches have passed since the last one. A checkpoint that fails halfway is
+     * discarded and the next completed batch takes one instead; the batch itself is unaffected.
+     *
+     * @return the checkpoint written, or empty if none was due or it could not be written
+     */
+    public Optional<EmployeeCheckpoint> writeIfDue(String batchId) {
+        if (deltaProperties.getCheckpointInterval() < 1) {
+            return Optional.empty();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Checkpoints are copied in chunks that commit on their own, which cannot run inside a transaction");
+        }
+        EmployeeIngestBatch batch = batchRepository.findByBatchId(batchId).orElse(null);
+        if (batch == null || batch.getStatus() != EmployeeIngestBatch.IngestStatus.COMPLETED) {
+            return Optional.empty();
+        }
+        Optional<EmployeeCheckpoint> latest = checkpointRepository.findFirstByEmployeeCountIsNotNullOrderByIngestBatchIdDesc();
+        if (latest.isPresent() && batchRepository.countByStatusAndIdGreaterThan(
+                EmployeeIngestBatch.IngestStatus.COMPLETED, latest.get().getIngestBatchId()) < deltaProperties.getCheckpointInterval()) {
+            return Optional.empty();
+        }
+
+        EmployeeCheckpoint checkpoint = new EmployeeCheckpoint();
+        checkpoint.setIngestBatchId(batch.getId());
+        checkpoint.setBatchId(batch.getBatchId());
+        checkpoint.setCreatedDate(LocalDateTime.now());
+        checkpoint = checkpointRepository.save(checkpoint);
+        try {
+            long start = System.currentTimeMillis();
+            checkpoint.setEmployeeCount(copyRoster(checkpoint, batch));
+            checkpoint = checkpointRepository.save(checkpoint);
+            log.info("Created roster checkpoint of {} employees at batch: {} in {} ms",
+                    checkpoint.getEmployeeCount(), batchId, System.currentTimeMillis() - start);
+            return Optional.of(checkpoint);
+        } catch (RuntimeException e) {
+            log.warn("Failed to create roster checkpoint at batch: {}; the next completed batch will take one", batchId, e);
+            discard(checkpoint);
+            return Optional.empty();
+        }
+    }
+
+    private int copyRoster(EmployeeCheckpoint checkpoint, EmployeeIngestBatch batch) {
+        int chunkSize = Math.max(1, deltaProperties.getCheckpointChunkSize());
+        boolean versioned = deltaProperties.getStorageMode() == EmployeeDeltaProperties.StorageMode.VERSIONED;
+        Long checkpointId = checkpoint.getId();
+        long afterEmployeeId = Long.MIN_VALUE;
+        int total = 0;
+        int copied;
+        do {
+            copied = versioned
+                    ? checkpointEntryRepository.copyChunkFromVersions(checkpointId, batch.getId(), afterEmployeeId, chunkSize)
+                    : checkpointEntryRepository.copyChunkFromSnapshots(checkpointId, batch.getBatchId(), afterEmployeeId, chunkSize);
+            total += copied;
+            if (copied > 0) {
+                afterEmployeeId = checkpointEntryRepository.findMaxEmployeeIdByCheckpointId(checkpointId);
+            }
+        } while (copied >= chunkSize);
+        return total;
+    }
+
+    private void discard(EmployeeCheckpoint checkpoint) {
+        try {
+            int chunkSize = Math.max(1, deltaProperties.getCleanupChunkSize());
+            int deleted;
+            do {
+                deleted = checkpointEntryRepository.deleteChunkByCheckpointId(checkpoint.getId(), chunkSize);
+            } while (deleted >= chunkSize);
+            checkpointRepository.delete(checkpoint);
+        } catch (RuntimeException e) {
+            // Incomplete checkpoints are never used, and retention removes them once they are old enough
+            log.warn("Failed to discard incomplete roster checkpoint at batch: {}", checkpoint.getBatchId(), e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.employee.delta;
+
+import com.example.employee.entity.EmployeeDelta;
+import com.example.employee.entity.EmployeeSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Rebuilds roster state by replaying deltas on top of a checkpoint.
+ * Deltas are folded into their net effect per employee first (the last change wins),
+ * then merged with the checkpoint roster read in employee order, so memory grows with
+ * the number of employees changed since the checkpoint rather than the roster size.
+ * Replayed without a checkpoint, every employee is a change and memory grows with the roster.
+ */
+public final class RosterReplay {
+
+    /** Marks an employee deleted since the checkpoint. */
+    private static final EmployeeSnapshot DELETED = new EmployeeSnapshot();
+
+    private final String batchId;
+    private final LocalDateTime asOf;
+    private final NavigableMap<Long, EmployeeSnapshot> changes = new TreeMap<>();
+
+    /**
+     * @param batchId the batch the roster is rebuilt for, set on every emitted snapshot
+     * @param asOf    the batch's ingest date, used as the emitted snapshot date
+     */
+    public RosterReplay(String batchId, LocalDateTime asOf) {
+        this.batchId = batchId;
+        this.asOf = asOf;
+    }
+
+    /**
+     * Applies one delta; deltas must be applied in batch order.
+     */
+    public void apply(long employeeId, EmployeeDelta.DeltaType type,
+                      String name, Integer age, String status, Date dob) {
+        if (type == EmployeeDelta.DeltaType.DELETED) {
+            changes.put(employeeId, DELETED);
+        } else {
+            changes.put(employeeId, snapshot(employeeId, name, age, status, dob));
+        }
+    }
+
+    /**
+     * Applies a delta row as returned by the replay queries:
+     * (employeeId, deltaType, currentName, currentAge, currentStatus, currentDob).
+     */
+    public void apply(Object[] row) {
+        apply(((Number) row[0]).longValue(), (EmployeeDelta.DeltaType) row[1],
+                (String) row[2], (Integer) row[3], (String) row[4], (Date) row[5]);
+    }
+
+    public int changedCount() {
+        return changes.size();
+    }
+
+    /**
+     * Merges the checkpoint roster with the replayed changes and emits the result in employee order.
+     *
+     * @param checkpointRows (employeeId, name, age, status, dob) rows in ascending employee order
+     * @param sink           receives the rebuilt state of every employee present
+     * @return number of employees emitted
+     */
+    public long emit(Iterator<Object[]> checkpointRows, Consumer<EmployeeSnapshot> sink) {
+        long emitted = 0;
+        Iterator<Map.Entry<Long, EmployeeSnapshot>> pending = changes.entrySet().iterator();
+        Map.Entry<Long, EmployeeSnapshot> change = pending.hasNext() ? pending.next() : null;
+
+        while (checkpointRows.hasNext()) {
+            Object[] row = checkpointRows.next();
+            long employeeId = ((Number) row[0]).longValue();
+            // Changes for employees absent from the checkpoint come first
+            while (change != null && change.getKey() < employeeId) {
+                emitted += emitChange(change, sink);
+                change = pending.hasNext() ? pending.next() : null;
+            }
+            if (change != null && change.getKey() == employeeId) {
+                emitted += emitChange(change, sink);
+                change = pending.hasNext() ? pending.next() : null;
+            } else {
+                sink.accept(snapshot(employeeId, (String) row[1], (Integer) row[2], (String) row[3], (Date) row[4]));
+                emitted++;
+            }
+        }
+        while (change != null) {
+            emitted += emitChange(change, sink);
+            change = pending.hasNext() ? pending.next() : null;
+        }
+        return emitted;
+    }
+
+    private static int emitChange(Map.Entry<Long, EmployeeSnapshot> change, Consumer<EmployeeSnapshot> sink) {
+        if (change.getValue() == DELETED) {
+            return 0;
+        }
+        sink.accept(change.getValue());
+        return 1;
+    }
+
+    private EmployeeSnapshot snapshot(long employeeId, String name, Integer age, String status, Date dob) {
+        EmployeeSnapshot snapshot = new EmployeeSnapshot();
+        snapshot.setEmployeeId(employeeId);
+        snapshot.setBatchId(batchId);
+        snapshot.setSnapshotDate(asOf);
+        snapshot.setName(name);
+        snapshot.setAge(age);
+        snapshot.setStatus(status);
+        snapshot.setDob(dob);
+        return snapshot;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.employee.delta;
+
+import java.util.Locale;
+
+/**
+ * Employee fields compared by delta detection. Each field owns one bit so a set of
+ * fields can be carried around as an {@code int} mask.
+ */
+public enum TrackedField {
+    NAME("name"),
+    AGE("age"),
+    STATUS("status"),
+    DOB("dob");
+
+    /** Mask with every tracked field set. */
+    public static final int ALL = (1 << values().length) - 1;
+
+    private final String fieldName;
+    private final int bit;
+
+    TrackedField(String fieldName) {
+        this.fieldName = fieldName;
+        this.bit = 1 << ordinal();
+    }
+
+    public String getFieldName() { return fieldName; }
+    public int getBit() { return bit; }
+
+    public boolean isSet(int mask) {
+        return (mask & bit) != 0;
+    }
+
+    /**
+     * Resolves a configured field name, ignoring case.
+     *
+     * @return the tracked field, or null if the name does not refer to a compared field
+     */
+    public static TrackedField fromFieldName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (TrackedField field : values()) {
+            if (field.fieldName.equals(normalized)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
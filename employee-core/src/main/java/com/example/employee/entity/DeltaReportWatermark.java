@@ -0,0 +1,51 @@
+package com.example.employee.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity claiming an ingest batch for reporting, and marking it once its delta reports have been
+ * written. Completed batches without a watermark are still due for reporting.
+ */
+@Entity
+@Table(name = "delta_report_watermark")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaReportWatermark {
+    
+    /**
+     * Id of the claimed or reported ingest batch.
+     */
+    @Id
+    @Column(name = "ingest_batch_id")
+    private Long ingestBatchId;
+    
+    @Column(name = "batch_id", nullable = false)
+    private String batchId;
+    
+    /**
+     * When the batch's reports were complete; null while the batch is claimed.
+     */
+    @Column(name = "reported_at")
+    private LocalDateTime reportedAt;
+    
+    /**
+     * Run that claimed the batch.
+     */
+    @Column(name = "claim_run_id")
+    private String claimRunId;
+    
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+    
+    /**
+     * Manifest of the detailed reports, if any were written.
+     */
+    @Column(name = "manifest_file", length = 1000)
+    private String manifestFile;
+}
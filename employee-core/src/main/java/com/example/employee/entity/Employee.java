@@ -34,6 +34,9 @@ public class Employee {
     @Column(name = "created_date", updatable = false, insertable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private java.util.Date createdDate;
+    /** Extract run that has claimed this employee; only written by the extract's bulk updates. */
+    @Column(name = "extract_run_id", insertable = false, updatable = false)
+    private String extractRunId;
 
     // Getters and setters
     public Long getId() { return id; }
@@ -44,4 +47,5 @@ public class Employee {
     public String getBatchId() { return batchId; }
     public Long getTransactionId() { return transactionId; }
     public java.util.Date getCreatedDate() { return createdDate; }
+    public String getExtractRunId() { return extractRunId; }
 }
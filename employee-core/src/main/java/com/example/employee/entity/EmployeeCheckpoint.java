@@ -0,0 +1,39 @@
+package com.example.employee.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity marking a compact roster checkpoint taken after a completed ingest batch.
+ * The roster itself is stored as {@link EmployeeCheckpointEntry} rows.
+ */
+@Entity
+@Table(name = "employee_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeCheckpoint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * Id of the ingest batch the checkpoint was taken at.
+     */
+    @Column(name = "ingest_batch_id", unique = true, nullable = false)
+    private Long ingestBatchId;
+    
+    @Column(name = "batch_id", nullable = false)
+    private String batchId;
+    
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+    
+    @Column(name = "employee_count")
+    private Integer employeeCount;
+}
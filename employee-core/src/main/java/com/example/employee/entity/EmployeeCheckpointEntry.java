@@ -0,0 +1,45 @@
+package com.example.employee.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Entity holding one employee's state within a roster checkpoint.
+ */
+@Entity
+@Table(name = "employee_checkpoint_entry",
+       indexes = {
+           @Index(name = "idx_checkpoint_entry_checkpoint_employee", columnList = "checkpoint_id, employee_id")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeCheckpointEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "checkpoint_id", nullable = false)
+    private Long checkpointId;
+    
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+    
+    @Column(name = "name")
+    private String name;
+    
+    @Column(name = "age")
+    private Integer age;
+    
+    @Column(name = "status")
+    private String status;
+    
+    @Column(name = "dob")
+    @Temporal(TemporalType.DATE)
+    private Date dob;
+}
@@ -1,5 +1,6 @@
 package com.example.employee.entity;
 
+import com.example.employee.delta.DeltaChangeRenderer;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -72,11 +73,28 @@ public class EmployeeDelta {
     private Date currentDob;
     
     // Detailed change information
+    @Column(name = "changed_fields_mask")
+    private Integer changedFieldsMask; // Bitmask of TrackedField bits, set for UPDATED records
+    
     @Column(name = "changed_fields", length = 500)
-    private String changedFields; // JSON or comma-separated list of changed field names
+    private String changedFields; // Legacy: JSON or comma-separated list, only present on older rows
     
     @Column(name = "change_summary", length = 1000)
-    private String changeSummary; // Human-readable summary of changes
+    private String changeSummary; // Legacy: human-readable summary, only present on older rows
+    
+    /**
+     * Returns the changed field names as a JSON array, rendered from the bitmask unless stored.
+     */
+    public String getChangedFields() {
+        return changedFields != null ? changedFields : DeltaChangeRenderer.changedFieldsJson(changedFieldsMask);
+    }
+    
+    /**
+     * Returns the human-readable change summary, rendered from the stored values unless stored.
+     */
+    public String getChangeSummary() {
+        return changeSummary != null ? changeSummary : DeltaChangeRenderer.summary(this);
+    }
     
     public enum DeltaType {
         NEW,      // Employee added in this batch
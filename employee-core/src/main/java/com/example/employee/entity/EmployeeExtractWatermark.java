@@ -0,0 +1,52 @@
+package com.example.employee.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity claiming an ingest batch for a change-data-capture extract, and marking it once its
+ * deltas have been exported. Completed batches without a watermark are still due for the next
+ * CDC extract.
+ */
+@Entity
+@Table(name = "employee_extract_watermark")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeExtractWatermark {
+    
+    /**
+     * Id of the claimed or extracted ingest batch.
+     */
+    @Id
+    @Column(name = "ingest_batch_id")
+    private Long ingestBatchId;
+    
+    @Column(name = "batch_id", nullable = false)
+    private String batchId;
+    
+    /**
+     * When the batch's changes were extracted; null while the batch is claimed.
+     */
+    @Column(name = "extracted_at")
+    private LocalDateTime extractedAt;
+    
+    /**
+     * Run that claimed the batch.
+     */
+    @Column(name = "claim_run_id")
+    private String claimRunId;
+    
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+    
+    /**
+     * File the batch's changes were written to, or null if the batch had none.
+     */
+    @Column(name = "extract_file", length = 1000)
+    private String extractFile;
+}
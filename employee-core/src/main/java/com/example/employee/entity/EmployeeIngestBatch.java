@@ -1,5 +1,6 @@
 package com.example.employee.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -46,6 +47,25 @@ public class EmployeeIngestBatch {
     @Column(name = "error_message", length = 1000)
     private String errorMessage;
     
+    /** Number of employees present in the batch, the cardinality of {@link #employeeIds}. */
+    @Column(name = "headcount")
+    private Integer headcount;
+    
+    /** Per-type delta counts, written once when delta detection of the batch finishes. */
+    @Column(name = "new_delta_count")
+    private Integer newDeltaCount;
+    
+    @Column(name = "updated_delta_count")
+    private Integer updatedDeltaCount;
+    
+    @Column(name = "deleted_delta_count")
+    private Integer deletedDeltaCount;
+    
+    /** Serialized compressed bitmap of the employee ids present in the batch (see EmployeeIdBitmaps). */
+    @JsonIgnore
+    @Column(name = "employee_ids")
+    private byte[] employeeIds;
+    
     public enum IngestStatus {
         PROCESSING, COMPLETED, FAILED
     }
@@ -1,5 +1,6 @@
 package com.example.employee.entity;
 
+import com.example.employee.delta.EmployeeFingerprint;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,13 +12,13 @@ import java.util.Date;
 /**
  * Entity to capture employee data snapshots for delta comparison.
  * This maintains historical versions of employee records.
+ * The table is partitioned by batch_id, one partition per batch.
  */
 @Entity
 @Table(name = "employee_snapshot", 
        indexes = {
            @Index(name = "idx_snapshot_batch_employee", columnList = "batch_id, employee_id"),
-           @Index(name = "idx_snapshot_employee", columnList = "employee_id"),
-           @Index(name = "idx_snapshot_batch", columnList = "batch_id")
+           @Index(name = "idx_snapshot_employee", columnList = "employee_id")
        })
 @Data
 @NoArgsConstructor
@@ -51,6 +52,13 @@ public class EmployeeSnapshot {
     @Temporal(TemporalType.DATE)
     private Date dob;
     
+    /**
+     * Fingerprint of the tracked fields, used by inline delta detection.
+     * Null for snapshots written before the column was introduced.
+     */
+    @Column(name = "fingerprint")
+    private Long fingerprint;
+    
     /**
      * Creates a snapshot from an Employee entity
      */
@@ -63,6 +71,7 @@ public class EmployeeSnapshot {
         snapshot.setAge(employee.getAge());
         snapshot.setStatus(employee.getStatus());
         snapshot.setDob(employee.getDob());
+        snapshot.setFingerprint(EmployeeFingerprint.of(employee));
         return snapshot;
     }
 }
\ No newline at end of file
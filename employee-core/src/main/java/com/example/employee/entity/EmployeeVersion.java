@@ -0,0 +1,110 @@
+package com.example.employee.entity;
+
+import com.example.employee.delta.EmployeeFingerprint;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Entity for versioned (SCD type 2) employee history.
+ * A version is written only when an employee's content changes and stays valid from
+ * the batch that introduced it until the batch that replaced or removed it.
+ * Batch bounds are {@link EmployeeIngestBatch#getId()} values, which follow ingest order.
+ */
+@Entity
+@Table(name = "employee_version",
+       indexes = {
+           @Index(name = "idx_version_employee_from", columnList = "employee_id, valid_from_batch"),
+           @Index(name = "idx_version_from", columnList = "valid_from_batch"),
+           @Index(name = "idx_version_to", columnList = "valid_to_batch")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeVersion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+    
+    /**
+     * Id of the ingest batch this version first appeared in (inclusive).
+     */
+    @Column(name = "valid_from_batch", nullable = false)
+    private Long validFromBatch;
+    
+    /**
+     * Id of the ingest batch this version was replaced or removed in (exclusive), null while current.
+     */
+    @Column(name = "valid_to_batch")
+    private Long validToBatch;
+    
+    @Column(name = "name")
+    private String name;
+    
+    @Column(name = "age")
+    private Integer age;
+    
+    @Column(name = "status")
+    private String status;
+    
+    @Column(name = "dob")
+    @Temporal(TemporalType.DATE)
+    private Date dob;
+    
+    /**
+     * Fingerprint of the tracked fields, null for versions seeded from legacy snapshots.
+     */
+    @Column(name = "fingerprint")
+    private Long fingerprint;
+    
+    /**
+     * Creates the current version of an employee starting at the given batch
+     */
+    public static EmployeeVersion fromEmployee(Employee employee, Long validFromBatch) {
+        EmployeeVersion version = new EmployeeVersion();
+        version.setEmployeeId(employee.getId());
+        version.setValidFromBatch(validFromBatch);
+        version.setName(employee.getName());
+        version.setAge(employee.getAge());
+        version.setStatus(employee.getStatus());
+        version.setDob(employee.getDob());
+        version.setFingerprint(EmployeeFingerprint.of(employee));
+        return version;
+    }
+    
+    /**
+     * Overwrites this version's content with the employee's current values
+     */
+    public void copyContentFrom(Employee employee) {
+        setName(employee.getName());
+        setAge(employee.getAge());
+        setStatus(employee.getStatus());
+        setDob(employee.getDob());
+        setFingerprint(EmployeeFingerprint.of(employee));
+    }
+    
+    /**
+     * Returns this version as a (transient) snapshot of the given batch, so callers
+     * can treat both storage modes alike
+     */
+    public EmployeeSnapshot toSnapshot(String batchId) {
+        EmployeeSnapshot snapshot = new EmployeeSnapshot();
+        snapshot.setEmployeeId(employeeId);
+        snapshot.setBatchId(batchId);
+        snapshot.setSnapshotDate(LocalDateTime.now());
+        snapshot.setName(name);
+        snapshot.setAge(age);
+        snapshot.setStatus(status);
+        snapshot.setDob(dob);
+        snapshot.setFingerprint(fingerprint);
+        return snapshot;
+    }
+}
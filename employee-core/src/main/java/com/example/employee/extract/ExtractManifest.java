@@ -0,0 +1,34 @@
+package com.example.employee.extract;
+
+import com.example.employee.config.EmployeeCsvExtractProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Describes the shard files of one sharded employee extract, so consumers can verify and load
+ * them in parallel. Written next to the shards once all of them are complete.
+ *
+ * @param runId     the extract run (batch) id
+ * @param mode      how the shards were written
+ * @param generatedAt when the extract completed
+ * @param rows      total rows over all shards, excluding headers
+ * @param shards    one entry per shard, in shard order
+ */
+public record ExtractManifest(
+        String runId,
+        EmployeeCsvExtractProperties.ExtractMode mode,
+        LocalDateTime generatedAt,
+        long rows,
+        List<Shard> shards
+) {
+
+    /**
+     * @param shard  shard number, employees with {@code id mod shardCount == shard}
+     * @param file   file name relative to the manifest
+     * @param rows   data rows, excluding the header
+     * @param bytes  file size
+     * @param sha256 hex SHA-256 of the file contents
+     */
+    public record Shard(int shard, String file, long rows, long bytes, String sha256) {}
+}
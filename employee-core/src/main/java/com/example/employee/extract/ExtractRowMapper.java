@@ -0,0 +1,114 @@
+package com.example.employee.extract;
+
+import com.example.employee.entity.Employee;
+import com.example.employee.service.EmployeeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Maps employees to extract rows over a column mapping compiled once per run. Each column holds
+ * a typed accessor resolved up front, so a row is a straight loop of getter calls into a
+ * reusable buffer, with no field-name lookup per cell. Values match
+ * {@link EmployeeService#getFieldValue}, except that missing values are written as "".
+ */
+public final class ExtractRowMapper {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractRowMapper.class);
+
+    private final String[] header;
+    private final Function<Employee, String>[] accessors;
+    private final String[] row;
+
+    private ExtractRowMapper(String[] header, Function<Employee, String>[] accessors) {
+        this.header = header;
+        this.accessors = accessors;
+        this.row = new String[header.length];
+    }
+
+    /**
+     * Compiles a column mapping of CSV header to employee field name. Unknown field names are
+     * reported once here and always produce an empty value.
+     *
+     * @param columnMapping header to field name, in column order
+     * @return the compiled mapper
+     */
+    @SuppressWarnings("unchecked")
+    public static ExtractRowMapper compile(Map<String, String> columnMapping) {
+        String[] header = columnMapping.keySet().toArray(new String[0]);
+        Function<Employee, String>[] accessors = new Function[header.length];
+        // Date.toString formats in the default zone; one formatter serves the whole run
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US)
+                .withZone(ZoneId.systemDefault());
+        for (int i = 0; i < header.length; i++) {
+            accessors[i] = accessor(columnMapping.get(header[i]), dateFormatter);
+        }
+        return new ExtractRowMapper(header, accessors);
+    }
+
+    private static Function<Employee, String> accessor(String fieldName, DateTimeFormatter dateFormatter) {
+        switch (fieldName == null ? "" : fieldName.toLowerCase(Locale.ROOT)) {
+            case "id":
+                return emp -> emp.getId() != null ? emp.getId().toString() : "";
+            case "name":
+                return emp -> emp.getName() != null ? emp.getName() : "";
+            case "age":
+                return emp -> emp.getAge() != null ? emp.getAge().toString() : "";
+            case "status":
+                return emp -> emp.getStatus() != null ? emp.getStatus() : "";
+            case "dob":
+                return emp -> formatDate(emp.getDob(), dateFormatter);
+            case "batchid":
+            case "batch_id":
+                return emp -> emp.getBatchId() != null ? emp.getBatchId() : "";
+            case "transactionid":
+            case "transaction_id":
+                return emp -> emp.getTransactionId() != null ? emp.getTransactionId().toString() : "";
+            case "createddate":
+            case "created_date":
+                return emp -> formatDate(emp.getCreatedDate(), dateFormatter);
+            default:
+                log.warn("Unknown field name: {}", fieldName);
+                return emp -> "";
+        }
+    }
+
+    /**
+     * Same text as {@link Date#toString()}. JPA loads java.sql.Date and Timestamp, whose own
+     * toString is already cheap; only a plain Date goes through the shared formatter instead of
+     * the per-call Calendar work of Date.toString.
+     */
+    private static String formatDate(Date date, DateTimeFormatter dateFormatter) {
+        if (date == null) {
+            return "";
+        }
+        if (date.getClass() != Date.class) {
+            return date.toString();
+        }
+        return dateFormatter.format(date.toInstant());
+    }
+
+    /**
+     * @return the CSV header, in column order
+     */
+    public String[] header() {
+        return header;
+    }
+
+    /**
+     * Fills the row buffer with the employee's values. The returned array is reused by the next
+     * call, so it must be written out before mapping another employee.
+     */
+    public String[] map(Employee emp) {
+        for (int i = 0; i < accessors.length; i++) {
+            row[i] = accessors[i].apply(emp);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.employee.notification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when an ingest batch completes delta detection, carrying the batch's delta counters
+ * so listeners never need to query the deltas again.
+ */
+public record DeltaBatchCompletedEvent(
+        String batchId,
+        int totalProcessed,
+        long newEmployees,
+        long updatedEmployees,
+        long deletedEmployees,
+        LocalDateTime completedAt
+) {}
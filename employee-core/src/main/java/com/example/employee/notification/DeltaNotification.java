@@ -0,0 +1,24 @@
+package com.example.employee.notification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A notification about one or more completed batches whose delta counts each crossed a threshold.
+ * The counters are the totals of those batches.
+ *
+ * @param triggers human-readable description of each threshold that was crossed, prefixed with its batch id
+ * @param batches  per-batch counters, empty unless {@code includeDetails} is set
+ */
+public record DeltaNotification(
+        String subject,
+        Set<String> recipients,
+        List<String> batchIds,
+        long newEmployees,
+        long updatedEmployees,
+        long deletedEmployees,
+        List<String> triggers,
+        List<DeltaBatchCompletedEvent> batches,
+        LocalDateTime createdAt
+) {}
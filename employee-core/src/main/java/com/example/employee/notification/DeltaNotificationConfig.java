@@ -0,0 +1,40 @@
+package com.example.employee.notification;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Creates the notification sink selected by {@code employee.delta.notifications.sink}.
+ * An application can replace it by defining its own {@code @Primary} {@link DeltaNotificationSink} bean.
+ */
+@Configuration
+public class DeltaNotificationConfig {
+    
+    private static final String PREFIX = "employee.delta.notifications";
+    
+    @Bean
+    @ConditionalOnProperty(prefix = PREFIX, name = "sink", havingValue = "LOG", matchIfMissing = true)
+    public DeltaNotificationSink loggingDeltaNotificationSink() {
+        return new LoggingDeltaNotificationSink();
+    }
+    
+    @Bean
+    @ConditionalOnProperty(prefix = PREFIX, name = "sink", havingValue = "FILE")
+    public DeltaNotificationSink fileDeltaNotificationSink(EmployeeDeltaProperties deltaProperties) {
+        return new FileDeltaNotificationSink(Path.of(deltaProperties.getNotifications().getFileDirectory()));
+    }
+    
+    @Bean
+    @ConditionalOnProperty(prefix = PREFIX, name = "sink", havingValue = "WEBHOOK")
+    public DeltaNotificationSink webhookDeltaNotificationSink(EmployeeDeltaProperties deltaProperties) {
+        EmployeeDeltaProperties.Notifications notifications = deltaProperties.getNotifications();
+        if (notifications.getWebhookUrl() == null || notifications.getWebhookUrl().isBlank()) {
+            throw new IllegalArgumentException("employee.delta.notifications.webhookUrl is required for the WEBHOOK sink");
+        }
+        return new WebhookDeltaNotificationSink(notifications.getWebhookUrl(), notifications.getWebhookTimeout());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.employee.notification;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates notification thresholds for completed batches off the ingest thread.
+ * The listener only queues the event's counters; the first event of a burst schedules one
+ * flush after {@code debounceWindow}, and every batch completing in the meantime is added to it.
+ * Each batch is checked against the thresholds on its own; the batches that cross one are sent
+ * together, so a burst of batches yields at most one notification. Evaluation and delivery run
+ * on a single background thread, so a slow or failing sink never delays ingest.
+ */
+@Component
+public class DeltaNotificationDispatcher implements DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(DeltaNotificationDispatcher.class);
+    
+    private final EmployeeDeltaProperties deltaProperties;
+    private final DeltaNotificationSink sink;
+    private final ScheduledThreadPoolExecutor executor;
+    
+    private final List<DeltaBatchCompletedEvent> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    
+    public DeltaNotificationDispatcher(EmployeeDeltaProperties deltaProperties, DeltaNotificationSink sink) {
+        this.deltaProperties = deltaProperties;
+        this.sink = sink;
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "delta-notifications");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // A debounce window still open at shutdown is not waited for
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+    
+    @EventListener
+    public void onBatchCompleted(DeltaBatchCompletedEvent event) {
+        if (!deltaProperties.getNotifications().isEnabled()) {
+            return;
+        }
+        synchronized (pending) {
+            pending.add(event);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        long delayMillis = Math.max(0, deltaProperties.getNotifications().getDebounceWindow().toMillis());
+        executor.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Evaluates and delivers the queued events. Runs on the notification thread.
+     */
+    void flush() {
+        List<DeltaBatchCompletedEvent> events;
+        synchronized (pending) {
+            events = new ArrayList<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        DeltaNotification notification = evaluate(events);
+        if (notification == null) {
+            log.debug("Delta counts of {} batch(es) are below notification thresholds", events.size());
+            return;
+        }
+        try {
+            sink.deliver(notification);
+            log.info("Delivered delta notification for batch(es) {}: {}", notification.batchIds(), notification.triggers());
+        } catch (Exception e) {
+            log.error("Failed to deliver delta notification for batch(es) {}", notification.batchIds(), e);
+        }
+    }
+    
+    /**
+     * Checks each batch's counters against the thresholds and combines the batches that
+     * crossed one into a single notification. Batches below every threshold are left out.
+     *
+     * @return the notification to send, or null if no batch reached a threshold
+     */
+    DeltaNotification evaluate(List<DeltaBatchCompletedEvent> events) {
+        EmployeeDeltaProperties.Notifications settings = deltaProperties.getNotifications();
+        long newEmployees = 0;
+        long updatedEmployees = 0;
+        long deletedEmployees = 0;
+        List<String> batchIds = new ArrayList<>();
+        List<String> triggers = new ArrayList<>();
+        List<DeltaBatchCompletedEvent> notified = new ArrayList<>();
+        for (DeltaBatchCompletedEvent event : events) {
+            List<String> batchTriggers = new ArrayList<>(3);
+            addTrigger(batchTriggers, "new", event.newEmployees(), settings.getNewRecordThreshold());
+            addTrigger(batchTriggers, "updated", event.updatedEmployees(), settings.getUpdatedRecordThreshold());
+            addTrigger(batchTriggers, "deleted", event.deletedEmployees(), settings.getDeletedRecordThreshold());
+            if (batchTriggers.isEmpty()) {
+                continue;
+            }
+            newEmployees += event.newEmployees();
+            updatedEmployees += event.updatedEmployees();
+            deletedEmployees += event.deletedEmployees();
+            batchIds.add(event.batchId());
+            batchTriggers.forEach(trigger -> triggers.add(event.batchId() + ": " + trigger));
+            notified.add(event);
+        }
+        if (batchIds.isEmpty()) {
+            return null;
+        }
+        
+        String subject = String.format("Employee delta alert: %d new, %d updated, %d deleted across %d batch(es)",
+                newEmployees, updatedEmployees, deletedEmployees, batchIds.size());
+        return new DeltaNotification(subject, settings.getRecipients(), batchIds,
+                newEmployees, updatedEmployees, deletedEmployees, triggers,
+                settings.isIncludeDetails() ? List.copyOf(notified) : List.of(), LocalDateTime.now());
+    }
+    
+    private static void addTrigger(List<String> triggers, String type, long count, int threshold) {
+        if (threshold > 0 && count >= threshold) {
+            triggers.add(type + " employees " + count + " >= " + threshold);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        synchronized (pending) {
+            if (!pending.isEmpty()) {
+                log.warn("Discarding {} batch event(s) awaiting notification evaluation at shutdown", pending.size());
+            }
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
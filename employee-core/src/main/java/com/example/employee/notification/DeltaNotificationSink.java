@@ -0,0 +1,12 @@
+package com.example.employee.notification;
+
+import java.io.IOException;
+
+/**
+ * Delivers delta notifications. Register a bean of this type to replace the configured sink.
+ * Delivery always runs on the notification thread, never on the ingest thread.
+ */
+public interface DeltaNotificationSink {
+    
+    void deliver(DeltaNotification notification) throws IOException;
+}
@@ -0,0 +1,41 @@
+package com.example.employee.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes each notification as a JSON file into a directory, a local stand-in for mail delivery.
+ * Files are written under a temporary name and renamed, so readers never see partial files.
+ */
+public class FileDeltaNotificationSink implements DeltaNotificationSink {
+    
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong sequence = new AtomicLong();
+    
+    public FileDeltaNotificationSink(Path directory) {
+        this.directory = directory;
+        this.objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+    }
+    
+    @Override
+    public void deliver(DeltaNotification notification) throws IOException {
+        Files.createDirectories(directory);
+        String name = String.format("delta-notification-%s-%d.json",
+                notification.createdAt().format(FILE_TIMESTAMP), sequence.incrementAndGet());
+        Path temp = directory.resolve(name + ".tmp");
+        objectMapper.writeValue(temp.toFile(), notification);
+        Files.move(temp, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+    }
+}
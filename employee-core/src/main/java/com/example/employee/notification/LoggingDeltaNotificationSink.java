@@ -0,0 +1,17 @@
+package com.example.employee.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes notifications to the application log.
+ */
+public class LoggingDeltaNotificationSink implements DeltaNotificationSink {
+    
+    private static final Logger log = LoggerFactory.getLogger(LoggingDeltaNotificationSink.class);
+    
+    @Override
+    public void deliver(DeltaNotification notification) {
+        log.warn("{} - recipients: {}, triggers: {}", notification.subject(), notification.recipients(), notification.triggers());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.employee.repo;
+
+import com.example.employee.entity.DeltaReportWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface DeltaReportWatermarkRepository extends JpaRepository<DeltaReportWatermark, Long> {
+    
+    /**
+     * Claim every completed batch that is neither reported nor claimed by a live run, in a single
+     * statement. A concurrent run inserting the same row waits for this one and then skips it.
+     * 
+     * @return number of batches claimed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO delta_report_watermark (ingest_batch_id, batch_id, claim_run_id, claimed_at) " +
+                   "SELECT b.id, b.batch_id, :runId, :claimedAt FROM employee_ingest_batch b WHERE b.status = 'COMPLETED' " +
+                   "AND NOT EXISTS (SELECT 1 FROM delta_report_watermark w WHERE w.ingest_batch_id = b.id " +
+                   "AND (w.reported_at IS NOT NULL OR w.claimed_at >= :staleBefore)) " +
+                   "ON CONFLICT (ingest_batch_id) DO UPDATE SET claim_run_id = EXCLUDED.claim_run_id, claimed_at = EXCLUDED.claimed_at " +
+                   "WHERE delta_report_watermark.reported_at IS NULL " +
+                   "AND (delta_report_watermark.claimed_at IS NULL OR delta_report_watermark.claimed_at < :staleBefore)", nativeQuery = true)
+    int claimUnreported(@Param("runId") String runId, @Param("claimedAt") LocalDateTime claimedAt,
+                        @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * Find which of the given ingest batches have been reported
+     */
+    @Query(value = "SELECT ingest_batch_id FROM delta_report_watermark WHERE reported_at IS NOT NULL " +
+                   "AND ingest_batch_id IN (:ingestBatchIds)", nativeQuery = true)
+    List<Long> findReportedIngestBatchIds(@Param("ingestBatchIds") Collection<Long> ingestBatchIds);
+    
+    /**
+     * Find the batch ids claimed by a run and not yet reported, in batch order
+     */
+    @Query(value = "SELECT batch_id FROM delta_report_watermark WHERE claim_run_id = :runId AND reported_at IS NULL " +
+                   "ORDER BY ingest_batch_id", nativeQuery = true)
+    List<String> findClaimedBatchIds(@Param("runId") String runId);
+    
+    /**
+     * Complete a run's claim on a batch
+     * 
+     * @return 1 if the batch was marked, 0 if the run no longer holds the claim
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE delta_report_watermark SET reported_at = :reportedAt, manifest_file = :manifestFile " +
+                   "WHERE batch_id = :batchId AND claim_run_id = :runId AND reported_at IS NULL", nativeQuery = true)
+    int markReported(@Param("runId") String runId, @Param("batchId") String batchId,
+                     @Param("reportedAt") LocalDateTime reportedAt, @Param("manifestFile") String manifestFile);
+    
+    /**
+     * Drop a run's claim on a batch it could not report, leaving the batch due for the next run
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM delta_report_watermark WHERE batch_id = :batchId AND claim_run_id = :runId " +
+                   "AND reported_at IS NULL", nativeQuery = true)
+    int releaseClaim(@Param("runId") String runId, @Param("batchId") String batchId);
+}
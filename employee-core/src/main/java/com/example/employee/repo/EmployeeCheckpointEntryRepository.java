@@ -0,0 +1,71 @@
+package com.example.employee.repo;
+
+import com.example.employee.entity.EmployeeCheckpointEntry;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface EmployeeCheckpointEntryRepository extends JpaRepository<EmployeeCheckpointEntry, Long> {
+    
+    /**
+     * Stream (employeeId, name, age, status, dob) rows of a checkpoint in employee order.
+     * Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("SELECT e.employeeId, e.name, e.age, e.status, e.dob FROM EmployeeCheckpointEntry e " +
+           "WHERE e.checkpointId = :checkpointId ORDER BY e.employeeId")
+    Stream<Object[]> streamRosterByCheckpointId(@Param("checkpointId") Long checkpointId);
+    
+    /**
+     * Find an employee's entries within a checkpoint
+     */
+    List<EmployeeCheckpointEntry> findByCheckpointIdAndEmployeeId(Long checkpointId, Long employeeId);
+    
+    /**
+     * Copy the next chunk of a batch's snapshots, in employee order after the given employee,
+     * into a checkpoint in a transaction of its own
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO employee_checkpoint_entry (checkpoint_id, employee_id, name, age, status, dob) " +
+                   "SELECT DISTINCT ON (s.employee_id) :checkpointId, s.employee_id, s.name, s.age, s.status, s.dob " +
+                   "FROM employee_snapshot s WHERE s.batch_id = :batchId AND s.employee_id > :afterEmployeeId " +
+                   "ORDER BY s.employee_id, s.id DESC LIMIT :limit", nativeQuery = true)
+    int copyChunkFromSnapshots(@Param("checkpointId") Long checkpointId, @Param("batchId") String batchId,
+                               @Param("afterEmployeeId") Long afterEmployeeId, @Param("limit") int limit);
+    
+    /**
+     * Copy the next chunk of the versions valid as of an ingest batch, in employee order after the
+     * given employee, into a checkpoint in a transaction of its own
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO employee_checkpoint_entry (checkpoint_id, employee_id, name, age, status, dob) " +
+                   "SELECT :checkpointId, v.employee_id, v.name, v.age, v.status, v.dob FROM employee_version v " +
+                   "WHERE v.valid_from_batch <= :ingestBatchId AND (v.valid_to_batch IS NULL OR v.valid_to_batch > :ingestBatchId) " +
+                   "AND v.employee_id > :afterEmployeeId ORDER BY v.employee_id LIMIT :limit", nativeQuery = true)
+    int copyChunkFromVersions(@Param("checkpointId") Long checkpointId, @Param("ingestBatchId") Long ingestBatchId,
+                              @Param("afterEmployeeId") Long afterEmployeeId, @Param("limit") int limit);
+    
+    /**
+     * Find the highest employee id copied into a checkpoint so far, or null if it is empty
+     */
+    @Query(value = "SELECT MAX(employee_id) FROM employee_checkpoint_entry WHERE checkpoint_id = :checkpointId", nativeQuery = true)
+    Long findMaxEmployeeIdByCheckpointId(@Param("checkpointId") Long checkpointId);
+    
+    /**
+     * Delete up to limit entries of a checkpoint in a transaction of its own
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM employee_checkpoint_entry WHERE id IN " +
+                   "(SELECT id FROM employee_checkpoint_entry WHERE checkpoint_id = :checkpointId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByCheckpointId(@Param("checkpointId") Long checkpointId, @Param("limit") int limit);
+}
@@ -0,0 +1,25 @@
+package com.example.employee.repo;
+
+import com.example.employee.entity.EmployeeCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface EmployeeCheckpointRepository extends JpaRepository<EmployeeCheckpoint, Long> {
+    
+    /**
+     * Find the newest complete checkpoint taken at or before the given ingest batch
+     */
+    Optional<EmployeeCheckpoint> findFirstByIngestBatchIdLessThanEqualAndEmployeeCountIsNotNullOrderByIngestBatchIdDesc(Long ingestBatchId);
+    
+    /**
+     * Find the newest complete checkpoint
+     */
+    Optional<EmployeeCheckpoint> findFirstByEmployeeCountIsNotNullOrderByIngestBatchIdDesc();
+    
+    /**
+     * Find checkpoints taken before the given ingest batch
+     */
+    List<EmployeeCheckpoint> findByIngestBatchIdLessThan(Long ingestBatchId);
+}
@@ -1,12 +1,18 @@
 package com.example.employee.repo;
 
 import com.example.employee.entity.EmployeeDelta;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface EmployeeDeltaRepository extends JpaRepository<EmployeeDelta, Long> {
     
@@ -15,11 +21,32 @@ public interface EmployeeDeltaRepository extends JpaRepository<EmployeeDelta, Lo
      */
     List<EmployeeDelta> findByBatchId(String batchId);
     
+    /**
+     * Stream all deltas of a batch in id order as unmanaged instances, so the persistence
+     * context does not grow while the stream is consumed. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "5000"))
+    @Query("SELECT new com.example.employee.entity.EmployeeDelta(d.id, d.employeeId, d.batchId, d.previousBatchId, " +
+           "d.deltaType, d.detectedDate, d.previousName, d.previousAge, d.previousStatus, d.previousDob, " +
+           "d.currentName, d.currentAge, d.currentStatus, d.currentDob, d.changedFieldsMask, d.changedFields, " +
+           "d.changeSummary) FROM EmployeeDelta d WHERE d.batchId = :batchId ORDER BY d.id")
+    Stream<EmployeeDelta> streamByBatchId(@Param("batchId") String batchId);
+    
+    /**
+     * Find the next page of a batch's deltas after the given id (keyset pagination)
+     */
+    List<EmployeeDelta> findByBatchIdAndIdGreaterThanOrderByIdAsc(String batchId, Long id, Limit limit);
+    
     /**
      * Find deltas by type for a specific batch
      */
     List<EmployeeDelta> findByBatchIdAndDeltaType(String batchId, EmployeeDelta.DeltaType deltaType);
     
+    /**
+     * Whether a batch's deltas were detected against a previous batch, i.e. the batch was not the first
+     */
+    boolean existsByBatchIdAndPreviousBatchIdIsNotNull(String batchId);
+    
     /**
      * Find all deltas for a specific employee
      */
@@ -53,4 +80,42 @@ public interface EmployeeDeltaRepository extends JpaRepository<EmployeeDelta, Lo
      */
     @Query("SELECT d FROM EmployeeDelta d WHERE d.batchId = :batchId AND d.deltaType = 'UPDATED'")
     List<EmployeeDelta> findUpdatedEmployeesForBatch(@Param("batchId") String batchId);
-}
\ No newline at end of file
+    
+    /**
+     * Find UPDATED deltas for a batch where any of the fields in the mask changed
+     */
+    @Query(value = "SELECT * FROM employee_delta d WHERE d.batch_id = :batchId AND d.delta_type = 'UPDATED' " +
+                   "AND (d.changed_fields_mask & :fieldMask) <> 0", nativeQuery = true)
+    List<EmployeeDelta> findUpdatedByBatchIdAndChangedFields(@Param("batchId") String batchId,
+                                                            @Param("fieldMask") int fieldMask);
+    
+    /**
+     * Delete up to limit deltas of a batch in a transaction of its own
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM employee_delta WHERE id IN " +
+                   "(SELECT id FROM employee_delta WHERE batch_id = :batchId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByBatchId(@Param("batchId") String batchId, @Param("limit") int limit);
+    
+    /**
+     * Stream (employeeId, deltaType, currentName, currentAge, currentStatus, currentDob) rows of
+     * completed batches in the ingest batch id range (fromBatch, toBatch], in replay order.
+     * Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("SELECT d.employeeId, d.deltaType, d.currentName, d.currentAge, d.currentStatus, d.currentDob " +
+           "FROM EmployeeDelta d, EmployeeIngestBatch b WHERE b.batchId = d.batchId AND b.status = 'COMPLETED' " +
+           "AND b.id > :fromBatch AND b.id <= :toBatch ORDER BY b.id, d.id")
+    Stream<Object[]> streamChangesBetweenBatches(@Param("fromBatch") Long fromBatch, @Param("toBatch") Long toBatch);
+    
+    /**
+     * Same as {@link #streamChangesBetweenBatches} for a single employee.
+     */
+    @Query("SELECT d.employeeId, d.deltaType, d.currentName, d.currentAge, d.currentStatus, d.currentDob " +
+           "FROM EmployeeDelta d, EmployeeIngestBatch b WHERE b.batchId = d.batchId AND b.status = 'COMPLETED' " +
+           "AND b.id > :fromBatch AND b.id <= :toBatch AND d.employeeId = :employeeId ORDER BY b.id, d.id")
+    List<Object[]> findEmployeeChangesBetweenBatches(@Param("employeeId") Long employeeId,
+                                                     @Param("fromBatch") Long fromBatch,
+                                                     @Param("toBatch") Long toBatch);
+}
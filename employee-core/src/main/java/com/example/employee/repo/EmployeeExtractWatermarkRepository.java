@@ -0,0 +1,68 @@
+package com.example.employee.repo;
+
+import com.example.employee.entity.EmployeeExtractWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmployeeExtractWatermarkRepository extends JpaRepository<EmployeeExtractWatermark, Long> {
+    
+    /**
+     * Claim every completed batch whose changes are neither extracted nor claimed by a live run,
+     * in a single statement. A concurrent run inserting the same row waits for this one and then
+     * skips it.
+     * 
+     * @return number of batches claimed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO employee_extract_watermark (ingest_batch_id, batch_id, claim_run_id, claimed_at) " +
+                   "SELECT b.id, b.batch_id, :runId, :claimedAt FROM employee_ingest_batch b WHERE b.status = 'COMPLETED' " +
+                   "AND NOT EXISTS (SELECT 1 FROM employee_extract_watermark w WHERE w.ingest_batch_id = b.id " +
+                   "AND (w.extracted_at IS NOT NULL OR w.claimed_at >= :staleBefore)) " +
+                   "ON CONFLICT (ingest_batch_id) DO UPDATE SET claim_run_id = EXCLUDED.claim_run_id, claimed_at = EXCLUDED.claimed_at " +
+                   "WHERE employee_extract_watermark.extracted_at IS NULL " +
+                   "AND (employee_extract_watermark.claimed_at IS NULL OR employee_extract_watermark.claimed_at < :staleBefore)", nativeQuery = true)
+    int claimUnextracted(@Param("runId") String runId, @Param("claimedAt") LocalDateTime claimedAt,
+                         @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * Find which of the given ingest batches have been extracted
+     */
+    @Query(value = "SELECT ingest_batch_id FROM employee_extract_watermark WHERE extracted_at IS NOT NULL " +
+                   "AND ingest_batch_id IN (:ingestBatchIds)", nativeQuery = true)
+    List<Long> findExtractedIngestBatchIds(@Param("ingestBatchIds") Collection<Long> ingestBatchIds);
+    
+    /**
+     * Find the batch ids claimed by a run and not yet extracted, in batch order
+     */
+    @Query(value = "SELECT batch_id FROM employee_extract_watermark WHERE claim_run_id = :runId AND extracted_at IS NULL " +
+                   "ORDER BY ingest_batch_id", nativeQuery = true)
+    List<String> findClaimedBatchIds(@Param("runId") String runId);
+    
+    /**
+     * Complete a run's claim on every batch it extracted, in a single statement
+     * 
+     * @return number of batches marked
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE employee_extract_watermark SET extracted_at = :extractedAt, extract_file = :extractFile " +
+                   "WHERE claim_run_id = :runId AND extracted_at IS NULL", nativeQuery = true)
+    int markExtracted(@Param("runId") String runId, @Param("extractedAt") LocalDateTime extractedAt,
+                      @Param("extractFile") String extractFile);
+    
+    /**
+     * Drop a run's claims, leaving its batches due for the next run
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM employee_extract_watermark WHERE claim_run_id = :runId AND extracted_at IS NULL", nativeQuery = true)
+    int releaseClaim(@Param("runId") String runId);
+}
@@ -1,6 +1,7 @@
 package com.example.employee.repo;
 
 import com.example.employee.entity.EmployeeIngestBatch;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -27,8 +28,36 @@ public interface EmployeeIngestBatchRepository extends JpaRepository<EmployeeIng
     @Query("SELECT b FROM EmployeeIngestBatch b WHERE b.status = 'COMPLETED' ORDER BY b.ingestDate DESC")
     List<EmployeeIngestBatch> findMostRecentCompletedBatch();
     
+    /**
+     * Find the batch ids of completed batches, newest first, without loading the batches
+     */
+    @Query("SELECT b.batchId FROM EmployeeIngestBatch b WHERE b.status = 'COMPLETED' ORDER BY b.ingestDate DESC")
+    List<String> findCompletedBatchIdsNewestFirst(Limit limit);
+    
+    /**
+     * Find the stored (new, updated, deleted) delta counts of a batch; all null until detection has finished
+     */
+    @Query("SELECT b.newDeltaCount, b.updatedDeltaCount, b.deletedDeltaCount FROM EmployeeIngestBatch b WHERE b.batchId = :batchId")
+    List<Object[]> findDeltaCountsByBatchId(String batchId);
+    
     /**
      * Find all batches ordered by ingest date
      */
     List<EmployeeIngestBatch> findAllByOrderByIngestDateDesc();
+    
+    /**
+     * Stream (batchId, ingestDate, headcount) of completed batches in batch order, without their id bitmaps
+     */
+    @Query("SELECT b.batchId, b.ingestDate, b.headcount FROM EmployeeIngestBatch b WHERE b.status = 'COMPLETED' ORDER BY b.id")
+    List<Object[]> findCompletedHeadcounts();
+    
+    /**
+     * Count batches with the given status created after the given batch
+     */
+    long countByStatusAndIdGreaterThan(EmployeeIngestBatch.IngestStatus status, Long id);
+    
+    /**
+     * Find the oldest batch with the given status
+     */
+    Optional<EmployeeIngestBatch> findFirstByStatusOrderByIdAsc(EmployeeIngestBatch.IngestStatus status);
 }
\ No newline at end of file
@@ -2,9 +2,60 @@ package com.example.employee.repo;
 
 import com.example.employee.entity.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     List<Employee> findByStatus(String status);
+    
+    /**
+     * Claim the employees with the given status for an extract run, in one statement. Rows another
+     * worker is claiming right now are skipped rather than waited for, and rows claimed by another
+     * run are only taken over once that claim is older than {@code staleBefore}.
+     * 
+     * @return number of employees claimed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE employee SET extract_run_id = :runId, extract_claimed_at = :claimedAt WHERE id IN " +
+                   "(SELECT id FROM employee WHERE status = :status " +
+                   "AND (extract_run_id IS NULL OR extract_claimed_at < :staleBefore) FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int claimForExtract(@Param("runId") String runId, @Param("status") String status,
+                        @Param("claimedAt") LocalDateTime claimedAt, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * Find the next page of one shard of the employees claimed by an extract run after the given id
+     * (keyset pagination). Employees are assigned to shards by id modulo the shard count.
+     */
+    @Query(value = "SELECT * FROM employee WHERE extract_run_id = :runId AND MOD(MOD(id, :shards) + :shards, :shards) = :shard " +
+                   "AND id > :lastId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Employee> findClaimedShardPage(@Param("runId") String runId, @Param("shards") int shards, @Param("shard") int shard,
+                                        @Param("lastId") long lastId, @Param("limit") int limit);
+    
+    /**
+     * Mark every employee claimed by an extract run with the given status and release the claim
+     * 
+     * @return number of employees marked
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE employee SET status = :status, extract_run_id = NULL, extract_claimed_at = NULL " +
+                   "WHERE extract_run_id = :runId", nativeQuery = true)
+    int markExtracted(@Param("runId") String runId, @Param("status") String status);
+    
+    /**
+     * Release the claim of a failed extract run, leaving the employees' status unchanged
+     * 
+     * @return number of employees released
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE employee SET extract_run_id = NULL, extract_claimed_at = NULL WHERE extract_run_id = :runId",
+           nativeQuery = true)
+    int releaseExtractClaim(@Param("runId") String runId);
 }
@@ -2,10 +2,14 @@ package com.example.employee.repo;
 
 import com.example.employee.entity.EmployeeSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface EmployeeSnapshotRepository extends JpaRepository<EmployeeSnapshot, Long> {
     
@@ -35,4 +39,35 @@ public interface EmployeeSnapshotRepository extends JpaRepository<EmployeeSnapsh
      * Find all snapshots by batch ordered by employee ID
      */
     List<EmployeeSnapshot> findByBatchIdOrderByEmployeeId(String batchId);
+    
+    /**
+     * Find snapshots of the given employees within a batch
+     */
+    List<EmployeeSnapshot> findByBatchIdAndEmployeeIdIn(String batchId, Collection<Long> employeeIds);
+    
+    /**
+     * Whether an employee has a snapshot in a batch; used for batches stored without an id bitmap
+     */
+    boolean existsByBatchIdAndEmployeeId(String batchId, Long employeeId);
+    
+    /**
+     * Stream (employeeId, fingerprint) pairs for a batch. Must be consumed inside a transaction.
+     */
+    @Query("SELECT s.employeeId, s.fingerprint FROM EmployeeSnapshot s WHERE s.batchId = :batchId AND s.fingerprint IS NOT NULL")
+    Stream<Object[]> streamFingerprintsByBatchId(@Param("batchId") String batchId);
+    
+    /**
+     * Stream snapshots of a batch that were written without a fingerprint. Must be consumed inside a transaction.
+     */
+    @Query("SELECT s FROM EmployeeSnapshot s WHERE s.batchId = :batchId AND s.fingerprint IS NULL")
+    Stream<EmployeeSnapshot> streamUnfingerprintedByBatchId(@Param("batchId") String batchId);
+    
+    /**
+     * Delete up to limit snapshots of a batch in a transaction of its own
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM employee_snapshot WHERE id IN " +
+                   "(SELECT id FROM employee_snapshot WHERE batch_id = :batchId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByBatchId(@Param("batchId") String batchId, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.example.employee.repo;
+
+import com.example.employee.entity.EmployeeVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface EmployeeVersionRepository extends JpaRepository<EmployeeVersion, Long> {
+    
+    /**
+     * Count current versions (employees present after the last completed batch)
+     */
+    long countByValidToBatchIsNull();
+    
+    /**
+     * Find the current versions of the given employees
+     */
+    List<EmployeeVersion> findByEmployeeIdInAndValidToBatchIsNull(Collection<Long> employeeIds);
+    
+    /**
+     * Find all versions of an employee, oldest first
+     */
+    List<EmployeeVersion> findByEmployeeIdOrderByValidFromBatch(Long employeeId);
+    
+    /**
+     * Stream (employeeId, fingerprint) pairs of the current versions. Must be consumed inside a transaction.
+     */
+    @Query("SELECT v.employeeId, v.fingerprint FROM EmployeeVersion v WHERE v.validToBatch IS NULL AND v.fingerprint IS NOT NULL")
+    Stream<Object[]> streamCurrentFingerprints();
+    
+    /**
+     * Stream current versions that were written without a fingerprint. Must be consumed inside a transaction.
+     */
+    @Query("SELECT v FROM EmployeeVersion v WHERE v.validToBatch IS NULL AND v.fingerprint IS NULL")
+    Stream<EmployeeVersion> streamCurrentUnfingerprinted();
+    
+    /**
+     * Find the versions valid as of a batch, ordered by employee ID
+     */
+    @Query("SELECT v FROM EmployeeVersion v WHERE v.validFromBatch <= :batch " +
+           "AND (v.validToBatch IS NULL OR v.validToBatch > :batch) ORDER BY v.employeeId")
+    List<EmployeeVersion> findValidAtBatch(@Param("batch") Long batch);
+    
+    /**
+     * Find the version of an employee valid as of a batch
+     */
+    @Query("SELECT v FROM EmployeeVersion v WHERE v.employeeId = :employeeId AND v.validFromBatch <= :batch " +
+           "AND (v.validToBatch IS NULL OR v.validToBatch > :batch)")
+    Optional<EmployeeVersion> findValidAtBatchForEmployee(@Param("employeeId") Long employeeId, @Param("batch") Long batch);
+    
+    /**
+     * Delete the versions a batch introduced
+     */
+    @Modifying
+    @Query("DELETE FROM EmployeeVersion v WHERE v.validFromBatch = :batch")
+    int deleteByValidFromBatch(@Param("batch") Long batch);
+    
+    /**
+     * Make the versions a batch closed current again
+     */
+    @Modifying
+    @Query("UPDATE EmployeeVersion v SET v.validToBatch = NULL WHERE v.validToBatch = :batch")
+    int reopenClosedInBatch(@Param("batch") Long batch);
+    
+    /**
+     * Seed current versions from a batch's snapshots, used once when switching from snapshot storage
+     */
+    @Modifying
+    @Query(value = "INSERT INTO employee_version (employee_id, valid_from_batch, name, age, status, dob, fingerprint) " +
+                   "SELECT DISTINCT ON (s.employee_id) s.employee_id, :batch, s.name, s.age, s.status, s.dob, s.fingerprint " +
+                   "FROM employee_snapshot s WHERE s.batch_id = :batchId ORDER BY s.employee_id, s.id DESC", nativeQuery = true)
+    int seedFromSnapshots(@Param("batchId") String batchId, @Param("batch") Long batch);
+    
+    /**
+     * Delete up to limit versions that ended at or before the given batch, in a transaction of its own
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM employee_version WHERE id IN " +
+                   "(SELECT id FROM employee_version WHERE valid_to_batch <= :batch LIMIT :limit)", nativeQuery = true)
+    int deleteChunkEndedAtOrBefore(@Param("batch") Long batch, @Param("limit") int limit);
+}
@@ -0,0 +1,35 @@
+package com.example.employee.report;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Describes the files of one delta report run, so loaders can verify and consume the parts concurrently.
+ * Written next to the reports once every part is complete.
+ */
+public record DeltaReportManifest(
+        String batchId,
+        EmployeeDeltaProperties.ReportFormat format,
+        LocalDateTime generatedAt,
+        List<Report> reports
+) {
+
+    /**
+     * @param name        report name: new, updated, deleted or all
+     * @param rows        total data rows over all parts
+     * @param bytes       total size of all parts
+     * @param writeMillis time spent formatting, compressing and writing all parts
+     */
+    public record Report(String name, long rows, long bytes, long writeMillis, List<Part> parts) {}
+
+    /**
+     * @param file        file name relative to the manifest
+     * @param rows        data rows, excluding any header
+     * @param bytes       file size as stored, after compression
+     * @param writeMillis time spent formatting, compressing and writing the file
+     * @param sha256      hex SHA-256 of the file as stored
+     */
+    public record Part(String file, long rows, long bytes, long writeMillis, String sha256) {}
+}
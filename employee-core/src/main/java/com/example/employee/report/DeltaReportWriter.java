@@ -0,0 +1,494 @@
+package com.example.employee.report;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.entity.EmployeeDelta;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opencsv.CSVWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the detailed delta reports of a batch from a single pass over its deltas.
+ * Each delta goes to the report of its type and to the combined report. Reports roll over
+ * to a new part file every {@code maxRecordsPerReport} rows; a full part is handed to a
+ * small writer pool, so parts of all four reports are formatted, written and checksummed
+ * in parallel while the pass continues. At most two parts per writer thread are in flight,
+ * which keeps memory independent of the batch size. Closing the writer waits for every
+ * part and then writes a manifest listing the parts with row counts, sizes, write times and
+ * checksums. Files are written in the configured {@link EmployeeDeltaProperties.ReportFormat}
+ * to a temporary name and renamed once complete, so a file with its final name is always whole.
+ * A report is only created once its first row arrives.
+ * <p>
+ * If the deltas cannot all be written, {@link #abort()} removes every file of the run, renamed
+ * or not, and no manifest is written, so a failed batch never leaves a partial report behind.
+ * Closing a writer whose parts fail aborts it the same way.
+ */
+public class DeltaReportWriter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DeltaReportWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+    private static final String[] BASIC_COLUMNS = {
+        "employee_id", "batch_id", "previous_batch_id", "delta_type", "detected_date"
+    };
+    private static final String[] PREVIOUS_COLUMNS = {
+        "previous_name", "previous_age", "previous_status", "previous_dob"
+    };
+    private static final String[] CURRENT_COLUMNS = {
+        "current_name", "current_age", "current_status", "current_dob"
+    };
+
+    private final Path directory;
+    private final String batchId;
+    private final String timestamp;
+    private final String fileNamePrefix;
+    private final EmployeeDeltaProperties.ReportFormat format;
+    private final boolean includeUnchangedFields;
+    private final int recordsPerPart;
+    private final ExecutorService executor;
+    private final Semaphore inFlightParts;
+
+    private final Map<EmployeeDelta.DeltaType, Report> typeReports = new EnumMap<>(EmployeeDelta.DeltaType.class);
+    private Report combinedReport;
+    private Path manifestFile;
+    /** Final names of every file this writer has started, so an abort can remove them. */
+    private final Set<Path> startedFiles = ConcurrentHashMap.newKeySet();
+    private boolean closed;
+
+    /**
+     * @param directory directory the reports and manifest are written to
+     * @param batchId   the batch being reported
+     * @param timestamp run timestamp used in file names
+     * @param reporting reporting settings; maxRecordsPerReport 0 writes each report as a single file
+     */
+    public DeltaReportWriter(Path directory, String batchId, String timestamp, EmployeeDeltaProperties.Reporting reporting) {
+        this.directory = directory;
+        this.batchId = batchId;
+        this.timestamp = timestamp;
+        this.fileNamePrefix = reporting.getFileNamePrefix();
+        this.format = reporting.getFormat();
+        this.includeUnchangedFields = reporting.isIncludeUnchangedFields();
+        this.recordsPerPart = Math.max(0, reporting.getMaxRecordsPerReport());
+        int threads = Math.max(1, reporting.getWriterThreads());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "delta-report-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.inFlightParts = new Semaphore(threads * 2);
+    }
+
+    /**
+     * Appends a delta to the report of its type and to the combined report.
+     */
+    public void write(EmployeeDelta delta) {
+        try {
+            Report typeReport = typeReports.get(delta.getDeltaType());
+            if (typeReport == null) {
+                typeReport = new Report(delta.getDeltaType().name().toLowerCase(), columnsFor(delta.getDeltaType()));
+                typeReports.put(delta.getDeltaType(), typeReport);
+            }
+            typeReport.write(delta);
+            if (combinedReport == null) {
+                combinedReport = new Report("all", columnsForCombined());
+            }
+            combinedReport.write(delta);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing delta report for batch: " + batchId, e);
+        }
+    }
+
+    /**
+     * @return the manifest written on close, or null before then or if there were no deltas
+     */
+    public Path getManifestFile() {
+        return manifestFile;
+    }
+
+    /**
+     * Waits for every part, then writes the manifest. If a part fails the writer is aborted
+     * and the failure rethrown. Does nothing once the writer is closed or aborted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            List<DeltaReportManifest.Report> entries = new ArrayList<>();
+            for (Report report : reports()) {
+                entries.add(report.finish());
+            }
+            if (!entries.isEmpty()) {
+                manifestFile = writeManifest(new DeltaReportManifest(batchId, format, LocalDateTime.now(), entries));
+            }
+            closed = true;
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Abandons the run after a failure: cancels the parts still being written, waits for the
+     * writer threads to stop and deletes every file of the run, temporary or already renamed.
+     * No manifest is written. Does nothing once the writer is closed or aborted.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Report report : reports()) {
+            report.cancel();
+        }
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Delta report writers for batch {} did not stop; some partial files may remain", batchId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Path file : startedFiles) {
+            deleteQuietly(file.resolveSibling(file.getFileName() + ".tmp"));
+            deleteQuietly(file);
+        }
+        manifestFile = null;
+        log.info("Aborted delta reports for batch: {}, removed {} file(s)", batchId, startedFiles.size());
+    }
+
+    private List<Report> reports() {
+        List<Report> reports = new ArrayList<>(typeReports.values());
+        if (combinedReport != null) {
+            reports.add(combinedReport);
+        }
+        return reports;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete partial report file {}", file, e);
+        }
+    }
+
+    private Path writeManifest(DeltaReportManifest manifest) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        Path file = directory.resolve(String.format("%smanifest_%s_%s.json", fileNamePrefix, batchId, timestamp));
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), manifest);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Generated delta report manifest: {} ({} reports)", file.toAbsolutePath(), manifest.reports().size());
+        return file;
+    }
+
+    /**
+     * Columns of a per-type report: values a delta of that type carries, or all of them with includeUnchangedFields.
+     */
+    private String[] columnsFor(EmployeeDelta.DeltaType type) {
+        List<String> columns = new ArrayList<>(List.of(BASIC_COLUMNS));
+        if (includeUnchangedFields || type != EmployeeDelta.DeltaType.NEW) {
+            columns.addAll(List.of(PREVIOUS_COLUMNS));
+        }
+        if (includeUnchangedFields || type != EmployeeDelta.DeltaType.DELETED) {
+            columns.addAll(List.of(CURRENT_COLUMNS));
+        }
+        if (type == EmployeeDelta.DeltaType.UPDATED) {
+            columns.add("changed_fields");
+        }
+        columns.add("change_summary");
+        return columns.toArray(new String[0]);
+    }
+
+    private String[] columnsForCombined() {
+        List<String> columns = new ArrayList<>(List.of(BASIC_COLUMNS));
+        columns.addAll(List.of(PREVIOUS_COLUMNS));
+        columns.addAll(List.of(CURRENT_COLUMNS));
+        columns.add("changed_fields");
+        columns.add("change_summary");
+        return columns.toArray(new String[0]);
+    }
+
+    private static String value(EmployeeDelta delta, String column) {
+        Object value = switch (column) {
+            case "employee_id" -> delta.getEmployeeId();
+            case "batch_id" -> delta.getBatchId();
+            case "previous_batch_id" -> delta.getPreviousBatchId();
+            case "delta_type" -> delta.getDeltaType();
+            case "detected_date" -> delta.getDetectedDate();
+            case "previous_name" -> delta.getPreviousName();
+            case "previous_age" -> delta.getPreviousAge();
+            case "previous_status" -> delta.getPreviousStatus();
+            case "previous_dob" -> delta.getPreviousDob();
+            case "current_name" -> delta.getCurrentName();
+            case "current_age" -> delta.getCurrentAge();
+            case "current_status" -> delta.getCurrentStatus();
+            case "current_dob" -> delta.getCurrentDob();
+            case "changed_fields" -> delta.getChangedFields();
+            case "change_summary" -> delta.getChangeSummary();
+            default -> throw new IllegalArgumentException("Unknown report column: " + column);
+        };
+        return value != null ? value.toString() : null;
+    }
+
+    private static String extension(EmployeeDeltaProperties.ReportFormat format) {
+        return switch (format) {
+            case CSV -> ".csv";
+            case CSV_GZIP -> ".csv.gz";
+            case NDJSON -> ".ndjson";
+            case NDJSON_GZIP -> ".ndjson.gz";
+        };
+    }
+
+    /**
+     * One report, split into parts.
+     */
+    private final class Report {
+        private final String name;
+        private final String[] columns;
+        private final List<Future<DeltaReportManifest.Part>> parts = new ArrayList<>();
+        private List<String[]> pending = new ArrayList<>();
+        /** Used instead of pending rows when reports are not split. */
+        private PartFile single;
+
+        private Report(String name, String[] columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+
+        private void write(EmployeeDelta delta) throws IOException {
+            String[] row = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                row[i] = value(delta, columns[i]);
+            }
+            if (recordsPerPart == 0) {
+                if (single == null) {
+                    Path file = directory.resolve(String.format("%s%s_%s_%s%s",
+                            fileNamePrefix, name, batchId, timestamp, extension(format)));
+                    startedFiles.add(file);
+                    single = new PartFile(file, format, columns);
+                }
+                single.write(row);
+                return;
+            }
+            pending.add(row);
+            if (pending.size() == recordsPerPart) {
+                submitPart();
+            }
+        }
+
+        private void submitPart() throws IOException {
+            List<String[]> rows = pending;
+            pending = new ArrayList<>();
+            Path file = directory.resolve(String.format("%s%s_%s_%s_part%04d%s",
+                    fileNamePrefix, name, batchId, timestamp, parts.size() + 1, extension(format)));
+            startedFiles.add(file);
+            try {
+                inFlightParts.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to write " + file);
+            }
+            parts.add(executor.submit(() -> {
+                try {
+                    PartFile part = new PartFile(file, format, columns);
+                    try {
+                        for (String[] row : rows) {
+                            part.write(row);
+                        }
+                        return part.close();
+                    } catch (IOException | RuntimeException e) {
+                        part.discard();
+                        throw e;
+                    }
+                } finally {
+                    inFlightParts.release();
+                }
+            }));
+        }
+
+        private DeltaReportManifest.Report finish() throws IOException {
+            List<DeltaReportManifest.Part> written = new ArrayList<>();
+            if (single != null) {
+                written.add(single.close());
+            } else {
+                if (!pending.isEmpty()) {
+                    submitPart();
+                }
+                for (Future<DeltaReportManifest.Part> part : parts) {
+                    written.add(await(part));
+                }
+            }
+            long rows = written.stream().mapToLong(DeltaReportManifest.Part::rows).sum();
+            long bytes = written.stream().mapToLong(DeltaReportManifest.Part::bytes).sum();
+            long writeMillis = written.stream().mapToLong(DeltaReportManifest.Part::writeMillis).sum();
+            log.info("Generated {} delta report for batch: {} ({} records in {} {} file(s), {} bytes, {} ms)",
+                    name, batchId, rows, written.size(), format, bytes, writeMillis);
+            return new DeltaReportManifest.Report(name, rows, bytes, writeMillis, written);
+        }
+
+        private void cancel() {
+            for (Future<DeltaReportManifest.Part> part : parts) {
+                part.cancel(true);
+            }
+            if (single != null) {
+                single.discard();
+            }
+        }
+
+        private DeltaReportManifest.Part await(Future<DeltaReportManifest.Part> part) throws IOException {
+            try {
+                return part.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing " + name + " delta report");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException("Error writing " + name + " delta report for batch: " + batchId, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * One report file being written under a temporary name, checksummed as stored.
+     * Only time spent inside the file's own writes counts towards its write time.
+     */
+    private static final class PartFile {
+        private final Path file;
+        private final Path temp;
+        private final String[] columns;
+        private final DigestOutputStream digest;
+        private final Writer writer;
+        private final CSVWriter csv;
+        private final JsonGenerator json;
+        private long rows;
+        private long writeNanos;
+
+        private PartFile(Path file, EmployeeDeltaProperties.ReportFormat format, String[] columns) throws IOException {
+            long start = System.nanoTime();
+            this.file = file;
+            this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.columns = columns;
+            Files.createDirectories(file.getParent());
+            this.digest = new DigestOutputStream(Files.newOutputStream(temp), sha256());
+            boolean gzip = format == EmployeeDeltaProperties.ReportFormat.CSV_GZIP
+                    || format == EmployeeDeltaProperties.ReportFormat.NDJSON_GZIP;
+            OutputStream out = gzip ? new GZIPOutputStream(digest, BUFFER_SIZE) : digest;
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            if (format == EmployeeDeltaProperties.ReportFormat.CSV || format == EmployeeDeltaProperties.ReportFormat.CSV_GZIP) {
+                this.csv = new CSVWriter(writer);
+                this.json = null;
+                csv.writeNext(columns);
+            } else {
+                this.csv = null;
+                this.json = JSON_FACTORY.createGenerator(writer);
+            }
+            writeNanos += System.nanoTime() - start;
+        }
+
+        private void write(String[] row) throws IOException {
+            long start = System.nanoTime();
+            if (csv != null) {
+                String[] line = new String[row.length];
+                for (int i = 0; i < row.length; i++) {
+                    line[i] = row[i] != null ? row[i] : "";
+                }
+                csv.writeNext(line);
+            } else {
+                json.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    json.writeStringField(columns[i], row[i]);
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+            rows++;
+            writeNanos += System.nanoTime() - start;
+        }
+
+        private DeltaReportManifest.Part close() throws IOException {
+            long start = System.nanoTime();
+            if (csv != null) {
+                csv.close();
+            } else {
+                json.close();
+                writer.close();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writeNanos += System.nanoTime() - start;
+            return new DeltaReportManifest.Part(file.getFileName().toString(), rows, Files.size(file),
+                    TimeUnit.NANOSECONDS.toMillis(writeNanos), HexFormat.of().formatHex(digest.getMessageDigest().digest()));
+        }
+
+        /**
+         * Closes and removes the temporary file after a failed write.
+         */
+        private void discard() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("Error closing discarded report file {}", temp, e);
+            }
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Could not delete partial report file {}", temp, e);
+            }
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.employee.service;
+
+import com.example.employee.delta.BatchDiff;
+
+/**
+ * Service interface for comparing the employee rosters of any two completed batches.
+ */
+public interface EmployeeBatchDiffService {
+    
+    /**
+     * Computes what changed between two completed batches, e.g. from the start of a quarter to today.
+     * The result is not persisted; recent results are kept in a bounded in-memory cache.
+     * 
+     * @param fromBatchId the earlier batch
+     * @param toBatchId the later batch
+     * @return NEW, UPDATED and DELETED entries in employee order
+     * @throws IllegalArgumentException if either batch is unknown or not completed, or fromBatchId is not before toBatchId
+     */
+    BatchDiff diff(String fromBatchId, String toBatchId);
+}
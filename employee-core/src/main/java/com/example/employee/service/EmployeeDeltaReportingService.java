@@ -0,0 +1,36 @@
+package com.example.employee.service;
+
+import java.util.List;
+
+/**
+ * Service interface for tracking which batches have had their delta reports written.
+ */
+public interface EmployeeDeltaReportingService {
+    
+    /**
+     * Claims the completed batches that are neither reported nor claimed by another live run,
+     * before any report is written, so overlapping runs never report the same batch.
+     * 
+     * @param runId id of the claiming run
+     * @return batch ids claimed by the run, in batch order
+     */
+    List<String> claimUnreportedBatchIds(String runId);
+    
+    /**
+     * Completes a run's claim on a batch once its reports are complete.
+     * 
+     * @param runId id of the claiming run
+     * @param batchId the reported batch
+     * @param manifestFile manifest of the detailed reports, or null if none were written
+     * @return true if the batch was marked, false if the run no longer held the claim
+     */
+    boolean markReported(String runId, String batchId, String manifestFile);
+    
+    /**
+     * Releases a run's claim on a batch it could not report, so the next run reports it.
+     * 
+     * @param runId id of the claiming run
+     * @param batchId the batch
+     */
+    void releaseClaim(String runId, String batchId);
+}
@@ -0,0 +1,48 @@
+package com.example.employee.service;
+
+/**
+ * Service interface for enforcing delta batch retention.
+ */
+public interface EmployeeDeltaRetentionService {
+    
+    /**
+     * Removes batches outside the newest {@code maxBatchesRetention} batches or older than
+     * {@code batchRetentionPeriod}, together with their snapshots and deltas, plus versions no
+     * retained batch can see and checkpoints replay no longer needs. Rows are deleted in bounded chunks that each commit separately.
+     * The newest completed batch and batches still processing are always kept.
+     * 
+     * @return counts of rows removed and the time taken
+     */
+    RetentionResult purgeExpiredBatches();
+    
+    /**
+     * Data transfer object for the outcome of a retention run.
+     */
+    class RetentionResult {
+        private final int batchesPurged;
+        private final long snapshotsPurged;
+        private final long deltasPurged;
+        private final long versionsPurged;
+        private final long checkpointEntriesPurged;
+        private final long durationMillis;
+        
+        public RetentionResult(int batchesPurged, long snapshotsPurged, long deltasPurged,
+                               long versionsPurged, long checkpointEntriesPurged, long durationMillis) {
+            this.batchesPurged = batchesPurged;
+            this.snapshotsPurged = snapshotsPurged;
+            this.deltasPurged = deltasPurged;
+            this.versionsPurged = versionsPurged;
+            this.checkpointEntriesPurged = checkpointEntriesPurged;
+            this.durationMillis = durationMillis;
+        }
+        
+        // Getters
+        public int getBatchesPurged() { return batchesPurged; }
+        public long getSnapshotsPurged() { return snapshotsPurged; }
+        public long getDeltasPurged() { return deltasPurged; }
+        public long getVersionsPurged() { return versionsPurged; }
+        public long getCheckpointEntriesPurged() { return checkpointEntriesPurged; }
+        public long getDurationMillis() { return durationMillis; }
+        public long getRowsPurged() { return batchesPurged + snapshotsPurged + deltasPurged + versionsPurged + checkpointEntriesPurged; }
+    }
+}
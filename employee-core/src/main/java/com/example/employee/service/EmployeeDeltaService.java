@@ -1,11 +1,16 @@
 package com.example.employee.service;
 
+import com.example.employee.delta.InlineDeltaSession;
 import com.example.employee.entity.Employee;
 import com.example.employee.entity.EmployeeDelta;
 import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.entity.EmployeeSnapshot;
 
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service interface for detecting and managing employee data deltas between CSV ingests.
@@ -51,6 +56,35 @@ public interface EmployeeDeltaService {
      */
     List<EmployeeDelta> detectAndRecordDeltas(String currentBatchId);
     
+    /**
+     * Starts inline delta detection for a batch by loading the previous batch's
+     * employee fingerprints once into a compact in-memory index.
+     * With versioned storage the index is built from the current employee versions,
+     * and the session also writes versions as rows are recorded.
+     * 
+     * @param currentBatchId the ID of the batch being ingested
+     * @return session to pass to {@link #recordInlineDeltas} and {@link #completeInlineDeltaDetection}
+     */
+    InlineDeltaSession beginInlineDeltaDetection(String currentBatchId);
+    
+    /**
+     * Classifies ingested rows against the previous batch and records NEW and UPDATED deltas.
+     * Only rows whose fingerprint changed are compared field by field.
+     * 
+     * @param session the inline detection session for the current batch
+     * @param employees the rows ingested from one file
+     * @return the deltas recorded for these rows
+     */
+    List<EmployeeDelta> recordInlineDeltas(InlineDeltaSession session, List<Employee> employees);
+    
+    /**
+     * Records DELETED deltas for previous-batch employees that were never seen during ingest.
+     * 
+     * @param session the inline detection session for the current batch
+     * @return the DELETED deltas recorded
+     */
+    List<EmployeeDelta> completeInlineDeltaDetection(InlineDeltaSession session);
+    
     /**
      * Gets all deltas for a specific batch.
      * 
@@ -59,6 +93,15 @@ public interface EmployeeDeltaService {
      */
     List<EmployeeDelta> getDeltasForBatch(String batchId);
     
+    /**
+     * Reads all deltas of a batch in a single pass, in detection order, without holding them in memory.
+     * 
+     * @param batchId the batch ID
+     * @param sink receives each delta
+     * @return number of deltas read
+     */
+    long streamDeltasForBatch(String batchId, Consumer<EmployeeDelta> sink);
+    
     /**
      * Gets deltas of a specific type for a batch.
      * 
@@ -68,6 +111,93 @@ public interface EmployeeDeltaService {
      */
     List<EmployeeDelta> getDeltasForBatch(String batchId, EmployeeDelta.DeltaType deltaType);
     
+    /**
+     * Gets UPDATED deltas for a batch in which the given field changed.
+     * 
+     * @param batchId the batch ID
+     * @param fieldName a compared field name (name, age, status or dob)
+     * @return list of UPDATED deltas touching the field
+     * @throws IllegalArgumentException if the field is not a compared field
+     */
+    List<EmployeeDelta> getUpdatedDeltasForField(String batchId, String fieldName);
+    
+    /**
+     * Gets the state of every employee present as of a batch, ordered by employee ID.
+     * Reads the batch's snapshots or, with versioned storage, the versions valid at that batch.
+     * 
+     * @param batchId the batch ID
+     * @return employee state as of the batch, empty if the batch is unknown
+     */
+    List<EmployeeSnapshot> getEmployeeStateAsOfBatch(String batchId);
+    
+    /**
+     * Gets the state of one employee as of a batch.
+     * 
+     * @param batchId the batch ID
+     * @param employeeId the employee ID
+     * @return the employee's state, or empty if the employee was not present in the batch
+     */
+    Optional<EmployeeSnapshot> getEmployeeAsOfBatch(String batchId, Long employeeId);
+    
+    /**
+     * Checks that the roster as of a batch can be replayed, before any of it is produced.
+     * 
+     * @param batchId the batch ID
+     * @throws IllegalArgumentException if the batch is unknown, or if no checkpoint covers it
+     *         and the batches replay would start from have been purged
+     */
+    void requireReplayable(String batchId);
+    
+    /**
+     * Rebuilds the roster as of a batch by replaying deltas forward from the nearest
+     * checkpoint, independent of snapshot retention. Employees are passed to the sink
+     * in employee ID order as they are produced.
+     * 
+     * @param batchId the batch ID
+     * @param sink receives each employee present as of the batch
+     * @return number of employees emitted
+     * @throws IllegalArgumentException if the batch is unknown, or if no checkpoint covers it
+     *         and the batches replay would start from have been purged
+     */
+    long replayEmployeeState(String batchId, Consumer<EmployeeSnapshot> sink);
+    
+    /**
+     * Rebuilds one employee's state as of a batch by replaying deltas from the nearest checkpoint.
+     * 
+     * @param batchId the batch ID
+     * @param employeeId the employee ID
+     * @return the employee's state, or empty if the employee was not present as of the batch
+     * @throws IllegalArgumentException if the batch is unknown, or if no checkpoint covers it
+     *         and the batches replay would start from have been purged
+     */
+    Optional<EmployeeSnapshot> replayEmployeeState(String batchId, Long employeeId);
+    
+    /**
+     * Gets an ingest batch by its batch ID.
+     * 
+     * @param batchId the batch ID
+     * @return the batch, or null if none exists
+     */
+    EmployeeIngestBatch getIngestBatch(String batchId);
+    
+    /**
+     * Checks whether an employee was present in a batch using the batch's id bitmap,
+     * without reading stored employee state. Batches ingested before bitmaps existed fall back to it.
+     * 
+     * @param batchId the batch ID
+     * @param employeeId the employee ID
+     * @return true if the employee was present
+     * @throws IllegalArgumentException if the batch does not exist
+     */
+    boolean wasEmployeePresent(String batchId, Long employeeId);
+    
+    /**
+     * Gets the number of employees present in each completed batch, in batch order.
+     * 
+     * @return headcount per batch; null for batches ingested before bitmaps existed
+     */
+    List<BatchHeadcount> getHeadcounts();
+    
     /**
      * Gets the most recent completed ingest batch.
      * 
@@ -76,13 +206,41 @@ public interface EmployeeDeltaService {
     EmployeeIngestBatch getMostRecentBatch();
     
     /**
-     * Gets summary statistics for a batch's deltas.
+     * Gets summary statistics for a batch's deltas. Served from the counts stored on the batch
+     * when detection finished; batches still being detected are counted from their deltas.
      * 
      * @param batchId the batch ID
      * @return delta summary object
      */
     DeltaSummary getDeltaSummary(String batchId);
     
+    /**
+     * Gets summary statistics for the most recent completed batch.
+     * 
+     * @return delta summary object, or null if no batch has completed
+     */
+    DeltaSummary getLatestDeltaSummary();
+    
+    /**
+     * Data transfer object for the headcount of a batch.
+     */
+    class BatchHeadcount {
+        private final String batchId;
+        private final LocalDateTime ingestDate;
+        private final Integer headcount;
+        
+        public BatchHeadcount(String batchId, LocalDateTime ingestDate, Integer headcount) {
+            this.batchId = batchId;
+            this.ingestDate = ingestDate;
+            this.headcount = headcount;
+        }
+        
+        // Getters
+        public String getBatchId() { return batchId; }
+        public LocalDateTime getIngestDate() { return ingestDate; }
+        public Integer getHeadcount() { return headcount; }
+    }
+    
     /**
      * Data transfer object for delta summary statistics.
      */
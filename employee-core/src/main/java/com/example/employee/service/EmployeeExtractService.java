@@ -3,6 +3,11 @@ package com.example.employee.service;
 import java.nio.file.Path;
 
 public interface EmployeeExtractService {
+    /**
+     * Extracts the employees with the given status to the directory.
+     *
+     * @throws IllegalStateException if the extract failed; nothing is left in the directory or marked extracted
+     */
     void extractToDirectory(Path extractDir, String extractedStatues);
     void extractToDirectory();
 }
@@ -3,6 +3,9 @@ package com.example.employee.service;
 import java.nio.file.Path;
 
 public interface EmployeeIngestService {
-    void ingestFromDirectory(Path ingestDir, Path processedDir);
-    void ingestFromDirectory();
+    /**
+     * @return id of the ingest batch the run created; its status tells whether the run failed
+     */
+    String ingestFromDirectory(Path ingestDir, Path processedDir);
+    String ingestFromDirectory();
 }
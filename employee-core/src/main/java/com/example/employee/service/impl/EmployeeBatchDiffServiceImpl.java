@@ -0,0 +1,116 @@
+package com.example.employee.service.impl;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.delta.BatchDiff;
+import com.example.employee.delta.DeltaBatchPurgedEvent;
+import com.example.employee.delta.EmployeeFieldComparator;
+import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.repo.EmployeeDeltaRepository;
+import com.example.employee.repo.EmployeeIngestBatchRepository;
+import com.example.employee.service.EmployeeBatchDiffService;
+import com.example.employee.service.EmployeeDeltaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Diffs two batches from the deltas recorded between them, reading the start roster once
+ * through checkpoint replay. Completed batches never change, so cached results stay valid
+ * until either batch is purged, which evicts them; both batches are looked up before the
+ * cache is consulted.
+ */
+@Service
+public class EmployeeBatchDiffServiceImpl implements EmployeeBatchDiffService {
+    
+    private static final Logger log = LoggerFactory.getLogger(EmployeeBatchDiffServiceImpl.class);
+    
+    private final EmployeeIngestBatchRepository batchRepository;
+    private final EmployeeDeltaRepository deltaRepository;
+    private final EmployeeDeltaService deltaService;
+    private final EmployeeDeltaProperties deltaProperties;
+    private final EmployeeFieldComparator fieldComparator;
+    
+    private final Map<String, BatchDiff> cache = new LinkedHashMap<>(16, 0.75f, true);
+    
+    public EmployeeBatchDiffServiceImpl(
+            EmployeeIngestBatchRepository batchRepository,
+            EmployeeDeltaRepository deltaRepository,
+            EmployeeDeltaService deltaService,
+            EmployeeDeltaProperties deltaProperties) {
+        this.batchRepository = batchRepository;
+        this.deltaRepository = deltaRepository;
+        this.deltaService = deltaService;
+        this.deltaProperties = deltaProperties;
+        this.fieldComparator = EmployeeFieldComparator.compile(deltaProperties.getIgnoredFields());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public BatchDiff diff(String fromBatchId, String toBatchId) {
+        EmployeeIngestBatch from = requireCompletedBatch(fromBatchId);
+        EmployeeIngestBatch to = requireCompletedBatch(toBatchId);
+        if (from.getId() >= to.getId()) {
+            throw new IllegalArgumentException("Batch " + fromBatchId + " must precede batch " + toBatchId);
+        }
+        
+        String key = fromBatchId + '\u0000' + toBatchId;
+        BatchDiff cached = getCached(key);
+        if (cached != null) {
+            log.debug("Serving cached diff of batches: {} -> {}", fromBatchId, toBatchId);
+            return cached;
+        }
+        
+        long start = System.currentTimeMillis();
+        BatchDiff diff = new BatchDiff(fromBatchId, toBatchId, LocalDateTime.now());
+        try (Stream<Object[]> changes = deltaRepository.streamChangesBetweenBatches(from.getId(), to.getId())) {
+            changes.forEach(diff::apply);
+        }
+        if (diff.hasChanges()) {
+            deltaService.replayEmployeeState(fromBatchId, diff::before);
+        }
+        diff.complete(fieldComparator);
+        
+        log.info("Diffed batches: {} -> {} in {} ms - New: {}, Updated: {}, Deleted: {}",
+                fromBatchId, toBatchId, System.currentTimeMillis() - start,
+                diff.getNewCount(), diff.getUpdatedCount(), diff.getDeletedCount());
+        putCached(key, diff);
+        return diff;
+    }
+    
+    private EmployeeIngestBatch requireCompletedBatch(String batchId) {
+        EmployeeIngestBatch batch = batchRepository.findByBatchId(batchId)
+                .orElseThrow(() -> new IllegalArgumentException("Ingest batch not found: " + batchId));
+        if (batch.getStatus() != EmployeeIngestBatch.IngestStatus.COMPLETED) {
+            throw new IllegalArgumentException("Ingest batch is not completed: " + batchId);
+        }
+        return batch;
+    }
+    
+    @EventListener
+    public synchronized void onBatchPurged(DeltaBatchPurgedEvent event) {
+        cache.values().removeIf(diff -> diff.getFromBatchId().equals(event.batchId())
+                || diff.getToBatchId().equals(event.batchId()));
+    }
+    
+    private synchronized BatchDiff getCached(String key) {
+        return cache.get(key);
+    }
+    
+    private synchronized void putCached(String key, BatchDiff diff) {
+        EmployeeDeltaProperties.DiffCache settings = deltaProperties.getDiffCache();
+        if (settings.getMaxEntries() < 1 || diff.size() > settings.getMaxRows()) {
+            return;
+        }
+        cache.put(key, diff);
+        while (cache.size() > settings.getMaxEntries()) {
+            cache.remove(cache.keySet().iterator().next());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.employee.service.impl;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.repo.DeltaReportWatermarkRepository;
+import com.example.employee.service.EmployeeDeltaReportingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class EmployeeDeltaReportingServiceImpl implements EmployeeDeltaReportingService {
+    
+    private static final Logger log = LoggerFactory.getLogger(EmployeeDeltaReportingServiceImpl.class);
+    
+    private final DeltaReportWatermarkRepository watermarkRepository;
+    private final EmployeeDeltaProperties deltaProperties;
+    
+    public EmployeeDeltaReportingServiceImpl(
+            DeltaReportWatermarkRepository watermarkRepository,
+            EmployeeDeltaProperties deltaProperties) {
+        this.watermarkRepository = watermarkRepository;
+        this.deltaProperties = deltaProperties;
+    }
+    
+    @Override
+    public List<String> claimUnreportedBatchIds(String runId) {
+        LocalDateTime claimedAt = LocalDateTime.now();
+        int claimed = watermarkRepository.claimUnreported(runId, claimedAt,
+                claimedAt.minus(deltaProperties.getReporting().getClaimTimeout()));
+        if (claimed == 0) {
+            return List.of();
+        }
+        return watermarkRepository.findClaimedBatchIds(runId);
+    }
+    
+    @Override
+    public boolean markReported(String runId, String batchId, String manifestFile) {
+        boolean marked = watermarkRepository.markReported(runId, batchId, LocalDateTime.now(), manifestFile) == 1;
+        if (!marked) {
+            log.warn("Batch {} is no longer claimed by report run {}; not marking it reported", batchId, runId);
+        }
+        return marked;
+    }
+    
+    @Override
+    public void releaseClaim(String runId, String batchId) {
+        watermarkRepository.releaseClaim(runId, batchId);
+    }
+}
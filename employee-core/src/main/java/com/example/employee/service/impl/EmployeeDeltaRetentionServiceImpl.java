@@ -0,0 +1,255 @@
+package com.example.employee.service.impl;
+
+import com.example.employee.config.EmployeeCsvExtractProperties;
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.delta.DeltaBatchPurgedEvent;
+import com.example.employee.delta.DeltaPartitionManager;
+import com.example.employee.entity.EmployeeCheckpoint;
+import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.repo.DeltaReportWatermarkRepository;
+import com.example.employee.repo.EmployeeCheckpointEntryRepository;
+import com.example.employee.repo.EmployeeCheckpointRepository;
+import com.example.employee.repo.EmployeeDeltaRepository;
+import com.example.employee.repo.EmployeeExtractWatermarkRepository;
+import com.example.employee.repo.EmployeeIngestBatchRepository;
+import com.example.employee.repo.EmployeeSnapshotRepository;
+import com.example.employee.repo.EmployeeVersionRepository;
+import com.example.employee.service.EmployeeDeltaRetentionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Retention is deliberately not transactional as a whole. A batch's snapshots and deltas
+ * are removed by dropping its partitions; batches that predate partitioning share a
+ * partition and are deleted in chunks that each run in their own short transaction
+ * (see the repositories' deleteChunk* methods).
+ * Completed batches are only purged up to the newest checkpoint at or before the oldest
+ * retained batch, so every retained batch can still be replayed; without such a checkpoint
+ * replay starts from the first batch and no completed batch is purged.
+ * Completed batches the report job or the CDC extract has not processed yet are kept until
+ * it has, since purging them would cascade their watermark rows away and lose their changes.
+ */
+@Service
+public class EmployeeDeltaRetentionServiceImpl implements EmployeeDeltaRetentionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(EmployeeDeltaRetentionServiceImpl.class);
+    
+    static final String ROWS_PURGED_METRIC = "employee.delta.retention.rows.purged";
+    static final String DURATION_METRIC = "employee.delta.retention.duration";
+    
+    private final EmployeeIngestBatchRepository batchRepository;
+    private final EmployeeSnapshotRepository snapshotRepository;
+    private final EmployeeDeltaRepository deltaRepository;
+    private final EmployeeVersionRepository versionRepository;
+    private final EmployeeCheckpointRepository checkpointRepository;
+    private final EmployeeCheckpointEntryRepository checkpointEntryRepository;
+    private final DeltaReportWatermarkRepository reportWatermarkRepository;
+    private final EmployeeExtractWatermarkRepository extractWatermarkRepository;
+    private final DeltaPartitionManager partitionManager;
+    private final EmployeeDeltaProperties deltaProperties;
+    private final EmployeeCsvExtractProperties extractProperties;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public EmployeeDeltaRetentionServiceImpl(
+            EmployeeIngestBatchRepository batchRepository,
+            EmployeeSnapshotRepository snapshotRepository,
+            EmployeeDeltaRepository deltaRepository,
+            EmployeeVersionRepository versionRepository,
+            EmployeeCheckpointRepository checkpointRepository,
+            EmployeeCheckpointEntryRepository checkpointEntryRepository,
+            DeltaReportWatermarkRepository reportWatermarkRepository,
+            EmployeeExtractWatermarkRepository extractWatermarkRepository,
+            DeltaPartitionManager partitionManager,
+            EmployeeDeltaProperties deltaProperties,
+            EmployeeCsvExtractProperties extractProperties,
+            MeterRegistry meterRegistry,
+            ApplicationEventPublisher eventPublisher) {
+        this.batchRepository = batchRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.deltaRepository = deltaRepository;
+        this.versionRepository = versionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.checkpointEntryRepository = checkpointEntryRepository;
+        this.reportWatermarkRepository = reportWatermarkRepository;
+        this.extractWatermarkRepository = extractWatermarkRepository;
+        this.partitionManager = partitionManager;
+        this.deltaProperties = deltaProperties;
+        this.extractProperties = extractProperties;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    @Override
+    public RetentionResult purgeExpiredBatches() {
+        long start = System.nanoTime();
+        int chunkSize = Math.max(1, deltaProperties.getCleanupChunkSize());
+        
+        List<EmployeeIngestBatch> batches = batchRepository.findAllByOrderByIngestDateDesc();
+        List<EmployeeIngestBatch> expired = selectExpiredBatches(batches);
+        keepUnprocessedBatches(expired);
+        // Replay of the retained batches starts from the newest checkpoint at or before the oldest of them
+        Long oldestRetained = oldestRetainedBatch(batches, expired);
+        EmployeeCheckpoint anchor = oldestRetained == null ? null : checkpointRepository
+                .findFirstByIngestBatchIdLessThanEqualAndEmployeeCountIsNotNullOrderByIngestBatchIdDesc(oldestRetained)
+                .orElse(null);
+        if (anchor != null) {
+            // Deltas of completed batches after the anchor checkpoint are needed to replay the retained batches
+            Long anchorBatch = anchor.getIngestBatchId();
+            expired.removeIf(b -> b.getId() >= anchorBatch && b.getStatus() == EmployeeIngestBatch.IngestStatus.COMPLETED);
+        } else if (expired.removeIf(b -> b.getStatus() == EmployeeIngestBatch.IngestStatus.COMPLETED)) {
+            // Without a checkpoint, replay starts from the first batch
+            log.warn("No roster checkpoint at or before the oldest retained batch; keeping expired completed batches "
+                    + "so time travel can still replay the retained ones");
+        }
+        
+        long snapshotsPurged = 0;
+        long deltasPurged = 0;
+        for (EmployeeIngestBatch batch : expired) {
+            String batchId = batch.getBatchId();
+            long deltas = partitionManager.dropPartition(DeltaPartitionManager.DELTA_TABLE, batch);
+            if (deltas < 0) {
+                deltas = deleteInChunks(() -> deltaRepository.deleteChunkByBatchId(batchId, chunkSize), chunkSize);
+            }
+            long snapshots = partitionManager.dropPartition(DeltaPartitionManager.SNAPSHOT_TABLE, batch);
+            if (snapshots < 0) {
+                snapshots = deleteInChunks(() -> snapshotRepository.deleteChunkByBatchId(batchId, chunkSize), chunkSize);
+            }
+            batchRepository.delete(batch);
+            eventPublisher.publishEvent(new DeltaBatchPurgedEvent(batchId));
+            deltasPurged += deltas;
+            snapshotsPurged += snapshots;
+            log.info("Purged batch: {} ({} snapshots, {} deltas)", batchId, snapshots, deltas);
+        }
+        
+        // Versions that ended at or before the oldest retained batch are invisible to every retained batch
+        long versionsPurged = 0;
+        Long oldestKept = oldestRetainedBatch(batches, expired);
+        if (oldestKept != null) {
+            versionsPurged = deleteInChunks(
+                    () -> versionRepository.deleteChunkEndedAtOrBefore(oldestKept, chunkSize), chunkSize);
+        }
+        
+        // Checkpoints older than the anchor are never used for replay again
+        long checkpointEntriesPurged = 0;
+        if (anchor != null) {
+            for (EmployeeCheckpoint checkpoint : checkpointRepository.findByIngestBatchIdLessThan(anchor.getIngestBatchId())) {
+                Long checkpointId = checkpoint.getId();
+                checkpointEntriesPurged += deleteInChunks(
+                        () -> checkpointEntryRepository.deleteChunkByCheckpointId(checkpointId, chunkSize), chunkSize);
+                checkpointRepository.delete(checkpoint);
+            }
+        }
+        
+        long durationNanos = System.nanoTime() - start;
+        RetentionResult result = new RetentionResult(expired.size(), snapshotsPurged, deltasPurged, versionsPurged,
+                checkpointEntriesPurged, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        recordMetrics(result, durationNanos);
+        
+        log.info("Retention run completed in {} ms - purged {} batches, {} snapshots, {} deltas, {} versions, {} checkpoint entries",
+                result.getDurationMillis(), result.getBatchesPurged(), result.getSnapshotsPurged(),
+                result.getDeltasPurged(), result.getVersionsPurged(), result.getCheckpointEntriesPurged());
+        return result;
+    }
+    
+    /**
+     * Picks batches beyond the count limit or older than the retention period.
+     * 
+     * @param batches all batches, newest first
+     */
+    private List<EmployeeIngestBatch> selectExpiredBatches(List<EmployeeIngestBatch> batches) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(deltaProperties.getBatchRetentionPeriod());
+        int maxBatches = deltaProperties.getMaxBatchesRetention();
+        EmployeeIngestBatch newestCompleted = batches.stream()
+                .filter(b -> b.getStatus() == EmployeeIngestBatch.IngestStatus.COMPLETED)
+                .findFirst()
+                .orElse(null);
+        
+        List<EmployeeIngestBatch> expired = new ArrayList<>();
+        for (int i = 0; i < batches.size(); i++) {
+            EmployeeIngestBatch batch = batches.get(i);
+            // The next ingest compares against the newest completed batch
+            if (batch == newestCompleted || batch.getStatus() == EmployeeIngestBatch.IngestStatus.PROCESSING) {
+                continue;
+            }
+            if (i >= maxBatches || batch.getIngestDate().isBefore(cutoff)) {
+                expired.add(batch);
+            }
+        }
+        return expired;
+    }
+    
+    /**
+     * Removes completed batches that are still due for reporting or CDC extraction from the
+     * expired batches.
+     */
+    private void keepUnprocessedBatches(List<EmployeeIngestBatch> expired) {
+        List<Long> completed = expired.stream()
+                .filter(b -> b.getStatus() == EmployeeIngestBatch.IngestStatus.COMPLETED)
+                .map(EmployeeIngestBatch::getId)
+                .toList();
+        if (completed.isEmpty()) {
+            return;
+        }
+        Set<Long> unprocessed = new HashSet<>();
+        if (deltaProperties.getReporting().isEnabled()) {
+            Set<Long> pending = new HashSet<>(completed);
+            pending.removeAll(reportWatermarkRepository.findReportedIngestBatchIds(completed));
+            unprocessed.addAll(pending);
+        }
+        if (extractProperties.isEnabled() && extractProperties.getMode() == EmployeeCsvExtractProperties.ExtractMode.CDC) {
+            Set<Long> pending = new HashSet<>(completed);
+            pending.removeAll(extractWatermarkRepository.findExtractedIngestBatchIds(completed));
+            unprocessed.addAll(pending);
+        }
+        if (unprocessed.isEmpty()) {
+            return;
+        }
+        expired.removeIf(b -> unprocessed.contains(b.getId()));
+        log.warn("Keeping {} expired batches that are not yet reported or extracted: {}", unprocessed.size(), unprocessed);
+    }
+    
+    private Long oldestRetainedBatch(List<EmployeeIngestBatch> batches, List<EmployeeIngestBatch> expired) {
+        return batches.stream()
+                .filter(b -> !expired.contains(b))
+                .map(EmployeeIngestBatch::getId)
+                .filter(Objects::nonNull)
+                .min(Long::compare)
+                .orElse(null);
+    }
+    
+    private long deleteInChunks(IntSupplier deleteChunk, int chunkSize) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = deleteChunk.getAsInt();
+            total += deleted;
+        } while (deleted >= chunkSize);
+        return total;
+    }
+    
+    private void recordMetrics(RetentionResult result, long durationNanos) {
+        meterRegistry.counter(ROWS_PURGED_METRIC, "table", "employee_ingest_batch").increment(result.getBatchesPurged());
+        meterRegistry.counter(ROWS_PURGED_METRIC, "table", "employee_snapshot").increment(result.getSnapshotsPurged());
+        meterRegistry.counter(ROWS_PURGED_METRIC, "table", "employee_delta").increment(result.getDeltasPurged());
+        meterRegistry.counter(ROWS_PURGED_METRIC, "table", "employee_version").increment(result.getVersionsPurged());
+        meterRegistry.counter(ROWS_PURGED_METRIC, "table", "employee_checkpoint_entry").increment(result.getCheckpointEntriesPurged());
+        Timer.builder(DURATION_METRIC)
+                .description("Time taken by a delta retention run")
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
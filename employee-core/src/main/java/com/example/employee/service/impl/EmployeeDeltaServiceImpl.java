@@ -1,23 +1,42 @@
 package com.example.employee.service.impl;
 
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.delta.DeltaBatchPurgedEvent;
+import com.example.employee.delta.DeltaPartitionManager;
+import com.example.employee.delta.EmployeeFieldComparator;
+import com.example.employee.delta.EmployeeFingerprint;
+import com.example.employee.delta.EmployeeFingerprintIndex;
+import com.example.employee.delta.EmployeeIdBitmaps;
+import com.example.employee.delta.InlineDeltaSession;
+import com.example.employee.delta.RosterReplay;
+import com.example.employee.delta.TrackedField;
 import com.example.employee.entity.Employee;
+import com.example.employee.entity.EmployeeCheckpoint;
 import com.example.employee.entity.EmployeeDelta;
 import com.example.employee.entity.EmployeeIngestBatch;
 import com.example.employee.entity.EmployeeSnapshot;
+import com.example.employee.entity.EmployeeVersion;
+import com.example.employee.repo.EmployeeCheckpointEntryRepository;
+import com.example.employee.repo.EmployeeCheckpointRepository;
 import com.example.employee.repo.EmployeeDeltaRepository;
 import com.example.employee.repo.EmployeeIngestBatchRepository;
 import com.example.employee.repo.EmployeeSnapshotRepository;
+import com.example.employee.repo.EmployeeVersionRepository;
 import com.example.employee.service.EmployeeDeltaService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -25,20 +44,44 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
     
     private static final Logger log = LoggerFactory.getLogger(EmployeeDeltaServiceImpl.class);
     
+    private static final int SUMMARY_CACHE_SIZE = 64;
+    
     private final EmployeeIngestBatchRepository batchRepository;
     private final EmployeeSnapshotRepository snapshotRepository;
     private final EmployeeDeltaRepository deltaRepository;
-    private final ObjectMapper objectMapper;
+    private final EmployeeVersionRepository versionRepository;
+    private final EmployeeCheckpointRepository checkpointRepository;
+    private final EmployeeCheckpointEntryRepository checkpointEntryRepository;
+    private final DeltaPartitionManager partitionManager;
+    private final EmployeeDeltaProperties deltaProperties;
+    private final EmployeeFieldComparator fieldComparator;
+    
+    /** Recent summaries; a batch's counts never change once detection has stored them, until it is purged. */
+    private final Map<String, DeltaSummary> summaryCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DeltaSummary> eldest) {
+            return size() > SUMMARY_CACHE_SIZE;
+        }
+    };
     
     public EmployeeDeltaServiceImpl(
             EmployeeIngestBatchRepository batchRepository,
             EmployeeSnapshotRepository snapshotRepository,
             EmployeeDeltaRepository deltaRepository,
-            ObjectMapper objectMapper) {
+            EmployeeVersionRepository versionRepository,
+            EmployeeCheckpointRepository checkpointRepository,
+            EmployeeCheckpointEntryRepository checkpointEntryRepository,
+            DeltaPartitionManager partitionManager,
+            EmployeeDeltaProperties deltaProperties) {
         this.batchRepository = batchRepository;
         this.snapshotRepository = snapshotRepository;
         this.deltaRepository = deltaRepository;
-        this.objectMapper = objectMapper;
+        this.versionRepository = versionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.checkpointEntryRepository = checkpointEntryRepository;
+        this.partitionManager = partitionManager;
+        this.deltaProperties = deltaProperties;
+        this.fieldComparator = EmployeeFieldComparator.compile(deltaProperties.getIgnoredFields());
     }
     
     @Override
@@ -51,7 +94,10 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
         batch.setIngestDate(LocalDateTime.now());
         batch.setStatus(EmployeeIngestBatch.IngestStatus.PROCESSING);
         
-        return batchRepository.save(batch);
+        EmployeeIngestBatch saved = batchRepository.save(batch);
+        // Snapshots and deltas of this batch go to partitions of their own
+        partitionManager.createPartitions(saved);
+        return saved;
     }
     
     @Override
@@ -69,6 +115,10 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
             batch.setUpdatedRecords(updatedRecords);
             batch.setErrorMessage(errorMessage);
             batchRepository.save(batch);
+            
+            if (status == EmployeeIngestBatch.IngestStatus.FAILED && isVersionedStorage()) {
+                discardVersions(batch);
+            }
         } else {
             log.warn("Batch not found for update: {}", batchId);
         }
@@ -90,14 +140,27 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
     public List<EmployeeDelta> detectAndRecordDeltas(String currentBatchId) {
         log.info("Detecting deltas for batch: {}", currentBatchId);
         
+        if (!deltaProperties.isDetectNew() && !deltaProperties.isDetectDeleted() && !isUpdateDetectionActive()) {
+            log.info("All delta types are disabled. Skipping delta detection for batch: {}", currentBatchId);
+            storeDetectionResult(currentBatchId, null, 0, 0, 0);
+            return List.of();
+        }
+        
         // Get current batch snapshots
         List<EmployeeSnapshot> currentSnapshots = snapshotRepository.findByBatchId(currentBatchId);
         Map<Long, EmployeeSnapshot> currentEmployeeMap = currentSnapshots.stream()
                 .collect(Collectors.toMap(EmployeeSnapshot::getEmployeeId, s -> s));
+        Roaring64NavigableMap currentIds = EmployeeIdBitmaps.empty();
+        currentEmployeeMap.keySet().forEach(currentIds::addLong);
         
         // Get previous batch
         EmployeeIngestBatch previousBatch = getPreviousBatch(currentBatchId);
         if (previousBatch == null) {
+            if (!deltaProperties.isDetectNew()) {
+                log.info("No previous batch found and NEW detection is disabled. No deltas recorded for batch: {}", currentBatchId);
+                storeDetectionResult(currentBatchId, currentIds, 0, 0, 0);
+                return List.of();
+            }
             log.info("No previous batch found. All {} employees will be marked as NEW.", currentSnapshots.size());
             List<EmployeeDelta> newDeltas = createNewEmployeeDeltas(currentSnapshots, currentBatchId, null);
             if (!newDeltas.isEmpty()) {
@@ -105,6 +168,7 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
                 log.info("Detected and saved {} deltas for batch: {} (NEW: {}, UPDATED: 0, DELETED: 0)",
                         newDeltas.size(), currentBatchId, newDeltas.size());
             }
+            storeDetectionResult(currentBatchId, currentIds, newDeltas.size(), 0, 0);
             return newDeltas;
         }
         
@@ -115,35 +179,58 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
         Map<Long, EmployeeSnapshot> previousEmployeeMap = previousSnapshots.stream()
                 .collect(Collectors.toMap(EmployeeSnapshot::getEmployeeId, s -> s));
         
+        Roaring64NavigableMap previousIds = EmployeeIdBitmaps.deserialize(previousBatch.getEmployeeIds());
+        if (previousIds == null) {
+            // Batches ingested before id bitmaps existed
+            previousIds = EmployeeIdBitmaps.empty();
+            previousEmployeeMap.keySet().forEach(previousIds::addLong);
+        }
+        
         List<EmployeeDelta> deltas = new ArrayList<>();
         
+        // Disabled delta types skip their set-difference entirely
         // Find NEW employees (in current but not in previous)
-        Set<Long> newEmployeeIds = new HashSet<>(currentEmployeeMap.keySet());
-        newEmployeeIds.removeAll(previousEmployeeMap.keySet());
-        for (Long employeeId : newEmployeeIds) {
-            EmployeeSnapshot current = currentEmployeeMap.get(employeeId);
-            EmployeeDelta delta = createNewEmployeeDelta(current, currentBatchId, previousBatch.getBatchId());
-            deltas.add(delta);
+        if (deltaProperties.isDetectNew()) {
+            LongIterator newEmployeeIds = EmployeeIdBitmaps.andNot(currentIds, previousIds).getLongIterator();
+            while (newEmployeeIds.hasNext()) {
+                EmployeeSnapshot current = currentEmployeeMap.get(newEmployeeIds.next());
+                EmployeeDelta delta = createNewEmployeeDelta(current, currentBatchId, previousBatch.getBatchId());
+                deltas.add(delta);
+            }
         }
         
         // Find DELETED employees (in previous but not in current)
-        Set<Long> deletedEmployeeIds = new HashSet<>(previousEmployeeMap.keySet());
-        deletedEmployeeIds.removeAll(currentEmployeeMap.keySet());
-        for (Long employeeId : deletedEmployeeIds) {
-            EmployeeSnapshot previous = previousEmployeeMap.get(employeeId);
-            EmployeeDelta delta = createDeletedEmployeeDelta(previous, currentBatchId, previousBatch.getBatchId());
-            deltas.add(delta);
+        if (deltaProperties.isDetectDeleted()) {
+            LongIterator deletedEmployeeIds = EmployeeIdBitmaps.andNot(previousIds, currentIds).getLongIterator();
+            while (deletedEmployeeIds.hasNext()) {
+                EmployeeSnapshot previous = previousEmployeeMap.get(deletedEmployeeIds.next());
+                EmployeeDelta delta = createDeletedEmployeeDelta(previous, currentBatchId, previousBatch.getBatchId());
+                deltas.add(delta);
+            }
         }
         
         // Find UPDATED employees (in both, but with changes)
-        Set<Long> commonEmployeeIds = new HashSet<>(currentEmployeeMap.keySet());
-        commonEmployeeIds.retainAll(previousEmployeeMap.keySet());
-        for (Long employeeId : commonEmployeeIds) {
-            EmployeeSnapshot current = currentEmployeeMap.get(employeeId);
-            EmployeeSnapshot previous = previousEmployeeMap.get(employeeId);
-            EmployeeDelta delta = detectEmployeeChanges(current, previous, currentBatchId, previousBatch.getBatchId());
-            if (delta != null) {
-                deltas.add(delta);
+        if (isUpdateDetectionActive()) {
+            LongIterator commonEmployeeIds = EmployeeIdBitmaps.and(currentIds, previousIds).getLongIterator();
+            while (commonEmployeeIds.hasNext()) {
+                long employeeId = commonEmployeeIds.next();
+                EmployeeSnapshot current = currentEmployeeMap.get(employeeId);
+                EmployeeSnapshot previous = previousEmployeeMap.get(employeeId);
+                EmployeeDelta delta = detectEmployeeChanges(current, previous, currentBatchId, previousBatch.getBatchId());
+                if (delta != null) {
+                    deltas.add(delta);
+                }
+            }
+        }
+        
+        int newCount = 0;
+        int updatedCount = 0;
+        int deletedCount = 0;
+        for (EmployeeDelta delta : deltas) {
+            switch (delta.getDeltaType()) {
+                case NEW -> newCount++;
+                case UPDATED -> updatedCount++;
+                case DELETED -> deletedCount++;
             }
         }
         
@@ -151,17 +238,320 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
         if (!deltas.isEmpty()) {
             deltaRepository.saveAll(deltas);
             log.info("Detected and saved {} deltas for batch: {} (NEW: {}, UPDATED: {}, DELETED: {})",
-                    deltas.size(), currentBatchId,
-                    deltas.stream().mapToInt(d -> d.getDeltaType() == EmployeeDelta.DeltaType.NEW ? 1 : 0).sum(),
-                    deltas.stream().mapToInt(d -> d.getDeltaType() == EmployeeDelta.DeltaType.UPDATED ? 1 : 0).sum(),
-                    deltas.stream().mapToInt(d -> d.getDeltaType() == EmployeeDelta.DeltaType.DELETED ? 1 : 0).sum());
+                    deltas.size(), currentBatchId, newCount, updatedCount, deletedCount);
         } else {
             log.info("No deltas detected for batch: {}", currentBatchId);
         }
+        storeDetectionResult(currentBatchId, currentIds, newCount, updatedCount, deletedCount);
         
         return deltas;
     }
     
+    @Override
+    public InlineDeltaSession beginInlineDeltaDetection(String currentBatchId) {
+        if (isVersionedStorage()) {
+            return beginVersionedDeltaDetection(currentBatchId);
+        }
+        
+        EmployeeIngestBatch previousBatch = getPreviousBatch(currentBatchId);
+        if (previousBatch == null) {
+            log.info("No previous batch found for inline delta detection. All employees in batch: {} will be marked as NEW.",
+                    currentBatchId);
+            return new InlineDeltaSession(currentBatchId, null, null);
+        }
+        
+        String previousBatchId = previousBatch.getBatchId();
+        int expectedSize = previousBatch.getTotalRecords() != null ? previousBatch.getTotalRecords() : 0;
+        EmployeeFingerprintIndex index = new EmployeeFingerprintIndex(expectedSize);
+        
+        try (Stream<Object[]> rows = snapshotRepository.streamFingerprintsByBatchId(previousBatchId)) {
+            rows.forEach(row -> index.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+        // Snapshots written before fingerprints existed are fingerprinted on read
+        try (Stream<EmployeeSnapshot> legacy = snapshotRepository.streamUnfingerprintedByBatchId(previousBatchId)) {
+            legacy.forEach(s -> index.put(s.getEmployeeId(), EmployeeFingerprint.of(s)));
+        }
+        
+        log.info("Loaded {} employee fingerprints from previous batch: {} for inline delta detection of batch: {}",
+                index.size(), previousBatchId, currentBatchId);
+        return new InlineDeltaSession(currentBatchId, previousBatchId, index);
+    }
+    
+    @Override
+    public List<EmployeeDelta> recordInlineDeltas(InlineDeltaSession session, List<Employee> employees) {
+        // An id repeated within the batch is only compared once; versioned storage compares
+        // repeats against the version written for the first occurrence instead
+        List<Employee> firstSeen = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            if (session.addSeen(employee.getId())) {
+                firstSeen.add(employee);
+            }
+        }
+        if (session.isVersioned()) {
+            return recordVersions(session, employees);
+        }
+        
+        String currentBatchId = session.getBatchId();
+        String previousBatchId = session.getPreviousBatchId();
+        EmployeeFingerprintIndex previousState = session.getPreviousState();
+        
+        boolean detectNew = deltaProperties.isDetectNew();
+        boolean detectUpdated = isUpdateDetectionActive();
+        List<EmployeeDelta> deltas = new ArrayList<>();
+        Map<Long, EmployeeSnapshot> changedEmployees = new LinkedHashMap<>();
+        
+        for (Employee employee : firstSeen) {
+            EmployeeFingerprintIndex.Match match = previousState == null
+                    ? EmployeeFingerprintIndex.Match.ABSENT
+                    : previousState.markSeen(employee.getId(), EmployeeFingerprint.of(employee));
+            switch (match) {
+                case ABSENT -> {
+                    if (detectNew) {
+                        deltas.add(createNewEmployeeDelta(
+                                EmployeeSnapshot.fromEmployee(employee, currentBatchId), currentBatchId, previousBatchId));
+                    }
+                }
+                case CHANGED -> {
+                    if (detectUpdated) {
+                        changedEmployees.put(employee.getId(), EmployeeSnapshot.fromEmployee(employee, currentBatchId));
+                    }
+                }
+                case UNCHANGED -> { }
+            }
+        }
+        int newCount = deltas.size();
+        
+        // Only rows whose fingerprint changed are read back from the previous batch
+        int updatedCount = 0;
+        for (List<Long> ids : chunk(new ArrayList<>(changedEmployees.keySet()))) {
+            for (EmployeeSnapshot previous : snapshotRepository.findByBatchIdAndEmployeeIdIn(previousBatchId, ids)) {
+                EmployeeDelta delta = detectEmployeeChanges(
+                        changedEmployees.get(previous.getEmployeeId()), previous, currentBatchId, previousBatchId);
+                if (delta != null) {
+                    deltas.add(delta);
+                    updatedCount++;
+                }
+            }
+        }
+        
+        if (!deltas.isEmpty()) {
+            deltaRepository.saveAll(deltas);
+        }
+        session.addNew(newCount);
+        session.addUpdated(updatedCount);
+        log.debug("Inline delta detection recorded {} deltas for batch: {} (NEW: {}, UPDATED: {})",
+                deltas.size(), currentBatchId, newCount, updatedCount);
+        return deltas;
+    }
+    
+    @Override
+    public List<EmployeeDelta> completeInlineDeltaDetection(InlineDeltaSession session) {
+        String currentBatchId = session.getBatchId();
+        List<EmployeeDelta> deletedDeltas = new ArrayList<>();
+        
+        if (session.isVersioned()) {
+            deletedDeltas = closeUnseenVersions(session);
+        } else if (session.hasPreviousBatch() && deltaProperties.isDetectDeleted()) {
+            String previousBatchId = session.getPreviousBatchId();
+            List<Long> unseenIds = new ArrayList<>(session.getPreviousState().unseenCount());
+            session.getPreviousState().forEachUnseen(unseenIds::add);
+            
+            for (List<Long> ids : chunk(unseenIds)) {
+                List<EmployeeDelta> chunkDeltas = snapshotRepository.findByBatchIdAndEmployeeIdIn(previousBatchId, ids).stream()
+                        .map(previous -> createDeletedEmployeeDelta(previous, currentBatchId, previousBatchId))
+                        .collect(Collectors.toList());
+                deltaRepository.saveAll(chunkDeltas);
+                deletedDeltas.addAll(chunkDeltas);
+            }
+            session.addDeleted(deletedDeltas.size());
+        }
+        
+        storeDetectionResult(currentBatchId, session.getSeenIds(),
+                session.getNewCount(), session.getUpdatedCount(), session.getDeletedCount());
+        log.info("Inline delta detection completed for batch: {} - {} deltas (NEW: {}, UPDATED: {}, DELETED: {})",
+                currentBatchId, session.getTotalCount(),
+                session.getNewCount(), session.getUpdatedCount(), session.getDeletedCount());
+        return deletedDeltas;
+    }
+    
+    private InlineDeltaSession beginVersionedDeltaDetection(String currentBatchId) {
+        EmployeeIngestBatch currentBatch = requireBatch(currentBatchId);
+        EmployeeIngestBatch previousBatch = getPreviousBatch(currentBatchId);
+        String previousBatchId = previousBatch != null ? previousBatch.getBatchId() : null;
+        
+        long currentVersions = versionRepository.countByValidToBatchIsNull();
+        if (currentVersions == 0 && previousBatch != null) {
+            // First versioned run after snapshot storage: start history from the last snapshot batch
+            currentVersions = versionRepository.seedFromSnapshots(previousBatchId, previousBatch.getId());
+            log.info("Seeded {} employee versions from snapshots of batch: {}", currentVersions, previousBatchId);
+        }
+        
+        EmployeeFingerprintIndex index = new EmployeeFingerprintIndex((int) Math.min(currentVersions, Integer.MAX_VALUE));
+        try (Stream<Object[]> rows = versionRepository.streamCurrentFingerprints()) {
+            rows.forEach(row -> index.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+        try (Stream<EmployeeVersion> legacy = versionRepository.streamCurrentUnfingerprinted()) {
+            legacy.forEach(v -> index.put(v.getEmployeeId(), EmployeeFingerprint.of(v.getName(), v.getAge(), v.getStatus(), v.getDob())));
+        }
+        
+        log.info("Loaded {} current employee versions for versioned delta detection of batch: {}",
+                index.size(), currentBatchId);
+        return new InlineDeltaSession(currentBatchId, previousBatchId, index, currentBatch.getId());
+    }
+    
+    /**
+     * Writes a version for every row whose content differs from the employee's current
+     * version and records NEW and UPDATED deltas. Unchanged rows write nothing.
+     */
+    private List<EmployeeDelta> recordVersions(InlineDeltaSession session, List<Employee> employees) {
+        String currentBatchId = session.getBatchId();
+        String previousBatchId = session.getPreviousBatchId();
+        Long versionBatch = session.getVersionBatch();
+        EmployeeFingerprintIndex currentState = session.getPreviousState();
+        
+        boolean detectNew = deltaProperties.isDetectNew();
+        boolean detectUpdated = isUpdateDetectionActive();
+        List<EmployeeDelta> deltas = new ArrayList<>();
+        List<EmployeeVersion> addedVersions = new ArrayList<>();
+        Map<Long, Employee> changedEmployees = new LinkedHashMap<>();
+        
+        for (Employee employee : employees) {
+            long fingerprint = EmployeeFingerprint.of(employee);
+            switch (currentState.markSeen(employee.getId(), fingerprint)) {
+                case ABSENT -> {
+                    addedVersions.add(EmployeeVersion.fromEmployee(employee, versionBatch));
+                    // Later rows for the same id in this batch compare against this version
+                    currentState.put(employee.getId(), fingerprint);
+                    currentState.markSeen(employee.getId(), fingerprint);
+                    if (detectNew) {
+                        deltas.add(createNewEmployeeDelta(
+                                EmployeeSnapshot.fromEmployee(employee, currentBatchId), currentBatchId, previousBatchId));
+                    }
+                }
+                case CHANGED -> {
+                    changedEmployees.put(employee.getId(), employee);
+                    currentState.put(employee.getId(), fingerprint);
+                }
+                case UNCHANGED -> { }
+            }
+        }
+        int newCount = deltas.size();
+        if (!addedVersions.isEmpty()) {
+            versionRepository.saveAll(addedVersions);
+        }
+        
+        int updatedCount = 0;
+        for (List<Long> ids : chunk(new ArrayList<>(changedEmployees.keySet()))) {
+            List<EmployeeVersion> closedVersions = new ArrayList<>();
+            List<EmployeeVersion> replacements = new ArrayList<>();
+            for (EmployeeVersion current : versionRepository.findByEmployeeIdInAndValidToBatchIsNull(ids)) {
+                Employee employee = changedEmployees.get(current.getEmployeeId());
+                if (versionBatch.equals(current.getValidFromBatch())) {
+                    // Repeated within this batch: the version has not been published yet, overwrite it
+                    current.copyContentFrom(employee);
+                    closedVersions.add(current);
+                    continue;
+                }
+                current.setValidToBatch(versionBatch);
+                closedVersions.add(current);
+                replacements.add(EmployeeVersion.fromEmployee(employee, versionBatch));
+                if (detectUpdated) {
+                    EmployeeDelta delta = detectEmployeeChanges(EmployeeSnapshot.fromEmployee(employee, currentBatchId),
+                            current.toSnapshot(previousBatchId), currentBatchId, previousBatchId);
+                    if (delta != null) {
+                        deltas.add(delta);
+                        updatedCount++;
+                    }
+                }
+            }
+            // Close before inserting so at most one current version exists per employee
+            versionRepository.saveAllAndFlush(closedVersions);
+            versionRepository.saveAll(replacements);
+        }
+        
+        if (!deltas.isEmpty()) {
+            deltaRepository.saveAll(deltas);
+        }
+        session.addNew(newCount);
+        session.addUpdated(updatedCount);
+        log.debug("Versioned delta detection wrote {} new and {} changed versions for batch: {} (NEW: {}, UPDATED: {})",
+                addedVersions.size(), changedEmployees.size(), currentBatchId, newCount, updatedCount);
+        return deltas;
+    }
+    
+    /**
+     * Closes the current version of every employee not seen in this batch and records DELETED deltas.
+     */
+    private List<EmployeeDelta> closeUnseenVersions(InlineDeltaSession session) {
+        String currentBatchId = session.getBatchId();
+        String previousBatchId = session.getPreviousBatchId();
+        Long versionBatch = session.getVersionBatch();
+        boolean detectDeleted = deltaProperties.isDetectDeleted();
+        
+        List<Long> unseenIds = new ArrayList<>(session.getPreviousState().unseenCount());
+        session.getPreviousState().forEachUnseen(unseenIds::add);
+        
+        List<EmployeeDelta> deletedDeltas = new ArrayList<>();
+        for (List<Long> ids : chunk(unseenIds)) {
+            List<EmployeeVersion> closedVersions = versionRepository.findByEmployeeIdInAndValidToBatchIsNull(ids);
+            List<EmployeeDelta> chunkDeltas = new ArrayList<>();
+            for (EmployeeVersion current : closedVersions) {
+                current.setValidToBatch(versionBatch);
+                if (detectDeleted) {
+                    chunkDeltas.add(createDeletedEmployeeDelta(current.toSnapshot(previousBatchId), currentBatchId, previousBatchId));
+                }
+            }
+            versionRepository.saveAll(closedVersions);
+            if (!chunkDeltas.isEmpty()) {
+                deltaRepository.saveAll(chunkDeltas);
+                deletedDeltas.addAll(chunkDeltas);
+            }
+        }
+        session.addDeleted(deletedDeltas.size());
+        return deletedDeltas;
+    }
+    
+    /**
+     * Undoes the version changes of a failed batch so the current versions again
+     * reflect the last completed batch.
+     */
+    private void discardVersions(EmployeeIngestBatch batch) {
+        int removed = versionRepository.deleteByValidFromBatch(batch.getId());
+        int reopened = versionRepository.reopenClosedInBatch(batch.getId());
+        log.info("Discarded versions of failed batch: {} ({} removed, {} reopened)", batch.getBatchId(), removed, reopened);
+    }
+    
+    /**
+     * Stores what detection found on the batch row: the ids present, if known, and the delta counts
+     * that summaries are served from.
+     */
+    private void storeDetectionResult(String batchId, Roaring64NavigableMap ids,
+                                      int newCount, int updatedCount, int deletedCount) {
+        batchRepository.findByBatchId(batchId).ifPresent(batch -> {
+            if (ids != null) {
+                batch.setEmployeeIds(EmployeeIdBitmaps.serialize(ids));
+                batch.setHeadcount((int) ids.getLongCardinality());
+            }
+            batch.setNewDeltaCount(newCount);
+            batch.setUpdatedDeltaCount(updatedCount);
+            batch.setDeletedDeltaCount(deletedCount);
+            batchRepository.save(batch);
+        });
+    }
+    
+    private boolean isVersionedStorage() {
+        return deltaProperties.getStorageMode() == EmployeeDeltaProperties.StorageMode.VERSIONED;
+    }
+    
+    private List<List<Long>> chunk(List<Long> ids) {
+        int size = Math.max(1, deltaProperties.getPerformance().getBatchSize());
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += size) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + size)));
+        }
+        return chunks;
+    }
+    
     private List<EmployeeDelta> createNewEmployeeDeltas(List<EmployeeSnapshot> snapshots, String currentBatchId, String previousBatchId) {
         return snapshots.stream()
                 .map(snapshot -> createNewEmployeeDelta(snapshot, currentBatchId, previousBatchId))
@@ -182,8 +572,6 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
         delta.setCurrentStatus(current.getStatus());
         delta.setCurrentDob(current.getDob());
         
-        delta.setChangeSummary("New employee added: " + current.getName() + " (ID: " + current.getEmployeeId() + ")");
-        
         return delta;
     }
     
@@ -201,39 +589,14 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
         delta.setPreviousStatus(previous.getStatus());
         delta.setPreviousDob(previous.getDob());
         
-        delta.setChangeSummary("Employee deleted: " + previous.getName() + " (ID: " + previous.getEmployeeId() + ")");
-        
         return delta;
     }
     
     private EmployeeDelta detectEmployeeChanges(EmployeeSnapshot current, EmployeeSnapshot previous, 
                                               String currentBatchId, String previousBatchId) {
-        List<String> changedFields = new ArrayList<>();
-        List<String> changeSummaryParts = new ArrayList<>();
-        
-        // Compare each field
-        if (!Objects.equals(current.getName(), previous.getName())) {
-            changedFields.add("name");
-            changeSummaryParts.add(String.format("name: '%s' -> '%s'", previous.getName(), current.getName()));
-        }
-        
-        if (!Objects.equals(current.getAge(), previous.getAge())) {
-            changedFields.add("age");
-            changeSummaryParts.add(String.format("age: %s -> %s", previous.getAge(), current.getAge()));
-        }
-        
-        if (!Objects.equals(current.getStatus(), previous.getStatus())) {
-            changedFields.add("status");
-            changeSummaryParts.add(String.format("status: '%s' -> '%s'", previous.getStatus(), current.getStatus()));
-        }
-        
-        if (!Objects.equals(current.getDob(), previous.getDob())) {
-            changedFields.add("dob");
-            changeSummaryParts.add(String.format("dob: %s -> %s", previous.getDob(), current.getDob()));
-        }
-        
-        // If no changes detected, return null
-        if (changedFields.isEmpty()) {
+        // Compare only the configured fields; nothing is allocated for unchanged employees
+        int changedMask = fieldComparator.changedFields(current, previous);
+        if (changedMask == 0) {
             return null;
         }
         
@@ -257,20 +620,19 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
         delta.setCurrentStatus(current.getStatus());
         delta.setCurrentDob(current.getDob());
         
-        // Set change metadata
-        try {
-            delta.setChangedFields(objectMapper.writeValueAsString(changedFields));
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to serialize changed fields: {}", changedFields, e);
-            delta.setChangedFields(String.join(",", changedFields));
-        }
-        
-        delta.setChangeSummary(String.format("Employee updated: %s (ID: %d) - %s", 
-                current.getName(), current.getEmployeeId(), String.join(", ", changeSummaryParts)));
+        // Changed fields are stored as a bitmask; the field list and summary are rendered on read
+        delta.setChangedFieldsMask(changedMask);
         
         return delta;
     }
     
+    /**
+     * UPDATED detection runs only when enabled and at least one field is compared.
+     */
+    private boolean isUpdateDetectionActive() {
+        return deltaProperties.isDetectUpdated() && fieldComparator.comparesAnyField();
+    }
+    
     private EmployeeIngestBatch getPreviousBatch(String currentBatchId) {
         // Get the current batch to find its ingest date
         Optional<EmployeeIngestBatch> currentBatchOpt = batchRepository.findByBatchId(currentBatchId);
@@ -291,12 +653,166 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
         return deltaRepository.findByBatchId(batchId);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public long streamDeltasForBatch(String batchId, Consumer<EmployeeDelta> sink) {
+        long count = 0;
+        try (Stream<EmployeeDelta> deltas = deltaRepository.streamByBatchId(batchId)) {
+            Iterator<EmployeeDelta> iterator = deltas.iterator();
+            while (iterator.hasNext()) {
+                sink.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public List<EmployeeDelta> getDeltasForBatch(String batchId, EmployeeDelta.DeltaType deltaType) {
         return deltaRepository.findByBatchIdAndDeltaType(batchId, deltaType);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeDelta> getUpdatedDeltasForField(String batchId, String fieldName) {
+        TrackedField field = TrackedField.fromFieldName(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown delta field: " + fieldName);
+        }
+        return deltaRepository.findUpdatedByBatchIdAndChangedFields(batchId, field.getBit());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeSnapshot> getEmployeeStateAsOfBatch(String batchId) {
+        if (!isVersionedStorage()) {
+            return snapshotRepository.findByBatchIdOrderByEmployeeId(batchId);
+        }
+        return batchRepository.findByBatchId(batchId)
+                .map(batch -> versionRepository.findValidAtBatch(batch.getId()).stream()
+                        .map(version -> version.toSnapshot(batchId))
+                        .collect(Collectors.toList()))
+                .orElseGet(List::of);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EmployeeSnapshot> getEmployeeAsOfBatch(String batchId, Long employeeId) {
+        if (!isVersionedStorage()) {
+            return snapshotRepository.findByBatchIdAndEmployeeIdIn(batchId, List.of(employeeId)).stream().findFirst();
+        }
+        return batchRepository.findByBatchId(batchId)
+                .flatMap(batch -> versionRepository.findValidAtBatchForEmployee(employeeId, batch.getId()))
+                .map(version -> version.toSnapshot(batchId));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void requireReplayable(String batchId) {
+        findReplayBase(requireBatch(batchId));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public long replayEmployeeState(String batchId, Consumer<EmployeeSnapshot> sink) {
+        EmployeeIngestBatch target = requireBatch(batchId);
+        Optional<EmployeeCheckpoint> checkpoint = findReplayBase(target);
+        long fromBatch = checkpoint.map(EmployeeCheckpoint::getIngestBatchId).orElse(0L);
+        
+        RosterReplay replay = new RosterReplay(batchId, target.getIngestDate());
+        try (Stream<Object[]> changes = deltaRepository.streamChangesBetweenBatches(fromBatch, target.getId())) {
+            changes.forEach(replay::apply);
+        }
+        
+        long emitted;
+        if (checkpoint.isPresent()) {
+            try (Stream<Object[]> roster = checkpointEntryRepository.streamRosterByCheckpointId(checkpoint.get().getId())) {
+                emitted = replay.emit(roster.iterator(), sink);
+            }
+        } else {
+            emitted = replay.emit(Collections.emptyIterator(), sink);
+        }
+        
+        log.info("Replayed {} employees as of batch: {} from checkpoint: {} ({} employees changed since)",
+                emitted, batchId, checkpoint.map(EmployeeCheckpoint::getBatchId).orElse("none"), replay.changedCount());
+        return emitted;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EmployeeSnapshot> replayEmployeeState(String batchId, Long employeeId) {
+        EmployeeIngestBatch target = requireBatch(batchId);
+        Optional<EmployeeCheckpoint> checkpoint = findReplayBase(target);
+        long fromBatch = checkpoint.map(EmployeeCheckpoint::getIngestBatchId).orElse(0L);
+        
+        RosterReplay replay = new RosterReplay(batchId, target.getIngestDate());
+        deltaRepository.findEmployeeChangesBetweenBatches(employeeId, fromBatch, target.getId()).forEach(replay::apply);
+        
+        List<Object[]> base = checkpoint
+                .map(cp -> checkpointEntryRepository.findByCheckpointIdAndEmployeeId(cp.getId(), employeeId).stream()
+                        .map(e -> new Object[]{e.getEmployeeId(), e.getName(), e.getAge(), e.getStatus(), e.getDob()})
+                        .collect(Collectors.toList()))
+                .orElseGet(List::of);
+        List<EmployeeSnapshot> state = new ArrayList<>(1);
+        replay.emit(base.iterator(), state::add);
+        return state.stream().findFirst();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public boolean wasEmployeePresent(String batchId, Long employeeId) {
+        EmployeeIngestBatch batch = requireBatch(batchId);
+        Roaring64NavigableMap ids = EmployeeIdBitmaps.deserialize(batch.getEmployeeIds());
+        if (ids != null) {
+            return ids.contains(employeeId);
+        }
+        // Batches ingested before id bitmaps existed
+        if (isVersionedStorage()) {
+            return versionRepository.findValidAtBatchForEmployee(employeeId, batch.getId()).isPresent();
+        }
+        return snapshotRepository.existsByBatchIdAndEmployeeId(batchId, employeeId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<BatchHeadcount> getHeadcounts() {
+        return batchRepository.findCompletedHeadcounts().stream()
+                .map(row -> new BatchHeadcount((String) row[0], (LocalDateTime) row[1], (Integer) row[2]))
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public EmployeeIngestBatch getIngestBatch(String batchId) {
+        return batchRepository.findByBatchId(batchId).orElse(null);
+    }
+    
+    /**
+     * Finds the checkpoint a replay of the target batch starts from, or empty when it starts from
+     * the first batch. Fails when the batches that replay would start from have been purged.
+     */
+    private Optional<EmployeeCheckpoint> findReplayBase(EmployeeIngestBatch target) {
+        Optional<EmployeeCheckpoint> checkpoint =
+                checkpointRepository.findFirstByIngestBatchIdLessThanEqualAndEmployeeCountIsNotNullOrderByIngestBatchIdDesc(target.getId());
+        if (checkpoint.isPresent()) {
+            return checkpoint;
+        }
+        // Without a checkpoint, replay needs every batch back to the first one
+        Optional<EmployeeIngestBatch> oldest =
+                batchRepository.findFirstByStatusOrderByIdAsc(EmployeeIngestBatch.IngestStatus.COMPLETED);
+        if (oldest.isPresent() && deltaRepository.existsByBatchIdAndPreviousBatchIdIsNotNull(oldest.get().getBatchId())) {
+            throw new IllegalArgumentException("Ingest batch " + target.getBatchId() + " cannot be replayed: batches before "
+                    + oldest.get().getBatchId() + " have been purged and no roster checkpoint covers them");
+        }
+        return Optional.empty();
+    }
+    
+    private EmployeeIngestBatch requireBatch(String batchId) {
+        return batchRepository.findByBatchId(batchId)
+                .orElseThrow(() -> new IllegalArgumentException("Ingest batch not found: " + batchId));
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public EmployeeIngestBatch getMostRecentBatch() {
@@ -307,6 +823,22 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
     @Override
     @Transactional(readOnly = true)
     public DeltaSummary getDeltaSummary(String batchId) {
+        synchronized (summaryCache) {
+            DeltaSummary cached = summaryCache.get(batchId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        List<Object[]> stored = batchRepository.findDeltaCountsByBatchId(batchId);
+        if (!stored.isEmpty() && stored.get(0)[0] != null) {
+            Object[] counts = stored.get(0);
+            DeltaSummary summary = new DeltaSummary(batchId, (Integer) counts[0], (Integer) counts[1], (Integer) counts[2]);
+            cacheSummary(summary);
+            return summary;
+        }
+        
+        // Detection has not finished yet (or the batch is unknown): count the deltas recorded so far
         List<Object[]> counts = deltaRepository.countDeltasByTypeForBatch(batchId);
         
         int newEmployees = 0;
@@ -326,4 +858,24 @@ public class EmployeeDeltaServiceImpl implements EmployeeDeltaService {
         
         return new DeltaSummary(batchId, newEmployees, updatedEmployees, deletedEmployees);
     }
-}
\ No newline at end of file
+    
+    @Override
+    @Transactional(readOnly = true)
+    public DeltaSummary getLatestDeltaSummary() {
+        List<String> latest = batchRepository.findCompletedBatchIdsNewestFirst(Limit.of(1));
+        return latest.isEmpty() ? null : getDeltaSummary(latest.get(0));
+    }
+    
+    @EventListener
+    public void onBatchPurged(DeltaBatchPurgedEvent event) {
+        synchronized (summaryCache) {
+            summaryCache.remove(event.batchId());
+        }
+    }
+    
+    private void cacheSummary(DeltaSummary summary) {
+        synchronized (summaryCache) {
+            summaryCache.put(summary.getBatchId(), summary);
+        }
+    }
+}
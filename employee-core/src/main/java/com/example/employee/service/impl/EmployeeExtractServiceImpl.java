@@ -1,29 +1,72 @@
 package com.example.employee.service.impl;
 
 import com.example.employee.entity.Employee;
+import com.example.employee.entity.EmployeeDelta;
+import com.example.employee.repo.EmployeeDeltaRepository;
+import com.example.employee.repo.EmployeeExtractWatermarkRepository;
 import com.example.employee.repo.EmployeeRepository;
 import com.example.employee.service.EmployeeExtractService;
 import com.example.employee.service.EmployeeService;
 import com.example.employee.service.base.AbstractEmployeeService;
 import com.example.employee.config.EmployeeCsvExtractProperties;
-import com.example.common.util.CsvUtils;
+import com.example.employee.extract.ExtractManifest;
+import com.example.employee.extract.ExtractRowMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.postgresql.PGConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.opencsv.CSVWriter;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class EmployeeExtractServiceImpl extends AbstractEmployeeService implements EmployeeExtractService {
     private static final Logger log = LoggerFactory.getLogger(EmployeeExtractServiceImpl.class);
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final Duration DEFAULT_CLAIM_TIMEOUT = Duration.ofHours(1);
     private final EmployeeRepository employeeRepository;
     private final EmployeeCsvExtractProperties props;
+    private final DataSource dataSource;
+    private final EmployeeDeltaRepository deltaRepository;
+    private final EmployeeExtractWatermarkRepository watermarkRepository;
 
-    public EmployeeExtractServiceImpl(EmployeeRepository employeeRepository, EmployeeCsvExtractProperties props) {
+    public EmployeeExtractServiceImpl(EmployeeRepository employeeRepository, EmployeeCsvExtractProperties props,
+                                      DataSource dataSource, EmployeeDeltaRepository deltaRepository,
+                                      EmployeeExtractWatermarkRepository watermarkRepository) {
         this.employeeRepository = employeeRepository;
         this.props = props;
+        this.dataSource = dataSource;
+        this.deltaRepository = deltaRepository;
+        this.watermarkRepository = watermarkRepository;
     }
 
     @Override
@@ -80,47 +123,404 @@ public class EmployeeExtractServiceImpl extends AbstractEmployeeService implemen
     }
 
     /**
-     * Internal method that performs the actual extraction logic
+     * Internal method that performs the actual extraction logic.
+     * The run first claims every employee with the ready status in one set-based update that tags
+     * them with the run id (the batch id). Rows locked by a concurrent claim are skipped, and rows
+     * claimed by another run are only taken over once that claim is older than {@code claimTimeout}.
+     * The claimed rows are split into {@code shards} shards by id modulo the shard count, and each
+     * shard is written to its own temporary file by its own worker, either by streaming the shard's
+     * rows by id in pages of {@code pageSize} (keyset pagination) or, in COPY mode, by letting
+     * PostgreSQL write the CSV. When every shard is complete the files are renamed into place, a
+     * manifest with per-shard row counts and checksums is written (for more than one shard), and
+     * the claimed rows are marked extracted in one more update. If any shard fails, every shard
+     * file is deleted and the claim is released, which leaves the employees ready for the next run,
+     * and the failure is rethrown so the caller sees the run failed.
      */
     private synchronized void processFromDirectory(Path extractDir, String readyToExtractStatus) {
         String batchId = EmployeeService.generateBatchId();
         log.info("Starting EmployeeExtractServiceImpl. batchId={}, Extract directory: {}", batchId, extractDir);
         EmployeeService.ensureDirectoryExists(extractDir);
+        if (props.getMode() == EmployeeCsvExtractProperties.ExtractMode.CDC) {
+            extractChanges(extractDir, batchId);
+            return;
+        }
         log.info("Extracting employees with status: {} (batchId={})", readyToExtractStatus, batchId);
         
-        // Use repository query instead of filtering in memory
-        List<Employee> employees = employeeRepository.findByStatus(readyToExtractStatus);
-        
-        if (employees.isEmpty()) {
+        LocalDateTime claimedAt = LocalDateTime.now();
+        Duration claimTimeout = props.getClaimTimeout() != null ? props.getClaimTimeout() : DEFAULT_CLAIM_TIMEOUT;
+        int claimed = employeeRepository.claimForExtract(batchId, readyToExtractStatus, claimedAt, claimedAt.minus(claimTimeout));
+        if (claimed == 0) {
             log.info("No employee records with status '{}' found in database. Skipping export process. (batchId={})", readyToExtractStatus, batchId);
             return;
         }
+        log.info("Claimed {} employees for extract (batchId={})", claimed, batchId);
         
-        // Prepare data for CSV
-        Map<String, String> mapping = props.getColumnMapping();
-        String[] header = mapping.keySet().toArray(new String[0]);
-        List<String[]> rows = new java.util.ArrayList<>();
-        rows.add(header);
+        int shards = Math.max(1, props.getShards());
+        String baseName = props.getFileNamePrefix() + batchId + "-" + System.currentTimeMillis();
+        List<Path> outputFiles = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            outputFiles.add(extractDir.resolve(shards == 1 ? baseName + ".csv" : String.format("%s-shard%03d.csv", baseName, shard)));
+        }
+        List<Path> renamed = new ArrayList<>(shards);
+        try {
+            List<ExtractManifest.Shard> written = writeShards(batchId, shards, outputFiles);
+            for (Path outputFile : outputFiles) {
+                Files.move(tempFile(outputFile), outputFile, StandardCopyOption.ATOMIC_MOVE);
+                renamed.add(outputFile);
+            }
+            long rows = written.stream().mapToLong(ExtractManifest.Shard::rows).sum();
+            if (shards > 1) {
+                Path manifestFile = extractDir.resolve(baseName + "-manifest.json");
+                writeManifest(new ExtractManifest(batchId, props.getMode(), LocalDateTime.now(), rows, written), manifestFile);
+                renamed.add(manifestFile);
+            }
+            int marked = employeeRepository.markExtracted(batchId, props.getExtractedStatus());
+            log.info("Extracted {} employees to {} file(s) in {}, marked {} (batchId={})", rows, shards, extractDir, marked, batchId);
+        } catch (Exception e) {
+            log.error("Failed to write extracted employees to {} (batchId={})", outputFiles.get(0), batchId, e);
+            for (Path outputFile : outputFiles) {
+                deleteQuietly(tempFile(outputFile), batchId);
+            }
+            renamed.forEach(file -> deleteQuietly(file, batchId));
+            int released = employeeRepository.releaseExtractClaim(batchId);
+            log.info("Released extract claim on {} employees (batchId={})", released, batchId);
+            throw new IllegalStateException("Employee extract failed (batchId=" + batchId + ")", e);
+        }
+    }
+    
+    /**
+     * Change-data-capture extract. Claims every completed ingest batch that has no extract
+     * watermark and no live claim, the same way employees are claimed, and exports their deltas in
+     * batch and detection order, one row per delta with an {@code operation} column (INSERT, UPDATE
+     * or DELETE) ahead of the mapped columns. DELETE rows carry the employee's last known values.
+     * The file is written to a temporary file and renamed into place before the claims are completed,
+     * so overlapping runs never extract the same batch. A failed run releases its claims, leaving the
+     * batches due for the next one, and the failure is rethrown. Employees are not claimed and their
+     * status is left unchanged.
+     */
+    private void extractChanges(Path extractDir, String runId) {
+        LocalDateTime claimedAt = LocalDateTime.now();
+        Duration claimTimeout = props.getClaimTimeout() != null ? props.getClaimTimeout() : DEFAULT_CLAIM_TIMEOUT;
+        int claimed = watermarkRepository.claimUnextracted(runId, claimedAt, claimedAt.minus(claimTimeout));
+        List<String> batchIds = claimed == 0 ? List.of() : watermarkRepository.findClaimedBatchIds(runId);
+        if (batchIds.isEmpty()) {
+            log.info("No ingest batches completed since the last change extract. Skipping export process. (batchId={})", runId);
+            return;
+        }
+        Path outputFile = extractDir.resolve(props.getFileNamePrefix() + "changes-" + runId + "-" + System.currentTimeMillis() + ".csv");
+        Path tempFile = tempFile(outputFile);
+        try {
+            long written = writeChanges(batchIds, tempFile);
+            String extractFile = null;
+            if (written > 0) {
+                Files.move(tempFile, outputFile, StandardCopyOption.ATOMIC_MOVE);
+                extractFile = outputFile.toString();
+            } else {
+                Files.deleteIfExists(tempFile);
+            }
+            watermarkRepository.markExtracted(runId, LocalDateTime.now(), extractFile);
+            log.info("Extracted {} changes from {} batch(es) to file: {} (batchId={})",
+                    written, batchIds.size(), extractFile, runId);
+        } catch (Exception e) {
+            log.error("Failed to write extracted changes to file {} (batchId={})", outputFile, runId, e);
+            deleteQuietly(tempFile, runId);
+            int released = watermarkRepository.releaseClaim(runId);
+            log.info("Released change extract claim on {} batch(es) (batchId={})", released, runId);
+            throw new IllegalStateException("Employee change extract failed (batchId=" + runId + ")", e);
+        }
+    }
+    
+    private long writeChanges(List<String> batchIds, Path file) throws IOException {
+        ExtractRowMapper rowMapper = ExtractRowMapper.compile(props.getColumnMapping());
+        String[] mappedHeader = rowMapper.header();
+        String[] row = new String[mappedHeader.length + 1];
+        row[0] = "operation";
+        System.arraycopy(mappedHeader, 0, row, 1, mappedHeader.length);
+        int pageSize = props.getPageSize() > 0 ? props.getPageSize() : DEFAULT_PAGE_SIZE;
         
-        for (Employee emp : employees) {
-            String[] row = new String[header.length];
-            for (int i = 0; i < header.length; i++) {
-                String fieldName = mapping.get(header[i]);
-                String value = EmployeeService.getFieldValue(emp, fieldName);
-                row[i] = value != null ? value : "";
+        long written = 0;
+        try (CSVWriter writer = new CSVWriter(Files.newBufferedWriter(file))) {
+            writer.writeNext(row);
+            Employee emp = new Employee();
+            for (String ingestBatchId : batchIds) {
+                Long lastId = Long.MIN_VALUE;
+                List<EmployeeDelta> page;
+                do {
+                    page = deltaRepository.findByBatchIdAndIdGreaterThanOrderByIdAsc(ingestBatchId, lastId, Limit.of(pageSize));
+                    for (EmployeeDelta delta : page) {
+                        row[0] = operation(delta.getDeltaType());
+                        System.arraycopy(rowMapper.map(changedEmployee(delta, emp)), 0, row, 1, mappedHeader.length);
+                        writer.writeNext(row);
+                        lastId = delta.getId();
+                    }
+                    written += page.size();
+                } while (page.size() == pageSize);
+            }
+            // CSVWriter records write failures instead of throwing them
+            if (writer.checkError()) {
+                throw new IOException("Error writing extract file: " + file, writer.getException());
             }
-            rows.add(row);
-            // Update status to extracted using utility method
-            EmployeeService.updateEmployeeStatus(emp, props.getExtractedStatus());
         }
+        return written;
+    }
+    
+    private static String operation(EmployeeDelta.DeltaType deltaType) {
+        return switch (deltaType) {
+            case NEW -> "INSERT";
+            case UPDATED -> "UPDATE";
+            case DELETED -> "DELETE";
+        };
+    }
+    
+    /**
+     * Fills the reused employee with the values a delta carries: current values for inserts and
+     * updates, previous values for deletes. Transaction id and created date are not tracked by
+     * deltas and stay empty.
+     */
+    private static Employee changedEmployee(EmployeeDelta delta, Employee emp) {
+        boolean deleted = delta.getDeltaType() == EmployeeDelta.DeltaType.DELETED;
+        emp.setId(delta.getEmployeeId());
+        emp.setName(deleted ? delta.getPreviousName() : delta.getCurrentName());
+        emp.setAge(deleted ? delta.getPreviousAge() : delta.getCurrentAge());
+        emp.setStatus(deleted ? delta.getPreviousStatus() : delta.getCurrentStatus());
+        emp.setDob(deleted ? delta.getPreviousDob() : delta.getCurrentDob());
+        emp.setBatchId(delta.getBatchId());
+        return emp;
+    }
+    
+    /**
+     * Writes every shard to its temporary file, one worker per shard, and waits for all of them.
+     * 
+     * @return the written shards, in shard order
+     */
+    private List<ExtractManifest.Shard> writeShards(String batchId, int shards, List<Path> outputFiles) throws Exception {
+        if (shards == 1) {
+            return List.of(writeShard(batchId, 1, 0, outputFiles.get(0)));
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(shards, runnable -> {
+            Thread thread = new Thread(runnable, "employee-extract-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<ExtractManifest.Shard>> futures = new ArrayList<>(shards);
+            for (int shard = 0; shard < shards; shard++) {
+                int shardNumber = shard;
+                futures.add(workers.submit(() -> writeShard(batchId, shards, shardNumber, outputFiles.get(shardNumber))));
+            }
+            List<ExtractManifest.Shard> written = new ArrayList<>(shards);
+            Exception failure = null;
+            // Wait for every worker, even after a failure, so no shard is still writing during cleanup
+            for (Future<ExtractManifest.Shard> future : futures) {
+                try {
+                    written.add(future.get());
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return written;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+    
+    private ExtractManifest.Shard writeShard(String batchId, int shards, int shard, Path outputFile) throws IOException, SQLException {
+        Path file = tempFile(outputFile);
+        MessageDigest digest = newSha256();
+        long started = System.currentTimeMillis();
+        long rows;
+        try (OutputStream out = new DigestOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024), digest)) {
+            rows = props.getMode() == EmployeeCsvExtractProperties.ExtractMode.COPY
+                    ? copyClaimedEmployees(batchId, shards, shard, out)
+                    : writeClaimedEmployees(batchId, shards, shard, out, file);
+        }
+        long bytes = Files.size(file);
+        log.debug("Wrote extract shard {} of {}: {} rows, {} bytes in {} ms (batchId={})",
+                shard, shards, rows, bytes, System.currentTimeMillis() - started, batchId);
+        return new ExtractManifest.Shard(shard, outputFile.getFileName().toString(), rows, bytes,
+                HexFormat.of().formatHex(digest.digest()));
+    }
+    
+    private long writeClaimedEmployees(String batchId, int shards, int shard, OutputStream out, Path file) throws IOException {
+        // Each worker compiles its own mapper, since the row buffer is reused across rows
+        ExtractRowMapper rowMapper = ExtractRowMapper.compile(props.getColumnMapping());
+        int pageSize = props.getPageSize() > 0 ? props.getPageSize() : DEFAULT_PAGE_SIZE;
         
-        Path outputFile = extractDir.resolve(props.getFileNamePrefix() + batchId + "-" + System.currentTimeMillis() + ".csv");
+        long written = 0;
+        // The caller closes the stream once the digest is complete
+        CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.writeNext(rowMapper.header());
+        long lastId = Long.MIN_VALUE;
+        List<Employee> page;
+        do {
+            page = employeeRepository.findClaimedShardPage(batchId, shards, shard, lastId, pageSize);
+            for (Employee emp : page) {
+                writer.writeNext(rowMapper.map(emp));
+                lastId = emp.getId();
+            }
+            written += page.size();
+        } while (page.size() == pageSize);
+        writer.flush();
+        // CSVWriter records write failures instead of throwing them
+        if (writer.checkError()) {
+            throw new IOException("Error writing extract file: " + file, writer.getException());
+        }
+        return written;
+    }
+    
+    /**
+     * Streams one shard of the claimed employees with COPY ... TO STDOUT, bypassing entities and OpenCSV.
+     * Fields are quoted only where CSV requires it. Each worker copies over its own connection.
+     */
+    private long copyClaimedEmployees(String batchId, int shards, int shard, OutputStream out) throws IOException, SQLException {
+        String sql = buildCopySql(props.getColumnMapping(), props.getPreferredDateFormat(), batchId, shards, shard);
+        log.debug("Extract COPY statement: {}", sql);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
         try {
-            CsvUtils.writeCsv(outputFile.toString(), rows);
-            employeeRepository.saveAll(employees);
-            log.info("Extracted {} employees to file: {} (batchId={})", employees.size(), outputFile, batchId);
-        } catch (Exception e) {
-            log.error("Failed to write extracted employees to file {} (batchId={})", outputFile, batchId, e);
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+    
+    private static void writeManifest(ExtractManifest manifest, Path manifestFile) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Path tempFile = tempFile(manifestFile);
+        mapper.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), manifest);
+        Files.move(tempFile, manifestFile, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static Path tempFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+    
+    private static void deleteQuietly(Path file, String batchId) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete partial extract file {} (batchId={})", file, batchId, e);
+        }
+    }
+    
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    /**
+     * Builds the COPY statement for one shard of an extract run: one column per mapping entry,
+     * named by its CSV header, over the employees of the shard the run has claimed, in id order.
+     * The run id is generated here, not user input, but is still quoted as a literal because COPY
+     * takes no parameters.
+     */
+    static String buildCopySql(Map<String, String> columnMapping, String preferredDateFormat, String runId,
+                               int shards, int shard) {
+        StringJoiner columns = new StringJoiner(", ");
+        for (Map.Entry<String, String> column : columnMapping.entrySet()) {
+            columns.add(copyColumn(column.getValue(), preferredDateFormat) + " AS " + quoteIdentifier(column.getKey()));
         }
+        String shardCondition = shards > 1
+                ? " AND MOD(MOD(id, " + shards + ") + " + shards + ", " + shards + ") = " + shard
+                : "";
+        return "COPY (SELECT " + columns + " FROM employee WHERE extract_run_id = " + quoteLiteral(runId)
+                + shardCondition + " ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER)";
+    }
+    
+    /**
+     * SQL expression for an employee field, matching the fields {@link EmployeeService#getFieldValue} knows.
+     */
+    private static String copyColumn(String fieldName, String preferredDateFormat) {
+        switch (fieldName == null ? "" : fieldName.toLowerCase()) {
+            case "id":
+            case "name":
+            case "age":
+            case "status":
+                return fieldName.toLowerCase();
+            case "dob":
+                return "to_char(dob, " + quoteLiteral(toPostgresDatePattern(preferredDateFormat)) + ")";
+            case "batchid":
+            case "batch_id":
+                return "batch_id";
+            case "transactionid":
+            case "transaction_id":
+                return "transaction_id";
+            case "createddate":
+            case "created_date":
+                return "created_date";
+            default:
+                log.warn("Unknown field name: {}", fieldName);
+                return "NULL";
+        }
+    }
+    
+    /**
+     * Translates a java.time date pattern such as {@code dd/MM/yyyy} into a PostgreSQL
+     * {@code to_char} pattern. Only date and time-of-day letters are supported.
+     * 
+     * @throws IllegalArgumentException for pattern letters with no to_char equivalent
+     */
+    static String toPostgresDatePattern(String javaPattern) {
+        if (javaPattern == null || javaPattern.isBlank()) {
+            return "YYYY-MM-DD";
+        }
+        StringBuilder pattern = new StringBuilder();
+        int i = 0;
+        while (i < javaPattern.length()) {
+            char c = javaPattern.charAt(i);
+            if (c == '\'') {
+                int end = javaPattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated quote in date pattern: " + javaPattern);
+                }
+                // '' is a literal quote; other quoted text is copied as a to_char literal
+                pattern.append(end == i + 1 ? "'" : "\"" + javaPattern.substring(i + 1, end) + "\"");
+                i = end + 1;
+                continue;
+            }
+            int run = 1;
+            while (i + run < javaPattern.length() && javaPattern.charAt(i + run) == c) {
+                run++;
+            }
+            if (!Character.isLetter(c)) {
+                pattern.append(javaPattern, i, i + run);
+            } else {
+                pattern.append(switch (c) {
+                    case 'y', 'u' -> run == 2 ? "YY" : "YYYY";
+                    case 'M' -> run == 1 ? "FMMM" : run == 2 ? "MM" : run == 3 ? "Mon" : "FMMonth";
+                    case 'd' -> run == 1 ? "FMDD" : "DD";
+                    case 'H' -> run == 1 ? "FMHH24" : "HH24";
+                    case 'h' -> run == 1 ? "FMHH12" : "HH12";
+                    case 'm' -> "MI";
+                    case 's' -> "SS";
+                    case 'a' -> "AM";
+                    default -> throw new IllegalArgumentException(
+                            "Date pattern letter '" + c + "' is not supported by the COPY extract: " + javaPattern);
+                });
+            }
+            i += run;
+        }
+        return pattern.toString();
+    }
+    
+    private static String quoteIdentifier(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+    
+    private static String quoteLiteral(String literal) {
+        return '\'' + literal.replace("'", "''") + '\'';
     }
 }
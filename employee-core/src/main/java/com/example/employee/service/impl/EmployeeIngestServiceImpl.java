@@ -1,20 +1,26 @@
 package com.example.employee.service.impl;
 
+import com.example.employee.delta.InlineDeltaSession;
+import com.example.employee.delta.RosterCheckpointWriter;
 import com.example.employee.entity.Employee;
 import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.notification.DeltaBatchCompletedEvent;
 import com.example.employee.repo.EmployeeRepository;
 import com.example.employee.service.EmployeeDeltaService;
 import com.example.employee.service.EmployeeIngestService;
 import com.example.employee.service.EmployeeService;
 import com.example.employee.service.base.AbstractEmployeeService;
 import com.example.employee.config.EmployeeCsvIngestProperties;
+import com.example.employee.config.EmployeeDeltaProperties;
 import com.example.common.util.CsvUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -24,27 +30,40 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
     private final EmployeeRepository employeeRepository;
     private final EmployeeCsvIngestProperties props;
     private final EmployeeDeltaService deltaService;
+    private final EmployeeDeltaProperties deltaProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RosterCheckpointWriter checkpointWriter;
 
     public EmployeeIngestServiceImpl(EmployeeRepository employeeRepository, 
                                    EmployeeCsvIngestProperties props,
-                                   EmployeeDeltaService deltaService) {
+                                   EmployeeDeltaService deltaService,
+                                   EmployeeDeltaProperties deltaProperties,
+                                   ApplicationEventPublisher eventPublisher,
+                                   RosterCheckpointWriter checkpointWriter) {
         this.employeeRepository = employeeRepository;
         this.props = props;
         this.deltaService = deltaService;
+        this.deltaProperties = deltaProperties;
+        this.eventPublisher = eventPublisher;
+        this.checkpointWriter = checkpointWriter;
     }
 
     @Override
-    public void ingestFromDirectory(Path ingestDir, Path processedDir) {
-        processFromDirectory(ingestDir, processedDir);
+    public String ingestFromDirectory(Path ingestDir, Path processedDir) {
+        return ingest(ingestDir, processedDir);
     }
 
     @Override
-    public void ingestFromDirectory() {
-        processFromDirectory();
+    public String ingestFromDirectory() {
+        return ingest(Path.of(props.getFileFolder()), Path.of(props.getProcessedFolder()));
     }
 
     @Override
     public void processFromDirectory(Path ingestDir, Path processedDir) {
+        ingest(ingestDir, processedDir);
+    }
+
+    private String ingest(Path ingestDir, Path processedDir) {
         log.info("Starting EmployeeCsvIngestServiceImpl.ingestFromDirectory. Ingest directory: {}", ingestDir);
         String batchId = EmployeeService.generateBatchId();
         
@@ -59,7 +78,7 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
             log.error("Failed to create processed folder: {}", processedDir, e);
             deltaService.updateIngestBatch(batchId, EmployeeIngestBatch.IngestStatus.FAILED, 
                                          0, 0, 0, "Failed to create processed directory: " + e.getMessage());
-            return;
+            return batchId;
         }
         
         try {
@@ -70,14 +89,21 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
             int totalProcessed = 0;
             int newRecordsCount = 0;
             
+            // In inline mode the previous batch is loaded once and rows are classified as they are ingested;
+            // versioned storage always runs this way since versions are written during classification
+            boolean versionedStorage = deltaProperties.getStorageMode() == EmployeeDeltaProperties.StorageMode.VERSIONED;
+            InlineDeltaSession inlineSession = deltaProperties.isInlineDetection() || versionedStorage
+                    ? deltaService.beginInlineDeltaDetection(batchId)
+                    : null;
+            
             for (Path file : csvFiles) {
-                IngestResult result = processCSVFileWithDelta(file, processedDir, batchId);
+                IngestResult result = processCSVFileWithDelta(file, processedDir, batchId, inlineSession);
                 totalProcessed += result.totalRecords;
                 newRecordsCount += result.newRecords;
             }
             
             // After processing all CSV files, perform delta detection
-            performDeltaDetection(batchId, totalProcessed, newRecordsCount);
+            performDeltaDetection(batchId, totalProcessed, newRecordsCount, inlineSession);
             
             log.info("EmployeeCsvIngestServiceImpl.ingestFromDirectory completed for ingest directory: {}", ingestDir);
         } catch (Exception e) {
@@ -85,6 +111,7 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
             deltaService.updateIngestBatch(batchId, EmployeeIngestBatch.IngestStatus.FAILED, 
                                          0, 0, 0, "Error processing files: " + e.getMessage());
         }
+        return batchId;
     }
 
     @Override
@@ -156,6 +183,21 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
      * @return IngestResult containing counts of processed records
      */
     protected synchronized IngestResult processCSVFileWithDelta(Path file, Path processedDir, String batchId) {
+        return processCSVFileWithDelta(file, processedDir, batchId, null);
+    }
+    
+    /**
+     * Processes a single CSV file and, when an inline session is given, classifies its rows
+     * against the previous batch while they are still in memory.
+     * 
+     * @param file the CSV file to process
+     * @param processedDir the directory to move processed files to
+     * @param batchId the batch ID for this processing session
+     * @param inlineSession inline delta detection session, or null for post-pass detection
+     * @return IngestResult containing counts of processed records
+     */
+    protected synchronized IngestResult processCSVFileWithDelta(Path file, Path processedDir, String batchId,
+                                                                InlineDeltaSession inlineSession) {
         try {
             log.info("Processing file: {}", file);
             List<Map<String, String>> csvData = CsvUtils.readCsvFile(file, ',');
@@ -201,8 +243,15 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
                         existingIds.size(), existingIds, file);
             }
             
-            // Create snapshots of all employees from this file (including existing ones for delta comparison)
-            deltaService.createEmployeeSnapshots(employees, batchId);
+            // Create snapshots of all employees from this file (including existing ones for delta comparison);
+            // versioned storage records only changed employees in recordInlineDeltas instead
+            if (inlineSession == null || !inlineSession.isVersioned()) {
+                deltaService.createEmployeeSnapshots(employees, batchId);
+            }
+            
+            if (inlineSession != null) {
+                deltaService.recordInlineDeltas(inlineSession, employees);
+            }
             
             // Move the processed file
             EmployeeService.moveProcessedFile(file, processedDir);
@@ -218,12 +267,17 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
     /**
      * Performs delta detection and updates batch status.
      */
-    private void performDeltaDetection(String batchId, int totalProcessed, int newRecordsCount) {
+    private void performDeltaDetection(String batchId, int totalProcessed, int newRecordsCount,
+                                       InlineDeltaSession inlineSession) {
         try {
             log.info("Starting delta detection for batch: {}", batchId);
             
-            // Detect and record deltas
-            deltaService.detectAndRecordDeltas(batchId);
+            // Detect and record deltas; inline mode only has DELETED left to compute
+            if (inlineSession != null) {
+                deltaService.completeInlineDeltaDetection(inlineSession);
+            } else {
+                deltaService.detectAndRecordDeltas(batchId);
+            }
             
             // Get delta summary
             var summary = deltaService.getDeltaSummary(batchId);
@@ -235,6 +289,11 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
                 
                 log.info("Delta detection completed for batch: {} - NEW: {}, UPDATED: {}, DELETED: {}", 
                         batchId, summary.getNewEmployees(), summary.getUpdatedEmployees(), summary.getDeletedEmployees());
+                
+                // Listeners only queue the counters; notification delivery happens off this thread
+                eventPublisher.publishEvent(new DeltaBatchCompletedEvent(batchId, totalProcessed,
+                        summary.getNewEmployees(), summary.getUpdatedEmployees(), summary.getDeletedEmployees(),
+                        LocalDateTime.now()));
             } else {
                 // Handle case where summary is null
                 log.warn("Delta summary is null for batch: {}. Updating batch with zero counts.", batchId);
@@ -249,7 +308,11 @@ public class EmployeeIngestServiceImpl extends AbstractEmployeeService implement
             deltaService.updateIngestBatch(batchId, EmployeeIngestBatch.IngestStatus.FAILED,
                                          totalProcessed, newRecordsCount, 0, 
                                          "Delta detection failed: " + e.getMessage());
+            return;
         }
+        
+        // The batch's completion has committed; the checkpoint copies the roster in chunks of its own
+        checkpointWriter.writeIfDue(batchId);
     }
 
     /**
@@ -0,0 +1,174 @@
+package com.example.employee.delta;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.entity.EmployeeIngestBatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("DeltaPartitionManager Tests")
+class DeltaPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    private DeltaPartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        EmployeeDeltaProperties deltaProperties = new EmployeeDeltaProperties();
+        deltaProperties.setPartitionLockTimeout(Duration.ofSeconds(3));
+        partitionManager = new DeltaPartitionManager(jdbcTemplate, deltaProperties);
+        when(connection.createStatement()).thenReturn(statement);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+            .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+
+    @Test
+    @DisplayName("Should create a standalone table per partitioned table and attach it under a lock timeout")
+    void shouldCreatePartitionsForBatch() {
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(Boolean.class), anyString())).thenReturn(List.of());
+
+        partitionManager.createPartitions(createBatch(42L, "b'42"));
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(
+            "CREATE TABLE IF NOT EXISTS employee_snapshot_b42 (LIKE employee_snapshot INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        inOrder.verify(jdbcTemplate).execute("SET LOCAL lock_timeout = '3000ms'");
+        inOrder.verify(jdbcTemplate).execute(
+            "ALTER TABLE employee_snapshot ATTACH PARTITION employee_snapshot_b42 FOR VALUES IN ('b''42')");
+        inOrder.verify(jdbcTemplate).execute("SET LOCAL lock_timeout TO DEFAULT");
+        inOrder.verify(jdbcTemplate).execute(
+            "CREATE TABLE IF NOT EXISTS employee_delta_b42 (LIKE employee_delta INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        inOrder.verify(jdbcTemplate).execute(
+            "ALTER TABLE employee_delta ATTACH PARTITION employee_delta_b42 FOR VALUES IN ('b''42')");
+        verify(jdbcTemplate, never()).execute(contains("PARTITION OF"));
+    }
+
+    @Test
+    @DisplayName("Should not attach a partition that is already attached")
+    void shouldSkipAttachedPartitions() {
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(Boolean.class), anyString())).thenReturn(List.of(false));
+
+        partitionManager.createPartitions(createBatch(42L, "batch-042"));
+
+        verify(jdbcTemplate, times(2)).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+        verify(jdbcTemplate, never()).execute(contains("ATTACH PARTITION"));
+    }
+
+    @Test
+    @DisplayName("Should detach a partition concurrently under a lock timeout, drop it and report its row estimate")
+    void shouldDropExistingPartition() throws Exception {
+        stubPartition(List.of(false));
+
+        long rows = partitionManager.dropPartition(DeltaPartitionManager.DELTA_TABLE, createBatch(7L, "batch-007"));
+
+        assertEquals(120L, rows);
+        InOrder inOrder = inOrder(statement);
+        inOrder.verify(statement).execute("SET lock_timeout = '3000ms'");
+        inOrder.verify(statement).execute("ALTER TABLE employee_delta DETACH PARTITION employee_delta_b7 CONCURRENTLY");
+        inOrder.verify(statement).execute("DROP TABLE IF EXISTS employee_delta_b7");
+        inOrder.verify(statement).execute("RESET lock_timeout");
+    }
+
+    @Test
+    @DisplayName("Should finalize a detach left pending by an interrupted run")
+    void shouldFinalizePendingDetach() throws Exception {
+        stubPartition(List.of(true));
+
+        partitionManager.dropPartition(DeltaPartitionManager.DELTA_TABLE, createBatch(7L, "batch-007"));
+
+        verify(statement).execute("ALTER TABLE employee_delta DETACH PARTITION employee_delta_b7 FINALIZE");
+        verify(statement).execute("DROP TABLE IF EXISTS employee_delta_b7");
+    }
+
+    @Test
+    @DisplayName("Should only drop a partition that is already detached")
+    void shouldDropDetachedPartition() throws Exception {
+        stubPartition(List.of());
+
+        partitionManager.dropPartition(DeltaPartitionManager.DELTA_TABLE, createBatch(7L, "batch-007"));
+
+        verify(statement, never()).execute(startsWith("ALTER TABLE"));
+        verify(statement).execute("DROP TABLE IF EXISTS employee_delta_b7");
+    }
+
+    @Test
+    @DisplayName("Should reset the lock timeout when the detach times out")
+    void shouldResetLockTimeoutOnFailure() throws Exception {
+        stubPartition(List.of(false));
+        when(statement.execute(startsWith("ALTER TABLE"))).thenThrow(new SQLException("canceling statement due to lock timeout"));
+
+        assertThrows(SQLException.class,
+            () -> partitionManager.dropPartition(DeltaPartitionManager.DELTA_TABLE, createBatch(7L, "batch-007")));
+
+        verify(statement).execute("RESET lock_timeout");
+        verify(statement, never()).execute("DROP TABLE IF EXISTS employee_delta_b7");
+    }
+
+    @Test
+    @DisplayName("Should refuse to drop a partition inside a transaction")
+    void shouldRejectActiveTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class,
+                () -> partitionManager.dropPartition(DeltaPartitionManager.DELTA_TABLE, createBatch(7L, "batch-007")));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should report -1 when the batch has no partition of its own")
+    void shouldReportMissingPartition() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyString())).thenReturn(List.of());
+
+        long rows = partitionManager.dropPartition(DeltaPartitionManager.SNAPSHOT_TABLE, createBatch(7L, "batch-007"));
+
+        assertEquals(-1L, rows);
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should reject unsaved batches")
+    void shouldRejectUnsavedBatches() {
+        assertThrows(IllegalArgumentException.class,
+            () -> partitionManager.createPartitions(createBatch(null, "batch-001")));
+    }
+
+    private void stubPartition(List<Boolean> detachPending) {
+        when(jdbcTemplate.queryForList(contains("pg_class"), eq(Long.class), eq("employee_delta_b7"))).thenReturn(List.of(120L));
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(Boolean.class), eq("employee_delta_b7"))).thenReturn(detachPending);
+    }
+
+    private EmployeeIngestBatch createBatch(Long id, String batchId) {
+        EmployeeIngestBatch batch = new EmployeeIngestBatch();
+        batch.setId(id);
+        batch.setBatchId(batchId);
+        return batch;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.employee.delta;
+
+import com.example.employee.entity.EmployeeSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("EmployeeFieldComparator Tests")
+class EmployeeFieldComparatorTest {
+
+    @Test
+    @DisplayName("Should report every changed field when nothing is ignored")
+    void shouldReportEveryChangedField() {
+        EmployeeFieldComparator comparator = EmployeeFieldComparator.compile(Set.of());
+
+        int changed = comparator.changedFields(
+            snapshot("Alice Updated", 31, "ACTIVE", 1_000L),
+            snapshot("Alice", 30, "ACTIVE", 2_000L));
+
+        assertTrue(TrackedField.NAME.isSet(changed));
+        assertTrue(TrackedField.AGE.isSet(changed));
+        assertFalse(TrackedField.STATUS.isSet(changed));
+        assertTrue(TrackedField.DOB.isSet(changed));
+    }
+
+    @Test
+    @DisplayName("Should skip ignored fields regardless of case")
+    void shouldSkipIgnoredFields() {
+        EmployeeFieldComparator comparator = EmployeeFieldComparator.compile(Set.of("NAME", "dob", "createdDate"));
+
+        int changed = comparator.changedFields(
+            snapshot("Alice Updated", 30, "ACTIVE", 1_000L),
+            snapshot("Alice", 30, "ACTIVE", 2_000L));
+
+        assertEquals(0, changed);
+        assertEquals(TrackedField.AGE.getBit() | TrackedField.STATUS.getBit(), comparator.getEnabledMask());
+    }
+
+    @Test
+    @DisplayName("Should treat java.sql.Date and java.util.Date of the same instant as equal")
+    void shouldCompareDatesByInstant() {
+        EmployeeFieldComparator comparator = EmployeeFieldComparator.compile(null);
+        EmployeeSnapshot current = snapshot("Alice", 30, "ACTIVE", 0L);
+        current.setDob(new java.util.Date(86_400_000L));
+        EmployeeSnapshot previous = snapshot("Alice", 30, "ACTIVE", 86_400_000L);
+
+        assertEquals(0, comparator.changedFields(current, previous));
+    }
+
+    @Test
+    @DisplayName("Should compare no fields when every tracked field is ignored")
+    void shouldCompareNoFieldsWhenAllIgnored() {
+        EmployeeFieldComparator comparator = EmployeeFieldComparator.compile(Set.of("name", "age", "status", "dob"));
+
+        assertFalse(comparator.comparesAnyField());
+    }
+
+    private static EmployeeSnapshot snapshot(String name, Integer age, String status, long dobMillis) {
+        EmployeeSnapshot snapshot = new EmployeeSnapshot();
+        snapshot.setEmployeeId(1L);
+        snapshot.setName(name);
+        snapshot.setAge(age);
+        snapshot.setStatus(status);
+        snapshot.setDob(new Date(dobMillis));
+        return snapshot;
+    }
+}
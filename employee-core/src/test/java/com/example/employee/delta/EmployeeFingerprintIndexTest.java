@@ -0,0 +1,63 @@
+package com.example.employee.delta;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("EmployeeFingerprintIndex Tests")
+class EmployeeFingerprintIndexTest {
+
+    @Test
+    @DisplayName("Should classify ids as absent, changed or unchanged")
+    void shouldClassifyIds() {
+        EmployeeFingerprintIndex index = new EmployeeFingerprintIndex();
+        index.put(1L, 100L);
+        index.put(2L, 200L);
+
+        assertEquals(EmployeeFingerprintIndex.Match.UNCHANGED, index.markSeen(1L, 100L));
+        assertEquals(EmployeeFingerprintIndex.Match.CHANGED, index.markSeen(2L, 201L));
+        assertEquals(EmployeeFingerprintIndex.Match.ABSENT, index.markSeen(3L, 300L));
+        assertEquals(2, index.size());
+        assertEquals(0, index.unseenCount());
+    }
+
+    @Test
+    @DisplayName("Should enumerate unseen ids after growing past the initial capacity")
+    void shouldEnumerateUnseenIdsAfterGrowth() {
+        EmployeeFingerprintIndex index = new EmployeeFingerprintIndex(4);
+        for (long id = 1; id <= 10_000; id++) {
+            index.put(id, id * 31);
+        }
+        for (long id = 1; id <= 10_000; id++) {
+            if (id % 1000 != 0) {
+                index.markSeen(id, id * 31);
+            }
+        }
+
+        List<Long> unseen = new ArrayList<>();
+        index.forEachUnseen(unseen::add);
+        unseen.sort(null);
+
+        assertEquals(10_000, index.size());
+        assertEquals(10, index.unseenCount());
+        assertEquals(List.of(1000L, 2000L, 3000L, 4000L, 5000L, 6000L, 7000L, 8000L, 9000L, 10000L), unseen);
+    }
+
+    @Test
+    @DisplayName("Should produce equal fingerprints for equal content only")
+    void shouldProduceEqualFingerprintsForEqualContentOnly() {
+        Date dob = new Date(0L);
+        long base = EmployeeFingerprint.of("Alice", 30, "ACTIVE", dob);
+
+        assertEquals(base, EmployeeFingerprint.of("Alice", 30, "ACTIVE", new Date(0L)));
+        assertNotEquals(base, EmployeeFingerprint.of("Alice", 31, "ACTIVE", dob));
+        assertNotEquals(base, EmployeeFingerprint.of("Alice", 30, null, dob));
+        assertNotEquals(base, EmployeeFingerprint.of("Alice", 30, "ACTIVE", null));
+        assertNotEquals(EmployeeFingerprint.of(null, null, "", null), EmployeeFingerprint.of("", null, null, null));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.employee.delta;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.entity.EmployeeCheckpoint;
+import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.repo.EmployeeCheckpointEntryRepository;
+import com.example.employee.repo.EmployeeCheckpointRepository;
+import com.example.employee.repo.EmployeeIngestBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RosterCheckpointWriter Tests")
+class RosterCheckpointWriterTest {
+
+    @Mock
+    private EmployeeIngestBatchRepository batchRepository;
+
+    @Mock
+    private EmployeeCheckpointRepository checkpointRepository;
+
+    @Mock
+    private EmployeeCheckpointEntryRepository checkpointEntryRepository;
+
+    private EmployeeDeltaProperties properties;
+    private RosterCheckpointWriter checkpointWriter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new EmployeeDeltaProperties();
+        properties.setCheckpointChunkSize(2);
+        checkpointWriter = new RosterCheckpointWriter(batchRepository, checkpointRepository, checkpointEntryRepository, properties);
+        when(checkpointRepository.save(any(EmployeeCheckpoint.class))).thenAnswer(invocation -> {
+            EmployeeCheckpoint checkpoint = invocation.getArgument(0);
+            if (checkpoint.getId() == null) {
+                checkpoint.setId(9L);
+            }
+            return checkpoint;
+        });
+    }
+
+    @Test
+    @DisplayName("Should copy the first completed batch's snapshots in chunks after the last copied employee")
+    void shouldCopySnapshotsInChunks() {
+        // Arrange
+        givenBatch("batch-001", 1L);
+        when(checkpointEntryRepository.copyChunkFromSnapshots(eq(9L), eq("batch-001"), anyLong(), eq(2))).thenReturn(2, 2, 1);
+        when(checkpointEntryRepository.findMaxEmployeeIdByCheckpointId(9L)).thenReturn(4L, 8L, 9L);
+
+        // Act
+        Optional<EmployeeCheckpoint> checkpoint = checkpointWriter.writeIfDue("batch-001");
+
+        // Assert
+        assertTrue(checkpoint.isPresent());
+        assertEquals(5, checkpoint.get().getEmployeeCount());
+        verify(checkpointEntryRepository).copyChunkFromSnapshots(9L, "batch-001", Long.MIN_VALUE, 2);
+        verify(checkpointEntryRepository).copyChunkFromSnapshots(9L, "batch-001", 4L, 2);
+        verify(checkpointEntryRepository).copyChunkFromSnapshots(9L, "batch-001", 8L, 2);
+        verify(checkpointRepository, times(2)).save(any(EmployeeCheckpoint.class));
+    }
+
+    @Test
+    @DisplayName("Should copy the versions valid at the batch in versioned storage")
+    void shouldCopyVersionsInVersionedStorage() {
+        // Arrange
+        properties.setStorageMode(EmployeeDeltaProperties.StorageMode.VERSIONED);
+        givenBatch("batch-003", 3L);
+        when(checkpointEntryRepository.copyChunkFromVersions(9L, 3L, Long.MIN_VALUE, 2)).thenReturn(1);
+        when(checkpointEntryRepository.findMaxEmployeeIdByCheckpointId(9L)).thenReturn(7L);
+
+        // Act
+        Optional<EmployeeCheckpoint> checkpoint = checkpointWriter.writeIfDue("batch-003");
+
+        // Assert
+        assertEquals(1, checkpoint.orElseThrow().getEmployeeCount());
+        verify(checkpointEntryRepository, never()).copyChunkFromSnapshots(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should skip batches until checkpointInterval completed batches have passed")
+    void shouldSkipUntilIntervalHasPassed() {
+        // Arrange
+        givenBatch("batch-002", 2L);
+        when(checkpointRepository.findFirstByEmployeeCountIsNotNullOrderByIngestBatchIdDesc())
+            .thenReturn(Optional.of(new EmployeeCheckpoint(9L, 1L, "batch-001", null, 10)));
+        when(batchRepository.countByStatusAndIdGreaterThan(EmployeeIngestBatch.IngestStatus.COMPLETED, 1L)).thenReturn(1L);
+
+        // Act
+        Optional<EmployeeCheckpoint> checkpoint = checkpointWriter.writeIfDue("batch-002");
+
+        // Assert
+        assertTrue(checkpoint.isEmpty());
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should discard a checkpoint that fails halfway without failing the caller")
+    void shouldDiscardFailedCheckpoint() {
+        // Arrange
+        properties.setCleanupChunkSize(2);
+        givenBatch("batch-001", 1L);
+        when(checkpointEntryRepository.copyChunkFromSnapshots(eq(9L), eq("batch-001"), anyLong(), eq(2)))
+            .thenReturn(2)
+            .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        when(checkpointEntryRepository.findMaxEmployeeIdByCheckpointId(9L)).thenReturn(4L);
+        when(checkpointEntryRepository.deleteChunkByCheckpointId(eq(9L), anyInt())).thenReturn(2, 0);
+
+        // Act
+        Optional<EmployeeCheckpoint> checkpoint = checkpointWriter.writeIfDue("batch-001");
+
+        // Assert
+        assertTrue(checkpoint.isEmpty());
+        verify(checkpointEntryRepository, times(2)).deleteChunkByCheckpointId(eq(9L), anyInt());
+        verify(checkpointRepository).delete(argThat(c -> c.getId() == 9L && c.getEmployeeCount() == null));
+    }
+
+    @Test
+    @DisplayName("Should do nothing when checkpoints are disabled")
+    void shouldDoNothingWhenDisabled() {
+        properties.setCheckpointInterval(0);
+
+        assertTrue(checkpointWriter.writeIfDue("batch-001").isEmpty());
+        verifyNoInteractions(batchRepository, checkpointRepository, checkpointEntryRepository);
+    }
+
+    @Test
+    @DisplayName("Should refuse to copy inside a transaction")
+    void shouldRejectActiveTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class, () -> checkpointWriter.writeIfDue("batch-001"));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verifyNoInteractions(checkpointEntryRepository);
+    }
+
+    private void givenBatch(String batchId, Long id) {
+        EmployeeIngestBatch batch = new EmployeeIngestBatch();
+        batch.setId(id);
+        batch.setBatchId(batchId);
+        batch.setStatus(EmployeeIngestBatch.IngestStatus.COMPLETED);
+        when(batchRepository.findByBatchId(batchId)).thenReturn(Optional.of(batch));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.employee.delta;
+
+import com.example.employee.entity.EmployeeDelta;
+import com.example.employee.entity.EmployeeSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RosterReplay Tests")
+class RosterReplayTest {
+
+    private final LocalDateTime asOf = LocalDateTime.of(2024, 1, 31, 0, 0);
+
+    @Test
+    @DisplayName("Should merge checkpoint roster with net changes in employee order")
+    void shouldMergeCheckpointWithNetChanges() {
+        RosterReplay replay = new RosterReplay("batch-010", asOf);
+        replay.apply(2L, EmployeeDelta.DeltaType.UPDATED, "Bob", 26, "ACTIVE", null);
+        replay.apply(2L, EmployeeDelta.DeltaType.UPDATED, "Bobby", 27, "ACTIVE", null);
+        replay.apply(4L, EmployeeDelta.DeltaType.DELETED, null, null, null, null);
+        replay.apply(3L, EmployeeDelta.DeltaType.NEW, "Carol", 40, "ACTIVE", null);
+        replay.apply(5L, EmployeeDelta.DeltaType.NEW, "Eve", 22, "ACTIVE", null);
+        replay.apply(0L, EmployeeDelta.DeltaType.NEW, "Zed", 50, "ACTIVE", null);
+        replay.apply(6L, EmployeeDelta.DeltaType.NEW, "Temp", 30, "ACTIVE", null);
+        replay.apply(6L, EmployeeDelta.DeltaType.DELETED, null, null, null, null);
+
+        List<Object[]> checkpoint = List.of(
+            new Object[]{1L, "Alice", 30, "ACTIVE", null},
+            new Object[]{2L, "Bob", 25, "ACTIVE", null},
+            new Object[]{4L, "Dan", 35, "ACTIVE", null});
+
+        List<EmployeeSnapshot> roster = new ArrayList<>();
+        long emitted = replay.emit(checkpoint.iterator(), roster::add);
+
+        assertEquals(5, emitted);
+        assertEquals(List.of(0L, 1L, 2L, 3L, 5L),
+            roster.stream().map(EmployeeSnapshot::getEmployeeId).collect(Collectors.toList()));
+        assertEquals("Bobby", roster.get(2).getName());
+        assertEquals(27, roster.get(2).getAge());
+        assertEquals("Alice", roster.get(1).getName());
+        assertTrue(roster.stream().allMatch(s -> "batch-010".equals(s.getBatchId()) && asOf.equals(s.getSnapshotDate())));
+        assertEquals(6, replay.changedCount());
+    }
+
+    @Test
+    @DisplayName("Should rebuild roster from deltas alone when there is no checkpoint")
+    void shouldRebuildFromDeltasWithoutCheckpoint() {
+        RosterReplay replay = new RosterReplay("batch-002", asOf);
+        replay.apply(new Object[]{2L, EmployeeDelta.DeltaType.NEW, "Bob", 25, "ACTIVE", null});
+        replay.apply(new Object[]{1L, EmployeeDelta.DeltaType.NEW, "Alice", 30, "ACTIVE", null});
+
+        List<EmployeeSnapshot> roster = new ArrayList<>();
+        replay.emit(Collections.emptyIterator(), roster::add);
+
+        assertEquals(List.of("Alice", "Bob"), roster.stream().map(EmployeeSnapshot::getName).collect(Collectors.toList()));
+    }
+}
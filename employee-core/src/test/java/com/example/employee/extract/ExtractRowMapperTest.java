@@ -0,0 +1,65 @@
+package com.example.employee.extract;
+
+import com.example.employee.entity.Employee;
+import com.example.employee.service.EmployeeService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ExtractRowMapper Tests")
+class ExtractRowMapperTest {
+
+    @Test
+    @DisplayName("Should produce the same values as EmployeeService.getFieldValue")
+    void shouldMatchGetFieldValue() {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        mapping.put("person_id", "id");
+        mapping.put("full_name", "NAME");
+        mapping.put("years", "age");
+        mapping.put("state", "status");
+        mapping.put("birth", "dob");
+        mapping.put("batch", "batch_id");
+        mapping.put("created", "createdDate");
+        ExtractRowMapper mapper = ExtractRowMapper.compile(mapping);
+
+        for (Date dob : new Date[] { java.sql.Date.valueOf("1990-04-01"), new Date(640_000_000_000L) }) {
+            Employee emp = new Employee();
+            emp.setId(7L);
+            emp.setName("Alice");
+            emp.setAge(34);
+            emp.setStatus("READY");
+            emp.setDob(dob);
+            emp.setBatchId("batch-1");
+            emp.setCreatedDate(Timestamp.valueOf("2024-05-06 07:08:09.5"));
+
+            String[] row = mapper.map(emp);
+
+            assertArrayEquals(mapping.keySet().toArray(new String[0]), mapper.header());
+            int i = 0;
+            for (String fieldName : mapping.values()) {
+                assertEquals(EmployeeService.getFieldValue(emp, fieldName), row[i++], fieldName);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should write missing values and unknown fields as empty strings")
+    void shouldWriteEmptyForMissingValues() {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        mapping.put("id", "id");
+        mapping.put("dob", "dob");
+        mapping.put("other", "salary");
+        ExtractRowMapper mapper = ExtractRowMapper.compile(mapping);
+
+        Employee emp = new Employee();
+        emp.setId(1L);
+
+        assertArrayEquals(new String[] { "1", "", "" }, mapper.map(emp));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.employee.notification;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("DeltaNotificationDispatcher Tests")
+class DeltaNotificationDispatcherTest {
+
+    private EmployeeDeltaProperties properties;
+    private List<DeltaNotification> delivered;
+    private DeltaNotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EmployeeDeltaProperties();
+        properties.getNotifications().setEnabled(true);
+        properties.getNotifications().setDebounceWindow(Duration.ofHours(1));
+        delivered = new CopyOnWriteArrayList<>();
+        dispatcher = new DeltaNotificationDispatcher(properties, delivered::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    @DisplayName("Should send the batches of a burst that crossed a threshold in one notification")
+    void shouldSendBurstInOneNotification() {
+        // Arrange
+        dispatcher.onBatchCompleted(event("batch-001", 5, 0, 12));
+        dispatcher.onBatchCompleted(event("batch-002", 5, 0, 6));
+        dispatcher.onBatchCompleted(event("batch-003", 150, 0, 0));
+
+        // Act
+        dispatcher.flush();
+
+        // Assert
+        assertEquals(1, delivered.size());
+        DeltaNotification notification = delivered.get(0);
+        assertEquals(List.of("batch-001", "batch-003"), notification.batchIds());
+        assertEquals(155, notification.newEmployees());
+        assertEquals(12, notification.deletedEmployees());
+        assertEquals(List.of("batch-001: deleted employees 12 >= 10", "batch-003: new employees 150 >= 100"),
+                notification.triggers());
+        assertEquals(2, notification.batches().size());
+    }
+
+    @Test
+    @DisplayName("Should not sum batches that each stay below the thresholds")
+    void shouldNotSumBatchesBelowThresholds() {
+        // Arrange - together the batches would reach the deleted threshold of 10
+        dispatcher.onBatchCompleted(event("batch-001", 5, 0, 6));
+        dispatcher.onBatchCompleted(event("batch-002", 5, 0, 6));
+
+        // Act
+        dispatcher.flush();
+
+        // Assert
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not notify below thresholds or when disabled")
+    void shouldNotNotifyBelowThresholdsOrWhenDisabled() {
+        dispatcher.onBatchCompleted(event("batch-001", 99, 49, 9));
+        dispatcher.flush();
+
+        properties.getNotifications().setEnabled(false);
+        dispatcher.onBatchCompleted(event("batch-002", 1000, 0, 0));
+        dispatcher.flush();
+
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should deliver on the notification thread without blocking the publisher")
+    void shouldDeliverOffThePublisherThread() throws Exception {
+        // Arrange
+        properties.getNotifications().setDebounceWindow(Duration.ZERO);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        dispatcher.destroy();
+        dispatcher = new DeltaNotificationDispatcher(properties, notification -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        // Act - returns while the sink is still blocked
+        dispatcher.onBatchCompleted(event("batch-001", 500, 0, 0));
+        release.countDown();
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("delta-notifications"), threads);
+    }
+
+    @Test
+    @DisplayName("Should survive sink failures")
+    void shouldSurviveSinkFailures() {
+        dispatcher.destroy();
+        dispatcher = new DeltaNotificationDispatcher(properties, notification -> {
+            throw new IOException("mail server down");
+        });
+        dispatcher.onBatchCompleted(event("batch-001", 500, 0, 0));
+
+        assertDoesNotThrow(dispatcher::flush);
+    }
+
+    @Test
+    @DisplayName("File sink should write one JSON file per notification")
+    void fileSinkShouldWriteJsonFiles(@TempDir Path dir) throws Exception {
+        DeltaNotification notification = dispatcher.evaluate(List.of(event("batch-001", 500, 0, 0)));
+
+        new FileDeltaNotificationSink(dir).deliver(notification);
+
+        try (var files = Files.list(dir)) {
+            List<Path> written = files.toList();
+            assertEquals(1, written.size());
+            assertTrue(written.get(0).getFileName().toString().endsWith(".json"));
+            assertTrue(Files.readString(written.get(0)).contains("\"batchIds\" : [ \"batch-001\" ]"));
+        }
+    }
+
+    private DeltaBatchCompletedEvent event(String batchId, long newEmployees, long updatedEmployees, long deletedEmployees) {
+        return new DeltaBatchCompletedEvent(batchId, 1000, newEmployees, updatedEmployees, deletedEmployees, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.employee.report;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.entity.EmployeeDelta;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("DeltaReportWriter Tests")
+class DeltaReportWriterTest {
+
+    @TempDir
+    Path reportsDir;
+
+    @Test
+    @DisplayName("Should fan each delta out to its type report and the combined report")
+    void shouldFanOutToTypeAndCombinedReports() throws Exception {
+        // Act
+        try (DeltaReportWriter writer = new DeltaReportWriter(reportsDir, "batch-002", "20240101_000000", reporting(0))) {
+            writer.write(delta(1L, EmployeeDelta.DeltaType.NEW));
+            writer.write(delta(2L, EmployeeDelta.DeltaType.DELETED));
+            writer.write(delta(3L, EmployeeDelta.DeltaType.NEW));
+        }
+
+        // Assert - no UPDATED rows, so no UPDATED file
+        assertFalse(Files.exists(reportsDir.resolve("report-updated_batch-002_20240101_000000.csv")));
+        List<String> newReport = Files.readAllLines(reportsDir.resolve("report-new_batch-002_20240101_000000.csv"));
+        assertEquals(3, newReport.size());
+        assertFalse(newReport.get(0).contains("previous_name"));
+        assertTrue(newReport.get(1).startsWith("\"1\",\"batch-002\""));
+        List<String> deletedReport = Files.readAllLines(reportsDir.resolve("report-deleted_batch-002_20240101_000000.csv"));
+        assertEquals(2, deletedReport.size());
+        assertFalse(deletedReport.get(0).contains("current_name"));
+        List<String> combined = Files.readAllLines(reportsDir.resolve("report-all_batch-002_20240101_000000.csv"));
+        assertEquals(4, combined.size());
+        assertTrue(combined.get(0).contains("previous_name") && combined.get(0).contains("changed_fields"));
+    }
+
+    @Test
+    @DisplayName("Should roll reports into part files and list them in the manifest")
+    void shouldRollIntoPartsWithManifest() throws Exception {
+        DeltaReportWriter writer = new DeltaReportWriter(reportsDir, "batch-002", "ts", reporting(2));
+        try (writer) {
+            for (long id = 1; id <= 5; id++) {
+                writer.write(delta(id, EmployeeDelta.DeltaType.NEW));
+            }
+        }
+
+        // Assert - 5 rows in parts of 2, 2 and 1, each with its own header
+        assertEquals(3, Files.readAllLines(reportsDir.resolve("report-new_batch-002_ts_part0001.csv")).size());
+        assertEquals(3, Files.readAllLines(reportsDir.resolve("report-new_batch-002_ts_part0002.csv")).size());
+        assertEquals(2, Files.readAllLines(reportsDir.resolve("report-new_batch-002_ts_part0003.csv")).size());
+        assertFalse(Files.exists(reportsDir.resolve("report-new_batch-002_ts_part0004.csv")));
+
+        assertEquals(reportsDir.resolve("report-manifest_batch-002_ts.json"), writer.getManifestFile());
+        JsonNode manifest = new ObjectMapper().readTree(writer.getManifestFile().toFile());
+        assertEquals("batch-002", manifest.get("batchId").asText());
+        assertEquals(2, manifest.get("reports").size());
+        JsonNode newReport = manifest.get("reports").get(0);
+        assertEquals("new", newReport.get("name").asText());
+        assertEquals(5, newReport.get("rows").asLong());
+        assertEquals(3, newReport.get("parts").size());
+        for (JsonNode part : newReport.get("parts")) {
+            byte[] content = Files.readAllBytes(reportsDir.resolve(part.get("file").asText()));
+            assertEquals(content.length, part.get("bytes").asLong());
+            assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)),
+                    part.get("sha256").asText());
+        }
+        assertEquals(1, newReport.get("parts").get(2).get("rows").asLong());
+    }
+
+    @Test
+    @DisplayName("Should write gzip-compressed NDJSON and record it in the manifest")
+    void shouldWriteCompressedNdjson() throws Exception {
+        EmployeeDeltaProperties.Reporting reporting = reporting(0);
+        reporting.setFormat(EmployeeDeltaProperties.ReportFormat.NDJSON_GZIP);
+        DeltaReportWriter writer = new DeltaReportWriter(reportsDir, "batch-002", "ts", reporting);
+        try (writer) {
+            writer.write(delta(1L, EmployeeDelta.DeltaType.NEW));
+            writer.write(delta(2L, EmployeeDelta.DeltaType.DELETED));
+        }
+
+        Path deleted = reportsDir.resolve("report-deleted_batch-002_ts.ndjson.gz");
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(deleted)), StandardCharsets.UTF_8))) {
+            lines = reader.lines().toList();
+        }
+        assertEquals(1, lines.size());
+        JsonNode row = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("2", row.get("employee_id").asText());
+        assertEquals("Employee 2", row.get("previous_name").asText());
+        assertTrue(row.get("previous_age").isNull());
+
+        JsonNode manifest = new ObjectMapper().readTree(writer.getManifestFile().toFile());
+        assertEquals("NDJSON_GZIP", manifest.get("format").asText());
+        assertEquals(Files.size(deleted), manifest.get("reports").get(1).get("bytes").asLong());
+        try (var files = Files.list(reportsDir)) {
+            assertTrue(files.noneMatch(f -> f.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    @DisplayName("Should not write a manifest when there are no deltas")
+    void shouldSkipManifestWithoutDeltas() throws Exception {
+        DeltaReportWriter writer = new DeltaReportWriter(reportsDir, "batch-002", "ts", reporting(2));
+        writer.close();
+
+        assertNull(writer.getManifestFile());
+        try (var files = Files.list(reportsDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should leave no report files and no manifest when the delta stream fails partway")
+    void shouldRemoveEverythingWhenStreamFails() throws Exception {
+        for (int maxRecordsPerReport : new int[] { 0, 2 }) {
+            Path dir = Files.createDirectory(reportsDir.resolve("split-" + maxRecordsPerReport));
+            DeltaReportWriter writer = new DeltaReportWriter(dir, "batch-002", "ts", reporting(maxRecordsPerReport));
+
+            // Act - the stream fails after five rows, with some parts already written and renamed
+            RuntimeException failure = assertThrows(IllegalStateException.class, () -> {
+                try {
+                    for (long id = 1; id <= 6; id++) {
+                        if (id == 6) {
+                            throw new IllegalStateException("cursor closed");
+                        }
+                        writer.write(delta(id, EmployeeDelta.DeltaType.NEW));
+                    }
+                } catch (RuntimeException e) {
+                    writer.abort();
+                    throw e;
+                }
+            });
+            writer.close();
+
+            // Assert
+            assertEquals("cursor closed", failure.getMessage());
+            assertNull(writer.getManifestFile());
+            try (var files = Files.list(dir)) {
+                assertEquals(List.of(), files.toList(), "maxRecordsPerReport=" + maxRecordsPerReport);
+            }
+        }
+    }
+
+    private EmployeeDeltaProperties.Reporting reporting(int maxRecordsPerReport) {
+        EmployeeDeltaProperties.Reporting reporting = new EmployeeDeltaProperties.Reporting();
+        reporting.setFileNamePrefix("report-");
+        reporting.setMaxRecordsPerReport(maxRecordsPerReport);
+        reporting.setWriterThreads(2);
+        return reporting;
+    }
+
+    private EmployeeDelta delta(Long employeeId, EmployeeDelta.DeltaType type) {
+        EmployeeDelta delta = new EmployeeDelta();
+        delta.setEmployeeId(employeeId);
+        delta.setBatchId("batch-002");
+        delta.setPreviousBatchId("batch-001");
+        delta.setDeltaType(type);
+        if (type == EmployeeDelta.DeltaType.DELETED) {
+            delta.setPreviousName("Employee " + employeeId);
+        } else {
+            delta.setCurrentName("Employee " + employeeId);
+        }
+        return delta;
+    }
+}
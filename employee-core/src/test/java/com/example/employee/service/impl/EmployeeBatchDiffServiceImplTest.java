@@ -0,0 +1,197 @@
+package com.example.employee.service.impl;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.delta.BatchDiff;
+import com.example.employee.delta.DeltaBatchPurgedEvent;
+import com.example.employee.delta.TrackedField;
+import com.example.employee.entity.EmployeeDelta;
+import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.entity.EmployeeSnapshot;
+import com.example.employee.repo.EmployeeDeltaRepository;
+import com.example.employee.repo.EmployeeIngestBatchRepository;
+import com.example.employee.service.EmployeeDeltaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("EmployeeBatchDiffServiceImpl Tests")
+class EmployeeBatchDiffServiceImplTest {
+
+    @Mock
+    private EmployeeIngestBatchRepository batchRepository;
+
+    @Mock
+    private EmployeeDeltaRepository deltaRepository;
+
+    @Mock
+    private EmployeeDeltaService deltaService;
+
+    private EmployeeDeltaProperties properties;
+    private EmployeeBatchDiffServiceImpl diffService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new EmployeeDeltaProperties();
+        diffService = new EmployeeBatchDiffServiceImpl(batchRepository, deltaRepository, deltaService, properties);
+        givenBatch(1L, "batch-001", EmployeeIngestBatch.IngestStatus.COMPLETED);
+        givenBatch(90L, "batch-090", EmployeeIngestBatch.IngestStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("Should report net changes between two batches in employee order")
+    void shouldReportNetChanges() {
+        // Arrange
+        when(deltaRepository.streamChangesBetweenBatches(1L, 90L)).thenAnswer(inv -> Stream.of(
+            new Object[]{3L, EmployeeDelta.DeltaType.UPDATED, "Carol", 41, "ACTIVE", null},
+            new Object[]{2L, EmployeeDelta.DeltaType.UPDATED, "Bob", 26, "ACTIVE", null},
+            new Object[]{2L, EmployeeDelta.DeltaType.UPDATED, "Bob", 25, "ACTIVE", null},
+            new Object[]{1L, EmployeeDelta.DeltaType.DELETED, null, null, null, null},
+            new Object[]{4L, EmployeeDelta.DeltaType.NEW, "Dan", 22, "ACTIVE", null},
+            new Object[]{5L, EmployeeDelta.DeltaType.NEW, "Temp", 30, "ACTIVE", null},
+            new Object[]{5L, EmployeeDelta.DeltaType.DELETED, null, null, null, null}));
+        givenRoster("batch-001",
+            snapshot(1L, "Alice", 30),
+            snapshot(2L, "Bob", 25),
+            snapshot(3L, "Carol", 40),
+            snapshot(6L, "Untouched", 50));
+
+        // Act
+        BatchDiff diff = diffService.diff("batch-001", "batch-090");
+
+        // Assert
+        List<EmployeeDelta> deltas = new ArrayList<>();
+        diff.forEach(deltas::add);
+        assertEquals(3, deltas.size());
+        assertEquals(1L, deltas.get(0).getEmployeeId());
+        assertEquals(EmployeeDelta.DeltaType.DELETED, deltas.get(0).getDeltaType());
+        assertEquals("Alice", deltas.get(0).getPreviousName());
+        assertEquals(3L, deltas.get(1).getEmployeeId());
+        assertEquals(EmployeeDelta.DeltaType.UPDATED, deltas.get(1).getDeltaType());
+        assertEquals(TrackedField.AGE.getBit(), deltas.get(1).getChangedFieldsMask());
+        assertEquals(40, deltas.get(1).getPreviousAge());
+        assertEquals(41, deltas.get(1).getCurrentAge());
+        assertEquals(4L, deltas.get(2).getEmployeeId());
+        assertEquals(EmployeeDelta.DeltaType.NEW, deltas.get(2).getDeltaType());
+        assertTrue(deltas.stream().allMatch(d -> "batch-090".equals(d.getBatchId()) && "batch-001".equals(d.getPreviousBatchId())));
+        assertEquals(1, diff.getNewCount());
+        assertEquals(1, diff.getUpdatedCount());
+        assertEquals(1, diff.getDeletedCount());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated diffs from the cache")
+    void shouldServeRepeatedDiffsFromCache() {
+        // Arrange
+        when(deltaRepository.streamChangesBetweenBatches(1L, 90L)).thenAnswer(inv -> Stream.<Object[]>of(
+            new Object[]{4L, EmployeeDelta.DeltaType.NEW, "Dan", 22, "ACTIVE", null}));
+        givenRoster("batch-001");
+
+        // Act
+        BatchDiff first = diffService.diff("batch-001", "batch-090");
+        BatchDiff second = diffService.diff("batch-001", "batch-090");
+
+        // Assert
+        assertSame(first, second);
+        verify(deltaRepository, times(1)).streamChangesBetweenBatches(1L, 90L);
+        verify(deltaService, times(1)).replayEmployeeState(eq("batch-001"), any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Should evict cached diffs of a purged batch")
+    void shouldEvictCachedDiffsOfPurgedBatch() {
+        // Arrange
+        when(deltaRepository.streamChangesBetweenBatches(1L, 90L)).thenAnswer(inv -> Stream.<Object[]>of(
+            new Object[]{4L, EmployeeDelta.DeltaType.NEW, "Dan", 22, "ACTIVE", null}));
+        givenRoster("batch-001");
+
+        // Act
+        BatchDiff first = diffService.diff("batch-001", "batch-090");
+        diffService.onBatchPurged(new DeltaBatchPurgedEvent("batch-001"));
+        BatchDiff second = diffService.diff("batch-001", "batch-090");
+
+        // Assert
+        assertNotSame(first, second);
+        verify(deltaRepository, times(2)).streamChangesBetweenBatches(1L, 90L);
+    }
+
+    @Test
+    @DisplayName("Should not cache diffs larger than the configured row limit")
+    void shouldNotCacheLargeDiffs() {
+        // Arrange
+        properties.getDiffCache().setMaxRows(0);
+        when(deltaRepository.streamChangesBetweenBatches(1L, 90L)).thenAnswer(inv -> Stream.<Object[]>of(
+            new Object[]{4L, EmployeeDelta.DeltaType.NEW, "Dan", 22, "ACTIVE", null}));
+        givenRoster("batch-001");
+
+        // Act
+        diffService.diff("batch-001", "batch-090");
+        diffService.diff("batch-001", "batch-090");
+
+        // Assert
+        verify(deltaRepository, times(2)).streamChangesBetweenBatches(1L, 90L);
+    }
+
+    @Test
+    @DisplayName("Should skip reading the start roster when nothing changed")
+    void shouldSkipRosterWhenNothingChanged() {
+        when(deltaRepository.streamChangesBetweenBatches(1L, 90L)).thenReturn(Stream.empty());
+
+        BatchDiff diff = diffService.diff("batch-001", "batch-090");
+
+        assertEquals(0, diff.size());
+        verify(deltaService, never()).replayEmployeeState(anyString(), any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Should reject reversed, unknown and incomplete batches")
+    void shouldRejectInvalidBatches() {
+        givenBatch(91L, "batch-091", EmployeeIngestBatch.IngestStatus.PROCESSING);
+        when(batchRepository.findByBatchId("missing")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> diffService.diff("batch-090", "batch-001"));
+        assertThrows(IllegalArgumentException.class, () -> diffService.diff("batch-001", "missing"));
+        assertThrows(IllegalArgumentException.class, () -> diffService.diff("batch-001", "batch-091"));
+        verifyNoInteractions(deltaRepository);
+    }
+
+    private void givenBatch(Long id, String batchId, EmployeeIngestBatch.IngestStatus status) {
+        EmployeeIngestBatch batch = new EmployeeIngestBatch();
+        batch.setId(id);
+        batch.setBatchId(batchId);
+        batch.setStatus(status);
+        when(batchRepository.findByBatchId(batchId)).thenReturn(Optional.of(batch));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenRoster(String batchId, EmployeeSnapshot... roster) {
+        when(deltaService.replayEmployeeState(eq(batchId), any(Consumer.class))).thenAnswer(inv -> {
+            Consumer<EmployeeSnapshot> sink = inv.getArgument(1);
+            for (EmployeeSnapshot snapshot : roster) {
+                sink.accept(snapshot);
+            }
+            return (long) roster.length;
+        });
+    }
+
+    private EmployeeSnapshot snapshot(Long employeeId, String name, Integer age) {
+        EmployeeSnapshot snapshot = new EmployeeSnapshot();
+        snapshot.setEmployeeId(employeeId);
+        snapshot.setName(name);
+        snapshot.setAge(age);
+        snapshot.setStatus("ACTIVE");
+        return snapshot;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.employee.service.impl;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.repo.DeltaReportWatermarkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("EmployeeDeltaReportingServiceImpl Tests")
+class EmployeeDeltaReportingServiceImplTest {
+
+    @Mock
+    private DeltaReportWatermarkRepository watermarkRepository;
+
+    private EmployeeDeltaReportingServiceImpl reportingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        EmployeeDeltaProperties deltaProperties = new EmployeeDeltaProperties();
+        deltaProperties.getReporting().setClaimTimeout(Duration.ofMinutes(30));
+        reportingService = new EmployeeDeltaReportingServiceImpl(watermarkRepository, deltaProperties);
+    }
+
+    @Test
+    @DisplayName("Should claim unreported batches before returning them in batch order")
+    void shouldClaimUnreportedBatches() {
+        when(watermarkRepository.claimUnreported(eq("run-1"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(2);
+        when(watermarkRepository.findClaimedBatchIds("run-1")).thenReturn(List.of("batch-002", "batch-003"));
+
+        assertEquals(List.of("batch-002", "batch-003"), reportingService.claimUnreportedBatchIds("run-1"));
+
+        ArgumentCaptor<LocalDateTime> claimedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> staleBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(watermarkRepository).claimUnreported(eq("run-1"), claimedAt.capture(), staleBefore.capture());
+        assertEquals(Duration.ofMinutes(30), Duration.between(staleBefore.getValue(), claimedAt.getValue()));
+    }
+
+    @Test
+    @DisplayName("Should return nothing when another run holds every due batch")
+    void shouldReturnNothingWhenNothingClaimed() {
+        when(watermarkRepository.claimUnreported(eq("run-2"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        assertEquals(List.of(), reportingService.claimUnreportedBatchIds("run-2"));
+        verify(watermarkRepository, never()).findClaimedBatchIds(anyString());
+    }
+
+    @Test
+    @DisplayName("Should mark a batch reported only while the run holds its claim")
+    void shouldMarkBatchReportedOnce() {
+        when(watermarkRepository.markReported(eq("run-1"), eq("batch-002"), any(LocalDateTime.class), eq("manifest.json")))
+                .thenReturn(1, 0);
+
+        assertTrue(reportingService.markReported("run-1", "batch-002", "manifest.json"));
+        assertFalse(reportingService.markReported("run-1", "batch-002", "manifest.json"));
+    }
+
+    @Test
+    @DisplayName("Should release a run's claim on a batch")
+    void shouldReleaseClaim() {
+        reportingService.releaseClaim("run-1", "batch-002");
+
+        verify(watermarkRepository).releaseClaim("run-1", "batch-002");
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.employee.service.impl;
+
+import com.example.employee.config.EmployeeCsvExtractProperties;
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.delta.DeltaBatchPurgedEvent;
+import com.example.employee.delta.DeltaPartitionManager;
+import com.example.employee.entity.EmployeeCheckpoint;
+import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.repo.DeltaReportWatermarkRepository;
+import com.example.employee.repo.EmployeeCheckpointEntryRepository;
+import com.example.employee.repo.EmployeeCheckpointRepository;
+import com.example.employee.repo.EmployeeDeltaRepository;
+import com.example.employee.repo.EmployeeExtractWatermarkRepository;
+import com.example.employee.repo.EmployeeIngestBatchRepository;
+import com.example.employee.repo.EmployeeSnapshotRepository;
+import com.example.employee.repo.EmployeeVersionRepository;
+import com.example.employee.service.EmployeeDeltaRetentionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("EmployeeDeltaRetentionServiceImpl Tests")
+class EmployeeDeltaRetentionServiceImplTest {
+
+    @Mock
+    private EmployeeIngestBatchRepository batchRepository;
+
+    @Mock
+    private EmployeeSnapshotRepository snapshotRepository;
+
+    @Mock
+    private EmployeeDeltaRepository deltaRepository;
+
+    @Mock
+    private EmployeeVersionRepository versionRepository;
+
+    @Mock
+    private EmployeeCheckpointRepository checkpointRepository;
+
+    @Mock
+    private EmployeeCheckpointEntryRepository checkpointEntryRepository;
+
+    @Mock
+    private DeltaReportWatermarkRepository reportWatermarkRepository;
+
+    @Mock
+    private EmployeeExtractWatermarkRepository extractWatermarkRepository;
+
+    @Mock
+    private DeltaPartitionManager partitionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private EmployeeDeltaProperties properties;
+    private EmployeeCsvExtractProperties extractProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private EmployeeDeltaRetentionServiceImpl retentionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new EmployeeDeltaProperties();
+        properties.setCleanupChunkSize(2);
+        extractProperties = new EmployeeCsvExtractProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        retentionService = new EmployeeDeltaRetentionServiceImpl(
+                batchRepository, snapshotRepository, deltaRepository, versionRepository,
+                checkpointRepository, checkpointEntryRepository, reportWatermarkRepository, extractWatermarkRepository,
+                partitionManager, properties, extractProperties, meterRegistry, eventPublisher);
+        // Batches without a partition of their own fall back to chunked deletes
+        when(partitionManager.dropPartition(anyString(), any())).thenReturn(-1L);
+        // A checkpoint at the oldest retained batch anchors replay unless a test says otherwise
+        when(checkpointRepository.findFirstByIngestBatchIdLessThanEqualAndEmployeeCountIsNotNullOrderByIngestBatchIdDesc(anyLong()))
+            .thenAnswer(invocation -> java.util.Optional.of(new EmployeeCheckpoint(
+                100L, invocation.getArgument(0), "anchor", LocalDateTime.now(), 10)));
+        // Every batch has been reported and extracted unless a test says otherwise
+        when(reportWatermarkRepository.findReportedIngestBatchIds(any()))
+            .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<Long>>getArgument(0)));
+        when(extractWatermarkRepository.findExtractedIngestBatchIds(any()))
+            .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<Long>>getArgument(0)));
+    }
+
+    @Test
+    @DisplayName("Should purge batches beyond the count limit in bounded chunks and record metrics")
+    void shouldPurgeBatchesBeyondCountLimitInChunks() {
+        // Arrange
+        properties.setMaxBatchesRetention(3);
+        EmployeeIngestBatch processing = createBatch(5L, "batch-005", EmployeeIngestBatch.IngestStatus.PROCESSING, 0);
+        EmployeeIngestBatch newest = createBatch(4L, "batch-004", EmployeeIngestBatch.IngestStatus.COMPLETED, 1);
+        EmployeeIngestBatch kept = createBatch(3L, "batch-003", EmployeeIngestBatch.IngestStatus.COMPLETED, 2);
+        EmployeeIngestBatch failed = createBatch(2L, "batch-002", EmployeeIngestBatch.IngestStatus.FAILED, 3);
+        EmployeeIngestBatch oldest = createBatch(1L, "batch-001", EmployeeIngestBatch.IngestStatus.COMPLETED, 4);
+        when(batchRepository.findAllByOrderByIngestDateDesc())
+            .thenReturn(List.of(processing, newest, kept, failed, oldest));
+        when(deltaRepository.deleteChunkByBatchId("batch-001", 2)).thenReturn(2, 1);
+        when(snapshotRepository.deleteChunkByBatchId("batch-001", 2)).thenReturn(2, 2, 0);
+        when(versionRepository.deleteChunkEndedAtOrBefore(3L, 2)).thenReturn(1);
+
+        // Act
+        EmployeeDeltaRetentionService.RetentionResult result = retentionService.purgeExpiredBatches();
+
+        // Assert
+        assertEquals(2, result.getBatchesPurged());
+        assertEquals(3, result.getDeltasPurged());
+        assertEquals(4, result.getSnapshotsPurged());
+        assertEquals(1, result.getVersionsPurged());
+        assertEquals(10, result.getRowsPurged());
+
+        verify(batchRepository).delete(failed);
+        verify(batchRepository).delete(oldest);
+        verify(batchRepository, never()).delete(kept);
+        verify(eventPublisher).publishEvent(new DeltaBatchPurgedEvent("batch-001"));
+        verify(eventPublisher).publishEvent(new DeltaBatchPurgedEvent("batch-002"));
+        verify(eventPublisher, never()).publishEvent(new DeltaBatchPurgedEvent("batch-003"));
+        verify(deltaRepository, times(2)).deleteChunkByBatchId("batch-001", 2);
+        verify(snapshotRepository, times(3)).deleteChunkByBatchId("batch-001", 2);
+
+        assertEquals(4.0, meterRegistry.get(EmployeeDeltaRetentionServiceImpl.ROWS_PURGED_METRIC)
+            .tag("table", "employee_snapshot").counter().count());
+        assertEquals(1L, meterRegistry.get(EmployeeDeltaRetentionServiceImpl.DURATION_METRIC).timer().count());
+    }
+
+    @Test
+    @DisplayName("Should always keep the newest completed batch even when it is past the retention period")
+    void shouldKeepNewestCompletedBatch() {
+        // Arrange
+        properties.setBatchRetentionPeriod(Duration.ofDays(1));
+        EmployeeIngestBatch failed = createBatch(3L, "batch-003", EmployeeIngestBatch.IngestStatus.FAILED, 10);
+        EmployeeIngestBatch newestCompleted = createBatch(2L, "batch-002", EmployeeIngestBatch.IngestStatus.COMPLETED, 20);
+        EmployeeIngestBatch older = createBatch(1L, "batch-001", EmployeeIngestBatch.IngestStatus.COMPLETED, 30);
+        when(batchRepository.findAllByOrderByIngestDateDesc()).thenReturn(List.of(failed, newestCompleted, older));
+
+        // Act
+        EmployeeDeltaRetentionService.RetentionResult result = retentionService.purgeExpiredBatches();
+
+        // Assert
+        assertEquals(2, result.getBatchesPurged());
+        verify(batchRepository, never()).delete(newestCompleted);
+        verify(snapshotRepository, never()).deleteChunkByBatchId(eq("batch-002"), anyInt());
+        verify(versionRepository).deleteChunkEndedAtOrBefore(2L, 2);
+    }
+
+    @Test
+    @DisplayName("Should drop partitions of partitioned batches instead of deleting rows")
+    void shouldDropPartitionsOfPartitionedBatches() {
+        // Arrange
+        properties.setMaxBatchesRetention(2);
+        EmployeeIngestBatch newest = createBatch(3L, "batch-003", EmployeeIngestBatch.IngestStatus.COMPLETED, 0);
+        EmployeeIngestBatch kept = createBatch(2L, "batch-002", EmployeeIngestBatch.IngestStatus.COMPLETED, 1);
+        EmployeeIngestBatch expired = createBatch(1L, "batch-001", EmployeeIngestBatch.IngestStatus.COMPLETED, 2);
+        when(batchRepository.findAllByOrderByIngestDateDesc()).thenReturn(List.of(newest, kept, expired));
+        when(partitionManager.dropPartition(DeltaPartitionManager.DELTA_TABLE, expired)).thenReturn(40L);
+        when(partitionManager.dropPartition(DeltaPartitionManager.SNAPSHOT_TABLE, expired)).thenReturn(2000L);
+
+        // Act
+        EmployeeDeltaRetentionService.RetentionResult result = retentionService.purgeExpiredBatches();
+
+        // Assert
+        assertEquals(1, result.getBatchesPurged());
+        assertEquals(40, result.getDeltasPurged());
+        assertEquals(2000, result.getSnapshotsPurged());
+        verify(deltaRepository, never()).deleteChunkByBatchId(anyString(), anyInt());
+        verify(snapshotRepository, never()).deleteChunkByBatchId(anyString(), anyInt());
+        verify(batchRepository).delete(expired);
+    }
+
+    @Test
+    @DisplayName("Should keep batches after the checkpoint needed to replay retained batches")
+    void shouldKeepBatchesAfterAnchorCheckpoint() {
+        // Arrange
+        properties.setMaxBatchesRetention(2);
+        EmployeeIngestBatch newest = createBatch(4L, "batch-004", EmployeeIngestBatch.IngestStatus.COMPLETED, 0);
+        EmployeeIngestBatch kept = createBatch(3L, "batch-003", EmployeeIngestBatch.IngestStatus.COMPLETED, 1);
+        EmployeeIngestBatch afterAnchor = createBatch(2L, "batch-002", EmployeeIngestBatch.IngestStatus.COMPLETED, 2);
+        EmployeeIngestBatch beforeAnchor = createBatch(1L, "batch-001", EmployeeIngestBatch.IngestStatus.COMPLETED, 3);
+        when(batchRepository.findAllByOrderByIngestDateDesc()).thenReturn(List.of(newest, kept, afterAnchor, beforeAnchor));
+
+        EmployeeCheckpoint anchor = new EmployeeCheckpoint(20L, 2L, "batch-002", LocalDateTime.now(), 10);
+        EmployeeCheckpoint older = new EmployeeCheckpoint(10L, 1L, "batch-001", LocalDateTime.now(), 10);
+        doReturn(java.util.Optional.of(anchor)).when(checkpointRepository)
+            .findFirstByIngestBatchIdLessThanEqualAndEmployeeCountIsNotNullOrderByIngestBatchIdDesc(3L);
+        when(checkpointRepository.findByIngestBatchIdLessThan(2L)).thenReturn(List.of(older));
+        when(checkpointEntryRepository.deleteChunkByCheckpointId(10L, 2)).thenReturn(1);
+
+        // Act
+        EmployeeDeltaRetentionService.RetentionResult result = retentionService.purgeExpiredBatches();
+
+        // Assert
+        assertEquals(1, result.getBatchesPurged());
+        verify(batchRepository).delete(beforeAnchor);
+        verify(batchRepository, never()).delete(afterAnchor);
+        assertEquals(1, result.getCheckpointEntriesPurged());
+        verify(checkpointRepository).delete(older);
+        verify(checkpointRepository, never()).delete(anchor);
+    }
+
+    @Test
+    @DisplayName("Should keep expired completed batches when no checkpoint anchors the retained batches")
+    void shouldKeepCompletedBatchesWithoutAnchorCheckpoint() {
+        // Arrange
+        properties.setMaxBatchesRetention(1);
+        EmployeeIngestBatch newest = createBatch(3L, "batch-003", EmployeeIngestBatch.IngestStatus.COMPLETED, 0);
+        EmployeeIngestBatch failed = createBatch(2L, "batch-002", EmployeeIngestBatch.IngestStatus.FAILED, 1);
+        EmployeeIngestBatch oldest = createBatch(1L, "batch-001", EmployeeIngestBatch.IngestStatus.COMPLETED, 2);
+        when(batchRepository.findAllByOrderByIngestDateDesc()).thenReturn(List.of(newest, failed, oldest));
+        doReturn(java.util.Optional.empty()).when(checkpointRepository)
+            .findFirstByIngestBatchIdLessThanEqualAndEmployeeCountIsNotNullOrderByIngestBatchIdDesc(anyLong());
+
+        // Act
+        EmployeeDeltaRetentionService.RetentionResult result = retentionService.purgeExpiredBatches();
+
+        // Assert
+        assertEquals(1, result.getBatchesPurged());
+        verify(batchRepository).delete(failed);
+        verify(batchRepository, never()).delete(oldest);
+        verify(checkpointRepository, never()).findByIngestBatchIdLessThan(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should keep expired batches that are not yet reported or CDC-extracted")
+    void shouldKeepUnreportedAndUnextractedBatches() {
+        // Arrange
+        properties.setMaxBatchesRetention(1);
+        extractProperties.setEnabled(true);
+        extractProperties.setMode(EmployeeCsvExtractProperties.ExtractMode.CDC);
+        EmployeeIngestBatch newest = createBatch(4L, "batch-004", EmployeeIngestBatch.IngestStatus.COMPLETED, 0);
+        EmployeeIngestBatch unextracted = createBatch(3L, "batch-003", EmployeeIngestBatch.IngestStatus.COMPLETED, 1);
+        EmployeeIngestBatch unreported = createBatch(2L, "batch-002", EmployeeIngestBatch.IngestStatus.COMPLETED, 2);
+        EmployeeIngestBatch processed = createBatch(1L, "batch-001", EmployeeIngestBatch.IngestStatus.COMPLETED, 3);
+        when(batchRepository.findAllByOrderByIngestDateDesc()).thenReturn(List.of(newest, unextracted, unreported, processed));
+        doReturn(List.of(3L, 1L)).when(reportWatermarkRepository).findReportedIngestBatchIds(any());
+        doReturn(List.of(2L, 1L)).when(extractWatermarkRepository).findExtractedIngestBatchIds(any());
+
+        // Act
+        EmployeeDeltaRetentionService.RetentionResult result = retentionService.purgeExpiredBatches();
+
+        // Assert
+        assertEquals(1, result.getBatchesPurged());
+        verify(batchRepository).delete(processed);
+        verify(batchRepository, never()).delete(unreported);
+        verify(batchRepository, never()).delete(unextracted);
+    }
+
+    private EmployeeIngestBatch createBatch(Long id, String batchId, EmployeeIngestBatch.IngestStatus status, int daysAgo) {
+        EmployeeIngestBatch batch = new EmployeeIngestBatch();
+        batch.setId(id);
+        batch.setBatchId(batchId);
+        batch.setStatus(status);
+        batch.setIngestDate(LocalDateTime.now().minusDays(daysAgo).minusMinutes(1));
+        return batch;
+    }
+}
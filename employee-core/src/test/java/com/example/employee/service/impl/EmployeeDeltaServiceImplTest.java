@@ -1,15 +1,26 @@
 package com.example.employee.service.impl;
 
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.delta.DeltaBatchPurgedEvent;
+import com.example.employee.delta.DeltaPartitionManager;
+import com.example.employee.delta.EmployeeFingerprint;
+import com.example.employee.delta.EmployeeIdBitmaps;
+import com.example.employee.delta.InlineDeltaSession;
+import com.example.employee.delta.TrackedField;
 import com.example.employee.entity.Employee;
+import com.example.employee.entity.EmployeeCheckpoint;
+import com.example.employee.entity.EmployeeCheckpointEntry;
 import com.example.employee.entity.EmployeeDelta;
 import com.example.employee.entity.EmployeeIngestBatch;
 import com.example.employee.entity.EmployeeSnapshot;
+import com.example.employee.entity.EmployeeVersion;
+import com.example.employee.repo.EmployeeCheckpointEntryRepository;
+import com.example.employee.repo.EmployeeCheckpointRepository;
 import com.example.employee.repo.EmployeeDeltaRepository;
 import com.example.employee.repo.EmployeeIngestBatchRepository;
 import com.example.employee.repo.EmployeeSnapshotRepository;
+import com.example.employee.repo.EmployeeVersionRepository;
 import com.example.employee.service.EmployeeDeltaService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -18,6 +29,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -30,6 +42,9 @@ import static org.mockito.Mockito.*;
 @DisplayName("EmployeeDeltaServiceImpl Tests")
 class EmployeeDeltaServiceImplTest {
 
+    // 1990-01-01T00:00:00Z; a fixed dob keeps fingerprints of snapshots built apart equal
+    private static final long DOB_MILLIS = 631152000000L;
+
     @Mock
     private EmployeeIngestBatchRepository batchRepository;
 
@@ -40,7 +55,16 @@ class EmployeeDeltaServiceImplTest {
     private EmployeeDeltaRepository deltaRepository;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private EmployeeVersionRepository versionRepository;
+
+    @Mock
+    private EmployeeCheckpointRepository checkpointRepository;
+
+    @Mock
+    private EmployeeCheckpointEntryRepository checkpointEntryRepository;
+
+    @Mock
+    private DeltaPartitionManager partitionManager;
 
     @Captor
     private ArgumentCaptor<EmployeeIngestBatch> batchCaptor;
@@ -56,11 +80,16 @@ class EmployeeDeltaServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(checkpointRepository.save(any(EmployeeCheckpoint.class))).thenAnswer(inv -> inv.getArgument(0));
         deltaService = new EmployeeDeltaServiceImpl(
                 batchRepository,
                 snapshotRepository,
                 deltaRepository,
-                objectMapper
+                versionRepository,
+                checkpointRepository,
+                checkpointEntryRepository,
+                partitionManager,
+                new EmployeeDeltaProperties()
         );
     }
 
@@ -93,6 +122,7 @@ class EmployeeDeltaServiceImplTest {
             assertEquals(csvFileName, capturedBatch.getCsvFileName());
             assertEquals(EmployeeIngestBatch.IngestStatus.PROCESSING, capturedBatch.getStatus());
             assertNotNull(capturedBatch.getIngestDate());
+            verify(partitionManager).createPartitions(expectedBatch);
         }
 
         @Test
@@ -279,7 +309,7 @@ class EmployeeDeltaServiceImplTest {
 
         @Test
         @DisplayName("Should detect NEW, UPDATED, and DELETED employees")
-        void shouldDetectNewUpdatedAndDeletedEmployees() throws JsonProcessingException {
+        void shouldDetectNewUpdatedAndDeletedEmployees() {
             // Arrange
             String currentBatchId = "batch-002";
             String previousBatchId = "batch-001";
@@ -304,7 +334,6 @@ class EmployeeDeltaServiceImplTest {
             when(batchRepository.findMostRecentCompletedBatchBefore(any()))
                 .thenReturn(List.of(previousBatch));
             when(snapshotRepository.findByBatchId(previousBatchId)).thenReturn(previousSnapshots);
-            when(objectMapper.writeValueAsString(any())).thenReturn("[\"name\",\"age\"]");
             when(deltaRepository.saveAll(any())).thenReturn(List.of());
 
             // Act
@@ -386,43 +415,599 @@ class EmployeeDeltaServiceImplTest {
         }
 
         @Test
-        @DisplayName("Should handle JSON serialization failure gracefully")
-        void shouldHandleJsonSerializationFailureGracefully() throws JsonProcessingException {
+        @DisplayName("Should store changed fields as a bitmask and render text on read")
+        void shouldStoreChangedFieldsAsBitmaskAndRenderTextOnRead() {
             // Arrange
             String currentBatchId = "batch-002";
             String previousBatchId = "batch-001";
             
-            List<EmployeeSnapshot> currentSnapshots = List.of(
-                createMockSnapshot(1L, "Alice Updated", 31, currentBatchId)
-            );
-            List<EmployeeSnapshot> previousSnapshots = List.of(
-                createMockSnapshot(1L, "Alice", 30, previousBatchId)
-            );
+            EmployeeSnapshot previous = createMockSnapshot(1L, "Alice", 30, previousBatchId);
+            EmployeeSnapshot current = createMockSnapshot(1L, "Alice Updated", 31, currentBatchId);
+            current.setDob(previous.getDob());
 
             EmployeeIngestBatch previousBatch = createMockBatch(previousBatchId, "previous.csv");
             EmployeeIngestBatch currentBatch = createMockBatch(currentBatchId, "current.csv");
 
-            when(snapshotRepository.findByBatchId(currentBatchId)).thenReturn(currentSnapshots);
+            when(snapshotRepository.findByBatchId(currentBatchId)).thenReturn(List.of(current));
             when(batchRepository.findByBatchId(currentBatchId)).thenReturn(Optional.of(currentBatch));
             when(batchRepository.findMostRecentCompletedBatchBefore(any()))
                 .thenReturn(List.of(previousBatch));
-            when(snapshotRepository.findByBatchId(previousBatchId)).thenReturn(previousSnapshots);
-            when(objectMapper.writeValueAsString(any())).thenThrow(new JsonProcessingException("Test error") {});
+            when(snapshotRepository.findByBatchId(previousBatchId)).thenReturn(List.of(previous));
             when(deltaRepository.saveAll(any())).thenReturn(List.of());
 
+            // Act
+            List<EmployeeDelta> result = deltaService.detectAndRecordDeltas(currentBatchId);
+
+            // Assert
+            assertEquals(1, result.size());
+            EmployeeDelta delta = result.get(0);
+            assertEquals(TrackedField.NAME.getBit() | TrackedField.AGE.getBit(), delta.getChangedFieldsMask());
+            assertEquals("[\"name\",\"age\"]", delta.getChangedFields());
+            assertEquals("Employee updated: Alice Updated (ID: 1) - name: 'Alice' -> 'Alice Updated', age: 30 -> 31",
+                delta.getChangeSummary());
+        }
+
+        @Test
+        @DisplayName("Should keep stored text of legacy deltas")
+        void shouldKeepStoredTextOfLegacyDeltas() {
+            EmployeeDelta legacy = createMockDelta(1L, EmployeeDelta.DeltaType.UPDATED, "batch-001");
+            legacy.setChangedFields("name,age");
+            legacy.setChangeSummary("Employee updated: Alice");
+
+            assertEquals("name,age", legacy.getChangedFields());
+            assertEquals("Employee updated: Alice", legacy.getChangeSummary());
+        }
+    }
+
+    @Nested
+    @DisplayName("Delta Configuration Tests")
+    class DeltaConfigurationTests {
+
+        private EmployeeDeltaServiceImpl serviceWith(EmployeeDeltaProperties properties) {
+            return new EmployeeDeltaServiceImpl(batchRepository, snapshotRepository, deltaRepository, versionRepository,
+                checkpointRepository, checkpointEntryRepository, partitionManager, properties);
+        }
+
+        private void stubBatches(String currentBatchId, String previousBatchId,
+                                 List<EmployeeSnapshot> current, List<EmployeeSnapshot> previous) {
+            when(snapshotRepository.findByBatchId(currentBatchId)).thenReturn(current);
+            when(batchRepository.findByBatchId(currentBatchId))
+                .thenReturn(Optional.of(createMockBatch(currentBatchId, "current.csv")));
+            when(batchRepository.findMostRecentCompletedBatchBefore(any()))
+                .thenReturn(List.of(createMockBatch(previousBatchId, "previous.csv")));
+            when(snapshotRepository.findByBatchId(previousBatchId)).thenReturn(previous);
+        }
+
+        @Test
+        @DisplayName("Should not report changes to ignored fields")
+        void shouldNotReportChangesToIgnoredFields() {
+            // Arrange
+            EmployeeDeltaProperties properties = new EmployeeDeltaProperties();
+            properties.setIgnoredFields(Set.of("age", "transactionId"));
+            EmployeeSnapshot previous = createMockSnapshot(1L, "Alice", 30, "batch-001");
+            EmployeeSnapshot current = createMockSnapshot(1L, "Alice", 31, "batch-002");
+            current.setDob(previous.getDob());
+            stubBatches("batch-002", "batch-001", List.of(current), List.of(previous));
+
+            // Act
+            List<EmployeeDelta> result = serviceWith(properties).detectAndRecordDeltas("batch-002");
+
+            // Assert
+            assertTrue(result.isEmpty());
+            verify(deltaRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should only emit enabled delta types")
+        void shouldOnlyEmitEnabledDeltaTypes() {
+            // Arrange
+            EmployeeDeltaProperties properties = new EmployeeDeltaProperties();
+            properties.setDetectNew(false);
+            properties.setDetectDeleted(false);
+            stubBatches("batch-002", "batch-001",
+                List.of(createMockSnapshot(1L, "Alice Updated", 30, "batch-002"),
+                        createMockSnapshot(3L, "Charlie", 28, "batch-002")),
+                List.of(createMockSnapshot(1L, "Alice", 30, "batch-001"),
+                        createMockSnapshot(2L, "Bob", 25, "batch-001")));
+
+            // Act
+            List<EmployeeDelta> result = serviceWith(properties).detectAndRecordDeltas("batch-002");
+
+            // Assert
+            assertEquals(1, result.size());
+            assertEquals(EmployeeDelta.DeltaType.UPDATED, result.get(0).getDeltaType());
+            assertEquals(1L, result.get(0).getEmployeeId());
+        }
+
+        @Test
+        @DisplayName("Should skip detection entirely when every delta type is disabled")
+        void shouldSkipDetectionWhenEveryDeltaTypeIsDisabled() {
+            // Arrange
+            EmployeeDeltaProperties properties = new EmployeeDeltaProperties();
+            properties.setDetectNew(false);
+            properties.setDetectUpdated(false);
+            properties.setDetectDeleted(false);
+
+            // Act
+            List<EmployeeDelta> result = serviceWith(properties).detectAndRecordDeltas("batch-002");
+
+            // Assert
+            assertTrue(result.isEmpty());
+            verifyNoInteractions(snapshotRepository, deltaRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Inline Delta Detection Tests")
+    class InlineDeltaDetectionTests {
+
+        @Test
+        @DisplayName("Should classify streamed rows and compute DELETED from unseen ids")
+        void shouldClassifyStreamedRowsAndComputeDeletedFromUnseenIds() {
+            // Arrange
+            String currentBatchId = "batch-002";
+            String previousBatchId = "batch-001";
+            EmployeeSnapshot previousAlice = createMockSnapshot(1L, "Alice", 30, previousBatchId);
+            EmployeeSnapshot previousBob = createMockSnapshot(2L, "Bob", 25, previousBatchId);
+            previousAlice.setFingerprint(EmployeeFingerprint.of(previousAlice));
+            previousBob.setFingerprint(EmployeeFingerprint.of(previousBob));
+
+            when(batchRepository.findByBatchId(currentBatchId))
+                .thenReturn(Optional.of(createMockBatch(currentBatchId, "current.csv")));
+            when(batchRepository.findMostRecentCompletedBatchBefore(any()))
+                .thenReturn(List.of(createMockBatch(previousBatchId, "previous.csv")));
+            when(snapshotRepository.streamFingerprintsByBatchId(previousBatchId)).thenReturn(java.util.stream.Stream.of(
+                new Object[]{1L, previousAlice.getFingerprint()},
+                new Object[]{2L, previousBob.getFingerprint()}));
+            when(snapshotRepository.streamUnfingerprintedByBatchId(previousBatchId)).thenReturn(java.util.stream.Stream.empty());
+            when(snapshotRepository.findByBatchIdAndEmployeeIdIn(eq(previousBatchId), eq(List.of(1L))))
+                .thenReturn(List.of(previousAlice));
+            when(snapshotRepository.findByBatchIdAndEmployeeIdIn(eq(previousBatchId), eq(List.of(2L))))
+                .thenReturn(List.of(previousBob));
+
+            Employee alice = createMockEmployee(1L, "Alice Updated", 31);
+            alice.setDob(previousAlice.getDob());
+            Employee charlie = createMockEmployee(3L, "Charlie", 28);
+
+            // Act
+            InlineDeltaSession session = deltaService.beginInlineDeltaDetection(currentBatchId);
+            List<EmployeeDelta> streamed = deltaService.recordInlineDeltas(session, List.of(alice, charlie));
+            List<EmployeeDelta> deleted = deltaService.completeInlineDeltaDetection(session);
+
+            // Assert
+            assertEquals(2, streamed.size());
+            assertEquals(EmployeeDelta.DeltaType.NEW, streamed.get(0).getDeltaType());
+            assertEquals(3L, streamed.get(0).getEmployeeId());
+            assertEquals(EmployeeDelta.DeltaType.UPDATED, streamed.get(1).getDeltaType());
+            assertEquals("Alice", streamed.get(1).getPreviousName());
+            assertEquals("Alice Updated", streamed.get(1).getCurrentName());
+
+            assertEquals(1, deleted.size());
+            assertEquals(2L, deleted.get(0).getEmployeeId());
+            assertEquals(EmployeeDelta.DeltaType.DELETED, deleted.get(0).getDeltaType());
+
+            assertEquals(1, session.getNewCount());
+            assertEquals(1, session.getUpdatedCount());
+            assertEquals(1, session.getDeletedCount());
+            verify(snapshotRepository, never()).findByBatchId(anyString());
+        }
+
+        @Test
+        @DisplayName("Should not read back unchanged rows")
+        void shouldNotReadBackUnchangedRows() {
+            // Arrange
+            String currentBatchId = "batch-002";
+            String previousBatchId = "batch-001";
+            Employee alice = createMockEmployee(1L, "Alice", 30);
+
+            when(batchRepository.findByBatchId(currentBatchId))
+                .thenReturn(Optional.of(createMockBatch(currentBatchId, "current.csv")));
+            when(batchRepository.findMostRecentCompletedBatchBefore(any()))
+                .thenReturn(List.of(createMockBatch(previousBatchId, "previous.csv")));
+            when(snapshotRepository.streamFingerprintsByBatchId(previousBatchId))
+                .thenReturn(java.util.stream.Stream.<Object[]>of(new Object[]{1L, EmployeeFingerprint.of(alice)}));
+            when(snapshotRepository.streamUnfingerprintedByBatchId(previousBatchId)).thenReturn(java.util.stream.Stream.empty());
+
+            // Act
+            InlineDeltaSession session = deltaService.beginInlineDeltaDetection(currentBatchId);
+            List<EmployeeDelta> streamed = deltaService.recordInlineDeltas(session, List.of(alice));
+            List<EmployeeDelta> deleted = deltaService.completeInlineDeltaDetection(session);
+
+            // Assert
+            assertTrue(streamed.isEmpty());
+            assertTrue(deleted.isEmpty());
+            verify(snapshotRepository, never()).findByBatchIdAndEmployeeIdIn(anyString(), any());
+            verify(deltaRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should mark every row NEW when no previous batch exists")
+        void shouldMarkEveryRowNewWhenNoPreviousBatchExists() {
+            // Arrange
+            String currentBatchId = "batch-001";
+            when(batchRepository.findByBatchId(currentBatchId)).thenReturn(Optional.empty());
+
+            // Act
+            InlineDeltaSession session = deltaService.beginInlineDeltaDetection(currentBatchId);
+            List<EmployeeDelta> streamed = deltaService.recordInlineDeltas(session,
+                List.of(createMockEmployee(1L, "Alice", 30), createMockEmployee(2L, "Bob", 25)));
+            deltaService.completeInlineDeltaDetection(session);
+
+            // Assert
+            assertFalse(session.hasPreviousBatch());
+            assertEquals(2, streamed.size());
+            assertTrue(streamed.stream().allMatch(d -> d.getDeltaType() == EmployeeDelta.DeltaType.NEW));
+            assertEquals(0, session.getDeletedCount());
+        }
+
+        @Test
+        @DisplayName("Should record one NEW delta for an id repeated within a batch")
+        void shouldRecordOneNewDeltaForRepeatedId() {
+            // Arrange
+            String currentBatchId = "batch-001";
+            when(batchRepository.findByBatchId(currentBatchId)).thenReturn(Optional.empty());
+
+            // Act
+            InlineDeltaSession session = deltaService.beginInlineDeltaDetection(currentBatchId);
+            List<EmployeeDelta> first = deltaService.recordInlineDeltas(session,
+                List.of(createMockEmployee(1L, "Alice", 30), createMockEmployee(1L, "Alice", 30)));
+            List<EmployeeDelta> second = deltaService.recordInlineDeltas(session,
+                List.of(createMockEmployee(1L, "Alice", 30)));
+
+            // Assert
+            assertEquals(1, first.size());
+            assertTrue(second.isEmpty());
+            assertEquals(1, session.getSeenIds().getLongCardinality());
+        }
+    }
+
+    @Nested
+    @DisplayName("Versioned Storage Tests")
+    class VersionedStorageTests {
+
+        private EmployeeDeltaServiceImpl versionedService() {
+            EmployeeDeltaProperties properties = new EmployeeDeltaProperties();
+            properties.setStorageMode(EmployeeDeltaProperties.StorageMode.VERSIONED);
+            return new EmployeeDeltaServiceImpl(batchRepository, snapshotRepository, deltaRepository, versionRepository,
+                checkpointRepository, checkpointEntryRepository, partitionManager, properties);
+        }
+
+        private EmployeeVersion createVersion(Employee employee, Long validFromBatch) {
+            return EmployeeVersion.fromEmployee(employee, validFromBatch);
+        }
+
+        private void givenBatches(String currentBatchId, Long currentId, String previousBatchId, Long previousId) {
+            EmployeeIngestBatch currentBatch = createMockBatch(currentBatchId, "current.csv");
+            currentBatch.setId(currentId);
+            EmployeeIngestBatch previousBatch = createMockBatch(previousBatchId, "previous.csv");
+            previousBatch.setId(previousId);
+            when(batchRepository.findByBatchId(currentBatchId)).thenReturn(Optional.of(currentBatch));
+            when(batchRepository.findMostRecentCompletedBatchBefore(any())).thenReturn(List.of(previousBatch));
+        }
+
+        @Test
+        @DisplayName("Should write versions only for new and changed employees and close missing ones")
+        void shouldWriteVersionsOnlyForChangedEmployees() {
+            // Arrange
+            EmployeeDeltaServiceImpl service = versionedService();
+            givenBatches("batch-003", 3L, "batch-002", 2L);
+            Employee alice = createMockEmployee(1L, "Alice", 30);
+            Employee bob = createMockEmployee(2L, "Bob", 25);
+            Employee carol = createMockEmployee(4L, "Carol", 40);
+            EmployeeVersion aliceVersion = createVersion(alice, 1L);
+            EmployeeVersion bobVersion = createVersion(bob, 1L);
+            EmployeeVersion carolVersion = createVersion(carol, 2L);
+
+            when(versionRepository.countByValidToBatchIsNull()).thenReturn(3L);
+            when(versionRepository.streamCurrentFingerprints()).thenReturn(java.util.stream.Stream.of(
+                new Object[]{1L, aliceVersion.getFingerprint()},
+                new Object[]{2L, bobVersion.getFingerprint()},
+                new Object[]{4L, carolVersion.getFingerprint()}));
+            when(versionRepository.streamCurrentUnfingerprinted()).thenReturn(java.util.stream.Stream.empty());
+            when(versionRepository.findByEmployeeIdInAndValidToBatchIsNull(List.of(2L))).thenReturn(List.of(bobVersion));
+            when(versionRepository.findByEmployeeIdInAndValidToBatchIsNull(List.of(4L))).thenReturn(List.of(carolVersion));
+
+            Employee bobUpdated = createMockEmployee(2L, "Bob", 26);
+            bobUpdated.setDob(bob.getDob());
+            Employee dave = createMockEmployee(5L, "Dave", 22);
+
+            // Act
+            InlineDeltaSession session = service.beginInlineDeltaDetection("batch-003");
+            List<EmployeeDelta> streamed = service.recordInlineDeltas(session, List.of(alice, bobUpdated, dave));
+            List<EmployeeDelta> deleted = service.completeInlineDeltaDetection(session);
+
+            // Assert
+            assertTrue(session.isVersioned());
+            assertEquals(2, streamed.size());
+            assertEquals(EmployeeDelta.DeltaType.NEW, streamed.get(0).getDeltaType());
+            assertEquals(5L, streamed.get(0).getEmployeeId());
+            assertEquals(EmployeeDelta.DeltaType.UPDATED, streamed.get(1).getDeltaType());
+            assertEquals(TrackedField.AGE.getBit(), streamed.get(1).getChangedFieldsMask());
+            assertEquals("batch-002", streamed.get(1).getPreviousBatchId());
+
+            assertEquals(1, deleted.size());
+            assertEquals(4L, deleted.get(0).getEmployeeId());
+
+            // Unchanged Alice keeps her version; Bob's and Carol's are closed at batch 3
+            assertNull(aliceVersion.getValidToBatch());
+            assertEquals(3L, bobVersion.getValidToBatch());
+            assertEquals(3L, carolVersion.getValidToBatch());
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<EmployeeVersion>> versionsCaptor = ArgumentCaptor.forClass(List.class);
+            verify(versionRepository, times(3)).saveAll(versionsCaptor.capture());
+            List<EmployeeVersion> written = versionsCaptor.getAllValues().stream()
+                .flatMap(List::stream)
+                .filter(v -> v.getValidToBatch() == null)
+                .collect(Collectors.toList());
+            assertEquals(List.of(5L, 2L), written.stream().map(EmployeeVersion::getEmployeeId).collect(Collectors.toList()));
+            assertTrue(written.stream().allMatch(v -> v.getValidFromBatch() == 3L));
+            verify(snapshotRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should seed versions from the last snapshot batch on first versioned run")
+        void shouldSeedVersionsFromSnapshots() {
+            // Arrange
+            EmployeeDeltaServiceImpl service = versionedService();
+            givenBatches("batch-002", 2L, "batch-001", 1L);
+            when(versionRepository.countByValidToBatchIsNull()).thenReturn(0L);
+            when(versionRepository.seedFromSnapshots("batch-001", 1L)).thenReturn(2);
+            when(versionRepository.streamCurrentFingerprints()).thenReturn(java.util.stream.Stream.empty());
+            when(versionRepository.streamCurrentUnfingerprinted()).thenReturn(java.util.stream.Stream.empty());
+
+            // Act
+            InlineDeltaSession session = service.beginInlineDeltaDetection("batch-002");
+
+            // Assert
+            verify(versionRepository).seedFromSnapshots("batch-001", 1L);
+            assertEquals(2L, session.getVersionBatch());
+            assertEquals("batch-001", session.getPreviousBatchId());
+        }
+
+        @Test
+        @DisplayName("Should discard versions of a failed batch")
+        void shouldDiscardVersionsOfFailedBatch() {
+            // Arrange
+            EmployeeDeltaServiceImpl service = versionedService();
+            EmployeeIngestBatch batch = createMockBatch("batch-003", "current.csv");
+            batch.setId(3L);
+            when(batchRepository.findByBatchId("batch-003")).thenReturn(Optional.of(batch));
+
+            // Act
+            service.updateIngestBatch("batch-003", EmployeeIngestBatch.IngestStatus.FAILED, 0, 0, 0, "boom");
+
+            // Assert
+            verify(versionRepository).deleteByValidFromBatch(3L);
+            verify(versionRepository).reopenClosedInBatch(3L);
+        }
+
+        @Test
+        @DisplayName("Should answer state as of a batch from versions valid at that batch")
+        void shouldAnswerStateAsOfBatchFromVersions() {
+            // Arrange
+            EmployeeDeltaServiceImpl service = versionedService();
+            EmployeeIngestBatch batch = createMockBatch("batch-002", "previous.csv");
+            batch.setId(2L);
+            EmployeeVersion alice = createVersion(createMockEmployee(1L, "Alice", 30), 1L);
+            when(batchRepository.findByBatchId("batch-002")).thenReturn(Optional.of(batch));
+            when(versionRepository.findValidAtBatch(2L)).thenReturn(List.of(alice));
+            when(versionRepository.findValidAtBatchForEmployee(1L, 2L)).thenReturn(Optional.of(alice));
+
+            // Act
+            List<EmployeeSnapshot> state = service.getEmployeeStateAsOfBatch("batch-002");
+            Optional<EmployeeSnapshot> single = service.getEmployeeAsOfBatch("batch-002", 1L);
+
+            // Assert
+            assertEquals(1, state.size());
+            assertEquals("Alice", state.get(0).getName());
+            assertEquals("batch-002", state.get(0).getBatchId());
+            assertTrue(single.isPresent());
+            assertTrue(service.getEmployeeStateAsOfBatch("unknown").isEmpty());
+            verify(snapshotRepository, never()).findByBatchIdOrderByEmployeeId(anyString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Time Travel Tests")
+    class TimeTravelTests {
+
+        private EmployeeIngestBatch givenBatch(String batchId, Long id) {
+            EmployeeIngestBatch batch = createMockBatch(batchId, "batch.csv");
+            batch.setId(id);
+            when(batchRepository.findByBatchId(batchId)).thenReturn(Optional.of(batch));
+            return batch;
+        }
+
+        private EmployeeCheckpoint givenCheckpoint(Long checkpointId, Long ingestBatchId) {
+            EmployeeCheckpoint checkpoint = new EmployeeCheckpoint();
+            checkpoint.setId(checkpointId);
+            checkpoint.setIngestBatchId(ingestBatchId);
+            checkpoint.setBatchId("batch-00" + ingestBatchId);
+            return checkpoint;
+        }
+
+        @Test
+        @DisplayName("Should stream roster replayed from the nearest checkpoint")
+        void shouldStreamRosterReplayedFromNearestCheckpoint() {
+            // Arrange
+            givenBatch("batch-005", 5L);
+            when(checkpointRepository.findFirstByIngestBatchIdLessThanEqualAndEmployeeCountIsNotNullOrderByIngestBatchIdDesc(5L))
+                .thenReturn(Optional.of(givenCheckpoint(9L, 3L)));
+            when(deltaRepository.streamChangesBetweenBatches(3L, 5L)).thenReturn(java.util.stream.Stream.of(
+                new Object[]{2L, EmployeeDelta.DeltaType.DELETED, null, null, null, null},
+                new Object[]{3L, EmployeeDelta.DeltaType.NEW, "Charlie", 28, "ACTIVE", null}));
+            when(checkpointEntryRepository.streamRosterByCheckpointId(9L)).thenReturn(java.util.stream.Stream.of(
+                new Object[]{1L, "Alice", 30, "ACTIVE", null},
+                new Object[]{2L, "Bob", 25, "ACTIVE", null}));
+
+            // Act
+            List<EmployeeSnapshot> roster = new ArrayList<>();
+            long emitted = deltaService.replayEmployeeState("batch-005", roster::add);
+
+            // Assert
+            assertEquals(2, emitted);
+            assertEquals(List.of("Alice", "Charlie"), roster.stream().map(EmployeeSnapshot::getName).collect(Collectors.toList()));
+            verify(snapshotRepository, never()).findByBatchId(anyString());
+        }
+
+        @Test
+        @DisplayName("Should replay a single employee from checkpoint entry and deltas")
+        void shouldReplaySingleEmployee() {
+            // Arrange
+            givenBatch("batch-005", 5L);
+            when(checkpointRepository.findFirstByIngestBatchIdLessThanEqualAndEmployeeCountIsNotNullOrderByIngestBatchIdDesc(5L))
+                .thenReturn(Optional.of(givenCheckpoint(9L, 3L)));
+            EmployeeCheckpointEntry entry = new EmployeeCheckpointEntry(1L, 9L, 1L, "Alice", 30, "ACTIVE", null);
+            when(checkpointEntryRepository.findByCheckpointIdAndEmployeeId(9L, 1L)).thenReturn(List.of(entry));
+            when(deltaRepository.findEmployeeChangesBetweenBatches(1L, 3L, 5L)).thenReturn(List.<Object[]>of(
+                new Object[]{1L, EmployeeDelta.DeltaType.UPDATED, "Alice", 31, "ACTIVE", null}));
+
+            // Act
+            Optional<EmployeeSnapshot> alice = deltaService.replayEmployeeState("batch-005", 1L);
+
+            // Assert
+            assertTrue(alice.isPresent());
+            assertEquals(31, alice.get().getAge());
+            assertEquals("batch-005", alice.get().getBatchId());
+        }
+
+        @Test
+        @DisplayName("Should reject replay without a checkpoint once the first batches are purged")
+        void shouldRejectReplayWhenHistoryIsPurged() {
+            // Arrange
+            givenBatch("batch-005", 5L);
+            EmployeeIngestBatch oldest = givenBatch("batch-004", 4L);
+            when(batchRepository.findFirstByStatusOrderByIdAsc(EmployeeIngestBatch.IngestStatus.COMPLETED))
+                .thenReturn(Optional.of(oldest));
+            when(deltaRepository.existsByBatchIdAndPreviousBatchIdIsNotNull("batch-004")).thenReturn(true);
+
             // Act & Assert
-            assertDoesNotThrow(() -> {
-                List<EmployeeDelta> result = deltaService.detectAndRecordDeltas(currentBatchId);
-                assertEquals(1, result.size());
-            });
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> deltaService.replayEmployeeState("batch-005", roster -> { }));
+            assertTrue(error.getMessage().contains("batch-004"));
+            assertThrows(IllegalArgumentException.class, () -> deltaService.replayEmployeeState("batch-005", 1L));
+            assertThrows(IllegalArgumentException.class, () -> deltaService.requireReplayable("batch-005"));
+            verify(deltaRepository, never()).streamChangesBetweenBatches(anyLong(), anyLong());
+        }
 
-            verify(deltaRepository).saveAll(deltasCaptor.capture());
-            List<EmployeeDelta> capturedDeltas = deltasCaptor.getValue();
-            
-            assertEquals(1, capturedDeltas.size());
-            EmployeeDelta delta = capturedDeltas.get(0);
-            // Should fall back to comma-separated string
-            assertEquals("name,age", delta.getChangedFields());
+        @Test
+        @DisplayName("Should replay from the first batch when no checkpoint exists and nothing is purged")
+        void shouldReplayFromFirstBatchWithoutCheckpoint() {
+            // Arrange
+            givenBatch("batch-002", 2L);
+            EmployeeIngestBatch first = givenBatch("batch-001", 1L);
+            when(batchRepository.findFirstByStatusOrderByIdAsc(EmployeeIngestBatch.IngestStatus.COMPLETED))
+                .thenReturn(Optional.of(first));
+            when(deltaRepository.streamChangesBetweenBatches(0L, 2L)).thenReturn(java.util.stream.Stream.<Object[]>of(
+                new Object[]{1L, EmployeeDelta.DeltaType.NEW, "Alice", 30, "ACTIVE", null}));
+
+            // Act
+            List<EmployeeSnapshot> roster = new ArrayList<>();
+            deltaService.replayEmployeeState("batch-002", roster::add);
+
+            // Assert
+            assertEquals(1, roster.size());
+            verify(checkpointEntryRepository, never()).streamRosterByCheckpointId(any());
+        }
+
+        @Test
+        @DisplayName("Should reject replay for unknown batches")
+        void shouldRejectReplayForUnknownBatch() {
+            when(batchRepository.findByBatchId("missing")).thenReturn(Optional.empty());
+
+            assertThrows(IllegalArgumentException.class, () -> deltaService.replayEmployeeState("missing", 1L));
+        }
+    }
+
+    @Nested
+    @DisplayName("Employee Id Bitmap Tests")
+    class EmployeeIdBitmapTests {
+
+        private byte[] bitmapOf(long... ids) {
+            Roaring64NavigableMap bitmap = EmployeeIdBitmaps.empty();
+            for (long id : ids) {
+                bitmap.addLong(id);
+            }
+            return EmployeeIdBitmaps.serialize(bitmap);
+        }
+
+        @Test
+        @DisplayName("Should compute NEW and DELETED from id bitmaps and store the batch's bitmap")
+        void shouldComputeNewAndDeletedFromBitmaps() {
+            // Arrange
+            EmployeeIngestBatch previousBatch = createMockBatch("batch-001", "previous.csv");
+            previousBatch.setEmployeeIds(bitmapOf(1L, 2L));
+            EmployeeIngestBatch currentBatch = createMockBatch("batch-002", "current.csv");
+            when(batchRepository.findByBatchId("batch-002")).thenReturn(Optional.of(currentBatch));
+            when(batchRepository.findMostRecentCompletedBatchBefore(any())).thenReturn(List.of(previousBatch));
+            when(snapshotRepository.findByBatchId("batch-002")).thenReturn(List.of(
+                createMockSnapshot(1L, "Alice", 30, "batch-002"),
+                createMockSnapshot(3L, "Charlie", 28, "batch-002")));
+            when(snapshotRepository.findByBatchId("batch-001")).thenReturn(List.of(
+                createMockSnapshot(1L, "Alice", 30, "batch-001"),
+                createMockSnapshot(2L, "Bob", 25, "batch-001")));
+
+            // Act
+            List<EmployeeDelta> result = deltaService.detectAndRecordDeltas("batch-002");
+
+            // Assert
+            assertEquals(2, result.size());
+            assertTrue(result.stream().anyMatch(d -> d.getEmployeeId() == 3L && d.getDeltaType() == EmployeeDelta.DeltaType.NEW));
+            assertTrue(result.stream().anyMatch(d -> d.getEmployeeId() == 2L && d.getDeltaType() == EmployeeDelta.DeltaType.DELETED));
+            assertEquals(2, currentBatch.getHeadcount());
+            Roaring64NavigableMap stored = EmployeeIdBitmaps.deserialize(currentBatch.getEmployeeIds());
+            assertTrue(stored.contains(1L) && stored.contains(3L) && !stored.contains(2L));
+        }
+
+        @Test
+        @DisplayName("Should store the ids seen during inline detection")
+        void shouldStoreIdsSeenInline() {
+            // Arrange
+            EmployeeIngestBatch currentBatch = createMockBatch("batch-001", "current.csv");
+            when(batchRepository.findByBatchId("batch-001")).thenReturn(Optional.of(currentBatch));
+            InlineDeltaSession session = new InlineDeltaSession("batch-001", null, null);
+
+            // Act
+            deltaService.recordInlineDeltas(session, List.of(createMockEmployee(7L, "Gina", 33), createMockEmployee(9L, "Ivan", 41)));
+            deltaService.completeInlineDeltaDetection(session);
+
+            // Assert
+            assertEquals(2, currentBatch.getHeadcount());
+            assertTrue(EmployeeIdBitmaps.deserialize(currentBatch.getEmployeeIds()).contains(9L));
+        }
+
+        @Test
+        @DisplayName("Should answer presence from the bitmap and fall back for batches without one")
+        void shouldAnswerPresenceFromBitmap() {
+            // Arrange
+            EmployeeIngestBatch withBitmap = createMockBatch("batch-002", "current.csv");
+            withBitmap.setEmployeeIds(bitmapOf(1L, 3L));
+            EmployeeIngestBatch legacy = createMockBatch("batch-001", "previous.csv");
+            when(batchRepository.findByBatchId("batch-002")).thenReturn(Optional.of(withBitmap));
+            when(batchRepository.findByBatchId("batch-001")).thenReturn(Optional.of(legacy));
+            when(snapshotRepository.existsByBatchIdAndEmployeeId("batch-001", 2L)).thenReturn(true);
+
+            // Act & Assert
+            assertTrue(deltaService.wasEmployeePresent("batch-002", 3L));
+            assertFalse(deltaService.wasEmployeePresent("batch-002", 2L));
+            verify(snapshotRepository, never()).existsByBatchIdAndEmployeeId(eq("batch-002"), any());
+            assertTrue(deltaService.wasEmployeePresent("batch-001", 2L));
+        }
+
+        @Test
+        @DisplayName("Should list headcounts without loading bitmaps")
+        void shouldListHeadcounts() {
+            LocalDateTime ingestDate = LocalDateTime.of(2024, 1, 1, 0, 0);
+            when(batchRepository.findCompletedHeadcounts()).thenReturn(List.<Object[]>of(
+                new Object[]{"batch-001", ingestDate, null},
+                new Object[]{"batch-002", ingestDate.plusDays(1), 1200}));
+
+            List<EmployeeDeltaService.BatchHeadcount> headcounts = deltaService.getHeadcounts();
+
+            assertEquals(2, headcounts.size());
+            assertNull(headcounts.get(0).getHeadcount());
+            assertEquals(1200, headcounts.get(1).getHeadcount());
         }
     }
 
@@ -518,6 +1103,137 @@ class EmployeeDeltaServiceImplTest {
         }
     }
 
+    @Nested
+    @DisplayName("Stored Delta Count Tests")
+    class StoredDeltaCountTests {
+
+        @Test
+        @DisplayName("Should store per-type delta counts on the batch when detection finishes")
+        void shouldStoreDeltaCountsOnBatch() {
+            // Arrange
+            EmployeeIngestBatch previousBatch = createMockBatch("batch-001", "previous.csv");
+            EmployeeIngestBatch currentBatch = createMockBatch("batch-002", "current.csv");
+            when(batchRepository.findByBatchId("batch-002")).thenReturn(Optional.of(currentBatch));
+            when(batchRepository.findMostRecentCompletedBatchBefore(any())).thenReturn(List.of(previousBatch));
+            when(snapshotRepository.findByBatchId("batch-002")).thenReturn(List.of(
+                createMockSnapshot(1L, "Alice", 31, "batch-002"),
+                createMockSnapshot(3L, "Charlie", 28, "batch-002")));
+            when(snapshotRepository.findByBatchId("batch-001")).thenReturn(List.of(
+                createMockSnapshot(1L, "Alice", 30, "batch-001"),
+                createMockSnapshot(2L, "Bob", 25, "batch-001")));
+
+            // Act
+            deltaService.detectAndRecordDeltas("batch-002");
+
+            // Assert
+            assertEquals(1, currentBatch.getNewDeltaCount());
+            assertEquals(1, currentBatch.getUpdatedDeltaCount());
+            assertEquals(1, currentBatch.getDeletedDeltaCount());
+        }
+
+        @Test
+        @DisplayName("Should store the inline session's counts on the batch")
+        void shouldStoreInlineCountsOnBatch() {
+            // Arrange
+            EmployeeIngestBatch currentBatch = createMockBatch("batch-001", "current.csv");
+            when(batchRepository.findByBatchId("batch-001")).thenReturn(Optional.of(currentBatch));
+            InlineDeltaSession session = new InlineDeltaSession("batch-001", null, null);
+
+            // Act
+            deltaService.recordInlineDeltas(session, List.of(createMockEmployee(7L, "Gina", 33)));
+            deltaService.completeInlineDeltaDetection(session);
+
+            // Assert
+            assertEquals(1, currentBatch.getNewDeltaCount());
+            assertEquals(0, currentBatch.getUpdatedDeltaCount());
+            assertEquals(0, currentBatch.getDeletedDeltaCount());
+        }
+
+        @Test
+        @DisplayName("Should serve summaries from stored counts without grouping deltas, and cache them")
+        void shouldServeSummaryFromStoredCounts() {
+            // Arrange
+            List<Object[]> stored = new ArrayList<>();
+            stored.add(new Object[]{4, 2, 1});
+            when(batchRepository.findDeltaCountsByBatchId("batch-001")).thenReturn(stored);
+
+            // Act
+            EmployeeDeltaService.DeltaSummary first = deltaService.getDeltaSummary("batch-001");
+            EmployeeDeltaService.DeltaSummary second = deltaService.getDeltaSummary("batch-001");
+
+            // Assert
+            assertEquals(4, first.getNewEmployees());
+            assertEquals(2, first.getUpdatedEmployees());
+            assertEquals(1, first.getDeletedEmployees());
+            assertEquals(7, first.getTotalDeltas());
+            assertSame(first, second);
+            verify(batchRepository, times(1)).findDeltaCountsByBatchId("batch-001");
+            verify(deltaRepository, never()).countDeltasByTypeForBatch(anyString());
+        }
+
+        @Test
+        @DisplayName("Should evict the cached summary of a purged batch")
+        void shouldEvictSummaryOfPurgedBatch() {
+            // Arrange
+            List<Object[]> stored = new ArrayList<>();
+            stored.add(new Object[]{4, 2, 1});
+            when(batchRepository.findDeltaCountsByBatchId("batch-001")).thenReturn(stored);
+
+            // Act
+            deltaService.getDeltaSummary("batch-001");
+            deltaService.onBatchPurged(new DeltaBatchPurgedEvent("batch-001"));
+            deltaService.getDeltaSummary("batch-001");
+
+            // Assert
+            verify(batchRepository, times(2)).findDeltaCountsByBatchId("batch-001");
+        }
+
+        @Test
+        @DisplayName("Should count deltas and not cache while detection is unfinished")
+        void shouldCountDeltasWhileDetectionUnfinished() {
+            // Arrange
+            List<Object[]> stored = new ArrayList<>();
+            stored.add(new Object[]{null, null, null});
+            when(batchRepository.findDeltaCountsByBatchId("batch-002")).thenReturn(stored);
+            List<Object[]> counts = new ArrayList<>();
+            counts.add(new Object[]{EmployeeDelta.DeltaType.NEW, 3L});
+            when(deltaRepository.countDeltasByTypeForBatch("batch-002")).thenReturn(counts);
+
+            // Act
+            deltaService.getDeltaSummary("batch-002");
+            EmployeeDeltaService.DeltaSummary result = deltaService.getDeltaSummary("batch-002");
+
+            // Assert
+            assertEquals(3, result.getNewEmployees());
+            verify(deltaRepository, times(2)).countDeltasByTypeForBatch("batch-002");
+        }
+
+        @Test
+        @DisplayName("Should summarize the most recent completed batch")
+        void shouldSummarizeLatestBatch() {
+            // Arrange
+            when(batchRepository.findCompletedBatchIdsNewestFirst(any())).thenReturn(List.of("batch-009"));
+            List<Object[]> stored = new ArrayList<>();
+            stored.add(new Object[]{0, 5, 0});
+            when(batchRepository.findDeltaCountsByBatchId("batch-009")).thenReturn(stored);
+
+            // Act
+            EmployeeDeltaService.DeltaSummary result = deltaService.getLatestDeltaSummary();
+
+            // Assert
+            assertEquals("batch-009", result.getBatchId());
+            assertEquals(5, result.getUpdatedEmployees());
+        }
+
+        @Test
+        @DisplayName("Should return no latest summary before any batch completes")
+        void shouldReturnNullWithoutCompletedBatch() {
+            when(batchRepository.findCompletedBatchIdsNewestFirst(any())).thenReturn(List.of());
+
+            assertNull(deltaService.getLatestDeltaSummary());
+        }
+    }
+
     // Helper methods
     private EmployeeIngestBatch createMockBatch(String batchId, String fileName) {
         EmployeeIngestBatch batch = new EmployeeIngestBatch();
@@ -534,7 +1250,7 @@ class EmployeeDeltaServiceImplTest {
         employee.setName(name);
         employee.setAge(age);
         employee.setStatus("ACTIVE");
-        employee.setDob(new Date());
+        employee.setDob(new Date(DOB_MILLIS));
         return employee;
     }
 
@@ -546,7 +1262,7 @@ class EmployeeDeltaServiceImplTest {
         snapshot.setStatus("ACTIVE");
         snapshot.setBatchId(batchId);
         snapshot.setSnapshotDate(LocalDateTime.now());
-        snapshot.setDob(new Date());
+        snapshot.setDob(new Date(DOB_MILLIS));
         return snapshot;
     }
 
@@ -1,65 +1,325 @@
 package com.example.employee.service.impl;
 
 import com.example.employee.entity.Employee;
+import com.example.employee.entity.EmployeeDelta;
+import com.example.employee.repo.EmployeeDeltaRepository;
+import com.example.employee.repo.EmployeeExtractWatermarkRepository;
 import com.example.employee.repo.EmployeeRepository;
 import com.example.employee.service.impl.EmployeeExtractServiceImpl;
 import com.example.employee.config.EmployeeCsvExtractProperties;
-import com.example.common.util.CsvUtils;
+import com.example.employee.extract.ExtractManifest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.sql.DataSource;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class EmployeeExtractServiceImplTest {
     private EmployeeExtractServiceImpl service;
     private EmployeeRepository employeeRepository;
     private EmployeeCsvExtractProperties props;
+    private EmployeeDeltaRepository deltaRepository;
+    private EmployeeExtractWatermarkRepository watermarkRepository;
+
+    @TempDir
+    Path extractDir;
 
     @BeforeEach
     void setUp() throws Exception {
         employeeRepository = mock(EmployeeRepository.class);
         props = mock(EmployeeCsvExtractProperties.class);
-        service = new EmployeeExtractServiceImpl(employeeRepository, props);
+        deltaRepository = mock(EmployeeDeltaRepository.class);
+        watermarkRepository = mock(EmployeeExtractWatermarkRepository.class);
+        service = new EmployeeExtractServiceImpl(employeeRepository, props, mock(DataSource.class),
+                deltaRepository, watermarkRepository);
     }
 
     @Test
-    void testExtractToDirectory_WritesCsvAndUpdatesStatus() {
+    void testExtractToDirectory_WritesCsvAndUpdatesStatus() throws Exception {
         // Arrange
-        Employee emp1 = new Employee();
-        emp1.setId(1L); emp1.setName("Alice"); emp1.setAge(30); emp1.setStatus("READY");
-        Employee emp2 = new Employee();
-        emp2.setId(2L); emp2.setName("Bob"); emp2.setAge(40); emp2.setStatus("READY");
-        List<Employee> employees = Arrays.asList(emp1, emp2);
-        when(employeeRepository.findByStatus("READY")).thenReturn(employees);
-        when(props.getColumnMapping()).thenReturn(Map.of("id","id","name","name","age","age","status","status"));
-        when(props.getFileNamePrefix()).thenReturn("emp-");
-        when(props.getExtractedStatus()).thenReturn("EXTRACTED");
-        // Mock CsvUtils.writeCsv
-        try (MockedStatic<CsvUtils> csvUtilsMock = Mockito.mockStatic(CsvUtils.class)) {
-            // Act
-            service.extractToDirectory(Path.of("/tmp"), "READY");
-            // Assert
-            csvUtilsMock.verify(() -> CsvUtils.writeCsv(any(), any()), times(1));
-            verify(employeeRepository).saveAll(any());
-            // Check that status is updated
-            assert emp1.getStatus().equals("EXTRACTED");
-            assert emp2.getStatus().equals("EXTRACTED");
+        when(employeeRepository.claimForExtract(anyString(), eq("READY"), any(), any())).thenReturn(2);
+        when(employeeRepository.findClaimedShardPage(anyString(), eq(1), eq(0), eq(Long.MIN_VALUE), anyInt()))
+                .thenReturn(List.of(employee(1L, "Alice", 30), employee(2L, "Bob", 40)));
+        stubProps(1000);
+
+        // Act
+        service.extractToDirectory(extractDir, "READY");
+
+        // Assert - a short first page is the last one, and the claim is marked in one update
+        List<String> lines = readExtract();
+        assertEquals(List.of("\"id\",\"name\"", "\"1\",\"Alice\"", "\"2\",\"Bob\""), lines);
+        verify(employeeRepository, times(1)).findClaimedShardPage(anyString(), anyInt(), anyInt(), anyLong(), anyInt());
+        verify(employeeRepository).markExtracted(anyString(), eq("EXTRACTED"));
+        verify(employeeRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testExtractToDirectory_StreamsClaimedRowsById() throws Exception {
+        // Arrange
+        when(employeeRepository.claimForExtract(anyString(), eq("READY"), any(), any())).thenReturn(4);
+        when(employeeRepository.findClaimedShardPage(anyString(), eq(1), eq(0), eq(Long.MIN_VALUE), eq(2)))
+                .thenReturn(List.of(employee(1L, "Alice", 30), employee(4L, "Dan", 35)));
+        when(employeeRepository.findClaimedShardPage(anyString(), eq(1), eq(0), eq(4L), eq(2)))
+                .thenReturn(List.of(employee(7L, "Gina", 33), employee(9L, "Ivan", 41)));
+        when(employeeRepository.findClaimedShardPage(anyString(), eq(1), eq(0), eq(9L), eq(2)))
+                .thenReturn(List.of());
+        stubProps(2);
+
+        // Act
+        service.extractToDirectory(extractDir, "READY");
+
+        // Assert - the same run id claims, reads and marks
+        assertEquals(5, readExtract().size());
+        verify(employeeRepository, times(3)).findClaimedShardPage(anyString(), anyInt(), anyInt(), anyLong(), anyInt());
+        verify(employeeRepository).markExtracted(anyString(), eq("EXTRACTED"));
+    }
+
+    @Test
+    void testExtractToDirectory_ReleasesClaimWhenFileFails() throws Exception {
+        // Arrange
+        when(employeeRepository.claimForExtract(anyString(), eq("READY"), any(), any())).thenReturn(1);
+        when(employeeRepository.findClaimedShardPage(anyString(), anyInt(), anyInt(), anyLong(), anyInt()))
+                .thenThrow(new IllegalStateException("connection lost"));
+        stubProps(1000);
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> service.extractToDirectory(extractDir, "READY"));
+
+        // Assert
+        verify(employeeRepository).releaseExtractClaim(anyString());
+        verify(employeeRepository, never()).markExtracted(anyString(), anyString());
+        try (Stream<Path> files = Files.list(extractDir)) {
+            assertEquals(0, files.count());
         }
     }
 
     @Test
     void testExtractToDirectory_NoEmployeesWithStatus() {
-        when(employeeRepository.findByStatus("READY")).thenReturn(List.of());
+        when(employeeRepository.claimForExtract(anyString(), eq("READY"), any(), any())).thenReturn(0);
         when(props.getColumnMapping()).thenReturn(Map.of("id","id"));
-        service.extractToDirectory(Path.of("/tmp"), "READY");
-        verify(employeeRepository, never()).saveAll(any());
+        service.extractToDirectory(extractDir, "READY");
+        verify(employeeRepository, never()).findClaimedShardPage(anyString(), anyInt(), anyInt(), anyLong(), anyInt());
+        verify(employeeRepository, never()).markExtracted(anyString(), any());
+    }
+
+    @Test
+    void testExtractToDirectory_WritesShardFilesAndManifest() throws Exception {
+        // Arrange - odd ids go to shard 1, even ids to shard 0
+        when(employeeRepository.claimForExtract(anyString(), eq("READY"), any(), any())).thenReturn(3);
+        when(employeeRepository.findClaimedShardPage(anyString(), eq(2), eq(0), eq(Long.MIN_VALUE), anyInt()))
+                .thenReturn(List.of(employee(2L, "Bob", 40)));
+        when(employeeRepository.findClaimedShardPage(anyString(), eq(2), eq(1), eq(Long.MIN_VALUE), anyInt()))
+                .thenReturn(List.of(employee(1L, "Alice", 30), employee(3L, "Cara", 25)));
+        stubProps(1000);
+        when(props.getShards()).thenReturn(2);
+
+        // Act
+        service.extractToDirectory(extractDir, "READY");
+
+        // Assert - one file per shard, plus a manifest describing both
+        List<Path> files;
+        try (Stream<Path> listed = Files.list(extractDir)) {
+            files = listed.sorted().toList();
+        }
+        assertEquals(3, files.size());
+        Path shard0 = files.stream().filter(f -> f.toString().endsWith("-shard000.csv")).findFirst().orElseThrow();
+        Path shard1 = files.stream().filter(f -> f.toString().endsWith("-shard001.csv")).findFirst().orElseThrow();
+        Path manifestFile = files.stream().filter(f -> f.toString().endsWith("-manifest.json")).findFirst().orElseThrow();
+        assertEquals(List.of("\"id\",\"name\"", "\"2\",\"Bob\""), Files.readAllLines(shard0));
+        assertEquals(3, Files.readAllLines(shard1).size());
+
+        ExtractManifest manifest = new ObjectMapper().findAndRegisterModules().readValue(manifestFile.toFile(), ExtractManifest.class);
+        assertEquals(3, manifest.rows());
+        assertEquals(2, manifest.shards().size());
+        ExtractManifest.Shard first = manifest.shards().get(0);
+        assertEquals(shard0.getFileName().toString(), first.file());
+        assertEquals(1, first.rows());
+        assertEquals(Files.size(shard0), first.bytes());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(shard0))),
+                first.sha256());
+        assertEquals(2, manifest.shards().get(1).rows());
+        verify(employeeRepository).markExtracted(anyString(), eq("EXTRACTED"));
+    }
+
+    @Test
+    void testExtractToDirectory_FailedShardRemovesEveryShard() throws Exception {
+        // Arrange
+        when(employeeRepository.claimForExtract(anyString(), eq("READY"), any(), any())).thenReturn(2);
+        when(employeeRepository.findClaimedShardPage(anyString(), eq(2), eq(0), anyLong(), anyInt()))
+                .thenReturn(List.of(employee(2L, "Bob", 40)));
+        when(employeeRepository.findClaimedShardPage(anyString(), eq(2), eq(1), anyLong(), anyInt()))
+                .thenThrow(new IllegalStateException("connection lost"));
+        stubProps(1000);
+        when(props.getShards()).thenReturn(2);
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> service.extractToDirectory(extractDir, "READY"));
+
+        // Assert
+        verify(employeeRepository).releaseExtractClaim(anyString());
+        verify(employeeRepository, never()).markExtracted(anyString(), anyString());
+        try (Stream<Path> files = Files.list(extractDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testExtractToDirectory_CdcWritesChangesSinceLastExtract() throws Exception {
+        // Arrange
+        when(watermarkRepository.claimUnextracted(anyString(), any(), any())).thenReturn(2);
+        when(watermarkRepository.findClaimedBatchIds(anyString())).thenReturn(List.of("b1", "b2"));
+        when(deltaRepository.findByBatchIdAndIdGreaterThanOrderByIdAsc(eq("b1"), eq(Long.MIN_VALUE), any()))
+                .thenReturn(List.of(delta(10L, 1L, "b1", EmployeeDelta.DeltaType.NEW, null, "Alice")));
+        when(deltaRepository.findByBatchIdAndIdGreaterThanOrderByIdAsc(eq("b2"), eq(Long.MIN_VALUE), any()))
+                .thenReturn(List.of(delta(20L, 1L, "b2", EmployeeDelta.DeltaType.UPDATED, "Alice", "Alicia"),
+                        delta(21L, 2L, "b2", EmployeeDelta.DeltaType.DELETED, "Bob", null)));
+        stubProps(1000);
+        when(props.getMode()).thenReturn(EmployeeCsvExtractProperties.ExtractMode.CDC);
+
+        // Act
+        service.extractToDirectory(extractDir, "READY");
+
+        // Assert - deletes carry the last known values, and the claim on both batches is completed
+        assertEquals(List.of("\"operation\",\"id\",\"name\"", "\"INSERT\",\"1\",\"Alice\"",
+                "\"UPDATE\",\"1\",\"Alicia\"", "\"DELETE\",\"2\",\"Bob\""), readExtract());
+        verify(watermarkRepository).markExtracted(anyString(), any(), anyString());
+        verify(watermarkRepository, never()).releaseClaim(anyString());
+        verify(employeeRepository, never()).claimForExtract(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void testExtractToDirectory_CdcMarksBatchesWithoutChangesWithoutFile() throws Exception {
+        when(watermarkRepository.claimUnextracted(anyString(), any(), any())).thenReturn(1);
+        when(watermarkRepository.findClaimedBatchIds(anyString())).thenReturn(List.of("b1"));
+        when(deltaRepository.findByBatchIdAndIdGreaterThanOrderByIdAsc(anyString(), anyLong(), any())).thenReturn(List.of());
+        stubProps(1000);
+        when(props.getMode()).thenReturn(EmployeeCsvExtractProperties.ExtractMode.CDC);
+
+        service.extractToDirectory(extractDir, "READY");
+
+        verify(watermarkRepository).markExtracted(anyString(), any(), isNull());
+        try (Stream<Path> files = Files.list(extractDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testExtractToDirectory_CdcSkipsBatchesClaimedByAnotherRun() {
+        when(watermarkRepository.claimUnextracted(anyString(), any(), any())).thenReturn(0);
+        stubProps(1000);
+        when(props.getMode()).thenReturn(EmployeeCsvExtractProperties.ExtractMode.CDC);
+
+        service.extractToDirectory(extractDir, "READY");
+
+        verify(watermarkRepository, never()).findClaimedBatchIds(anyString());
+        verify(deltaRepository, never()).findByBatchIdAndIdGreaterThanOrderByIdAsc(anyString(), anyLong(), any());
+        verify(watermarkRepository, never()).markExtracted(anyString(), any(), any());
+    }
+
+    @Test
+    void testExtractToDirectory_CdcReleasesClaimWhenFileFails() throws Exception {
+        // Arrange
+        when(watermarkRepository.claimUnextracted(anyString(), any(), any())).thenReturn(1);
+        when(watermarkRepository.findClaimedBatchIds(anyString())).thenReturn(List.of("b1"));
+        when(deltaRepository.findByBatchIdAndIdGreaterThanOrderByIdAsc(anyString(), anyLong(), any()))
+                .thenThrow(new IllegalStateException("connection lost"));
+        stubProps(1000);
+        when(props.getMode()).thenReturn(EmployeeCsvExtractProperties.ExtractMode.CDC);
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> service.extractToDirectory(extractDir, "READY"));
+
+        // Assert
+        verify(watermarkRepository).releaseClaim(anyString());
+        verify(watermarkRepository, never()).markExtracted(anyString(), any(), any());
+        try (Stream<Path> files = Files.list(extractDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testBuildCopySql_MapsColumnsToHeadersOverClaimedRows() {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        mapping.put("person_id", "id");
+        mapping.put("full \"name\"", "name");
+        mapping.put("date_of_birth", "dob");
+        mapping.put("batch", "batchId");
+
+        String sql = EmployeeExtractServiceImpl.buildCopySql(mapping, "dd/MM/yyyy", "run-1", 1, 0);
+
+        assertEquals("COPY (SELECT id AS \"person_id\", name AS \"full \"\"name\"\"\", "
+                + "to_char(dob, 'DD/MM/YYYY') AS \"date_of_birth\", batch_id AS \"batch\" "
+                + "FROM employee WHERE extract_run_id = 'run-1' ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER)", sql);
+    }
+
+    @Test
+    void testBuildCopySql_SelectsShard() {
+        String sql = EmployeeExtractServiceImpl.buildCopySql(Map.of("id", "id"), null, "run-1", 4, 3);
+
+        assertTrue(sql.contains("WHERE extract_run_id = 'run-1' AND MOD(MOD(id, 4) + 4, 4) = 3 ORDER BY id"), sql);
+    }
+
+    @Test
+    void testToPostgresDatePattern() {
+        assertEquals("YYYY-MM-DD", EmployeeExtractServiceImpl.toPostgresDatePattern(null));
+        assertEquals("YYYY-MM-DD", EmployeeExtractServiceImpl.toPostgresDatePattern("yyyy-MM-dd"));
+        assertEquals("FMDD Mon YY", EmployeeExtractServiceImpl.toPostgresDatePattern("d MMM yy"));
+        assertEquals("YYYY-MM-DD\"T\"HH24:MI:SS", EmployeeExtractServiceImpl.toPostgresDatePattern("yyyy-MM-dd'T'HH:mm:ss"));
+        assertThrows(IllegalArgumentException.class, () -> EmployeeExtractServiceImpl.toPostgresDatePattern("yyyy-ww"));
+    }
+
+    private void stubProps(int pageSize) {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        mapping.put("id", "id");
+        mapping.put("name", "name");
+        when(props.getColumnMapping()).thenReturn(mapping);
+        when(props.getFileNamePrefix()).thenReturn("emp-");
+        when(props.getExtractedStatus()).thenReturn("EXTRACTED");
+        when(props.getPageSize()).thenReturn(pageSize);
+    }
+
+    private List<String> readExtract() throws Exception {
+        try (Stream<Path> files = Files.list(extractDir)) {
+            List<Path> extracts = files.toList();
+            assertEquals(1, extracts.size());
+            assertTrue(extracts.get(0).toString().endsWith(".csv"));
+            return Files.readAllLines(extracts.get(0));
+        }
+    }
+
+    private EmployeeDelta delta(Long id, Long employeeId, String batchId, EmployeeDelta.DeltaType type,
+                                String previousName, String currentName) {
+        EmployeeDelta delta = new EmployeeDelta();
+        delta.setId(id);
+        delta.setEmployeeId(employeeId);
+        delta.setBatchId(batchId);
+        delta.setDeltaType(type);
+        delta.setPreviousName(previousName);
+        delta.setCurrentName(currentName);
+        return delta;
+    }
+
+    private Employee employee(Long id, String name, int age) {
+        Employee emp = new Employee();
+        emp.setId(id); emp.setName(name); emp.setAge(age); emp.setStatus("READY");
+        return emp;
     }
 }
@@ -1,14 +1,17 @@
 package com.example.employee.service.impl;
 
+import com.example.employee.delta.RosterCheckpointWriter;
 import com.example.employee.repo.EmployeeRepository;
 import com.example.employee.service.EmployeeDeltaService;
 import com.example.employee.service.impl.EmployeeIngestServiceImpl;
 import com.example.employee.config.EmployeeCsvIngestProperties;
+import com.example.employee.config.EmployeeDeltaProperties;
 import com.example.common.util.CsvUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -29,7 +32,8 @@ class EmployeeIngestServiceImplTest {
         employeeRepository = mock(EmployeeRepository.class);
         props = mock(EmployeeCsvIngestProperties.class);
         deltaService = mock(EmployeeDeltaService.class);
-        service = new EmployeeIngestServiceImpl(employeeRepository, props, deltaService);
+        service = new EmployeeIngestServiceImpl(employeeRepository, props, deltaService, new EmployeeDeltaProperties(),
+                mock(ApplicationEventPublisher.class), mock(RosterCheckpointWriter.class));
     }
 
     @Test
@@ -0,0 +1,14 @@
+-- V10__add_changed_fields_mask_to_employee_delta.sql
+-- Stores changed fields as a bitmask (name=1, age=2, status=4, dob=8) instead of
+-- a JSON list plus a pre-rendered summary. Both text columns are rendered on read
+-- for new rows; existing rows keep their stored text and get a backfilled mask.
+
+ALTER TABLE employee_delta ADD COLUMN changed_fields_mask INTEGER;
+
+UPDATE employee_delta
+SET changed_fields_mask =
+      (CASE WHEN changed_fields ~ '\mname\M'   THEN 1 ELSE 0 END)
+    | (CASE WHEN changed_fields ~ '\mage\M'    THEN 2 ELSE 0 END)
+    | (CASE WHEN changed_fields ~ '\mstatus\M' THEN 4 ELSE 0 END)
+    | (CASE WHEN changed_fields ~ '\mdob\M'    THEN 8 ELSE 0 END)
+WHERE changed_fields IS NOT NULL;
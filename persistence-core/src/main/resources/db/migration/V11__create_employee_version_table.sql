@@ -0,0 +1,24 @@
+-- V11__create_employee_version_table.sql
+-- Versioned (SCD type 2) employee history. A row is written only when an employee's
+-- content changes; it is valid from the batch that introduced it until the batch that
+-- replaced or removed it. Batches are ordered by employee_ingest_batch.id.
+-- valid_to_batch IS NULL marks the current version.
+
+CREATE TABLE employee_version (
+    id BIGSERIAL PRIMARY KEY,
+    employee_id BIGINT NOT NULL,
+    valid_from_batch BIGINT NOT NULL,
+    valid_to_batch BIGINT,
+    name VARCHAR(255),
+    age INTEGER,
+    status VARCHAR(100),
+    dob DATE,
+    fingerprint BIGINT
+);
+
+-- At most one current version per employee; also serves the current-state scan
+CREATE UNIQUE INDEX idx_version_current_employee ON employee_version(employee_id) WHERE valid_to_batch IS NULL;
+-- As-of lookups per employee and rollback of a failed batch
+CREATE INDEX idx_version_employee_from ON employee_version(employee_id, valid_from_batch);
+CREATE INDEX idx_version_from ON employee_version(valid_from_batch);
+CREATE INDEX idx_version_to ON employee_version(valid_to_batch);
@@ -0,0 +1,105 @@
+-- V12__partition_snapshot_and_delta_by_batch.sql
+-- Converts employee_snapshot and employee_delta into tables LIST-partitioned by batch_id.
+-- Every new ingest batch gets its own partition (created by the application when the
+-- batch is created), so lookups by batch_id are pruned to one partition, indexes stay
+-- small, and retention drops a partition instead of deleting rows.
+--
+-- Existing rows are not copied: each old table is attached as a single partition
+-- holding all batch ids present at migration time. There is no DEFAULT partition: every
+-- batch gets its partitions when it is created, and retention detaches partitions with
+-- DETACH PARTITION ... CONCURRENTLY, which PostgreSQL refuses while one exists.
+--
+-- The partitioned tables do not carry V8's foreign keys to employee_ingest_batch
+-- (fk_snapshot_batch, fk_delta_batch); the legacy partitions keep theirs. A batch's rows live
+-- in the batch's own partitions, which are created with the batch row and dropped by retention
+-- before the batch row is deleted, so rows cannot outlive their batch, and the keys would add
+-- a lookup of employee_ingest_batch for every snapshot and delta row written.
+
+-- ---------------------------------------------------------------------------
+-- employee_snapshot
+-- ---------------------------------------------------------------------------
+ALTER TABLE employee_snapshot RENAME TO employee_snapshot_legacy;
+ALTER TABLE employee_snapshot_legacy RENAME CONSTRAINT employee_snapshot_pkey TO employee_snapshot_legacy_pkey;
+ALTER INDEX idx_snapshot_batch_employee RENAME TO idx_snapshot_legacy_batch_employee;
+ALTER INDEX idx_snapshot_employee RENAME TO idx_snapshot_legacy_employee;
+ALTER INDEX idx_snapshot_batch RENAME TO idx_snapshot_legacy_batch;
+
+CREATE TABLE employee_snapshot (
+    id BIGINT NOT NULL DEFAULT nextval('employee_snapshot_id_seq'),
+    employee_id BIGINT NOT NULL,
+    batch_id VARCHAR(255) NOT NULL,
+    snapshot_date TIMESTAMP NOT NULL,
+    name VARCHAR(255),
+    age INTEGER,
+    status VARCHAR(100),
+    dob DATE,
+    fingerprint BIGINT,
+    PRIMARY KEY (id, batch_id)
+) PARTITION BY LIST (batch_id);
+
+ALTER SEQUENCE employee_snapshot_id_seq OWNED BY employee_snapshot.id;
+
+CREATE INDEX idx_snapshot_batch_employee ON employee_snapshot(batch_id, employee_id);
+CREATE INDEX idx_snapshot_employee ON employee_snapshot(employee_id);
+
+-- ---------------------------------------------------------------------------
+-- employee_delta
+-- ---------------------------------------------------------------------------
+ALTER TABLE employee_delta RENAME TO employee_delta_legacy;
+ALTER TABLE employee_delta_legacy RENAME CONSTRAINT employee_delta_pkey TO employee_delta_legacy_pkey;
+ALTER INDEX idx_delta_batch_employee RENAME TO idx_delta_legacy_batch_employee;
+ALTER INDEX idx_delta_type RENAME TO idx_delta_legacy_type;
+ALTER INDEX idx_delta_employee RENAME TO idx_delta_legacy_employee;
+ALTER INDEX idx_delta_date RENAME TO idx_delta_legacy_date;
+
+CREATE TABLE employee_delta (
+    id BIGINT NOT NULL DEFAULT nextval('employee_delta_id_seq'),
+    employee_id BIGINT NOT NULL,
+    batch_id VARCHAR(255) NOT NULL,
+    previous_batch_id VARCHAR(255),
+    delta_type VARCHAR(20) NOT NULL,
+    detected_date TIMESTAMP NOT NULL,
+    previous_name VARCHAR(255),
+    previous_age INTEGER,
+    previous_status VARCHAR(100),
+    previous_dob DATE,
+    current_name VARCHAR(255),
+    current_age INTEGER,
+    current_status VARCHAR(100),
+    current_dob DATE,
+    changed_fields VARCHAR(500),
+    change_summary VARCHAR(1000),
+    changed_fields_mask INTEGER,
+    PRIMARY KEY (id, batch_id)
+) PARTITION BY LIST (batch_id);
+
+ALTER SEQUENCE employee_delta_id_seq OWNED BY employee_delta.id;
+
+CREATE INDEX idx_delta_batch_employee ON employee_delta(batch_id, employee_id);
+CREATE INDEX idx_delta_type ON employee_delta(delta_type);
+CREATE INDEX idx_delta_employee ON employee_delta(employee_id);
+CREATE INDEX idx_delta_date ON employee_delta(detected_date DESC);
+
+-- ---------------------------------------------------------------------------
+-- Attach the old tables as partitions of the batch ids they hold
+-- ---------------------------------------------------------------------------
+DO $$
+DECLARE
+    batch_ids TEXT;
+BEGIN
+    SELECT string_agg(quote_literal(batch_id), ',') INTO batch_ids
+    FROM (SELECT DISTINCT batch_id FROM employee_snapshot_legacy) s;
+    IF batch_ids IS NULL THEN
+        DROP TABLE employee_snapshot_legacy;
+    ELSE
+        EXECUTE format('ALTER TABLE employee_snapshot ATTACH PARTITION employee_snapshot_legacy FOR VALUES IN (%s)', batch_ids);
+    END IF;
+
+    SELECT string_agg(quote_literal(batch_id), ',') INTO batch_ids
+    FROM (SELECT DISTINCT batch_id FROM employee_delta_legacy) d;
+    IF batch_ids IS NULL THEN
+        DROP TABLE employee_delta_legacy;
+    ELSE
+        EXECUTE format('ALTER TABLE employee_delta ATTACH PARTITION employee_delta_legacy FOR VALUES IN (%s)', batch_ids);
+    END IF;
+END $$;
@@ -0,0 +1,25 @@
+-- V13__create_employee_checkpoint_tables.sql
+-- Compact roster checkpoints for time travel. A checkpoint stores every employee
+-- present after a completed batch; the state as of a later batch is rebuilt by
+-- replaying that batch range's deltas on top of the nearest checkpoint.
+
+CREATE TABLE employee_checkpoint (
+    id BIGSERIAL PRIMARY KEY,
+    ingest_batch_id BIGINT NOT NULL UNIQUE, -- employee_ingest_batch.id the checkpoint was taken at
+    batch_id VARCHAR(255) NOT NULL,
+    created_date TIMESTAMP NOT NULL,
+    employee_count INTEGER
+);
+
+CREATE TABLE employee_checkpoint_entry (
+    id BIGSERIAL PRIMARY KEY,
+    checkpoint_id BIGINT NOT NULL REFERENCES employee_checkpoint(id),
+    employee_id BIGINT NOT NULL,
+    name VARCHAR(255),
+    age INTEGER,
+    status VARCHAR(100),
+    dob DATE
+);
+
+-- Replay reads a checkpoint in employee order; single-employee lookups use the same index
+CREATE INDEX idx_checkpoint_entry_checkpoint_employee ON employee_checkpoint_entry(checkpoint_id, employee_id);
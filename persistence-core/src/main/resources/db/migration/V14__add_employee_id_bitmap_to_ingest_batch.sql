@@ -0,0 +1,5 @@
+-- V14__add_employee_id_bitmap_to_ingest_batch.sql
+-- Compressed (Roaring) bitmap of the employee ids present in each batch, and its cardinality.
+-- Batches ingested before this migration have neither; presence lookups fall back to stored state.
+ALTER TABLE employee_ingest_batch ADD COLUMN employee_ids BYTEA;
+ALTER TABLE employee_ingest_batch ADD COLUMN headcount INTEGER;
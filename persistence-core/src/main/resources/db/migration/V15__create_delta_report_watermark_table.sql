@@ -0,0 +1,21 @@
+-- V15__create_delta_report_watermark_table.sql
+-- Reporting watermark: one row per ingest batch claimed or reported by the report job.
+-- A run claims every due completed batch by inserting its row with the run id and no
+-- reported_at, writes the reports, then completes the claim by setting reported_at. A batch
+-- already claimed by a live run is skipped, so two overlapping runs never report the same
+-- batch. Claims older than the claim timeout belong to a run that died and are taken over;
+-- a run that fails releases its claims.
+
+CREATE TABLE delta_report_watermark (
+    ingest_batch_id BIGINT PRIMARY KEY REFERENCES employee_ingest_batch(id) ON DELETE CASCADE,
+    batch_id VARCHAR(255) NOT NULL,
+    claim_run_id VARCHAR(255),
+    claimed_at TIMESTAMP,
+    reported_at TIMESTAMP,
+    manifest_file VARCHAR(1000)
+);
+
+-- Before the watermark, every run reported the newest batch; treat existing batches as reported
+-- rather than re-reporting the whole retained history on the first run.
+INSERT INTO delta_report_watermark (ingest_batch_id, batch_id, reported_at)
+SELECT id, batch_id, CURRENT_TIMESTAMP FROM employee_ingest_batch WHERE status = 'COMPLETED';
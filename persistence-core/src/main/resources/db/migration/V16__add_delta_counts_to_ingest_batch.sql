@@ -0,0 +1,22 @@
+-- V16__add_delta_counts_to_ingest_batch.sql
+-- Per-type delta counts, written once when delta detection of the batch finishes, so
+-- summaries no longer group employee_delta on every request. Existing batches are backfilled.
+ALTER TABLE employee_ingest_batch ADD COLUMN new_delta_count INTEGER;
+ALTER TABLE employee_ingest_batch ADD COLUMN updated_delta_count INTEGER;
+ALTER TABLE employee_ingest_batch ADD COLUMN deleted_delta_count INTEGER;
+
+UPDATE employee_ingest_batch b SET
+    new_delta_count = COALESCE(c.new_count, 0),
+    updated_delta_count = COALESCE(c.updated_count, 0),
+    deleted_delta_count = COALESCE(c.deleted_count, 0)
+FROM (
+    SELECT b2.id,
+           COUNT(*) FILTER (WHERE d.delta_type = 'NEW') AS new_count,
+           COUNT(*) FILTER (WHERE d.delta_type = 'UPDATED') AS updated_count,
+           COUNT(*) FILTER (WHERE d.delta_type = 'DELETED') AS deleted_count
+    FROM employee_ingest_batch b2
+    LEFT JOIN employee_delta d ON d.batch_id = b2.batch_id
+    WHERE b2.status = 'COMPLETED'
+    GROUP BY b2.id
+) c
+WHERE b.id = c.id;
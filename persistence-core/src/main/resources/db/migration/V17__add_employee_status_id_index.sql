@@ -0,0 +1,4 @@
+-- V17__add_employee_status_id_index.sql
+-- Extract pages through employees of one status in id order (status = ? AND id > ? ORDER BY id LIMIT ?);
+-- this index turns each page into a range scan starting at the previous page's last id.
+CREATE INDEX IF NOT EXISTS idx_employee_status_id ON employee(status, id);
@@ -0,0 +1,10 @@
+-- V18__add_extract_claim_to_employee.sql
+-- An extract run claims the employees it exports by tagging them with its run id and claim time
+-- in one statement, streams the tagged rows to its file, and only then marks them extracted.
+-- A failed run clears its tags. Workers claim with FOR UPDATE SKIP LOCKED and only take
+-- unclaimed rows, or rows whose claim is older than employee.extract.claimTimeout, so concurrent
+-- workers never extract the same employee while a crashed run's claim still expires.
+ALTER TABLE employee ADD COLUMN extract_run_id VARCHAR(64);
+ALTER TABLE employee ADD COLUMN extract_claimed_at TIMESTAMP;
+
+CREATE INDEX idx_employee_extract_run_id ON employee(extract_run_id, id) WHERE extract_run_id IS NOT NULL;
@@ -0,0 +1,21 @@
+-- V19__create_employee_extract_watermark_table.sql
+-- Change-data-capture extract watermark: one row per ingest batch claimed or extracted by a CDC
+-- extract. A run claims every due completed batch by inserting its row with the run id and no
+-- extracted_at, writes the file, then completes the claim by setting extracted_at. A batch
+-- already claimed by a live run is skipped, so two overlapping runs never extract the same
+-- changes. Claims older than the extract claim timeout belong to a run that died and are taken
+-- over; a run that fails releases its claims.
+
+CREATE TABLE employee_extract_watermark (
+    ingest_batch_id BIGINT PRIMARY KEY REFERENCES employee_ingest_batch(id) ON DELETE CASCADE,
+    batch_id VARCHAR(255) NOT NULL,
+    claim_run_id VARCHAR(255),
+    claimed_at TIMESTAMP,
+    extracted_at TIMESTAMP,
+    extract_file VARCHAR(1000)
+);
+
+-- Existing batches are covered by the full extracts made so far; the first CDC extract starts
+-- from the next completed batch rather than replaying the whole retained history.
+INSERT INTO employee_extract_watermark (ingest_batch_id, batch_id, extracted_at)
+SELECT id, batch_id, CURRENT_TIMESTAMP FROM employee_ingest_batch WHERE status = 'COMPLETED';
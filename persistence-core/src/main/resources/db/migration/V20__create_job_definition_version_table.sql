@@ -0,0 +1,23 @@
+-- V20__create_job_definition_version_table.sql
+-- Change counter for job_definition. Every statement that inserts, updates or deletes job
+-- definitions bumps the single row, whichever node or tool issued it. Each node caches the
+-- definitions in memory and reloads them when it sees the version move, so the cache is
+-- invalidated across the cluster by polling one row instead of re-reading definitions.
+
+CREATE TABLE job_definition_version (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    version BIGINT NOT NULL
+);
+
+INSERT INTO job_definition_version (id, version) VALUES (1, 0);
+
+CREATE OR REPLACE FUNCTION bump_job_definition_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE job_definition_version SET version = version + 1 WHERE id = 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER job_definition_version_bump
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON job_definition
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_job_definition_version();
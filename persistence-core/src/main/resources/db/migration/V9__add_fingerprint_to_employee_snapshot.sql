@@ -0,0 +1,6 @@
+-- V9__add_fingerprint_to_employee_snapshot.sql
+-- Adds a content fingerprint to snapshots so inline delta detection can load
+-- the previous batch as (employee_id, fingerprint) pairs only.
+-- Existing rows keep a NULL fingerprint and are fingerprinted on read.
+
+ALTER TABLE employee_snapshot ADD COLUMN fingerprint BIGINT;
@@ -0,0 +1,107 @@
+package com.example.scheduler.config;
+
+import com.example.persistence.entity.JobDefinition;
+import com.example.scheduler.service.JobChain;
+import com.example.scheduler.service.JobDefinitionCache;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.listeners.JobListenerSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fires downstream jobs as soon as an upstream job finishes, following the {@link JobChain}.
+ * Every scheduled job of a downstream type is triggered once, with the upstream job and the
+ * batch ids it worked on in its {@link JobDataMap}. Batch ids are the upstream job's result, or
+ * the batch ids it was itself fired with, so they travel down the whole chain. Downstream jobs
+ * whose triggers an operator has all paused are not fired.
+ * <p>
+ * The batch ids are informational: they are logged, but a chained
+ * report or extract still claims every batch its watermark has not covered, exactly as a run
+ * fired by its own cron does. A batch whose chained run failed is therefore picked up by the
+ * next run of any origin.
+ */
+@Component
+public class JobChainListener extends JobListenerSupport {
+    private static final Logger log = LoggerFactory.getLogger(JobChainListener.class);
+
+    /** Data map key of the upstream job, as group.name. */
+    public static final String CHAINED_FROM_KEY = "chainedFrom";
+    /** Data map key of the comma-separated batch ids handed down the chain, for logging only. */
+    public static final String BATCH_IDS_KEY = "batchIds";
+
+    private final JobChain jobChain;
+    private final JobDefinitionCache jobDefCache;
+
+    public JobChainListener(JobChain jobChain, JobDefinitionCache jobDefCache) {
+        this.jobChain = jobChain;
+        this.jobDefCache = jobDefCache;
+    }
+
+    @Override public String getName() { return "job-chain-listener"; }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext ctx, JobExecutionException jobException) {
+        JobKey upstream = ctx.getJobDetail().getKey();
+        String jobType = jobDefCache.find(upstream.getName(), upstream.getGroup()).map(JobDefinition::getJobType).orElse(null);
+        List<String> downstreamTypes = jobChain.downstreamOf(jobType, jobException == null);
+        if (downstreamTypes.isEmpty()) {
+            return;
+        }
+        JobDataMap data = new JobDataMap();
+        data.put(CHAINED_FROM_KEY, upstream.toString());
+        String batchIds = ctx.getResult() instanceof String result ? result : ctx.getMergedJobDataMap().getString(BATCH_IDS_KEY);
+        if (batchIds != null) {
+            data.put(BATCH_IDS_KEY, batchIds);
+        }
+        for (String downstreamType : downstreamTypes) {
+            for (JobDefinition def : jobDefCache.findAll()) {
+                if (downstreamType.equals(def.getJobType())) {
+                    fire(ctx, JobKey.jobKey(def.getName(), def.getGrp()), data, upstream);
+                }
+            }
+        }
+    }
+
+    private void fire(JobExecutionContext ctx, JobKey downstream, JobDataMap data, JobKey upstream) {
+        try {
+            Scheduler scheduler = ctx.getScheduler();
+            if (!scheduler.checkExists(downstream)) {
+                log.warn("Chained job {} is not scheduled; not firing it after {}", downstream, upstream);
+                return;
+            }
+            if (isPaused(scheduler, downstream)) {
+                log.info("Chained job {} is paused; not firing it after {}", downstream, upstream);
+                return;
+            }
+            scheduler.triggerJob(downstream, data);
+            log.info("Fired chained job {} after {} (batchIds={})", downstream, upstream, data.get(BATCH_IDS_KEY));
+        } catch (SchedulerException e) {
+            log.error("Failed to fire chained job {} after {}", downstream, upstream, e);
+        }
+    }
+
+    /**
+     * @return true if the job has triggers and every one of them is paused
+     */
+    private static boolean isPaused(Scheduler scheduler, JobKey job) throws SchedulerException {
+        List<? extends Trigger> triggers = scheduler.getTriggersOfJob(job);
+        if (triggers.isEmpty()) {
+            return false;
+        }
+        for (Trigger trigger : triggers) {
+            if (scheduler.getTriggerState(trigger.getKey()) != Trigger.TriggerState.PAUSED) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
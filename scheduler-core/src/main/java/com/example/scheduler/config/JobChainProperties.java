@@ -0,0 +1,42 @@
+package com.example.scheduler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for chaining jobs: a DAG of job types where a finished job fires
+ * the jobs of its downstream types.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scheduler.chaining")
+public class JobChainProperties {
+    /** Fire downstream jobs when their upstream job finishes. */
+    private boolean enabled = true;
+    /** Edges of the job type DAG. */
+    private List<Edge> edges = new ArrayList<>();
+
+    @Data
+    public static class Edge {
+        /** Job type whose completion fires the edge, e.g. EMPLOYEE_CSV_INGEST. */
+        private String upstream;
+        /** Job type fired, e.g. EMPLOYEE_DELTA_REPORT. */
+        private String downstream;
+        /** Upstream outcome that fires the edge. */
+        private Condition when = Condition.SUCCESS;
+    }
+
+    public enum Condition {
+        SUCCESS,
+        FAILURE,
+        ALWAYS;
+
+        public boolean matches(boolean succeeded) {
+            return this == ALWAYS || (this == SUCCESS) == succeeded;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.scheduler.config;
+
+import com.example.persistence.entity.JobDefinition;
+import com.example.scheduler.service.JobDefinitionCache;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.listeners.JobListenerSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps concurrent executions per job type. Runs first among the global job listeners: before a
+ * job executes, its worker thread takes a permit from the semaphore of the job's type (from
+ * the cached job definition), waiting while the type is at its limit. On a virtual thread the
+ * wait parks the thread without holding a platform thread. The permit is released when the job
+ * has executed, or by {@link VirtualThreadPool} when the job's thread ends.
+ */
+@Component
+public class JobConcurrencyLimiter extends JobListenerSupport {
+    private static final Logger log = LoggerFactory.getLogger(JobConcurrencyLimiter.class);
+
+    /** Permit held by the job running on the current thread, if its type is limited. */
+    private static final ThreadLocal<Semaphore> HELD_PERMIT = new ThreadLocal<>();
+
+    private final JobDefinitionCache jobDefCache;
+    private final Map<String, Semaphore> permitsByType;
+
+    public JobConcurrencyLimiter(JobDefinitionCache jobDefCache, JobConcurrencyProperties props) {
+        this.jobDefCache = jobDefCache;
+        this.permitsByType = new HashMap<>();
+        props.getLimits().forEach((jobType, limit) -> {
+            if (limit == null || limit < 1) {
+                throw new IllegalArgumentException("scheduler.concurrency.limits." + jobType + " must be positive");
+            }
+            permitsByType.put(jobType, new Semaphore(limit, true));
+        });
+    }
+
+    @Override public String getName() { return "job-concurrency-limiter"; }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext ctx) {
+        JobKey key = ctx.getJobDetail().getKey();
+        String jobType = jobDefCache.find(key.getName(), key.getGroup()).map(JobDefinition::getJobType).orElse(null);
+        Semaphore permits = jobType != null ? permitsByType.get(jobType) : null;
+        if (permits == null) {
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            log.debug("Job {} waits for a {} permit", key, jobType);
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted waiting for a {} permit; running job {} without one", jobType, key);
+                return;
+            }
+        }
+        HELD_PERMIT.set(permits);
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext ctx, JobExecutionException jobException) {
+        releaseHeldPermit();
+    }
+
+    /**
+     * @return permits currently free for the job type, or -1 if the type is not limited
+     */
+    int availablePermits(String jobType) {
+        Semaphore permits = permitsByType.get(jobType);
+        return permits != null ? permits.availablePermits() : -1;
+    }
+
+    /**
+     * Releases the permit held by the current thread, if any. Safe to call more than once.
+     */
+    static void releaseHeldPermit() {
+        Semaphore permits = HELD_PERMIT.get();
+        if (permits != null) {
+            HELD_PERMIT.remove();
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.scheduler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for how many Quartz jobs run at once.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scheduler.concurrency")
+public class JobConcurrencyProperties {
+    /**
+     * Run jobs on virtual threads, with maxConcurrentJobs as the cap on concurrent jobs; false keeps
+     * Quartz's fixed SimpleThreadPool of org.quartz.threadPool.threadCount threads.
+     */
+    private boolean virtualThreads = true;
+    /** Maximum jobs running at once on virtual threads; ignored by the fixed pool. */
+    private int maxConcurrentJobs = 100;
+    /** Maximum concurrent executions per job type (e.g. EMPLOYEE_CSV_INGEST); unlisted types are only bounded by the pool. */
+    private Map<String, Integer> limits = new HashMap<>();
+}
@@ -0,0 +1,18 @@
+package com.example.scheduler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the in-memory job definition cache.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scheduler.job-definitions")
+public class JobDefinitionCacheProperties {
+    /** How often the job_definition version is polled for changes made on other nodes. */
+    private Duration refreshInterval = Duration.ofSeconds(5);
+}
@@ -1,10 +1,7 @@
 // scheduler/src/main/java/com/example/scheduler/config/JobHistoryListener.java
 package com.example.scheduler.config;
 
-import com.example.persistence.entity.JobDefinition;
-import com.example.persistence.entity.JobExecution;
-import com.example.persistence.repo.JobDefinitionRepo;
-import com.example.persistence.repo.JobExecutionRepo;
+import com.example.scheduler.service.JobDefinitionCache;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
@@ -13,16 +10,21 @@ import org.springframework.stereotype.Component;
 
 import java.time.OffsetDateTime;
 
+/**
+ * Records a job_execution row per firing. The job id comes from the {@link JobDefinitionCache}
+ * and history is handed to the {@link JobHistoryWriter}, so a firing only pays for queueing
+ * two events, not for database round trips.
+ */
 @Component
 public class JobHistoryListener extends JobListenerSupport {
     public static final String EXEC_ID_KEY = "execId";
 
-    private final JobDefinitionRepo jobDefRepo;
-    private final JobExecutionRepo jobExecRepo;
+    private final JobHistoryWriter historyWriter;
+    private final JobDefinitionCache jobDefCache;
 
-    public JobHistoryListener(JobDefinitionRepo jobDefRepo, JobExecutionRepo jobExecRepo) {
-        this.jobDefRepo = jobDefRepo;
-        this.jobExecRepo = jobExecRepo;
+    public JobHistoryListener(JobHistoryWriter historyWriter, JobDefinitionCache jobDefCache) {
+        this.historyWriter = historyWriter;
+        this.jobDefCache = jobDefCache;
     }
 
     @Override public String getName() { return "job-history-listener"; }
@@ -30,19 +32,9 @@ public class JobHistoryListener extends JobListenerSupport {
     @Override
     public void jobToBeExecuted(JobExecutionContext ctx) {
         JobKey key = ctx.getJobDetail().getKey();
-        String name = key.getName();
-        String group = key.getGroup();
-
-        String jobId = jobDefRepo.findByNameAndGrp(name, group)
-                .map(JobDefinition::getId)
-                .orElse(null);
-
-        JobExecution ex = new JobExecution();
-        ex.setJobId(jobId);
-        ex.setStartedAt(OffsetDateTime.now());
-        ex = jobExecRepo.save(ex);
-
-        ctx.getMergedJobDataMap().put(EXEC_ID_KEY, ex.getId());
+        String jobId = jobDefCache.findId(key.getName(), key.getGroup());
+        long execId = historyWriter.executionStarted(jobId, key.getName(), key.getGroup(), OffsetDateTime.now());
+        ctx.getMergedJobDataMap().put(EXEC_ID_KEY, execId);
     }
 
     @Override
@@ -50,17 +42,11 @@ public class JobHistoryListener extends JobListenerSupport {
         Object idObj = ctx.getMergedJobDataMap().get(EXEC_ID_KEY);
         if (!(idObj instanceof Number)) return;
 
-        Long execId = ((Number) idObj).longValue();
-        jobExecRepo.findById(execId).ifPresent(ex -> {
-            ex.setFinishedAt(OffsetDateTime.now());
-            if (jobException == null) {
-                ex.setOutcome("SUCCESS");
-                ex.setMessage("OK");
-            } else {
-                ex.setOutcome("FAILED");
-                ex.setMessage(jobException.getMessage());
-            }
-            jobExecRepo.save(ex);
-        });
+        long execId = ((Number) idObj).longValue();
+        if (jobException == null) {
+            historyWriter.executionFinished(execId, OffsetDateTime.now(), "SUCCESS", "OK");
+        } else {
+            historyWriter.executionFinished(execId, OffsetDateTime.now(), "FAILED", jobException.getMessage());
+        }
     }
 }
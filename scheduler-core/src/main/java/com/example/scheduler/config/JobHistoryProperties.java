@@ -0,0 +1,24 @@
+package com.example.scheduler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for writing job execution history.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scheduler.history")
+public class JobHistoryProperties {
+    /** Maximum number of history events waiting to be written; job threads wait when it is full. */
+    private int queueCapacity = 10000;
+    /** Maximum number of events written per JDBC batch. */
+    private int batchSize = 200;
+    /** How often queued events are written when fewer than batchSize are waiting. */
+    private Duration flushInterval = Duration.ofMillis(500);
+    /** Number of execution ids reserved from the job_execution sequence per round trip. */
+    private int idBlockSize = 50;
+}
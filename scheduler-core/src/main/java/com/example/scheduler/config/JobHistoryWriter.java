@@ -0,0 +1,201 @@
+package com.example.scheduler.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes job execution history off the Quartz worker threads. Job threads only reserve an
+ * execution id and append an event to a bounded lock-free queue; a single writer thread drains
+ * the queue and writes the events in JDBC batches. Starts whose job id is not known yet, such as
+ * a job just scheduled on another node, resolve the job definition inside the insert.
+ * Execution ids are reserved from the job_execution sequence in blocks, so a job knows its id
+ * before its row exists.
+ * <p>
+ * On shutdown the writer thread is stopped and every queued event is written. Events recorded
+ * after shutdown are written straight away on the calling thread.
+ */
+@Component
+public class JobHistoryWriter implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(JobHistoryWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO job_execution (id, job_id, started_at) VALUES (?, ?, ?)";
+    private static final String INSERT_RESOLVING_SQL =
+            "INSERT INTO job_execution (id, job_id, started_at) " +
+            "SELECT ?, d.id, ? FROM job_definition d WHERE d.name = ? AND d.grp = ?";
+    private static final String UPDATE_SQL =
+            "UPDATE job_execution SET finished_at = ?, outcome = ?, message = ? WHERE id = ?";
+    private static final String RESERVE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('job_execution', 'id')) FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobHistoryProperties props;
+    private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ArrayDeque<Long> reservedIds = new ArrayDeque<>();
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    public JobHistoryWriter(JdbcTemplate jdbcTemplate, JobHistoryProperties props) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.props = props;
+        this.writerThread = new Thread(this::run, "job-history-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Records the start of an execution.
+     *
+     * @param jobId the job definition id, or null to resolve it from name and group when written
+     * @return the id the execution's history row will have
+     */
+    public long executionStarted(String jobId, String name, String group, OffsetDateTime startedAt) {
+        long id = nextExecutionId();
+        enqueue(new Started(id, jobId, name, group, startedAt));
+        return id;
+    }
+
+    /**
+     * Records the end of an execution started with {@link #executionStarted}.
+     */
+    public void executionFinished(long id, OffsetDateTime finishedAt, String outcome, String message) {
+        enqueue(new Finished(id, finishedAt, outcome, message));
+    }
+
+    private synchronized long nextExecutionId() {
+        if (reservedIds.isEmpty()) {
+            reservedIds.addAll(jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, Math.max(1, props.getIdBlockSize())));
+        }
+        return reservedIds.poll();
+    }
+
+    private void enqueue(Event event) {
+        // Reserve a queue slot before adding, and wait for the writer rather than drop history when the queue is full
+        int count;
+        while (true) {
+            int current = queued.get();
+            if (!closed && current >= props.getQueueCapacity()) {
+                LockSupport.unpark(writerThread);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } else if (queued.compareAndSet(current, current + 1)) {
+                count = current + 1;
+                break;
+            }
+        }
+        queue.add(event);
+        if (count >= props.getBatchSize()) {
+            LockSupport.unpark(writerThread);
+        }
+        if (closed) {
+            flush();
+        }
+    }
+
+    private void run() {
+        long intervalNanos = props.getFlushInterval().toNanos();
+        while (!closed) {
+            if (queued.get() < props.getBatchSize()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Unexpected error writing job history", e);
+            }
+        }
+    }
+
+    /**
+     * Writes every queued event. Inserts of a drained chunk are written before its updates,
+     * and a start is always queued before its finish, so every update finds its row.
+     */
+    synchronized void flush() {
+        int batchSize = Math.max(1, props.getBatchSize());
+        List<Object[]> inserts = new ArrayList<>(batchSize);
+        List<Object[]> resolvingInserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>(batchSize);
+        Event event;
+        while ((event = queue.poll()) != null) {
+            queued.decrementAndGet();
+            if (event instanceof Started started && started.jobId() != null) {
+                inserts.add(new Object[] { started.id(), started.jobId(), timestamp(started.startedAt()) });
+            } else if (event instanceof Started started) {
+                resolvingInserts.add(new Object[] { started.id(), timestamp(started.startedAt()), started.name(), started.group() });
+            } else if (event instanceof Finished finished) {
+                updates.add(new Object[] { timestamp(finished.finishedAt()), finished.outcome(), finished.message(), finished.id() });
+            }
+            if (inserts.size() + resolvingInserts.size() + updates.size() >= batchSize) {
+                write(inserts, resolvingInserts, updates);
+            }
+        }
+        write(inserts, resolvingInserts, updates);
+    }
+
+    private void write(List<Object[]> inserts, List<Object[]> resolvingInserts, List<Object[]> updates) {
+        try {
+            write(INSERT_SQL, inserts, "start");
+            write(INSERT_RESOLVING_SQL, resolvingInserts, "start");
+            write(UPDATE_SQL, updates, "finish");
+        } finally {
+            inserts.clear();
+            resolvingInserts.clear();
+            updates.clear();
+        }
+    }
+
+    /**
+     * Writes the rows in one JDBC batch. If the batch fails, the rows are retried one by one
+     * so a single bad row only loses its own history.
+     */
+    private void write(String sql, List<Object[]> rows, String kind) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(sql, rows);
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} job history {}(s) in one batch, retrying them one by one", rows.size(), kind, e);
+        }
+        for (Object[] row : rows) {
+            try {
+                jdbcTemplate.update(sql, row);
+            } catch (RuntimeException e) {
+                log.error("Failed to write job history {} of execution {}", kind, kind.equals("start") ? row[0] : row[row.length - 1], e);
+            }
+        }
+    }
+
+    private static Timestamp timestamp(OffsetDateTime time) {
+        return time != null ? Timestamp.from(time.toInstant()) : null;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        flush();
+        log.info("Job history writer stopped");
+    }
+
+    private sealed interface Event permits Started, Finished {}
+
+    private record Started(long id, String jobId, String name, String group, OffsetDateTime startedAt) implements Event {}
+
+    private record Finished(long id, OffsetDateTime finishedAt, String outcome, String message) implements Event {}
+}
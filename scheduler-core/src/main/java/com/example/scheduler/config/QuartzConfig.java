@@ -1,17 +1,30 @@
 // scheduler/src/main/java/com/example/scheduler/config/QuartzConfig.java
 package com.example.scheduler.config;
 
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
 import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Properties;
+
 @Configuration
 public class QuartzConfig {
 
   private final JobHistoryListener historyListener;
+  private final JobConcurrencyLimiter concurrencyLimiter;
+  private final JobChainListener chainListener;
+  private final JobConcurrencyProperties concurrencyProperties;
+  private final QuartzProperties quartzProperties;
 
-  public QuartzConfig(JobHistoryListener historyListener) {
+  public QuartzConfig(JobHistoryListener historyListener, JobConcurrencyLimiter concurrencyLimiter,
+                      JobChainListener chainListener, JobConcurrencyProperties concurrencyProperties,
+                      QuartzProperties quartzProperties) {
     this.historyListener = historyListener;
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.chainListener = chainListener;
+    this.concurrencyProperties = concurrencyProperties;
+    this.quartzProperties = quartzProperties;
   }
 
   // ✅ Don’t define a @Bean SchedulerFactoryBean.
@@ -21,7 +34,18 @@ public class QuartzConfig {
     return factory -> {
       factory.setOverwriteExistingJobs(true);
       factory.setWaitForJobsToCompleteOnShutdown(true);
-      factory.setGlobalJobListeners(historyListener);
+      // The limiter goes first, so history records when a job actually starts running;
+      // chaining goes last, so downstream jobs fire after the upstream's history is queued
+      factory.setGlobalJobListeners(concurrencyLimiter, historyListener, chainListener);
+      if (concurrencyProperties.isVirtualThreads()) {
+        // Replaces the properties Boot already set, so start from the same spring.quartz.properties
+        Properties properties = new Properties();
+        properties.putAll(quartzProperties.getProperties());
+        properties.setProperty("org.quartz.threadPool.class", VirtualThreadPool.class.getName());
+        // threadCount sizes the fixed pool, so the virtual pool gets its own cap
+        properties.setProperty("org.quartz.threadPool.threadCount", String.valueOf(concurrencyProperties.getMaxConcurrentJobs()));
+        factory.setQuartzProperties(properties);
+      }
       // If you need DI in Job classes, also set a Spring-aware JobFactory here.
       // factory.setJobFactory(autowiringJobFactory);
     };
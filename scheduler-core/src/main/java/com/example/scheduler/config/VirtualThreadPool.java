@@ -0,0 +1,175 @@
+package com.example.scheduler.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Quartz thread pool that runs every job on its own virtual thread. Jobs that block on I/O
+ * park their virtual thread instead of holding one of a few platform threads, so
+ * {@code threadCount} only caps how many jobs run at once and can be set far higher than a
+ * fixed pool allows. Per-job-type limits are applied by {@link JobConcurrencyLimiter}; a permit
+ * it grants is released here when the job's thread finishes.
+ * <p>
+ * Quartz creates the pool from {@code org.quartz.threadPool.*} properties, so it is not a
+ * Spring bean. The number of running job threads is published as the
+ * {@code scheduler.threads.active} gauge on the global meter registry, which Spring Boot links
+ * to the application's registries.
+ */
+public class VirtualThreadPool implements ThreadPool {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    private final Object lock = new Object();
+    private int threadCount = 1000;
+    private String threadNamePrefix;
+    private String schedulerName = "scheduler";
+    private ThreadFactory threadFactory;
+    private Gauge activeGauge;
+    private int active;
+    private boolean shutdown;
+
+    @Override
+    public void initialize() throws SchedulerConfigException {
+        if (threadCount < 1) {
+            throw new SchedulerConfigException("threadCount must be positive");
+        }
+        String prefix = threadNamePrefix != null ? threadNamePrefix : schedulerName + "-vt-";
+        threadFactory = Thread.ofVirtual().name(prefix, 1).factory();
+        activeGauge = Gauge.builder("scheduler.threads.active", this, VirtualThreadPool::getActiveCount)
+                .description("Virtual threads currently running Quartz jobs")
+                .tag("scheduler", schedulerName)
+                .register(Metrics.globalRegistry);
+        log.info("Quartz virtual thread pool initialized, at most {} concurrent jobs", threadCount);
+    }
+
+    /**
+     * Starts the job on a new virtual thread, waiting while {@code threadCount} jobs are running.
+     *
+     * @return false if the pool has been shut down
+     */
+    @Override
+    public boolean runInThread(Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+        synchronized (lock) {
+            while (active >= threadCount && !shutdown) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (shutdown) {
+                return false;
+            }
+            active++;
+        }
+        try {
+            threadFactory.newThread(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    JobConcurrencyLimiter.releaseHeldPermit();
+                    finished();
+                }
+            }).start();
+        } catch (RuntimeException | Error e) {
+            finished();
+            throw e;
+        }
+        return true;
+    }
+
+    private void finished() {
+        synchronized (lock) {
+            active--;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        synchronized (lock) {
+            while (active >= threadCount && !shutdown) {
+                try {
+                    lock.wait(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return shutdown ? 0 : Math.max(0, threadCount - active);
+        }
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+            while (waitForJobsToComplete && active > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (activeGauge != null) {
+            Metrics.globalRegistry.remove(activeGauge);
+        }
+        log.info("Quartz virtual thread pool shut down");
+    }
+
+    /**
+     * @return number of jobs running right now
+     */
+    public int getActiveCount() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        return threadCount;
+    }
+
+    /**
+     * Maximum number of jobs running at once, from {@code org.quartz.threadPool.threadCount},
+     * which {@link QuartzConfig} sets from {@code scheduler.concurrency.maxConcurrentJobs}.
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /** Name prefix of the job threads, from {@code org.quartz.threadPool.threadNamePrefix}. */
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    @Override
+    public void setInstanceId(String schedInstId) {
+    }
+
+    @Override
+    public void setInstanceName(String schedName) {
+        this.schedulerName = schedName;
+    }
+}
@@ -2,13 +2,19 @@ package com.example.scheduler.jobs;
 
 import com.example.employee.config.EmployeeCsvExtractProperties;
 import com.example.employee.service.EmployeeExtractService;
+import com.example.scheduler.config.JobChainListener;
 import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Quartz job that runs the employee CSV extract. A run fired by a job chain extracts the same
+ * data as one fired by cron; the batch ids it was handed are only logged.
+ */
 @Component
 @DisallowConcurrentExecution
 public class EmployeeCsvExtractJob implements Job {
@@ -22,7 +28,7 @@ public class EmployeeCsvExtractJob implements Job {
     }
 
     @Override
-    public void execute(JobExecutionContext context) {
+    public void execute(JobExecutionContext context) throws JobExecutionException {
         String jobName = context.getJobDetail().getKey().getName();
         String jobGroup = context.getJobDetail().getKey().getGroup();
         
@@ -32,8 +38,15 @@ public class EmployeeCsvExtractJob implements Job {
             return;
         }
         
-        log.info("Starting Employee CSV Extract Job: {} - {}", jobGroup, jobName);
-        employeeExtractService.extractToDirectory();
+        log.info("Starting Employee CSV Extract Job: {} - {} (chainedFrom={}, batchIds={})", jobGroup, jobName,
+                context.getMergedJobDataMap().getString(JobChainListener.CHAINED_FROM_KEY),
+                context.getMergedJobDataMap().getString(JobChainListener.BATCH_IDS_KEY));
+        try {
+            employeeExtractService.extractToDirectory();
+        } catch (RuntimeException e) {
+            // Reported as a failure, so the job's history and failure edges of a job chain see it
+            throw new JobExecutionException(e);
+        }
         log.info("Completed Employee CSV Extract Job: {} - {}", jobGroup, jobName);
     }
 }
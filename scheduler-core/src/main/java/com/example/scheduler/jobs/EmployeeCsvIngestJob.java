@@ -1,9 +1,12 @@
 package com.example.scheduler.jobs;
 
 import com.example.employee.config.EmployeeCsvIngestProperties;
+import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.service.EmployeeDeltaService;
 import com.example.employee.service.EmployeeIngestService;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
 import org.quartz.DisallowConcurrentExecution;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
@@ -14,15 +17,18 @@ import org.slf4j.LoggerFactory;
 public class EmployeeCsvIngestJob implements Job {
     private static final Logger log = LoggerFactory.getLogger(EmployeeCsvIngestJob.class);
     private final EmployeeIngestService employeeIngestService;
+    private final EmployeeDeltaService deltaService;
     private final EmployeeCsvIngestProperties ingestProperties;
 
-    public EmployeeCsvIngestJob(EmployeeIngestService employeeIngestService, EmployeeCsvIngestProperties ingestProperties) {
+    public EmployeeCsvIngestJob(EmployeeIngestService employeeIngestService, EmployeeDeltaService deltaService,
+                                EmployeeCsvIngestProperties ingestProperties) {
         this.employeeIngestService = employeeIngestService;
+        this.deltaService = deltaService;
         this.ingestProperties = ingestProperties;
     }
 
     @Override
-    public void execute(JobExecutionContext context) {
+    public void execute(JobExecutionContext context) throws JobExecutionException {
         String jobName = context.getJobDetail().getKey().getName();
         String jobGroup = context.getJobDetail().getKey().getGroup();
         
@@ -33,7 +39,14 @@ public class EmployeeCsvIngestJob implements Job {
         }
         
         log.info("Starting Employee CSV Ingest Job: {} - {}", jobGroup, jobName);
-        employeeIngestService.ingestFromDirectory();
-        log.info("Completed Employee CSV Ingest Job: {} - {}", jobGroup, jobName);
+        String batchId = employeeIngestService.ingestFromDirectory();
+        // Handed to chained downstream jobs
+        context.setResult(batchId);
+        EmployeeIngestBatch batch = deltaService.getIngestBatch(batchId);
+        if (batch != null && batch.getStatus() == EmployeeIngestBatch.IngestStatus.FAILED) {
+            // Reported as a failure, so the job's history and failure edges of a job chain see it
+            throw new JobExecutionException("Ingest batch " + batchId + " failed: " + batch.getErrorMessage());
+        }
+        log.info("Completed Employee CSV Ingest Job: {} - {} (batchId={})", jobGroup, jobName, batchId);
     }
 }
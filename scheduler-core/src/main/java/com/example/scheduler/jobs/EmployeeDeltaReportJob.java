@@ -1,13 +1,15 @@
 package com.example.scheduler.jobs;
 
 import com.example.employee.config.EmployeeDeltaProperties;
-import com.example.employee.entity.EmployeeDelta;
-import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.report.DeltaReportWriter;
+import com.example.employee.service.EmployeeDeltaReportingService;
 import com.example.employee.service.EmployeeDeltaService;
 import com.example.common.util.CsvUtils;
+import com.example.scheduler.config.JobChainListener;
 import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -18,10 +20,16 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Quartz job to generate delta reports and export them as CSV files.
+ * Quartz job to generate delta reports for every completed batch not yet reported,
+ * tracked by the reporting watermark. Batches are claimed before their reports are written,
+ * so overlapping runs never report the same batch. A run fired by a job chain reports the same
+ * batches as one fired by cron; the batch ids it was handed are only logged.
  */
 @Component
 @DisallowConcurrentExecution
@@ -29,15 +37,18 @@ public class EmployeeDeltaReportJob implements Job {
     
     private static final Logger log = LoggerFactory.getLogger(EmployeeDeltaReportJob.class);
     private final EmployeeDeltaService deltaService;
+    private final EmployeeDeltaReportingService reportingService;
     private final EmployeeDeltaProperties deltaProperties;
     
-    public EmployeeDeltaReportJob(EmployeeDeltaService deltaService, EmployeeDeltaProperties deltaProperties) {
+    public EmployeeDeltaReportJob(EmployeeDeltaService deltaService, EmployeeDeltaReportingService reportingService,
+                                  EmployeeDeltaProperties deltaProperties) {
         this.deltaService = deltaService;
+        this.reportingService = reportingService;
         this.deltaProperties = deltaProperties;
     }
     
     @Override
-    public void execute(JobExecutionContext context) {
+    public void execute(JobExecutionContext context) throws JobExecutionException {
         String jobName = context.getJobDetail().getKey().getName();
         String jobGroup = context.getJobDetail().getKey().getGroup();
         
@@ -52,27 +63,26 @@ public class EmployeeDeltaReportJob implements Job {
             return;
         }
         
-        log.info("Starting Employee Delta Report Job: {} - {}", jobGroup, jobName);
+        log.info("Starting Employee Delta Report Job: {} - {} (chainedFrom={}, batchIds={})", jobGroup, jobName,
+                context.getMergedJobDataMap().getString(JobChainListener.CHAINED_FROM_KEY),
+                context.getMergedJobDataMap().getString(JobChainListener.BATCH_IDS_KEY));
         
         try {
-            generateDeltaReports();
+            List<String> reported = generateDeltaReports(context.getFireInstanceId());
+            // Handed to chained downstream jobs
+            context.setResult(reported.isEmpty() ? null : String.join(",", reported));
             log.info("Completed Employee Delta Report Job: {} - {}", jobGroup, jobName);
         } catch (Exception e) {
             log.error("Error in Employee Delta Report Job: {} - {}", jobGroup, jobName, e);
+            // Reported as a failure, so the job's history and failure edges of a job chain see it
+            throw new JobExecutionException(e);
         }
     }
     
-    private void generateDeltaReports() throws Exception {
-        // Get the most recent batch
-        EmployeeIngestBatch recentBatch = deltaService.getMostRecentBatch();
-        if (recentBatch == null) {
-            log.info("No ingest batches found. Skipping delta report generation.");
-            return;
-        }
-        
-        String batchId = recentBatch.getBatchId();
-        log.info("Generating delta reports for batch: {}", batchId);
-        
+    /**
+     * @return the batches reported, oldest first
+     */
+    private List<String> generateDeltaReports(String runId) throws Exception {
         // Create reports directory using configuration
         String outputDirectory = deltaProperties.getReporting().getOutputDirectory();
         Path reportsDir = Paths.get(outputDirectory);
@@ -81,19 +91,66 @@ public class EmployeeDeltaReportJob implements Job {
             log.info("Created reports directory: {}", reportsDir.toAbsolutePath());
         }
         
+        // Every completed batch not reported or claimed by another run, oldest first, now claimed by this run
+        List<String> batchIds = reportingService.claimUnreportedBatchIds(runId);
+        if (batchIds.isEmpty()) {
+            log.info("No unreported batches found. Skipping delta report generation.");
+            return List.of();
+        }
+        
         // Generate timestamp for filenames
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         
+        int parallelism = Math.max(1, Math.min(deltaProperties.getReporting().getParallelBatches(), batchIds.size()));
+        log.info("Generating delta reports for {} unreported batch(es), {} at a time (runId={})", batchIds.size(), parallelism, runId);
+        
+        // Batches are submitted in order; each is marked as soon as its own reports are complete
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            Map<String, Future<?>> results = new LinkedHashMap<>();
+            for (String batchId : batchIds) {
+                results.put(batchId, executor.submit(() -> {
+                    reportBatch(runId, batchId, reportsDir, timestamp);
+                    return null;
+                }));
+            }
+            
+            int failed = 0;
+            for (Map.Entry<String, Future<?>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.error("Error generating delta reports for batch: {}", result.getKey(), e.getCause());
+                    reportingService.releaseClaim(runId, result.getKey());
+                }
+            }
+            if (failed > 0) {
+                throw new IllegalStateException(failed + " of " + batchIds.size()
+                        + " batch(es) could not be reported; they stay unreported and are retried on the next run");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        log.info("Delta reports generated successfully for {} batch(es) in directory: {}", batchIds.size(), reportsDir.toAbsolutePath());
+        return batchIds;
+    }
+    
+    private void reportBatch(String runId, String batchId, Path reportsDir, String timestamp) throws Exception {
+        log.info("Generating delta reports for batch: {}", batchId);
+        
         // Generate reports based on configuration
         if (deltaProperties.getReporting().isGenerateSummaryReports()) {
             generateSummaryReport(batchId, reportsDir, timestamp);
         }
         
+        Path manifestFile = null;
         if (deltaProperties.getReporting().isGenerateDetailedReports()) {
-            generateDetailedDeltaReports(batchId, reportsDir, timestamp);
+            manifestFile = generateDetailedDeltaReports(batchId, reportsDir, timestamp);
         }
         
-        log.info("Delta reports generated successfully for batch: {} in directory: {}", batchId, reportsDir.toAbsolutePath());
+        reportingService.markReported(runId, batchId, manifestFile != null ? manifestFile.toAbsolutePath().toString() : null);
     }
     
     private void generateSummaryReport(String batchId, Path reportsDir, String timestamp) throws Exception {
@@ -119,112 +176,22 @@ public class EmployeeDeltaReportJob implements Job {
         log.info("Generated summary report: {}", summaryFile.toAbsolutePath());
     }
     
-    private void generateDetailedDeltaReports(String batchId, Path reportsDir, String timestamp) throws Exception {
-        // Generate report for NEW employees
-        generateDeltaReport(batchId, EmployeeDelta.DeltaType.NEW, reportsDir, timestamp);
-        
-        // Generate report for UPDATED employees
-        generateDeltaReport(batchId, EmployeeDelta.DeltaType.UPDATED, reportsDir, timestamp);
-        
-        // Generate report for DELETED employees
-        generateDeltaReport(batchId, EmployeeDelta.DeltaType.DELETED, reportsDir, timestamp);
-        
-        // Generate combined report with all deltas
-        generateCombinedDeltaReport(batchId, reportsDir, timestamp);
-    }
-    
-    private void generateDeltaReport(String batchId, EmployeeDelta.DeltaType deltaType, Path reportsDir, String timestamp) throws Exception {
-        List<EmployeeDelta> deltas = deltaService.getDeltasForBatch(batchId, deltaType);
-        
-        if (deltas.isEmpty()) {
-            log.info("No {} employees found for batch: {}", deltaType, batchId);
-            return;
-        }
-        
-        // Check if we need to limit records per report
-        int maxRecords = deltaProperties.getReporting().getMaxRecordsPerReport();
-        if (maxRecords > 0 && deltas.size() > maxRecords) {
-            log.warn("Delta report for {} employees exceeds max records per report ({} > {}). Truncating to {} records.", 
-                    deltaType, deltas.size(), maxRecords, maxRecords);
-            deltas = deltas.subList(0, maxRecords);
+    private Path generateDetailedDeltaReports(String batchId, Path reportsDir, String timestamp) throws Exception {
+        // One pass over the batch's deltas feeds the NEW, UPDATED, DELETED and combined reports
+        long deltaCount;
+        DeltaReportWriter writer = new DeltaReportWriter(reportsDir, batchId, timestamp, deltaProperties.getReporting());
+        try {
+            deltaCount = deltaService.streamDeltasForBatch(batchId, writer::write);
+        } catch (RuntimeException e) {
+            // Never publish the files of a partly written batch
+            writer.abort();
+            throw e;
         }
+        writer.close();
         
-        // Convert deltas to CSV format
-        List<Map<String, String>> csvData = deltas.stream()
-                .map(this::deltaToCsvRow)
-                .collect(Collectors.toList());
-        
-        String filePrefix = deltaProperties.getReporting().getFileNamePrefix();
-        String filename = String.format("%s%s_%s_%s.csv", 
-                filePrefix, deltaType.name().toLowerCase(), batchId, timestamp);
-        Path reportFile = reportsDir.resolve(filename);
-        
-        CsvUtils.writeCsvFile(csvData, reportFile, ',');
-        log.info("Generated {} employees report: {} ({} records)", deltaType, reportFile.toAbsolutePath(), deltas.size());
-    }
-    
-    private void generateCombinedDeltaReport(String batchId, Path reportsDir, String timestamp) throws Exception {
-        List<EmployeeDelta> allDeltas = deltaService.getDeltasForBatch(batchId);
-        
-        if (allDeltas.isEmpty()) {
+        if (deltaCount == 0) {
             log.info("No deltas found for batch: {}", batchId);
-            return;
         }
-        
-        // Check if we need to limit records per report
-        int maxRecords = deltaProperties.getReporting().getMaxRecordsPerReport();
-        if (maxRecords > 0 && allDeltas.size() > maxRecords) {
-            log.warn("Combined delta report exceeds max records per report ({} > {}). Truncating to {} records.", 
-                    allDeltas.size(), maxRecords, maxRecords);
-            allDeltas = allDeltas.subList(0, maxRecords);
-        }
-        
-        // Convert all deltas to CSV format
-        List<Map<String, String>> csvData = allDeltas.stream()
-                .map(this::deltaToCsvRow)
-                .collect(Collectors.toList());
-        
-        String filePrefix = deltaProperties.getReporting().getFileNamePrefix();
-        String filename = String.format("%sall_%s_%s.csv", filePrefix, batchId, timestamp);
-        Path reportFile = reportsDir.resolve(filename);
-        
-        CsvUtils.writeCsvFile(csvData, reportFile, ',');
-        log.info("Generated combined deltas report: {} ({} records)", reportFile.toAbsolutePath(), allDeltas.size());
-    }
-    
-    private Map<String, String> deltaToCsvRow(EmployeeDelta delta) {
-        Map<String, String> row = new LinkedHashMap<>();
-        boolean includeUnchanged = deltaProperties.getReporting().isIncludeUnchangedFields();
-        
-        // Basic information - always included
-        row.put("employee_id", String.valueOf(delta.getEmployeeId()));
-        row.put("batch_id", delta.getBatchId());
-        row.put("previous_batch_id", delta.getPreviousBatchId() != null ? delta.getPreviousBatchId() : "");
-        row.put("delta_type", delta.getDeltaType().name());
-        row.put("detected_date", delta.getDetectedDate() != null ? delta.getDetectedDate().toString() : "");
-        
-        // Previous values - include based on configuration and delta type
-        if (includeUnchanged || delta.getDeltaType() == EmployeeDelta.DeltaType.UPDATED || delta.getDeltaType() == EmployeeDelta.DeltaType.DELETED) {
-            row.put("previous_name", delta.getPreviousName() != null ? delta.getPreviousName() : "");
-            row.put("previous_age", delta.getPreviousAge() != null ? String.valueOf(delta.getPreviousAge()) : "");
-            row.put("previous_status", delta.getPreviousStatus() != null ? delta.getPreviousStatus() : "");
-            row.put("previous_dob", delta.getPreviousDob() != null ? delta.getPreviousDob().toString() : "");
-        }
-        
-        // Current values - include based on configuration and delta type  
-        if (includeUnchanged || delta.getDeltaType() == EmployeeDelta.DeltaType.NEW || delta.getDeltaType() == EmployeeDelta.DeltaType.UPDATED) {
-            row.put("current_name", delta.getCurrentName() != null ? delta.getCurrentName() : "");
-            row.put("current_age", delta.getCurrentAge() != null ? String.valueOf(delta.getCurrentAge()) : "");
-            row.put("current_status", delta.getCurrentStatus() != null ? delta.getCurrentStatus() : "");
-            row.put("current_dob", delta.getCurrentDob() != null ? delta.getCurrentDob().toString() : "");
-        }
-        
-        // Change metadata - always included for UPDATED records
-        if (delta.getDeltaType() == EmployeeDelta.DeltaType.UPDATED) {
-            row.put("changed_fields", delta.getChangedFields() != null ? delta.getChangedFields() : "");
-        }
-        row.put("change_summary", delta.getChangeSummary() != null ? delta.getChangeSummary() : "");
-        
-        return row;
+        return writer.getManifestFile();
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.example.scheduler.jobs;
+
+import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.service.EmployeeDeltaRetentionService;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Quartz job that enforces delta batch retention.
+ */
+@Component
+@DisallowConcurrentExecution
+public class EmployeeDeltaRetentionJob implements Job {
+    
+    private static final Logger log = LoggerFactory.getLogger(EmployeeDeltaRetentionJob.class);
+    private final EmployeeDeltaRetentionService retentionService;
+    private final EmployeeDeltaProperties deltaProperties;
+    
+    public EmployeeDeltaRetentionJob(EmployeeDeltaRetentionService retentionService, EmployeeDeltaProperties deltaProperties) {
+        this.retentionService = retentionService;
+        this.deltaProperties = deltaProperties;
+    }
+    
+    @Override
+    public void execute(JobExecutionContext context) {
+        String jobName = context.getJobDetail().getKey().getName();
+        String jobGroup = context.getJobDetail().getKey().getGroup();
+        
+        if (!deltaProperties.isAutoCleanupEnabled()) {
+            log.info("Delta auto cleanup is disabled. Skipping Employee Delta Retention Job: {} - {}", jobGroup, jobName);
+            return;
+        }
+        
+        log.info("Starting Employee Delta Retention Job: {} - {}", jobGroup, jobName);
+        EmployeeDeltaRetentionService.RetentionResult result = retentionService.purgeExpiredBatches();
+        log.info("Completed Employee Delta Retention Job: {} - {} ({} rows purged in {} ms)",
+                jobGroup, jobName, result.getRowsPurged(), result.getDurationMillis());
+    }
+}
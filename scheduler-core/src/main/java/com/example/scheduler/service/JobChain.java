@@ -0,0 +1,79 @@
+package com.example.scheduler.service;
+
+import com.example.scheduler.config.JobChainProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The configured DAG of job types. Edges are validated at startup: both ends must be set and
+ * the edges must not form a cycle, so a chain always ends.
+ */
+@Component
+public class JobChain {
+    private final boolean enabled;
+    private final List<JobChainProperties.Edge> edges;
+    private final Map<String, List<JobChainProperties.Edge>> edgesByUpstream = new HashMap<>();
+
+    public JobChain(JobChainProperties props) {
+        this.enabled = props.isEnabled();
+        this.edges = List.copyOf(props.getEdges());
+        for (JobChainProperties.Edge edge : edges) {
+            if (edge.getUpstream() == null || edge.getUpstream().isBlank()
+                    || edge.getDownstream() == null || edge.getDownstream().isBlank()) {
+                throw new IllegalArgumentException("scheduler.chaining.edges need an upstream and a downstream job type");
+            }
+            edgesByUpstream.computeIfAbsent(edge.getUpstream(), type -> new ArrayList<>()).add(edge);
+        }
+        Set<String> done = new HashSet<>();
+        for (String jobType : edgesByUpstream.keySet()) {
+            checkAcyclic(jobType, new HashSet<>(), done);
+        }
+    }
+
+    private void checkAcyclic(String jobType, Set<String> path, Set<String> done) {
+        if (done.contains(jobType)) {
+            return;
+        }
+        if (!path.add(jobType)) {
+            throw new IllegalArgumentException("scheduler.chaining.edges form a cycle through " + jobType);
+        }
+        for (JobChainProperties.Edge edge : edgesByUpstream.getOrDefault(jobType, List.of())) {
+            checkAcyclic(edge.getDownstream(), path, done);
+        }
+        path.remove(jobType);
+        done.add(jobType);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return every edge of the DAG, in configuration order
+     */
+    public List<JobChainProperties.Edge> edges() {
+        return edges;
+    }
+
+    /**
+     * Returns the job types to fire after a job of the given type finished.
+     */
+    public List<String> downstreamOf(String jobType, boolean succeeded) {
+        if (!enabled || jobType == null) {
+            return List.of();
+        }
+        List<String> downstream = new ArrayList<>();
+        for (JobChainProperties.Edge edge : edgesByUpstream.getOrDefault(jobType, List.of())) {
+            if (edge.getWhen().matches(succeeded) && !downstream.contains(edge.getDownstream())) {
+                downstream.add(edge.getDownstream());
+            }
+        }
+        return downstream;
+    }
+}
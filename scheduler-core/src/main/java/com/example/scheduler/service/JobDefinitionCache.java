@@ -0,0 +1,139 @@
+package com.example.scheduler.service;
+
+import com.example.persistence.entity.JobDefinition;
+import com.example.persistence.repo.JobDefinitionRepo;
+import com.example.scheduler.config.JobDefinitionCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory lookup of job definitions by name and group, so job operations and firings resolve
+ * a job id without a database read. The cache is loaded at startup and updated when this node
+ * schedules a job. Changes made by other nodes are picked up by polling the job_definition
+ * version, which a database trigger bumps on every change, and reloading when it moves.
+ * <p>
+ * Cached definitions are shared and must not be modified.
+ */
+@Component
+public class JobDefinitionCache implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(JobDefinitionCache.class);
+
+    private static final String VERSION_SQL = "SELECT version FROM job_definition_version WHERE id = 1";
+
+    private final JobDefinitionRepo jobDefRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobDefinitionCacheProperties props;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-definition-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Map<Key, JobDefinition> definitions = Map.of();
+    private long version = Long.MIN_VALUE;
+
+    public JobDefinitionCache(JobDefinitionRepo jobDefRepo, JdbcTemplate jdbcTemplate, JobDefinitionCacheProperties props) {
+        this.jobDefRepo = jobDefRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.props = props;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        refresh();
+        long intervalMillis = props.getRefreshInterval().toMillis();
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh job definition cache", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Finds a job definition by name and group.
+     */
+    public Optional<JobDefinition> find(String name, String group) {
+        return Optional.ofNullable(definitions.get(new Key(name, group)));
+    }
+
+    /**
+     * Returns the id of a job definition, or null if there is none.
+     */
+    public String findId(String name, String group) {
+        JobDefinition def = definitions.get(new Key(name, group));
+        return def != null ? def.getId() : null;
+    }
+
+    /**
+     * Returns every cached job definition.
+     */
+    public Collection<JobDefinition> findAll() {
+        return definitions.values();
+    }
+
+    /**
+     * Adds a definition saved by this node. Inside a transaction it is added once the
+     * transaction commits, so a rolled back definition is never served.
+     */
+    public void put(JobDefinition def) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putNow(def);
+                }
+            });
+        } else {
+            putNow(def);
+        }
+    }
+
+    private synchronized void putNow(JobDefinition def) {
+        Map<Key, JobDefinition> updated = new HashMap<>(definitions);
+        updated.put(new Key(def.getName(), def.getGrp()), def);
+        definitions = Map.copyOf(updated);
+    }
+
+    /**
+     * Reloads every definition if the job_definition version has moved since the last load.
+     * The version is read before the definitions, so a change made during the load is picked
+     * up by the next refresh.
+     */
+    public synchronized void refresh() {
+        Long current = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+        if (current == null || current == version) {
+            return;
+        }
+        List<JobDefinition> loaded = jobDefRepo.findAll();
+        Map<Key, JobDefinition> reloaded = new HashMap<>(loaded.size() * 2);
+        for (JobDefinition def : loaded) {
+            reloaded.put(new Key(def.getName(), def.getGrp()), def);
+        }
+        definitions = Map.copyOf(reloaded);
+        version = current;
+        log.debug("Loaded {} job definitions (version {})", reloaded.size(), current);
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdownNow();
+    }
+
+    private record Key(String name, String group) {}
+}
@@ -26,11 +26,16 @@ public class JobService {
     private final Scheduler scheduler;
     private final JobDefinitionRepo jobDefRepo;
     private final JobExecutionRepo jobExecRepo;
+    private final JobDefinitionCache jobDefCache;
+    private final JobChain jobChain;
 
-    public JobService(Scheduler scheduler, JobDefinitionRepo jobDefRepo, JobExecutionRepo jobExecRepo) {
+    public JobService(Scheduler scheduler, JobDefinitionRepo jobDefRepo, JobExecutionRepo jobExecRepo,
+                      JobDefinitionCache jobDefCache, JobChain jobChain) {
         this.scheduler = scheduler;
         this.jobDefRepo = jobDefRepo;
         this.jobExecRepo = jobExecRepo;
+        this.jobDefCache = jobDefCache;
+        this.jobChain = jobChain;
     }
 
     @Transactional
@@ -45,7 +50,8 @@ public class JobService {
                         d.setPayload(req.payload());
                         return d;
                     });
-            jobDefRepo.save(def);
+            def = jobDefRepo.save(def);
+            jobDefCache.put(def);
 
             JobDetail detail = JobBuilder.newJob(resolveJobClass(req.jobType()))
                     .withIdentity(req.name(), req.group())
@@ -87,7 +93,7 @@ public class JobService {
             }
             Trigger newTrigger = buildTriggerForReschedule(name, group, req);
             scheduler.rescheduleJob(tk, newTrigger);
-            String id = jobDefRepo.findByNameAndGrp(name, group).map(JobDefinition::getId).orElse(null);
+            String id = jobDefCache.findId(name, group);
             return new JobResponse(id, name, group, "RESCHEDULED");
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid reschedule request: " + e.getMessage(), e);
@@ -104,7 +110,7 @@ public class JobService {
                 throw new NotFoundException("Job not found: %s/%s".formatted(group, name));
             }
             scheduler.pauseJob(key);
-            String id = jobDefRepo.findByNameAndGrp(name, group).map(JobDefinition::getId).orElse(null);
+            String id = jobDefCache.findId(name, group);
             return new JobResponse(id, name, group, "PAUSED");
         } catch (SchedulerException e) {
             throw new InternalServiceException("Failed to pause job %s/%s".formatted(group, name), e);
@@ -118,7 +124,7 @@ public class JobService {
                 throw new NotFoundException("Job not found: %s/%s".formatted(group, name));
             }
             scheduler.resumeJob(key);
-            String id = jobDefRepo.findByNameAndGrp(name, group).map(JobDefinition::getId).orElse(null);
+            String id = jobDefCache.findId(name, group);
             return new JobResponse(id, name, group, "RESUMED");
         } catch (SchedulerException e) {
             throw new InternalServiceException("Failed to resume job %s/%s".formatted(group, name), e);
@@ -160,7 +166,7 @@ public class JobService {
             }
         }
 
-        var id = jobDefRepo.findByNameAndGrp(name, group).map(JobDefinition::getId).orElse(null);
+        var id = jobDefCache.findId(name, group);
         return new JobDetailsResponse(id, name, group, cron, nextFireIso, status);
     }
 
@@ -195,7 +201,9 @@ public class JobService {
     }
 
     public List<JobHistoryResponse> historyByNameGroup(String name, String group) {
-        String jobId = jobDefRepo.findByNameAndGrp(name, group)
+        // A job scheduled on another node moments ago may not be cached yet
+        String jobId = jobDefCache.find(name, group)
+                .or(() -> jobDefRepo.findByNameAndGrp(name, group))
                 .map(JobDefinition::getId)
                 .orElseThrow(() -> new NotFoundException("Job not found: %s/%s".formatted(group, name)));
         return history(jobId);
@@ -206,12 +214,30 @@ public class JobService {
     return Arrays.asList(
         "PRINT_MESSAGE",
         "EMPLOYEE_CSV_INGEST",
-        "EMPLOYEE_CSV_EXTRACT"
+        "EMPLOYEE_CSV_EXTRACT",
+        "EMPLOYEE_DELTA_REPORT",
+        "EMPLOYEE_DELTA_RETENTION"
     );
     }
 
+    /**
+     * The job chain DAG: which job types fire which, and on which upstream outcome.
+     */
+    public java.util.List<Map<String, String>> chains() {
+        if (!jobChain.isEnabled()) {
+            return List.of();
+        }
+        return jobChain.edges().stream()
+                .map(e -> Map.of(
+                        "upstream", e.getUpstream(),
+                        "downstream", e.getDownstream(),
+                        "when", e.getWhen().name()
+                ))
+                .collect(Collectors.toList());
+    }
+
     public java.util.List<Map<String, String>> listJobsSimple() {
-        return jobDefRepo.findAll().stream()
+        return jobDefCache.findAll().stream()
                 .map(d -> Map.of(
                         "id", d.getId(),
                         "name", d.getName(),
@@ -227,6 +253,8 @@ public class JobService {
             case "PRINT_MESSAGE" -> PrintMessageJob.class;
             case "EMPLOYEE_CSV_INGEST" -> EmployeeCsvIngestJob.class;
             case "EMPLOYEE_CSV_EXTRACT" -> EmployeeCsvExtractJob.class;
+            case "EMPLOYEE_DELTA_REPORT" -> EmployeeDeltaReportJob.class;
+            case "EMPLOYEE_DELTA_RETENTION" -> EmployeeDeltaRetentionJob.class;
             default -> throw new IllegalArgumentException("Unknown jobType: " + jobType);
         };
     }
@@ -0,0 +1,155 @@
+package com.example.scheduler.config;
+
+import com.example.persistence.entity.JobDefinition;
+import com.example.scheduler.service.JobChain;
+import com.example.scheduler.service.JobDefinitionCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JobChainListenerTest {
+    private static final JobKey INGEST = JobKey.jobKey("ingest", "employee");
+    private static final JobKey REPORT = JobKey.jobKey("report", "employee");
+    private static final JobKey ALERT = JobKey.jobKey("alert", "ops");
+
+    private JobDefinitionCache jobDefCache;
+    private Scheduler scheduler;
+    private JobExecutionContext ctx;
+    private JobChainListener listener;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JobChainProperties props = new JobChainProperties();
+        props.setEdges(List.of(
+                edge("INGEST", "REPORT", JobChainProperties.Condition.SUCCESS),
+                edge("INGEST", "ALERT", JobChainProperties.Condition.FAILURE)));
+        jobDefCache = mock(JobDefinitionCache.class);
+        List<JobDefinition> defs = List.of(def(INGEST, "INGEST"), def(REPORT, "REPORT"), def(ALERT, "ALERT"));
+        when(jobDefCache.find("ingest", "employee")).thenReturn(Optional.of(defs.get(0)));
+        when(jobDefCache.findAll()).thenReturn(defs);
+        listener = new JobChainListener(new JobChain(props), jobDefCache);
+
+        scheduler = mock(Scheduler.class);
+        when(scheduler.checkExists(any(JobKey.class))).thenReturn(true);
+        JobDetail detail = mock(JobDetail.class);
+        when(detail.getKey()).thenReturn(INGEST);
+        ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobDetail()).thenReturn(detail);
+        when(ctx.getScheduler()).thenReturn(scheduler);
+        when(ctx.getMergedJobDataMap()).thenReturn(new JobDataMap());
+    }
+
+    @Test
+    @DisplayName("Should fire success edges with the upstream result when the job succeeded")
+    void testSucceededJobFiresSuccessEdges() throws Exception {
+        when(ctx.getResult()).thenReturn("b1");
+
+        listener.jobWasExecuted(ctx, null);
+
+        ArgumentCaptor<JobDataMap> data = ArgumentCaptor.forClass(JobDataMap.class);
+        verify(scheduler).triggerJob(eq(REPORT), data.capture());
+        verify(scheduler, never()).triggerJob(eq(ALERT), any(JobDataMap.class));
+        assertEquals("b1", data.getValue().getString(JobChainListener.BATCH_IDS_KEY));
+        assertEquals(INGEST.toString(), data.getValue().getString(JobChainListener.CHAINED_FROM_KEY));
+    }
+
+    @Test
+    @DisplayName("Should fire failure edges only when the job threw")
+    void testFailedJobFiresFailureEdges() throws Exception {
+        when(ctx.getResult()).thenReturn("b1");
+
+        listener.jobWasExecuted(ctx, new JobExecutionException("Ingest batch b1 failed"));
+
+        verify(scheduler).triggerJob(eq(ALERT), any(JobDataMap.class));
+        verify(scheduler, never()).triggerJob(eq(REPORT), any(JobDataMap.class));
+    }
+
+    @Test
+    @DisplayName("Should hand down the batch ids the job was fired with when it has no result")
+    void testPassesOnChainedBatchIds() throws Exception {
+        JobDataMap merged = new JobDataMap();
+        merged.put(JobChainListener.BATCH_IDS_KEY, "b1,b2");
+        when(ctx.getMergedJobDataMap()).thenReturn(merged);
+
+        listener.jobWasExecuted(ctx, null);
+
+        ArgumentCaptor<JobDataMap> data = ArgumentCaptor.forClass(JobDataMap.class);
+        verify(scheduler).triggerJob(eq(REPORT), data.capture());
+        assertEquals("b1,b2", data.getValue().getString(JobChainListener.BATCH_IDS_KEY));
+    }
+
+    @Test
+    @DisplayName("Should skip downstream jobs that are not scheduled")
+    void testSkipsUnscheduledDownstream() throws Exception {
+        when(scheduler.checkExists(REPORT)).thenReturn(false);
+
+        listener.jobWasExecuted(ctx, null);
+
+        verify(scheduler, never()).triggerJob(any(JobKey.class), any(JobDataMap.class));
+    }
+
+    @Test
+    @DisplayName("Should skip downstream jobs whose triggers are all paused")
+    void testSkipsPausedDownstream() throws Exception {
+        Trigger cron = trigger("report-cron");
+        Trigger manual = trigger("report-manual");
+        doReturn(List.of(cron, manual)).when(scheduler).getTriggersOfJob(REPORT);
+        when(scheduler.getTriggerState(any(TriggerKey.class))).thenReturn(Trigger.TriggerState.PAUSED);
+
+        listener.jobWasExecuted(ctx, null);
+
+        verify(scheduler, never()).triggerJob(any(JobKey.class), any(JobDataMap.class));
+    }
+
+    @Test
+    @DisplayName("Should fire downstream jobs with at least one trigger that is not paused")
+    void testFiresPartlyPausedDownstream() throws Exception {
+        Trigger cron = trigger("report-cron");
+        Trigger manual = trigger("report-manual");
+        doReturn(List.of(cron, manual)).when(scheduler).getTriggersOfJob(REPORT);
+        when(scheduler.getTriggerState(cron.getKey())).thenReturn(Trigger.TriggerState.PAUSED);
+        when(scheduler.getTriggerState(manual.getKey())).thenReturn(Trigger.TriggerState.NORMAL);
+
+        listener.jobWasExecuted(ctx, null);
+
+        verify(scheduler).triggerJob(eq(REPORT), any(JobDataMap.class));
+    }
+
+    private static Trigger trigger(String name) {
+        Trigger trigger = mock(Trigger.class);
+        when(trigger.getKey()).thenReturn(TriggerKey.triggerKey(name, "employee"));
+        return trigger;
+    }
+
+    private static JobDefinition def(JobKey key, String jobType) {
+        JobDefinition def = new JobDefinition();
+        def.setName(key.getName());
+        def.setGrp(key.getGroup());
+        def.setJobType(jobType);
+        return def;
+    }
+
+    private static JobChainProperties.Edge edge(String upstream, String downstream, JobChainProperties.Condition when) {
+        JobChainProperties.Edge edge = new JobChainProperties.Edge();
+        edge.setUpstream(upstream);
+        edge.setDownstream(downstream);
+        edge.setWhen(when);
+        return edge;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.scheduler.config;
+
+import com.example.persistence.entity.JobDefinition;
+import com.example.scheduler.service.JobDefinitionCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JobConcurrencyLimiterTest {
+    private static final String INGEST = "EMPLOYEE_CSV_INGEST";
+
+    private JobConcurrencyLimiter limiter;
+    private JobExecutionContext ctx;
+    private VirtualThreadPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JobDefinition def = new JobDefinition();
+        def.setJobType(INGEST);
+        JobDefinitionCache jobDefCache = mock(JobDefinitionCache.class);
+        when(jobDefCache.find("ingest", "employee")).thenReturn(Optional.of(def));
+        JobConcurrencyProperties props = new JobConcurrencyProperties();
+        props.setLimits(Map.of(INGEST, 1));
+        limiter = new JobConcurrencyLimiter(jobDefCache, props);
+
+        JobDetail detail = mock(JobDetail.class);
+        when(detail.getKey()).thenReturn(JobKey.jobKey("ingest", "employee"));
+        ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobDetail()).thenReturn(detail);
+
+        pool = new VirtualThreadPool();
+        pool.setThreadCount(4);
+        pool.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown(true);
+    }
+
+    @Test
+    @DisplayName("Should release the permit once when the job was executed and its thread ends")
+    void shouldReleaseOnceAfterJobWasExecuted() throws Exception {
+        runOnPool(() -> {
+            limiter.jobToBeExecuted(ctx);
+            assertEquals(0, limiter.availablePermits(INGEST));
+            limiter.jobWasExecuted(ctx, null);
+        });
+
+        assertEquals(1, limiter.availablePermits(INGEST));
+    }
+
+    @Test
+    @DisplayName("Should release the permit when the thread ends without jobWasExecuted")
+    void shouldReleaseWhenThreadEndsWithoutJobWasExecuted() throws Exception {
+        runOnPool(() -> limiter.jobToBeExecuted(ctx));
+
+        assertEquals(1, limiter.availablePermits(INGEST));
+    }
+
+    private void runOnPool(Runnable job) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(pool.runInThread(() -> {
+            try {
+                job.run();
+            } finally {
+                done.countDown();
+            }
+        }));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // The pool releases a held permit after the job's runnable returns
+        pool.shutdown(true);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.scheduler.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JobHistoryWriterTest {
+    private JdbcTemplate jdbcTemplate;
+    private JobHistoryProperties props;
+    /** Every row written, in write order, as "start" or "finish" keyed by execution id. */
+    private final List<Map.Entry<Long, String>> written = new ArrayList<>();
+    private JobHistoryWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        AtomicLong sequence = new AtomicLong();
+        when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), anyInt())).thenAnswer(inv -> {
+            int count = inv.getArgument(2);
+            return LongStream.range(0, count).mapToObj(i -> sequence.incrementAndGet()).toList();
+        });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            List<Object[]> rows = inv.getArgument(1);
+            synchronized (written) {
+                for (Object[] row : rows) {
+                    // Inserts carry the id first, updates last
+                    written.add(sql.startsWith("INSERT")
+                            ? Map.entry((Long) row[0], "start")
+                            : Map.entry((Long) row[row.length - 1], "finish"));
+                }
+            }
+            return new int[rows.size()];
+        });
+        props = new JobHistoryProperties();
+        props.setBatchSize(7);
+        props.setIdBlockSize(5);
+        props.setFlushInterval(Duration.ofMillis(5));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (writer != null) {
+            writer.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write every start before its finish when many jobs record history at once")
+    void shouldWriteStartBeforeFinish() throws Exception {
+        writer = new JobHistoryWriter(jdbcTemplate, props);
+        ExecutorService jobs = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            String jobId = i % 3 == 0 ? null : "job-" + i;
+            jobs.submit(() -> {
+                long id = writer.executionStarted(jobId, "name", "group", OffsetDateTime.now());
+                writer.executionFinished(id, OffsetDateTime.now(), "SUCCESS", null);
+            });
+        }
+        jobs.shutdown();
+        assertTrue(jobs.awaitTermination(30, TimeUnit.SECONDS));
+        writer.destroy();
+        writer = null;
+
+        assertWrittenInOrder(400);
+    }
+
+    @Test
+    @DisplayName("Should write every queued event on destroy, and events recorded after it straight away")
+    void shouldLoseNoEventsOnDestroy() throws Exception {
+        // The writer thread would not flush on its own before destroy
+        props.setBatchSize(10_000);
+        props.setFlushInterval(Duration.ofHours(1));
+        writer = new JobHistoryWriter(jdbcTemplate, props);
+        for (int i = 0; i < 50; i++) {
+            long id = writer.executionStarted("job-" + i, "name", "group", OffsetDateTime.now());
+            writer.executionFinished(id, OffsetDateTime.now(), "FAILURE", "boom");
+        }
+        long running = writer.executionStarted("job-late", "name", "group", OffsetDateTime.now());
+
+        writer.destroy();
+        writer.executionFinished(running, OffsetDateTime.now(), "SUCCESS", null);
+        writer = null;
+
+        assertWrittenInOrder(51);
+    }
+
+    @Test
+    @DisplayName("Should retry a failed batch row by row and keep the good rows")
+    void shouldRetryFailedBatchRowByRow() throws Exception {
+        props.setBatchSize(10_000);
+        props.setFlushInterval(Duration.ofHours(1));
+        writer = new JobHistoryWriter(jdbcTemplate, props);
+        doThrow(new DataIntegrityViolationException("bad row")).when(jdbcTemplate).batchUpdate(startsWith("INSERT"), anyList());
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenAnswer(inv -> {
+            Object[] row = (Object[]) inv.getRawArguments()[1];
+            if ("job-bad".equals(row[1])) {
+                throw new DataIntegrityViolationException("bad row");
+            }
+            synchronized (written) {
+                written.add(Map.entry((Long) row[0], "start"));
+            }
+            return 1;
+        });
+        long first = writer.executionStarted("job-1", "name", "group", OffsetDateTime.now());
+        writer.executionStarted("job-bad", "name", "group", OffsetDateTime.now());
+        long third = writer.executionStarted("job-3", "name", "group", OffsetDateTime.now());
+
+        writer.flush();
+
+        verify(jdbcTemplate, times(3)).update(startsWith("INSERT"), any(Object[].class));
+        assertEquals(List.of(Map.entry(first, "start"), Map.entry(third, "start")), written);
+    }
+
+    private void assertWrittenInOrder(int executions) {
+        Map<Long, Integer> startedAt = new HashMap<>();
+        Map<Long, Integer> finishedAt = new HashMap<>();
+        synchronized (written) {
+            for (int i = 0; i < written.size(); i++) {
+                Map.Entry<Long, String> row = written.get(i);
+                Map<Long, Integer> target = row.getValue().equals("start") ? startedAt : finishedAt;
+                assertNull(target.put(row.getKey(), i), "written twice: " + row);
+            }
+        }
+        assertEquals(executions, startedAt.size());
+        assertEquals(startedAt.keySet(), finishedAt.keySet());
+        for (Map.Entry<Long, Integer> finish : finishedAt.entrySet()) {
+            assertTrue(startedAt.get(finish.getKey()) < finish.getValue(),
+                    "execution " + finish.getKey() + " finished before it was started");
+        }
+    }
+}
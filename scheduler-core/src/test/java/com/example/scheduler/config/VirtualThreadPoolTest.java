@@ -0,0 +1,77 @@
+package com.example.scheduler.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPoolTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private VirtualThreadPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new VirtualThreadPool();
+        pool.setThreadCount(2);
+        pool.setInstanceName("test");
+        pool.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        pool.shutdown(false);
+    }
+
+    @Test
+    @DisplayName("Should block runInThread while threadCount jobs are running")
+    void shouldBlockAtThreadCount() throws Exception {
+        assertTrue(pool.runInThread(this::awaitRelease));
+        assertTrue(pool.runInThread(this::awaitRelease));
+        assertEquals(2, pool.getActiveCount());
+
+        CompletableFuture<Boolean> third = CompletableFuture.supplyAsync(() -> pool.runInThread(this::awaitRelease));
+        assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(third.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should wait for running jobs on shutdown when asked to, and reject new ones")
+    void shouldWaitForJobsOnShutdown() throws Exception {
+        AtomicBoolean finished = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        pool.runInThread(() -> {
+            started.countDown();
+            awaitRelease();
+            finished.set(true);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(() -> pool.shutdown(true));
+        assertThrows(TimeoutException.class, () -> shutdown.get(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        shutdown.get(5, TimeUnit.SECONDS);
+        assertTrue(finished.get());
+        assertEquals(0, pool.getActiveCount());
+        assertFalse(pool.runInThread(() -> {}));
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
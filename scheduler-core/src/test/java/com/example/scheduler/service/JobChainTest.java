@@ -0,0 +1,111 @@
+package com.example.scheduler.service;
+
+import com.example.scheduler.config.JobChainProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobChainTest {
+
+    @Test
+    @DisplayName("Should fire SUCCESS edges only after a successful run")
+    void testDownstreamOf_SuccessEdge() {
+        JobChain chain = new JobChain(props(edge("INGEST", "REPORT", JobChainProperties.Condition.SUCCESS)));
+
+        assertEquals(List.of("REPORT"), chain.downstreamOf("INGEST", true));
+        assertEquals(List.of(), chain.downstreamOf("INGEST", false));
+    }
+
+    @Test
+    @DisplayName("Should fire FAILURE edges only after a failed run")
+    void testDownstreamOf_FailureEdge() {
+        JobChain chain = new JobChain(props(edge("INGEST", "ALERT", JobChainProperties.Condition.FAILURE)));
+
+        assertEquals(List.of(), chain.downstreamOf("INGEST", true));
+        assertEquals(List.of("ALERT"), chain.downstreamOf("INGEST", false));
+    }
+
+    @Test
+    @DisplayName("Should fire ALWAYS edges whatever the outcome")
+    void testDownstreamOf_AlwaysEdge() {
+        JobChain chain = new JobChain(props(edge("INGEST", "CLEANUP", JobChainProperties.Condition.ALWAYS)));
+
+        assertEquals(List.of("CLEANUP"), chain.downstreamOf("INGEST", true));
+        assertEquals(List.of("CLEANUP"), chain.downstreamOf("INGEST", false));
+    }
+
+    @Test
+    @DisplayName("Should fire each downstream type once, in configuration order")
+    void testDownstreamOf_MixedEdges() {
+        JobChain chain = new JobChain(props(
+                edge("INGEST", "REPORT", JobChainProperties.Condition.SUCCESS),
+                edge("INGEST", "EXTRACT", JobChainProperties.Condition.ALWAYS),
+                edge("INGEST", "REPORT", JobChainProperties.Condition.ALWAYS),
+                edge("REPORT", "EXTRACT", JobChainProperties.Condition.SUCCESS)));
+
+        assertEquals(List.of("REPORT", "EXTRACT"), chain.downstreamOf("INGEST", true));
+        assertEquals(List.of("EXTRACT", "REPORT"), chain.downstreamOf("INGEST", false));
+        assertEquals(List.of(), chain.downstreamOf("EXTRACT", true));
+        assertEquals(List.of(), chain.downstreamOf(null, true));
+    }
+
+    @Test
+    @DisplayName("Should fire nothing when chaining is disabled")
+    void testDownstreamOf_Disabled() {
+        JobChainProperties props = props(edge("INGEST", "REPORT", JobChainProperties.Condition.SUCCESS));
+        props.setEnabled(false);
+
+        assertEquals(List.of(), new JobChain(props).downstreamOf("INGEST", true));
+    }
+
+    @Test
+    @DisplayName("Should reject edges that form a cycle")
+    void testRejectsCycle() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new JobChain(props(
+                edge("INGEST", "REPORT", JobChainProperties.Condition.SUCCESS),
+                edge("REPORT", "EXTRACT", JobChainProperties.Condition.SUCCESS),
+                edge("EXTRACT", "INGEST", JobChainProperties.Condition.FAILURE))));
+        assertTrue(e.getMessage().contains("cycle"), e.getMessage());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new JobChain(props(edge("INGEST", "INGEST", JobChainProperties.Condition.ALWAYS))));
+    }
+
+    @Test
+    @DisplayName("Should accept a diamond, which is not a cycle")
+    void testAcceptsDiamond() {
+        JobChain chain = new JobChain(props(
+                edge("INGEST", "REPORT", JobChainProperties.Condition.SUCCESS),
+                edge("INGEST", "EXTRACT", JobChainProperties.Condition.SUCCESS),
+                edge("REPORT", "NOTIFY", JobChainProperties.Condition.SUCCESS),
+                edge("EXTRACT", "NOTIFY", JobChainProperties.Condition.SUCCESS)));
+
+        assertEquals(4, chain.edges().size());
+    }
+
+    @Test
+    @DisplayName("Should reject edges without both ends")
+    void testRejectsBlankEnds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JobChain(props(edge("INGEST", " ", JobChainProperties.Condition.SUCCESS))));
+        assertThrows(IllegalArgumentException.class,
+                () -> new JobChain(props(edge(null, "REPORT", JobChainProperties.Condition.SUCCESS))));
+    }
+
+    private static JobChainProperties props(JobChainProperties.Edge... edges) {
+        JobChainProperties props = new JobChainProperties();
+        props.setEdges(List.of(edges));
+        return props;
+    }
+
+    private static JobChainProperties.Edge edge(String upstream, String downstream, JobChainProperties.Condition when) {
+        JobChainProperties.Edge edge = new JobChainProperties.Edge();
+        edge.setUpstream(upstream);
+        edge.setDownstream(downstream);
+        edge.setWhen(when);
+        return edge;
+    }
+}
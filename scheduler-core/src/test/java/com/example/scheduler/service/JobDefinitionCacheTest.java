@@ -0,0 +1,113 @@
+package com.example.scheduler.service;
+
+import com.example.persistence.entity.JobDefinition;
+import com.example.persistence.repo.JobDefinitionRepo;
+import com.example.scheduler.config.JobDefinitionCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JobDefinitionCacheTest {
+    private JobDefinitionRepo jobDefRepo;
+    private JdbcTemplate jdbcTemplate;
+    private JobDefinitionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jobDefRepo = mock(JobDefinitionRepo.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        cache = new JobDefinitionCache(jobDefRepo, jdbcTemplate, new JobDefinitionCacheProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.destroy();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not reload definitions while the version is unchanged")
+    void shouldNotReloadWhenVersionUnchanged() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(3L);
+        when(jobDefRepo.findAll()).thenReturn(List.of(def("id-1", "ingest", "employee")));
+
+        cache.refresh();
+        cache.refresh();
+        cache.refresh();
+
+        verify(jobDefRepo, times(1)).findAll();
+        assertEquals("id-1", cache.findId("ingest", "employee"));
+    }
+
+    @Test
+    @DisplayName("Should reload definitions when the version moves")
+    void shouldReloadWhenVersionMoves() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(3L, 4L);
+        when(jobDefRepo.findAll())
+                .thenReturn(List.of(def("id-1", "ingest", "employee")))
+                .thenReturn(List.of(def("id-2", "report", "employee")));
+
+        cache.refresh();
+        assertEquals("id-1", cache.findId("ingest", "employee"));
+        cache.refresh();
+
+        verify(jobDefRepo, times(2)).findAll();
+        assertNull(cache.findId("ingest", "employee"));
+        assertEquals("id-2", cache.findId("report", "employee"));
+        assertEquals(1, cache.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Should only serve a definition put inside a transaction once it commits")
+    void shouldApplyPutAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.put(def("id-1", "ingest", "employee"));
+
+        assertTrue(cache.find("ingest", "employee").isEmpty());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals("id-1", cache.findId("ingest", "employee"));
+    }
+
+    @Test
+    @DisplayName("Should never serve a definition put inside a transaction that rolls back")
+    void shouldDropPutOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.put(def("id-1", "ingest", "employee"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(cache.find("ingest", "employee").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should apply a put straight away outside a transaction")
+    void shouldApplyPutWithoutTransaction() {
+        cache.put(def("id-1", "ingest", "employee"));
+
+        assertEquals("id-1", cache.findId("ingest", "employee"));
+    }
+
+    private static JobDefinition def(String id, String name, String group) {
+        JobDefinition def = new JobDefinition();
+        def.setId(id);
+        def.setName(name);
+        def.setGrp(group);
+        return def;
+    }
+}
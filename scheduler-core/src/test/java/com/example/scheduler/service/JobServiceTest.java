@@ -0,0 +1,54 @@
+package com.example.scheduler.service;
+
+import com.example.persistence.entity.JobDefinition;
+import com.example.persistence.repo.JobDefinitionRepo;
+import com.example.persistence.repo.JobExecutionRepo;
+import com.example.scheduler.config.JobChainProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.quartz.Scheduler;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JobServiceTest {
+    private JobDefinitionRepo jobDefRepo;
+    private JobExecutionRepo jobExecRepo;
+    private JobDefinitionCache jobDefCache;
+    private JobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        jobDefRepo = mock(JobDefinitionRepo.class);
+        jobExecRepo = mock(JobExecutionRepo.class);
+        jobDefCache = mock(JobDefinitionCache.class);
+        jobService = new JobService(mock(Scheduler.class), jobDefRepo, jobExecRepo, jobDefCache,
+                new JobChain(new JobChainProperties()));
+    }
+
+    @Test
+    @DisplayName("Should read history of a job that is not cached yet from the repository")
+    void shouldFallBackToRepositoryOnCacheMiss() {
+        JobDefinition def = new JobDefinition();
+        def.setId("id-1");
+        when(jobDefCache.find("ingest", "employee")).thenReturn(Optional.empty());
+        when(jobDefRepo.findByNameAndGrp("ingest", "employee")).thenReturn(Optional.of(def));
+        when(jobExecRepo.findByJobIdOrderByStartedAtDesc("id-1")).thenReturn(List.of());
+
+        assertEquals(List.of(), jobService.historyByNameGroup("ingest", "employee"));
+        verify(jobExecRepo).findByJobIdOrderByStartedAtDesc("id-1");
+    }
+
+    @Test
+    @DisplayName("Should report a job missing from both the cache and the repository as not found")
+    void shouldReportUnknownJob() {
+        when(jobDefCache.find("ingest", "employee")).thenReturn(Optional.empty());
+        when(jobDefRepo.findByNameAndGrp("ingest", "employee")).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> jobService.historyByNameGroup("ingest", "employee"));
+    }
+}
@@ -32,6 +32,11 @@ public class JobController {
         return ResponseEntity.ok(service.listJobsSimple());
     }
 
+    @GetMapping("/chains")
+    public ResponseEntity<List<Map<String, String>>> chains() {
+        return ResponseEntity.ok(service.chains());
+    }
+
     @PostMapping
     public ResponseEntity<JobResponse> schedule(@Valid @RequestBody ScheduleRequest req) throws Exception {
         return ResponseEntity.ok(service.schedule(req));
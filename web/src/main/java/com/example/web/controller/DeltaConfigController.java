@@ -1,6 +1,7 @@
 package com.example.web.controller;
 
 import com.example.employee.config.EmployeeDeltaProperties;
+import com.example.employee.delta.EmployeeFieldComparator;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -75,6 +76,27 @@ public class DeltaConfigController {
             result.addWarning("batchRetentionPeriod is less than 1 day, may cause data loss");
         }
         
+        if (deltaProperties.getCleanupChunkSize() < 1) {
+            result.addError("cleanupChunkSize must be positive");
+        }
+        
+        if (deltaProperties.getDiffCache().getMaxEntries() < 0 || deltaProperties.getDiffCache().getMaxRows() < 0) {
+            result.addError("diffCache maxEntries and maxRows must not be negative");
+        }
+        
+        // Check report writing settings
+        if (deltaProperties.getReporting().getMaxRecordsPerReport() < 0) {
+            result.addError("reporting.maxRecordsPerReport must not be negative");
+        }
+        
+        if (deltaProperties.getReporting().getWriterThreads() < 1) {
+            result.addError("reporting.writerThreads must be positive");
+        }
+        
+        if (deltaProperties.getReporting().getParallelBatches() < 1) {
+            result.addError("reporting.parallelBatches must be positive");
+        }
+        
         // Check performance settings
         if (deltaProperties.getPerformance().getBatchSize() < 1) {
             result.addError("Performance batch size must be positive");
@@ -84,11 +106,24 @@ public class DeltaConfigController {
             result.addWarning("Large batch size may cause memory issues");
         }
         
+        // Check notification delivery settings
+        EmployeeDeltaProperties.Notifications notifications = deltaProperties.getNotifications();
+        if (notifications.isEnabled() && notifications.getSink() == EmployeeDeltaProperties.SinkType.WEBHOOK
+                && (notifications.getWebhookUrl() == null || notifications.getWebhookUrl().isBlank())) {
+            result.addError("notifications.webhookUrl is required for the WEBHOOK sink");
+        }
+        
         // Check if any detection types are enabled
         if (!deltaProperties.isDetectNew() && !deltaProperties.isDetectUpdated() && !deltaProperties.isDetectDeleted()) {
             result.addWarning("No delta detection types are enabled");
         }
         
+        // Check that UPDATED detection still has fields to compare
+        if (deltaProperties.isDetectUpdated()
+                && !EmployeeFieldComparator.compile(deltaProperties.getIgnoredFields()).comparesAnyField()) {
+            result.addWarning("ignoredFields excludes every compared field; UPDATED deltas will never be detected");
+        }
+        
         // Check notification settings
         if (deltaProperties.getNotifications().isEnabled() && deltaProperties.getNotifications().getRecipients().isEmpty()) {
             result.addWarning("Notifications are enabled but no recipients are configured");
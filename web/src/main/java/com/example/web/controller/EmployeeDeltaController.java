@@ -1,12 +1,26 @@
 package com.example.web.controller;
 
+import com.example.employee.delta.BatchDiff;
 import com.example.employee.entity.EmployeeDelta;
 import com.example.employee.entity.EmployeeIngestBatch;
+import com.example.employee.entity.EmployeeSnapshot;
+import com.example.employee.service.EmployeeBatchDiffService;
 import com.example.employee.service.EmployeeDeltaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriter;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for querying employee delta tracking data.
@@ -15,10 +29,23 @@ import java.util.List;
 @RequestMapping("/api/employee-deltas")
 public class EmployeeDeltaController {
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    
+    private static final String[] DIFF_CSV_HEADER = {
+        "employee_id", "delta_type", "previous_name", "previous_age", "previous_status", "previous_dob",
+        "current_name", "current_age", "current_status", "current_dob", "changed_fields"
+    };
+    
     private final EmployeeDeltaService deltaService;
+    private final EmployeeBatchDiffService diffService;
+    private final ObjectMapper objectMapper;
     
-    public EmployeeDeltaController(EmployeeDeltaService deltaService) {
+    public EmployeeDeltaController(EmployeeDeltaService deltaService, EmployeeBatchDiffService diffService,
+                                   ObjectMapper objectMapper) {
         this.deltaService = deltaService;
+        this.diffService = diffService;
+        this.objectMapper = objectMapper;
     }
     
     /**
@@ -48,6 +75,16 @@ public class EmployeeDeltaController {
         return ResponseEntity.ok(updatedEmployees);
     }
     
+    /**
+     * Get updated employees for a specific batch whose given field changed.
+     */
+    @GetMapping("/batch/{batchId}/updated/{field}")
+    public ResponseEntity<List<EmployeeDelta>> getUpdatedEmployeesForField(@PathVariable String batchId,
+                                                                           @PathVariable String field) {
+        List<EmployeeDelta> updatedEmployees = deltaService.getUpdatedDeltasForField(batchId, field);
+        return ResponseEntity.ok(updatedEmployees);
+    }
+    
     /**
      * Get deleted employees for a specific batch.
      */
@@ -57,6 +94,142 @@ public class EmployeeDeltaController {
         return ResponseEntity.ok(deletedEmployees);
     }
     
+    /**
+     * Get the state of all employees as of a specific batch.
+     */
+    @GetMapping("/batch/{batchId}/employees")
+    public ResponseEntity<List<EmployeeSnapshot>> getEmployeeStateAsOfBatch(@PathVariable String batchId) {
+        List<EmployeeSnapshot> employees = deltaService.getEmployeeStateAsOfBatch(batchId);
+        return ResponseEntity.ok(employees);
+    }
+    
+    /**
+     * Get the state of one employee as of a specific batch.
+     */
+    @GetMapping("/batch/{batchId}/employees/{employeeId}")
+    public ResponseEntity<EmployeeSnapshot> getEmployeeAsOfBatch(@PathVariable String batchId,
+                                                                 @PathVariable Long employeeId) {
+        return deltaService.getEmployeeAsOfBatch(batchId, employeeId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Check whether an employee was present in a specific batch, answered from the batch's employee id bitmap.
+     */
+    @GetMapping("/batch/{batchId}/employees/{employeeId}/present")
+    public ResponseEntity<Map<String, Object>> wasEmployeePresent(@PathVariable String batchId,
+                                                                  @PathVariable Long employeeId) {
+        if (deltaService.getIngestBatch(batchId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean present = deltaService.wasEmployeePresent(batchId, employeeId);
+        return ResponseEntity.ok(Map.of("batchId", batchId, "employeeId", employeeId, "present", present));
+    }
+    
+    /**
+     * Get the headcount of every completed batch, in batch order.
+     */
+    @GetMapping("/headcount")
+    public ResponseEntity<List<EmployeeDeltaService.BatchHeadcount>> getHeadcounts() {
+        return ResponseEntity.ok(deltaService.getHeadcounts());
+    }
+    
+    /**
+     * Stream the roster as of a specific batch, rebuilt from the nearest checkpoint and
+     * the deltas since, as newline-delimited JSON in employee ID order.
+     */
+    @GetMapping("/batch/{batchId}/roster")
+    public ResponseEntity<StreamingResponseBody> replayRosterAsOfBatch(@PathVariable String batchId) {
+        if (deltaService.getIngestBatch(batchId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Fail before the response starts streaming
+        deltaService.requireReplayable(batchId);
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            deltaService.replayEmployeeState(batchId, employee -> writeLine(buffered, employee));
+            buffered.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    
+    /**
+     * Get one employee as of a specific batch, rebuilt from the nearest checkpoint and the deltas since.
+     */
+    @GetMapping("/batch/{batchId}/roster/{employeeId}")
+    public ResponseEntity<EmployeeSnapshot> replayEmployeeAsOfBatch(@PathVariable String batchId,
+                                                                    @PathVariable Long employeeId) {
+        if (deltaService.getIngestBatch(batchId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return deltaService.replayEmployeeState(batchId, employeeId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Compare any two completed batches and stream the net changes between them in employee ID order,
+     * as newline-delimited JSON (default) or CSV.
+     */
+    @GetMapping("/diff")
+    public ResponseEntity<StreamingResponseBody> diffBatches(@RequestParam String from,
+                                                             @RequestParam String to,
+                                                             @RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Unsupported diff format: " + format + " (expected ndjson or csv)");
+        }
+        if (deltaService.getIngestBatch(from) == null || deltaService.getIngestBatch(to) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        BatchDiff diff = diffService.diff(from, to);
+        if (csv) {
+            StreamingResponseBody body = out -> writeDiffCsv(out, diff);
+            return ResponseEntity.ok().contentType(CSV)
+                    .header("Content-Disposition", "attachment; filename=\"diff_" + from + "_" + to + ".csv\"")
+                    .body(body);
+        }
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            diff.forEach(delta -> writeLine(buffered, delta));
+            buffered.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    
+    private void writeDiffCsv(OutputStream out, BatchDiff diff) throws IOException {
+        CSVWriter writer = new CSVWriter(new OutputStreamWriter(new BufferedOutputStream(out, 64 * 1024), StandardCharsets.UTF_8));
+        writer.writeNext(DIFF_CSV_HEADER, false);
+        diff.forEach(delta -> writer.writeNext(new String[]{
+            String.valueOf(delta.getEmployeeId()),
+            delta.getDeltaType().name(),
+            text(delta.getPreviousName()),
+            text(delta.getPreviousAge()),
+            text(delta.getPreviousStatus()),
+            text(delta.getPreviousDob()),
+            text(delta.getCurrentName()),
+            text(delta.getCurrentAge()),
+            text(delta.getCurrentStatus()),
+            text(delta.getCurrentDob()),
+            text(delta.getChangedFields())
+        }));
+        writer.flush();
+    }
+    
+    private static String text(Object value) {
+        return value != null ? value.toString() : "";
+    }
+    
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
     /**
      * Get delta summary for a specific batch.
      */
@@ -140,9 +313,8 @@ public class EmployeeDeltaController {
      */
     @GetMapping("/latest/summary")
     public ResponseEntity<EmployeeDeltaService.DeltaSummary> getLatestDeltaSummary() {
-        EmployeeIngestBatch batch = deltaService.getMostRecentBatch();
-        if (batch != null) {
-            EmployeeDeltaService.DeltaSummary summary = deltaService.getDeltaSummary(batch.getBatchId());
+        EmployeeDeltaService.DeltaSummary summary = deltaService.getLatestDeltaSummary();
+        if (summary != null) {
             return ResponseEntity.ok(summary);
         } else {
             return ResponseEntity.notFound().build();